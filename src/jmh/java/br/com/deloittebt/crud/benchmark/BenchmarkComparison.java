@@ -0,0 +1,105 @@
+package br.com.deloittebt.crud.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Relatório de comparação entre duas execuções JMH (formato JSON, {@code -rf json}).
+ * Para cada benchmark/parâmetros/modo presentes nas duas execuções, mostra o score
+ * antes e depois, a variação percentual, os percentis p50/p99/p999 (modo SampleTime)
+ * e a alocação por operação ({@code gc.alloc.rate.norm}, com {@code -prof gc}).
+ * Uso: {@code BenchmarkComparison <baseline.json> <candidate.json>}.
+ */
+public final class BenchmarkComparison {
+
+    private static final String[] PERCENTILES = {"50.0", "99.0", "99.9"};
+    private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: BenchmarkComparison <baseline.json> <candidate.json>");
+            System.exit(1);
+        }
+        Map<String, JsonNode> baseline = load(Path.of(args[0]));
+        Map<String, JsonNode> candidate = load(Path.of(args[1]));
+
+        System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Candidate", "Δ%");
+        for (Map.Entry<String, JsonNode> entry : candidate.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            JsonNode after = entry.getValue();
+            if (before == null) {
+                System.out.printf("%-70s %14s %14.3f %9s%n", entry.getKey(), "-", score(after), "novo");
+                continue;
+            }
+            String unit = after.path("primaryMetric").path("scoreUnit").asText();
+            System.out.printf("%-70s %14.3f %14.3f %+8.1f%%  %s%n", entry.getKey(),
+                    score(before), score(after), delta(score(before), score(after)), unit);
+
+            JsonNode beforePercentiles = before.path("primaryMetric").path("scorePercentiles");
+            JsonNode afterPercentiles = after.path("primaryMetric").path("scorePercentiles");
+            if ("sample".equals(after.path("mode").asText())) {
+                for (String percentile : PERCENTILES) {
+                    double b = beforePercentiles.path(percentile).asDouble();
+                    double a = afterPercentiles.path(percentile).asDouble();
+                    System.out.printf("%-70s %14.3f %14.3f %+8.1f%%%n", "    p" + percentile, b, a, delta(b, a));
+                }
+            }
+            JsonNode beforeAlloc = before.path("secondaryMetrics").path(ALLOCATION);
+            JsonNode afterAlloc = after.path("secondaryMetrics").path(ALLOCATION);
+            if (!beforeAlloc.isMissingNode() && !afterAlloc.isMissingNode()) {
+                double b = beforeAlloc.path("score").asDouble();
+                double a = afterAlloc.path("score").asDouble();
+                System.out.printf("%-70s %14.1f %14.1f %+8.1f%%  B/op%n", "    alocação", b, a, delta(b, a));
+            }
+        }
+    }
+
+    /**
+     * Indexa os resultados por "benchmark [parâmetros] modo".
+     */
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(shortName(result.path("benchmark").asText()));
+            JsonNode params = result.path("params");
+            if (!params.isMissingNode()) {
+                key.append(" [");
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> param = fields.next();
+                    key.append(param.getKey()).append('=').append(param.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(", ");
+                    }
+                }
+                key.append(']');
+            }
+            key.append(' ').append(result.path("mode").asText());
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static String shortName(String benchmark) {
+        int method = benchmark.lastIndexOf('.');
+        int type = benchmark.lastIndexOf('.', method - 1);
+        return benchmark.substring(type + 1);
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double delta(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+}
@@ -0,0 +1,205 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.CrudApplication;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import br.com.deloittebt.crud.service.UserImportService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Contexto Spring (sem servidor web, exceto no teste de carga) usado pelos benchmarks.
+ * Sobe a aplicação contra um H2 em memória ou em arquivo (ou, com
+ * {@code crud.storage.engine=mapped}, contra um log mapeado novo; com {@code sharded}, contra
+ * shards novos no mesmo storage), popula os usuários
+ * com a quantidade pedida pela importação em lote e expõe os limites de ID para
+ * escolher usuários existentes aleatoriamente.
+ */
+final class BenchmarkContext implements AutoCloseable {
+
+    private static final Path FILE_DB_DIR = Path.of("target", "jmh-db");
+
+    private final ConfigurableApplicationContext context;
+    private long minId;
+    private long maxId;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Sobe a aplicação e popula a tabela.
+     * @param storage "mem" ou "file".
+     * @param tableSize Quantidade de usuários gerados.
+     * @param extraProperties Propriedades adicionais (ex.: backend de cache).
+     * @return Contexto pronto para uso.
+     */
+    static BenchmarkContext start(String storage, int tableSize, Map<String, Object> extraProperties) {
+        return start(storage, tableSize, extraProperties, WebApplicationType.NONE);
+    }
+
+    /**
+     * Sobe a aplicação com o tipo de aplicação web informado e popula a tabela.
+     * @param storage "mem" ou "file".
+     * @param tableSize Quantidade de usuários gerados.
+     * @param extraProperties Propriedades adicionais (sobrepõem as padrão).
+     * @param webApplicationType {@code SERVLET} para subir o Tomcat (porta em {@link #localPort()}).
+     * @return Contexto pronto para uso.
+     */
+    static BenchmarkContext start(String storage, int tableSize, Map<String, Object> extraProperties,
+                                  WebApplicationType webApplicationType) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", datasourceUrl(storage, tableSize));
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("crud.cache.backend", "none");
+        properties.putAll(extraProperties);
+        if ("mapped".equals(properties.get("crud.storage.engine"))) {
+            properties.putIfAbsent("crud.storage.mapped.path", mappedLogPath(tableSize));
+        }
+        if ("sharded".equals(properties.get("crud.storage.engine"))) {
+            properties.putIfAbsent("crud.storage.sharded.url", shardUrl(storage, tableSize));
+        }
+
+        // Repassadas como argumentos de linha de comando para prevalecer sobre application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CrudApplication.class)
+                .web(webApplicationType)
+                .run(args);
+        BenchmarkContext benchmarkContext = new BenchmarkContext(context);
+        benchmarkContext.seed(tableSize);
+        return benchmarkContext;
+    }
+
+    /**
+     * Porta do Tomcat quando iniciado com {@code server.port=0}.
+     */
+    int localPort() {
+        return Integer.parseInt(context.getEnvironment().getRequiredProperty("local.server.port"));
+    }
+
+    /**
+     * Menor e maior ID populados.
+     */
+    long minId() {
+        return minId;
+    }
+
+    long maxId() {
+        return maxId;
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * ID aleatório dentro do intervalo populado (pode ter sido removido por outro benchmark).
+     */
+    long randomId() {
+        return ThreadLocalRandom.current().nextLong(minId, maxId + 1);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private void seed(int tableSize) {
+        StringBuilder csv = new StringBuilder(tableSize * 32);
+        for (int i = 0; i < tableSize; i++) {
+            csv.append("Usuário ").append(i).append(",usuario").append(i).append("@bench.com\n");
+        }
+        context.getBean(UserImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        refreshIdRange();
+    }
+
+    private void refreshIdRange() {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        minId = firstId(userRepository.findPage(null, true, 1));
+        maxId = firstId(userRepository.findPage(null, false, 1));
+    }
+
+    private static long firstId(List<User> users) {
+        return users.isEmpty() ? 1 : users.get(0).getId();
+    }
+
+    /**
+     * Cada fork usa um banco novo: o de memória é descartado com a JVM,
+     * o de arquivo é apagado antes de subir a aplicação.
+     */
+    private static String datasourceUrl(String storage, int tableSize) {
+        if ("mem".equals(storage)) {
+            return "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+        }
+        if (!"file".equals(storage)) {
+            throw new IllegalArgumentException("Storage desconhecido: " + storage);
+        }
+        Path base = FILE_DB_DIR.resolve("cruddb-" + tableSize);
+        try {
+            Files.createDirectories(FILE_DB_DIR);
+            try (Stream<Path> files = Files.list(FILE_DB_DIR)) {
+                for (Path file : files.filter(f -> f.getFileName().toString().startsWith(base.getFileName() + ".")).toList()) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "jdbc:h2:file:" + base.toAbsolutePath();
+    }
+
+    /**
+     * URL dos shards do motor particionado: bancos de memória ou arquivos apagados antes de subir a aplicação.
+     */
+    private static String shardUrl(String storage, int tableSize) {
+        if ("mem".equals(storage)) {
+            return "jdbc:h2:mem:bench-shard-{shard};DB_CLOSE_DELAY=-1";
+        }
+        Path dir = FILE_DB_DIR.resolve("shards-" + tableSize);
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return "jdbc:h2:file:" + dir.toAbsolutePath().resolve("shard-{shard}");
+    }
+
+    /**
+     * Log do motor mapeado, apagado antes de subir a aplicação.
+     */
+    private static String mappedLogPath(int tableSize) {
+        Path log = FILE_DB_DIR.resolve("usuarios-" + tableSize + ".log");
+        try {
+            Files.createDirectories(FILE_DB_DIR);
+            Files.deleteIfExists(log);
+            Files.deleteIfExists(log.resolveSibling(log.getFileName() + ".compact"));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return log.toAbsolutePath().toString();
+    }
+}
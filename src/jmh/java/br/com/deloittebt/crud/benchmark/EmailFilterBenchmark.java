@@ -0,0 +1,78 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Efeito do filtro de emails ({@code crud.email-filter.enabled}) nas verificações de existência:
+ * <ul>
+ *     <li>{@code create}: criação com email novo, cuja verificação de duplicidade o filtro responde
+ *     sem consultar o banco;</li>
+ *     <li>{@code findByEmailAbsent} / {@code findByEmailPresent}: busca por um email inexistente
+ *     (dispensada pelo filtro) e por um existente (sempre vai ao índice único, mais o custo do filtro).</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class EmailFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean filter;
+
+    @Param({"100000"})
+    public int tableSize;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("mem", tableSize, Map.of("crud.email-filter.enabled", String.valueOf(filter)));
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User create() {
+        long n = sequence.incrementAndGet();
+        return userService.create("Filtro " + n, "filtro" + n + "-" + System.nanoTime() + "@bench.com");
+    }
+
+    @Benchmark
+    public Optional<User> findByEmailAbsent() {
+        return userService.findByEmail("ausente" + ThreadLocalRandom.current().nextInt(tableSize) + "@bench.com");
+    }
+
+    @Benchmark
+    public Optional<User> findByEmailPresent() {
+        return userService.findByEmail("usuario" + ThreadLocalRandom.current().nextInt(tableSize) + "@bench.com");
+    }
+}
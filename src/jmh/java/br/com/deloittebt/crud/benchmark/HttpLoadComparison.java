@@ -0,0 +1,119 @@
+package br.com.deloittebt.crud.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Relatório de comparação entre execuções do {@link HttpLoadTest} ({@code relatorio.json}).
+ * Para cada taxa oferecida presente nas execuções, mostra a vazão obtida, os percentis p50/p99/p999
+ * da latência corrigida e as falhas (erros, rejeições e descartes) de cada uma, com a variação em
+ * relação à primeira; ao final, o joelho da curva de cada execução. Valores de etapas inválidas (com chegadas
+ * descartadas pelo limite de pendentes) são marcados com {@code *}.
+ * Aceita o arquivo ou o diretório da execução.
+ * Uso: {@code HttpLoadComparison <base> <candidata> [outras...]}.
+ */
+public final class HttpLoadComparison {
+
+    private static final String[][] METRICS = {
+            {"req/s", "achievedRate"}, {"p50 ms", "latency/p50"}, {"p99 ms", "latency/p99"}, {"p999 ms", "latency/p999"}};
+
+    private HttpLoadComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: HttpLoadComparison <base> <candidata> [outras...]");
+            System.exit(1);
+        }
+        List<JsonNode> reports = new ArrayList<>();
+        for (String arg : args) {
+            Path file = Path.of(arg);
+            reports.add(new ObjectMapper().readTree((Files.isDirectory(file) ? file.resolve("relatorio.json") : file).toFile()));
+        }
+        List<Map<Double, JsonNode>> steps = reports.stream().map(HttpLoadComparison::stepsByRate).toList();
+        TreeSet<Double> rates = new TreeSet<>();
+        steps.forEach(byRate -> rates.addAll(byRate.keySet()));
+
+        System.out.printf("%-22s", "Taxa / métrica");
+        reports.forEach(report -> System.out.printf(" %16s", label(report)));
+        System.out.printf(" %9s%n", "Δ%");
+        for (double rate : rates) {
+            System.out.printf("%.0f req/s%n", rate);
+            for (String[] metric : METRICS) {
+                System.out.printf("%-22s", "    " + metric[0]);
+                for (Map<Double, JsonNode> byRate : steps) {
+                    JsonNode step = byRate.get(rate);
+                    System.out.printf(" %16s", step == null ? "-"
+                            : String.format("%.2f%s", value(step, metric[1]), invalid(step) ? "*" : ""));
+                }
+                JsonNode first = steps.get(0).get(rate);
+                JsonNode last = steps.get(steps.size() - 1).get(rate);
+                System.out.println(first == null || last == null
+                        ? "" : String.format(" %+8.1f%%", delta(value(first, metric[1]), value(last, metric[1]))));
+            }
+            System.out.printf("%-22s", "    falhas");
+            for (Map<Double, JsonNode> byRate : steps) {
+                JsonNode step = byRate.get(rate);
+                System.out.printf(" %16s", step == null ? "-" : String.valueOf(step.path("errors").asLong()
+                        + step.path("rejected").asLong() + step.path("dropped").asLong()));
+            }
+            System.out.println();
+        }
+
+        if (steps.stream().flatMap(byRate -> byRate.values().stream()).anyMatch(HttpLoadComparison::invalid)) {
+            System.out.println("* etapa inválida: chegadas descartadas pelo limite de pendentes; não compare esses valores.");
+        }
+
+        System.out.println();
+        for (JsonNode report : reports) {
+            JsonNode knee = report.path("knee");
+            String description;
+            if (knee.isMissingNode() || knee.isNull()) {
+                description = "sem saturação nas taxas testadas";
+            } else if (knee.path("lastSustainedRate").isNull()) {
+                description = String.format("saturado já em %.0f req/s (%s)", knee.path("saturatedRate").asDouble(),
+                        knee.path("reason").asText());
+            } else {
+                description = String.format("joelho entre %.0f e %.0f req/s (%s)", knee.path("lastSustainedRate").asDouble(),
+                        knee.path("saturatedRate").asDouble(), knee.path("reason").asText());
+            }
+            System.out.printf("%-16s %s; SLO p99 %.1f ms%n", label(report), description, report.path("sloMillis").asDouble());
+        }
+    }
+
+    private static Map<Double, JsonNode> stepsByRate(JsonNode report) {
+        Map<Double, JsonNode> byRate = new TreeMap<>();
+        for (JsonNode step : report.path("steps")) {
+            byRate.put(step.path("targetRate").asDouble(), step);
+        }
+        return byRate;
+    }
+
+    /**
+     * Etapa com chegadas descartadas (relatórios sem o campo {@code valid} são avaliados pelos descartes).
+     */
+    private static boolean invalid(JsonNode step) {
+        return step.has("valid") ? !step.path("valid").asBoolean() : step.path("dropped").asLong() > 0;
+    }
+
+    private static double value(JsonNode step, String path) {
+        return step.at("/" + path).asDouble();
+    }
+
+    private static String label(JsonNode report) {
+        return report.path("label").asText();
+    }
+
+    private static double delta(double before, double after) {
+        return before == 0 ? 0 : (after - before) / before * 100;
+    }
+}
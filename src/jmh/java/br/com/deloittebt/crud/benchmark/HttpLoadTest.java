@@ -0,0 +1,697 @@
+package br.com.deloittebt.crud.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga ponta a ponta: sobe o jar empacotado (Tomcat, {@code HomeController}, Thymeleaf,
+ * Hibernate e H2 em arquivo num diretório temporário), popula a base pela importação CSV com dados
+ * gerados a partir de uma semente e aplica uma sequência de taxas de chegada em modelo aberto, com uma
+ * mistura configurável de operações sobre {@code /}, {@code /buscar}, {@code /editar/{id}},
+ * {@code /salvar} (criação e edição) e {@code /excluir/{id}}.
+ * <p>
+ * O instante de cada requisição é sorteado antes do envio (chegadas constantes ou de Poisson) e nunca
+ * espera pela resposta das anteriores; a latência é medida a partir desse instante planejado, e não do
+ * envio efetivo, e registrada em HdrHistogram. Assim a fila que se forma quando o servidor satura entra
+ * nos percentis (sem a omissão coordenada de um cliente em laço fechado); o tempo de serviço, medido do
+ * envio efetivo, é mostrado ao lado para comparação. Chegadas descartadas pelo limite de pendentes entram
+ * nos percentis com a latência do timeout da requisição, e a etapa que descartou alguma é marcada como inválida.
+ * <p>
+ * Ao final mostra, por taxa, a vazão obtida, os percentis e as falhas, e aponta o joelho da curva: a
+ * primeira taxa inválida ou em que a vazão deixa de acompanhar a oferecida, as falhas passam de 1% ou o p99 estoura
+ * o SLO (por padrão, 5× o p99 da menor taxa). Grava em {@code <saida>/<rotulo>} o relatório em JSON
+ * (comparável com {@link HttpLoadComparison}), a distribuição de percentis de cada taxa ({@code .hgrm})
+ * e o log da aplicação. Requer {@code mvn package} antes.
+ * <p>
+ * Uso: {@code HttpLoadTest [chave=valor ...]}, com as chaves:
+ * <ul>
+ *     <li>{@code taxas}: requisições por segundo de cada etapa, em ordem (padrão 25,50,100,200,400);</li>
+ *     <li>{@code duracao} / {@code aquecimento}: duração de cada etapa e do aquecimento na menor taxa (30s / 15s);</li>
+ *     <li>{@code usuarios}: tamanho da base populada (10000);</li>
+ *     <li>{@code mistura}: {@code navegacao}, {@code leitura}, {@code cadastro} ou pesos explícitos,
+ *     ex. {@code home=30,buscar=50,excluir=20} (padrão navegacao);</li>
+ *     <li>{@code chegada}: {@code poisson} ou {@code constante} (poisson);</li>
+ *     <li>{@code semente}: semente da base, das chegadas e das operações (42);</li>
+ *     <li>{@code slo}: p99 máximo em ms para o joelho (padrão relativo à menor taxa);</li>
+ *     <li>{@code pendentes}: requisições em andamento acima das quais novas chegadas são descartadas (10000);</li>
+ *     <li>{@code rotulo}, {@code saida}, {@code jar}: nome da execução, diretório dos resultados e jar testado
+ *     (carga, target/http-load, target/crud-1.0-SNAPSHOT.jar);</li>
+ *     <li>{@code jvm}: opções da JVM da aplicação, separadas por vírgula (-Xmx1g);</li>
+ *     <li>{@code app.<propriedade>}: propriedade repassada à aplicação, ex. {@code app.crud.write-behind.enabled=true}.</li>
+ * </ul>
+ */
+public final class HttpLoadTest {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Duration SEED_TIMEOUT = Duration.ofMinutes(10);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final long DROPPED_MICROS = REQUEST_TIMEOUT.toNanos() / 1000;
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double SATURATION_RATIO = 0.95;
+    private static final double FAILURE_RATIO = 0.01;
+    private static final double RELATIVE_SLO = 5;
+
+    private static final Map<String, String> MIXES = Map.of(
+            "navegacao", "home=30,buscar=35,editar=15,criar=8,atualizar=8,excluir=4",
+            "leitura", "home=40,buscar=50,editar=10",
+            "cadastro", "home=15,buscar=15,editar=20,criar=25,atualizar=20,excluir=5");
+    private static final Set<String> KEYS = Set.of("taxas", "duracao", "aquecimento", "usuarios", "mistura",
+            "chegada", "semente", "slo", "pendentes", "rotulo", "saida", "jar", "jvm");
+    private static final String[] FIRST_NAMES = {"Ana", "Bruno", "Carla", "Diego", "Elisa", "Fábio", "Gabriela",
+            "Heitor", "Isabela", "João", "Larissa", "Marcos", "Natália", "Otávio", "Paula", "Rafael", "Sofia",
+            "Tiago", "Vitória", "William"};
+    private static final String[] LAST_NAMES = {"Almeida", "Barbosa", "Cardoso", "Duarte", "Ferreira", "Gomes",
+            "Lima", "Martins", "Nogueira", "Oliveira", "Pereira", "Ribeiro", "Santos", "Teixeira", "Vieira"};
+    private static final int DOMAINS = 50;
+
+    private HttpLoadTest() {
+    }
+
+    /**
+     * Operações da mistura, com a chave usada nos pesos e no relatório.
+     */
+    private enum Operation {
+        HOME, BUSCAR, EDITAR, CRIAR, ATUALIZAR, EXCLUIR;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Parâmetros da execução, já validados.
+     */
+    private record Options(double[] rates, Duration duration, Duration warmup, int users, String mixName,
+                           double[] mix, boolean poisson, long seed, Double sloMillis, int maxPending,
+                           String label, Path output, Path jar, List<String> jvmArgs, List<String> appArgs,
+                           Map<String, String> raw) {
+
+        static Options parse(String[] args) {
+            Map<String, String> raw = new TreeMap<>();
+            List<String> appArgs = new ArrayList<>();
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                if (separator <= 0) {
+                    throw new IllegalArgumentException("Argumento deve ter a forma chave=valor: " + arg);
+                }
+                String key = arg.substring(0, separator);
+                String value = arg.substring(separator + 1);
+                if (key.startsWith("app.")) {
+                    appArgs.add("--" + key.substring(4) + "=" + value);
+                } else if (!KEYS.contains(key)) {
+                    throw new IllegalArgumentException("Chave desconhecida: " + key + " (aceitas: "
+                            + String.join(", ", new TreeSet<>(KEYS)) + " e app.<propriedade>).");
+                }
+                raw.put(key, value);
+            }
+            double[] rates = Arrays.stream(raw.getOrDefault("taxas", "25,50,100,200,400").split(","))
+                    .map(String::trim)
+                    .mapToDouble(Double::parseDouble)
+                    .toArray();
+            if (rates.length == 0 || Arrays.stream(rates).anyMatch(rate -> rate <= 0)) {
+                throw new IllegalArgumentException("Taxas devem ser positivas.");
+            }
+            String mixName = raw.getOrDefault("mistura", "navegacao");
+            String arrival = raw.getOrDefault("chegada", "poisson");
+            if (!"poisson".equals(arrival) && !"constante".equals(arrival)) {
+                throw new IllegalArgumentException("Chegada deve ser poisson ou constante.");
+            }
+            int users = Integer.parseInt(raw.getOrDefault("usuarios", "10000"));
+            if (users < 2) {
+                throw new IllegalArgumentException("A base deve ter ao menos 2 usuários.");
+            }
+            return new Options(rates,
+                    DurationStyle.detectAndParse(raw.getOrDefault("duracao", "30s")),
+                    DurationStyle.detectAndParse(raw.getOrDefault("aquecimento", "15s")),
+                    users, mixName, parseMix(MIXES.getOrDefault(mixName, mixName)), "poisson".equals(arrival),
+                    Long.parseLong(raw.getOrDefault("semente", "42")),
+                    raw.containsKey("slo") ? Double.valueOf(raw.get("slo")) : null,
+                    Integer.parseInt(raw.getOrDefault("pendentes", "10000")),
+                    raw.getOrDefault("rotulo", "carga"),
+                    Path.of(raw.getOrDefault("saida", "target/http-load")),
+                    Path.of(raw.getOrDefault("jar", "target/crud-1.0-SNAPSHOT.jar")),
+                    Arrays.stream(raw.getOrDefault("jvm", "-Xmx1g").split(",")).filter(s -> !s.isBlank()).toList(),
+                    List.copyOf(appArgs), raw);
+        }
+
+        /**
+         * Pesos por operação, normalizados e acumulados para o sorteio.
+         */
+        static double[] parseMix(String spec) {
+            double[] weights = new double[Operation.values().length];
+            for (String entry : spec.split(",")) {
+                String[] parts = entry.trim().split("=");
+                if (parts.length != 2) {
+                    throw new IllegalArgumentException("Mistura inválida: " + spec
+                            + " (use " + String.join(", ", new TreeMap<>(MIXES).keySet()) + " ou operacao=peso,...).");
+                }
+                Operation operation = Arrays.stream(Operation.values())
+                        .filter(candidate -> candidate.key().equals(parts[0].trim()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Operação desconhecida na mistura: " + parts[0]));
+                weights[operation.ordinal()] = Double.parseDouble(parts[1].trim());
+            }
+            double total = Arrays.stream(weights).sum();
+            if (total <= 0 || Arrays.stream(weights).anyMatch(weight -> weight < 0)) {
+                throw new IllegalArgumentException("Pesos da mistura devem ser não negativos, com soma positiva.");
+            }
+            double[] cumulative = new double[weights.length];
+            double sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                sum += weights[i] / total;
+                cumulative[i] = sum;
+            }
+            return cumulative;
+        }
+
+        double share(Operation operation) {
+            int i = operation.ordinal();
+            return mix[i] - (i == 0 ? 0 : mix[i - 1]);
+        }
+
+        Operation pick(Random random) {
+            double draw = random.nextDouble();
+            for (int i = 0; i < mix.length; i++) {
+                if (draw < mix[i]) {
+                    return Operation.values()[i];
+                }
+            }
+            // Arredondamento da soma acumulada: a última operação com peso
+            for (int i = mix.length - 1; ; i--) {
+                if (share(Operation.values()[i]) > 0) {
+                    return Operation.values()[i];
+                }
+            }
+        }
+
+        double nextInterval(Random random, double rate) {
+            double mean = 1e9 / rate;
+            return poisson ? -Math.log(1 - random.nextDouble()) * mean : mean;
+        }
+    }
+
+    /**
+     * Usuários populados: os estáveis são lidos e editados; os descartáveis, consumidos pelas exclusões.
+     */
+    private record Dataset(long[] ids, String[] emails, long[] disposable, AtomicInteger nextDisposable) {
+    }
+
+    /**
+     * Percentis (ms) de uma distribuição de latências.
+     */
+    public record Latency(long count, double p50, double p90, double p99, double p999, double max) {
+
+        static Latency of(Histogram histogram) {
+            double[] values = new double[PERCENTILES.length];
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                values[i] = histogram.getValueAtPercentile(PERCENTILES[i]) / 1000.0;
+            }
+            return new Latency(histogram.getTotalCount(), values[0], values[1], values[2], values[3],
+                    histogram.getMaxValue() / 1000.0);
+        }
+    }
+
+    /**
+     * Resultado de uma etapa (uma taxa oferecida).
+     * @param targetRate taxa configurada (req/s)
+     * @param offeredRate requisições enviadas por segundo (com chegadas de Poisson, varia em torno da configurada)
+     * @param achievedRate respostas por segundo, até a última resposta (sem as chegadas descartadas)
+     * @param requests requisições enviadas
+     * @param errors respostas 4xx/5xx (exceto rejeições) e falhas de conexão ou timeout
+     * @param rejected respostas 429 e 503 (controle de admissão)
+     * @param dropped chegadas descartadas pelo limite de pendentes
+     * @param valid false se houve descartes: o gerador não sustentou a taxa e a medição não a representa
+     * @param latency latência desde o instante planejado (corrigida da omissão coordenada), com as chegadas
+     *                descartadas registradas no timeout da requisição
+     * @param serviceTime latência desde o envio efetivo
+     * @param operations latência corrigida por operação
+     */
+    public record Step(double targetRate, double offeredRate, double achievedRate, long requests, long errors, long rejected,
+                       long dropped, boolean valid, Latency latency, Latency serviceTime, Map<String, Latency> operations) {
+
+        double failureRatio() {
+            return requests == 0 ? 0 : (double) (errors + rejected + dropped) / requests;
+        }
+    }
+
+    /**
+     * Joelho da curva vazão x latência.
+     * @param lastSustainedRate maior taxa antes da saturação (nula se a primeira já saturou)
+     * @param saturatedRate primeira taxa saturada
+     * @param reason critério que caracterizou a saturação
+     */
+    public record Knee(Double lastSustainedRate, double saturatedRate, String reason) {
+    }
+
+    /**
+     * Relatório gravado em JSON.
+     */
+    public record Report(String label, String startedAt, int cpus, String javaVersion, Map<String, String> options,
+                         double sloMillis, List<Step> steps, Knee knee) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        if (!Files.exists(options.jar())) {
+            throw new IllegalStateException("Jar não encontrado: " + options.jar() + " (rode mvn package).");
+        }
+        Path runDir = options.output().resolve(options.label());
+        Files.createDirectories(runDir);
+        Path dataDir = Files.createTempDirectory("crud-http-load");
+        int port = freePort();
+        String baseUrl = "http://localhost:" + port;
+        Process app = start(options, port, dataDir, runDir.resolve("app.log"));
+        String startedAt = Instant.now().toString();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(clients)
+                    .build();
+            awaitReady(httpClient, app, baseUrl);
+            Dataset dataset = seed(httpClient, baseUrl, options);
+            Random random = new Random(options.seed());
+            AtomicLong sequence = new AtomicLong();
+
+            System.out.printf("[aquecimento] %.0f req/s por %s...%n", options.rates()[0], options.warmup());
+            runStep(httpClient, clients, baseUrl, options, dataset, random, sequence, options.rates()[0], options.warmup());
+
+            List<Step> steps = new ArrayList<>();
+            for (double rate : options.rates()) {
+                System.out.printf("[etapa] %.0f req/s por %s...%n", rate, options.duration());
+                Measured measured = runStep(httpClient, clients, baseUrl, options, dataset, random, sequence,
+                        rate, options.duration());
+                try (PrintStream out = new PrintStream(Files.newOutputStream(
+                        runDir.resolve(String.format(Locale.ROOT, "%.0f.hgrm", rate))), false, StandardCharsets.UTF_8)) {
+                    measured.total().outputPercentileDistribution(out, 1000.0);
+                }
+                steps.add(measured.step());
+                if (!app.isAlive()) {
+                    throw new IllegalStateException("A aplicação terminou com código " + app.exitValue()
+                            + " (ver " + runDir.resolve("app.log") + ").");
+                }
+            }
+
+            // Com descartes na menor taxa, o p99 corrigido é o timeout: a referência passa a ser o tempo de serviço
+            Step lowest = steps.get(0);
+            double slo = options.sloMillis() != null ? options.sloMillis()
+                    : RELATIVE_SLO * (lowest.valid() ? lowest.latency() : lowest.serviceTime()).p99();
+            Report report = new Report(options.label(), startedAt, Runtime.getRuntime().availableProcessors(),
+                    Runtime.version().toString(), options.raw(), slo, steps, knee(steps, slo));
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(runDir.resolve("relatorio.json").toFile(), report);
+            print(report, options);
+            System.out.printf("%nResultados em %s%n", runDir.toAbsolutePath());
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly().waitFor();
+            }
+            deleteRecursively(dataDir);
+        }
+    }
+
+    private static Process start(Options options, int port, Path dataDir, Path log) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(options.jvmArgs());
+        command.addAll(List.of("-jar", options.jar().toString(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:file:" + dataDir.toAbsolutePath().resolve("cruddb")));
+        command.addAll(options.appArgs());
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        // Entrada fechada: o menu do console termina e só o servidor web continua
+        process.getOutputStream().close();
+        return process;
+    }
+
+    private static void awaitReady(HttpClient httpClient, Process app, String baseUrl) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/")).timeout(Duration.ofSeconds(5)).GET().build();
+        long begin = System.nanoTime();
+        while (true) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("A aplicação terminou com código " + app.exitValue() + " durante a inicialização.");
+            }
+            if (System.nanoTime() - begin > STARTUP_TIMEOUT.toNanos()) {
+                throw new IllegalStateException("Aplicação sem resposta em " + STARTUP_TIMEOUT);
+            }
+            try {
+                if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    System.out.printf("[aplicação] pronta em %d ms%n", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+                    return;
+                }
+            } catch (IOException e) {
+                // Servidor ainda não está ouvindo
+            }
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+    }
+
+    /**
+     * Popula a base pelo {@code /importar} e lê os IDs gerados pelo {@code /exportar}. A parte reservada às
+     * exclusões cobre as esperadas em todas as etapas (com folga para a variação das chegadas de Poisson).
+     */
+    private static Dataset seed(HttpClient httpClient, String baseUrl, Options options) throws Exception {
+        Random random = new Random(options.seed());
+        StringBuilder csv = new StringBuilder(options.users() * 48);
+        for (int i = 0; i < options.users(); i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            csv.append(first).append(' ').append(last).append(',')
+                    .append(ascii(first)).append('.').append(ascii(last))
+                    .append('.').append(i).append("@dominio").append(random.nextInt(DOMAINS)).append(".com\n");
+        }
+        String boundary = "carga" + Long.toHexString(random.nextLong());
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"arquivo\"; filename=\"usuarios.csv\"\r\n"
+                + "Content-Type: text/csv\r\n\r\n"
+                + csv + "\r\n--" + boundary + "--\r\n";
+        long begin = System.nanoTime();
+        HttpResponse<Void> imported = httpClient.send(HttpRequest.newBuilder(URI.create(baseUrl + "/importar"))
+                .timeout(SEED_TIMEOUT)
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        if (imported.statusCode() != 200) {
+            throw new IllegalStateException("Importação da base respondeu " + imported.statusCode());
+        }
+        HttpResponse<Stream<String>> exported = httpClient.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/exportar?formato=csv")).timeout(SEED_TIMEOUT).GET().build(),
+                HttpResponse.BodyHandlers.ofLines());
+        List<Long> seededIds = new ArrayList<>();
+        List<String> emails = new ArrayList<>();
+        try (Stream<String> lines = exported.body()) {
+            lines.skip(1).filter(line -> !line.isBlank()).forEach(line -> {
+                String[] columns = line.split(",");
+                seededIds.add(Long.parseLong(columns[0]));
+                emails.add(columns[columns.length - 1].replace("\"", ""));
+            });
+        }
+        if (seededIds.size() < options.users()) {
+            throw new IllegalStateException("Base com " + seededIds.size() + " usuários, esperados " + options.users()
+                    + " (ver o log da aplicação).");
+        }
+        System.out.printf("[base] %d usuários em %d ms%n", seededIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+
+        Integer[] order = new Integer[seededIds.size()];
+        Arrays.setAll(order, i -> i);
+        Collections.shuffle(Arrays.asList(order), random);
+        double seconds = options.warmup().toMillis() / 1000.0 * options.rates()[0]
+                + options.duration().toMillis() / 1000.0 * Arrays.stream(options.rates()).sum();
+        double expectedDeletes = seconds * options.share(Operation.EXCLUIR);
+        int reserved = expectedDeletes == 0 ? 0 : (int) Math.ceil(expectedDeletes * 1.1 + 100);
+        if (reserved > order.length / 2) {
+            throw new IllegalArgumentException("Base pequena demais para as exclusões previstas (" + reserved
+                    + "): aumente usuarios (metade da base no máximo é reservada) ou reduza o peso de excluir.");
+        }
+        int stable = order.length - reserved;
+        long[] ids = new long[stable];
+        String[] stableEmails = new String[stable];
+        long[] disposable = new long[reserved];
+        for (int i = 0; i < order.length; i++) {
+            if (i < stable) {
+                ids[i] = seededIds.get(order[i]);
+                stableEmails[i] = emails.get(order[i]);
+            } else {
+                disposable[i - stable] = seededIds.get(order[i]);
+            }
+        }
+        return new Dataset(ids, stableEmails, disposable, new AtomicInteger());
+    }
+
+    /**
+     * Histograma agregado e resumo de uma etapa.
+     */
+    private record Measured(Step step, Histogram total) {
+    }
+
+    /**
+     * Envia requisições na taxa informada durante {@code duration}, sem esperar respostas, e aguarda as
+     * pendentes. Operação, usuário e instante de cada requisição são sorteados nesta thread, na ordem,
+     * para que a mesma semente gere a mesma carga.
+     */
+    private static Measured runStep(HttpClient httpClient, ExecutorService clients, String baseUrl, Options options,
+                                    Dataset dataset, Random random, AtomicLong sequence, double rate,
+                                    Duration duration) throws InterruptedException {
+        Map<Operation, Histogram> corrected = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            corrected.put(operation, new ConcurrentHistogram(HIGHEST_MICROS, 3));
+        }
+        Histogram service = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        LongAdder errors = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder responses = new LongAdder();
+        AtomicInteger pending = new AtomicInteger();
+        AtomicLong lastResponse = new AtomicLong();
+        long requests = 0;
+        long dropped = 0;
+
+        long begin = System.nanoTime();
+        long end = begin + duration.toNanos();
+        double intended = begin;
+        while (intended < end) {
+            long scheduled = (long) intended;
+            awaitNanos(scheduled);
+            Operation operation = options.pick(random);
+            HttpRequest request = request(operation, baseUrl, dataset, random, sequence);
+            intended += options.nextInterval(random, rate);
+            requests++;
+            if (pending.get() >= options.maxPending()) {
+                // Não foi enviada: conta como uma requisição que esperou até o timeout
+                corrected.get(operation).recordValue(DROPPED_MICROS);
+                dropped++;
+                continue;
+            }
+            pending.incrementAndGet();
+            clients.execute(() -> {
+                long sent = System.nanoTime();
+                try {
+                    int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status == 429 || status == 503) {
+                        rejected.increment();
+                    } else if (status >= 400) {
+                        errors.increment();
+                    }
+                } catch (IOException e) {
+                    errors.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    errors.increment();
+                } finally {
+                    long now = System.nanoTime();
+                    corrected.get(operation).recordValue(Math.min(HIGHEST_MICROS, (now - scheduled) / 1000));
+                    service.recordValue(Math.min(HIGHEST_MICROS, (now - sent) / 1000));
+                    lastResponse.accumulateAndGet(now, Math::max);
+                    responses.increment();
+                    pending.decrementAndGet();
+                }
+            });
+        }
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos() * 2;
+        while (pending.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        }
+
+        Histogram total = new Histogram(HIGHEST_MICROS, 3);
+        Map<String, Latency> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, Histogram> entry : corrected.entrySet()) {
+            if (entry.getValue().getTotalCount() > 0) {
+                total.add(entry.getValue());
+                operations.put(entry.getKey().key(), Latency.of(entry.getValue()));
+            }
+        }
+        double elapsedSeconds = (Math.max(end, lastResponse.get()) - begin) / 1e9;
+        Step step = new Step(rate, requests / (duration.toNanos() / 1e9), responses.sum() / elapsedSeconds, requests, errors.sum(), rejected.sum(),
+                dropped, dropped == 0, Latency.of(total), Latency.of(service), operations);
+        return new Measured(step, total);
+    }
+
+    private static HttpRequest request(Operation operation, String baseUrl, Dataset dataset, Random random,
+                                       AtomicLong sequence) {
+        int index = random.nextInt(dataset.ids().length);
+        long id = dataset.ids()[index];
+        return switch (operation) {
+            case HOME -> get(baseUrl + "/");
+            case BUSCAR -> get(baseUrl + "/buscar?id=" + id);
+            case EDITAR -> get(baseUrl + "/editar/" + id);
+            case CRIAR -> {
+                long n = sequence.incrementAndGet();
+                yield post(baseUrl + "/salvar", "name=" + encode("Carga " + n) + "&email=" + encode("carga." + n + "@carga.com"));
+            }
+            // Sem versão: o último a salvar vence, como no formulário de um usuário que não recarrega a página
+            case ATUALIZAR -> post(baseUrl + "/salvar", "id=" + id + "&name=" + encode("Editado " + sequence.incrementAndGet())
+                    + "&email=" + encode(dataset.emails()[index]));
+            case EXCLUIR -> {
+                int next = dataset.nextDisposable().getAndIncrement();
+                if (next >= dataset.disposable().length) {
+                    throw new IllegalStateException("Usuários reservados para exclusão esgotados.");
+                }
+                yield post(baseUrl + "/excluir/" + dataset.disposable()[next], "");
+            }
+        };
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private static HttpRequest post(String url, String form) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Espera até o instante planejado: dorme enquanto falta mais que {@link #SPIN_THRESHOLD_NANOS} e gira no resto.
+     */
+    private static void awaitNanos(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Primeira etapa saturada: inválida (com descartes), vazão abaixo de 95% da efetivamente oferecida,
+     * falhas acima de 1% ou p99 acima do SLO.
+     */
+    static Knee knee(List<Step> steps, double sloMillis) {
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            String reason = null;
+            if (!step.valid()) {
+                reason = String.format(Locale.ROOT, "etapa inválida, %d chegadas descartadas pelo limite de pendentes",
+                        step.dropped());
+            } else if (step.achievedRate() < SATURATION_RATIO * step.offeredRate()) {
+                reason = String.format(Locale.ROOT, "vazão %.1f req/s abaixo de 95%% da oferecida", step.achievedRate());
+            } else if (step.failureRatio() > FAILURE_RATIO) {
+                reason = String.format(Locale.ROOT, "%.1f%% de falhas", step.failureRatio() * 100);
+            } else if (step.latency().p99() > sloMillis) {
+                reason = String.format(Locale.ROOT, "p99 de %.1f ms acima do SLO de %.1f ms", step.latency().p99(), sloMillis);
+            }
+            if (reason != null) {
+                return new Knee(i == 0 ? null : steps.get(i - 1).targetRate(), step.targetRate(), reason);
+            }
+        }
+        return null;
+    }
+
+    private static void print(Report report, Options options) {
+        System.out.printf("%nCarga HTTP \"%s\": mistura=%s, chegada=%s, base=%d usuários, etapas de %s, %d CPUs%n",
+                report.label(), options.mixName(), options.poisson() ? "poisson" : "constante", options.users(),
+                options.duration(), report.cpus());
+        System.out.printf("%10s %10s %10s %9s %9s %9s %9s %9s %12s %7s %7s %7s%n", "Taxa", "oferecida", "req/s", "p50 ms", "p90 ms",
+                "p99 ms", "p999 ms", "max ms", "p99 serv. ms", "erros", "rejeit.", "descart.");
+        for (Step step : report.steps()) {
+            Latency latency = step.latency();
+            System.out.printf("%9.0f%s %10.1f %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f %7d %7d %7d%n", step.targetRate(),
+                    step.valid() ? " " : "*", step.offeredRate(), step.achievedRate(), latency.p50(), latency.p90(), latency.p99(), latency.p999(), latency.max(),
+                    step.serviceTime().p99(), step.errors(), step.rejected(), step.dropped());
+        }
+        if (report.steps().stream().anyMatch(step -> !step.valid())) {
+            System.out.printf("* etapa inválida: chegadas descartadas pelo limite de pendentes (%d), registradas com o "
+                    + "timeout de %d s; aumente pendentes ou reduza a taxa.%n", options.maxPending(), REQUEST_TIMEOUT.toSeconds());
+        }
+        System.out.printf("%nPor operação (p50 / p99 ms)%n%10s", "Taxa");
+        List<String> keys = report.steps().stream()
+                .flatMap(step -> step.operations().keySet().stream())
+                .distinct()
+                .sorted(Comparator.comparing(key -> Operation.valueOf(key.toUpperCase(Locale.ROOT))))
+                .toList();
+        keys.forEach(key -> System.out.printf(" %19s", key));
+        System.out.println();
+        for (Step step : report.steps()) {
+            System.out.printf("%10.0f", step.targetRate());
+            for (String key : keys) {
+                Latency latency = step.operations().get(key);
+                System.out.printf(" %19s", latency == null ? "-"
+                        : String.format(Locale.ROOT, "%.2f / %.2f", latency.p50(), latency.p99()));
+            }
+            System.out.println();
+        }
+        Knee knee = report.knee();
+        if (knee == null) {
+            System.out.printf("%nSem saturação até %.0f req/s (SLO p99 %.1f ms): aumente as taxas para achar o joelho.%n",
+                    report.steps().get(report.steps().size() - 1).targetRate(), report.sloMillis());
+        } else if (knee.lastSustainedRate() == null) {
+            System.out.printf("%nJá saturado na menor taxa, %.0f req/s: %s.%n", knee.saturatedRate(), knee.reason());
+        } else {
+            System.out.printf("%nJoelho entre %.0f e %.0f req/s: %s.%n", knee.lastSustainedRate(),
+                    knee.saturatedRate(), knee.reason());
+        }
+    }
+
+    private static String ascii(String value) {
+        return Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
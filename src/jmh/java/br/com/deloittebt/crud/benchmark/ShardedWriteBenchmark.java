@@ -0,0 +1,95 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import br.com.deloittebt.crud.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Escalabilidade das escritas concorrentes com a quantidade de shards ({@code crud.storage.engine=sharded}):
+ * <ul>
+ *     <li>{@code create}: criação pelo {@link UserService} (transação, verificação do email, diretório e usuário);</li>
+ *     <li>{@code saveBatch}: lote de {@link #BATCH} usuários direto no repositório, espalhado pelos shards.</li>
+ * </ul>
+ * {@code shards=0} é a referência com o motor JPA, num único banco.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(8)
+@State(Scope.Benchmark)
+public class ShardedWriteBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int shards;
+
+    @Param({"file"})
+    public String storage;
+
+    @Param({"10000"})
+    public int tableSize;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        if (shards > 0) {
+            properties.put("crud.storage.engine", "sharded");
+            properties.put("crud.storage.sharded.count", String.valueOf(shards));
+            properties.put("crud.storage.sharded.pool-size", "8");
+        }
+        context = BenchmarkContext.start(storage, tableSize, properties);
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User create() {
+        long n = sequence.incrementAndGet();
+        return userService.create("Shard " + n, "shard" + n + "@bench.com");
+    }
+
+    @Benchmark
+    public int saveBatch() {
+        List<User> users = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            long n = sequence.incrementAndGet();
+            users.add(new User("Lote " + n, "lote" + n + "@bench.com"));
+        }
+        userRepository.saveAll(users);
+        return users.size();
+    }
+}
@@ -0,0 +1,177 @@
+package br.com.deloittebt.crud.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo até a primeira requisição e memória residente da aplicação em cada forma de execução:
+ * <ul>
+ *     <li>{@code padrao}: o jar do {@code mvn package}, com varredura do classpath e Hibernate completo;</li>
+ *     <li>{@code aot}: o jar extraído do perfil Maven "startup", com o registro de beans gerado no build;</li>
+ *     <li>{@code aot+cds}: o mesmo, carregando as classes do arquivo CDS gerado na execução de treino.</li>
+ * </ul>
+ * Cada rodada sobe um processo novo (mesma JVM deste, exigência do CDS) contra um H2 em memória,
+ * consulta {@code /} até receber 200 e lê o VmRSS de {@code /proc/<pid>/status} nesse instante.
+ * Requer {@code mvn -P startup package} antes.
+ * Uso: {@code StartupBenchmark [rodadas por modo] [diretório target]}.
+ */
+public final class StartupBenchmark {
+
+    private static final String JAR = "crud-1.0-SNAPSHOT.jar";
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Forma de execução: jar e argumentos de JVM.
+     */
+    private record Mode(String name, Path jar, List<String> jvmArgs) {
+    }
+
+    /**
+     * Medições de um modo, uma por rodada.
+     */
+    private record Result(Mode mode, long[] firstRequestMillis, long[] rssKb) {
+
+        long median(long[] values) {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        Path target = Path.of(args.length > 1 ? args[1] : "target");
+
+        Path startup = target.resolve("startup");
+        Path archive = startup.resolve("application.jsa");
+        List<Mode> modes = List.of(
+                new Mode("padrao", target.resolve(JAR), List.of()),
+                new Mode("aot", startup.resolve(JAR),
+                        List.of("-Dspring.aot.enabled=true", "-Dspring.profiles.active=startup")),
+                new Mode("aot+cds", startup.resolve(JAR),
+                        List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true",
+                                "-Dspring.profiles.active=startup")));
+        for (Mode mode : modes) {
+            if (!Files.exists(mode.jar())) {
+                throw new IllegalStateException("Jar não encontrado: " + mode.jar() + " (rode mvn -P startup package).");
+            }
+        }
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("Arquivo CDS não encontrado: " + archive + " (rode mvn -P startup package).");
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        List<Result> results = new ArrayList<>();
+        for (Mode mode : modes) {
+            long[] firstRequest = new long[runs];
+            long[] rss = new long[runs];
+            for (int run = 0; run < runs; run++) {
+                long[] measured = measure(httpClient, mode, run);
+                firstRequest[run] = measured[0];
+                rss[run] = measured[1];
+                System.out.printf("[%s] rodada %d: %d ms, %d MB%n", mode.name(), run + 1, measured[0], measured[1] / 1024);
+            }
+            results.add(new Result(mode, firstRequest, rss));
+        }
+
+        System.out.printf("%nInicialização (mediana de %d rodadas, %d CPUs)%n", runs, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-10s %16s %16s %12s%n", "Modo", "1ª requisição ms", "mín/máx ms", "RSS MB");
+        for (Result result : results) {
+            System.out.printf("%-10s %16d %16s %12d%n", result.mode().name(),
+                    result.median(result.firstRequestMillis()),
+                    Arrays.stream(result.firstRequestMillis()).min().orElse(0) + "/"
+                            + Arrays.stream(result.firstRequestMillis()).max().orElse(0),
+                    result.median(result.rssKb()) / 1024);
+        }
+    }
+
+    /**
+     * @return {milissegundos até o primeiro 200, VmRSS em kB}
+     */
+    private static long[] measure(HttpClient httpClient, Mode mode, int run) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of("-jar", mode.jar().toString(),
+                "--server.port=" + port,
+                "--spring.datasource.url=jdbc:h2:mem:startup-" + run));
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        // Entrada fechada: o menu do console termina e só o servidor web continua
+        process.getOutputStream().close();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("[" + mode.name() + "] processo terminou com código " + process.exitValue());
+                }
+                if (System.nanoTime() - begin > TIMEOUT.toNanos()) {
+                    throw new IllegalStateException("[" + mode.name() + "] sem resposta em " + TIMEOUT);
+                }
+                try {
+                    if (httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // Servidor ainda não está ouvindo
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            return new long[]{elapsedMillis, residentKb(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    /**
+     * VmRSS do processo (Linux); 0 onde {@code /proc} não existe.
+     */
+    private static long residentKb(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        for (String line : Files.readAllLines(status)) {
+            if (line.startsWith("VmRSS:")) {
+                return Long.parseLong(line.replaceAll("\\D", ""));
+            }
+        }
+        return 0;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
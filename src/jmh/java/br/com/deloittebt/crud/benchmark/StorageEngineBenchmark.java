@@ -0,0 +1,113 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compara os motores de armazenamento do {@link UserRepository}, chamando o repositório diretamente:
+ * <ul>
+ *     <li>{@code jpa-mem} / {@code jpa-file}: Hibernate + H2 em memória / em arquivo;</li>
+ *     <li>{@code mapped}: log mapeado em memória, com a gravação em disco deixada ao sistema
+ *     operacional (como o H2 em arquivo, sobrevive à queda do processo);</li>
+ *     <li>{@code mapped-force}: log mapeado com force a cada escrita (sobrevive à queda da máquina).</li>
+ * </ul>
+ * Mede vazão e distribuição de latência (SampleTime: p50/p99/p999); use {@code -prof gc}
+ * para a alocação por operação.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class StorageEngineBenchmark {
+
+    @Param({"jpa-mem", "jpa-file", "mapped", "mapped-force"})
+    public String engine;
+
+    @Param({"100000", "1000000"})
+    public int tableSize;
+
+    private static final int PAGE_SIZE = 20;
+
+    private BenchmarkContext context;
+    private UserRepository userRepository;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        String storage = "jpa-file".equals(engine) ? "file" : "mem";
+        if (engine.startsWith("mapped")) {
+            properties.put("crud.storage.engine", "mapped");
+            properties.put("crud.storage.mapped.force-on-commit", String.valueOf("mapped-force".equals(engine)));
+        }
+        context = BenchmarkContext.start(storage, tableSize, properties);
+        userRepository = context.getBean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userRepository.findById(context.randomId());
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        // Emails da carga inicial: usuario<n>@bench.com, n = ID - minId
+        return userRepository.findByEmail("usuario" + (context.randomId() - context.minId()) + "@bench.com");
+    }
+
+    /**
+     * Página keyset a partir de um ID aleatório.
+     */
+    @Benchmark
+    public List<User> findPage() {
+        return userRepository.findPage(context.randomId(), true, PAGE_SIZE);
+    }
+
+    /**
+     * Busca por prefixo do nome ("usuário 12" casa com 1/100 a 1/1000 da tabela).
+     */
+    @Benchmark
+    public List<User> searchByNamePrefix() {
+        return userRepository.searchByNamePrefix("usuário " + ThreadLocalRandom.current().nextInt(10, 100), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public User save() {
+        long n = sequence.incrementAndGet();
+        return userRepository.save(new User("Novo " + n, "novo" + n + "-" + System.nanoTime() + "@bench.com"));
+    }
+
+    @Benchmark
+    public int update() {
+        long id = context.randomId();
+        return userRepository.update(id, "Alterado " + id, "alterado" + id + "@bench.com", null);
+    }
+}
@@ -0,0 +1,196 @@
+package br.com.deloittebt.crud.benchmark;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.WebApplicationType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Teste de carga que compara threads de plataforma e threads virtuais (perfil
+ * "virtual-threads") no endpoint {@code /buscar}.
+ * Para cada modo sobe a aplicação com Tomcat em porta aleatória, popula a tabela,
+ * desliga o cache de usuários (toda requisição vai ao JDBC) e dispara
+ * {@code concorrência × requisições} GETs com um cliente por thread virtual.
+ * Mostra vazão, percentis de latência e os eventos {@code jdk.VirtualThreadPinned}
+ * (thread virtual presa ao carrier por {@code synchronized}) agrupados pelo primeiro
+ * frame fora do JDK.
+ * Uso: {@code ThreadModeLoadTest [concorrência] [requisições por cliente] [tamanho da tabela] [mem|file]}.
+ */
+public final class ThreadModeLoadTest {
+
+    private static final String[] MODES = {"platform", "virtual"};
+    private static final int WARMUP_REQUESTS_PER_CLIENT = 5;
+    private static final int TOP_PINNING_FRAMES = 5;
+
+    private ThreadModeLoadTest() {
+    }
+
+    /**
+     * Resultado de uma rodada.
+     */
+    private record Result(String mode, int requests, int errors, long elapsedNanos, long[] latencies,
+                          Map<String, LongAdder> pinnedFrames) {
+
+        double throughput() {
+            return requests / (elapsedNanos / 1e9);
+        }
+
+        double percentileMillis(double quantile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * latencies.length) - 1;
+            return latencies[Math.max(0, index)] / 1e6;
+        }
+
+        long pinnedEvents() {
+            return pinnedFrames.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int requestsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int tableSize = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+        String storage = args.length > 3 ? args[3] : "mem";
+
+        Result[] results = new Result[MODES.length];
+        for (int i = 0; i < MODES.length; i++) {
+            results[i] = run(MODES[i], concurrency, requestsPerClient, tableSize, storage);
+        }
+
+        System.out.printf("%n/buscar: concorrência=%d, requisições=%d, tabela=%d, storage=%s%n",
+                concurrency, concurrency * requestsPerClient, tableSize, storage);
+        System.out.printf("%-10s %12s %10s %10s %10s %10s %8s %8s%n",
+                "Modo", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "erros", "pinned");
+        for (Result result : results) {
+            System.out.printf("%-10s %12.1f %10.2f %10.2f %10.2f %10.2f %8d %8d%n",
+                    result.mode(), result.throughput(), result.percentileMillis(0.50),
+                    result.percentileMillis(0.99), result.percentileMillis(0.999),
+                    result.percentileMillis(1.0), result.errors(), result.pinnedEvents());
+        }
+        for (Result result : results) {
+            if (result.pinnedFrames().isEmpty()) {
+                continue;
+            }
+            System.out.printf("%nPinning (%s), por frame:%n", result.mode());
+            result.pinnedFrames().entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .limit(TOP_PINNING_FRAMES)
+                    .forEach(entry -> System.out.printf("%8d  %s%n", entry.getValue().sum(), entry.getKey()));
+        }
+    }
+
+    private static Result run(String mode, int concurrency, int requestsPerClient, int tableSize,
+                              String storage) throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", "0");
+        if ("mem".equals(storage)) {
+            // Banco próprio por modo: o de memória sobrevive ao fechamento do contexto
+            properties.put("spring.datasource.url", "jdbc:h2:mem:load-" + mode + ";DB_CLOSE_DELAY=-1");
+        }
+        if ("virtual".equals(mode)) {
+            properties.put("spring.profiles.active", "virtual-threads");
+        }
+
+        try (BenchmarkContext context = BenchmarkContext.start(storage, tableSize, properties, WebApplicationType.SERVLET);
+             ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+             RecordingStream pinning = new RecordingStream()) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clients)
+                    .build();
+            String baseUrl = "http://localhost:" + context.localPort() + "/buscar?id=";
+
+            System.out.printf("[%s] aquecimento...%n", mode);
+            load(httpClient, clients, baseUrl, context, concurrency, WARMUP_REQUESTS_PER_CLIENT);
+
+            Map<String, LongAdder> pinnedFrames = new ConcurrentHashMap<>();
+            pinning.enable("jdk.VirtualThreadPinned").withStackTrace().withThreshold(Duration.ZERO);
+            pinning.onEvent("jdk.VirtualThreadPinned", event -> pinnedFrames
+                    .computeIfAbsent(firstApplicationFrame(event.getStackTrace() == null
+                            ? List.of() : event.getStackTrace().getFrames()), frame -> new LongAdder())
+                    .increment());
+            pinning.startAsync();
+
+            System.out.printf("[%s] medindo...%n", mode);
+            Result measured = load(httpClient, clients, baseUrl, context, concurrency, requestsPerClient);
+            pinning.close();
+            return new Result(mode, measured.requests(), measured.errors(), measured.elapsedNanos(),
+                    measured.latencies(), pinnedFrames);
+        }
+    }
+
+    private static Result load(HttpClient httpClient, ExecutorService clients, String baseUrl,
+                               BenchmarkContext context, int concurrency, int requestsPerClient)
+            throws InterruptedException {
+        long[] latencies = new long[concurrency * requestsPerClient];
+        AtomicInteger errors = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(concurrency);
+
+        for (int client = 0; client < concurrency; client++) {
+            int offset = client * requestsPerClient;
+            clients.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < requestsPerClient; i++) {
+                        long id = ThreadLocalRandom.current().nextLong(context.minId(), context.maxId() + 1);
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).GET().build();
+                        long begin = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        latencies[offset + i] = System.nanoTime() - begin;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+        Arrays.sort(latencies);
+        return new Result("", latencies.length, errors.get(), elapsed, latencies, Map.of());
+    }
+
+    /**
+     * Primeiro frame fora do JDK (ex.: H2, Hikari, Hibernate), que identifica o {@code synchronized} responsável.
+     */
+    private static String firstApplicationFrame(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "(sem stack trace)" : frames.get(0).getMethod().getType().getName();
+    }
+}
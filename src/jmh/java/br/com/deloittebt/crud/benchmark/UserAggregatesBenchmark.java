@@ -0,0 +1,121 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserStats;
+import br.com.deloittebt.crud.model.UserStatsCheck;
+import br.com.deloittebt.crud.service.UserAggregates;
+import br.com.deloittebt.crud.service.UserImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de servir o painel de estatísticas ({@code crud.aggregates.enabled=true}):
+ * <ul>
+ *     <li>{@code stats}: resultado já montado pelos agregados incrementais;</li>
+ *     <li>{@code statsAfterChange}: remontagem após uma mudança (troca de domínio aplicada só aos
+ *     contadores, alternando o sentido), proporcional aos domínios e dias;</li>
+ *     <li>{@code groupByQuery}: a alternativa sem agregados, com {@code COUNT} e {@code GROUP BY} no banco a cada consulta;</li>
+ *     <li>{@code check}: varredura completa da verificação de consistência (e da reconstrução).</li>
+ * </ul>
+ * Além dos usuários de {@code bench.com} populados pelo contexto, {@link #DOMAINS} usuários em domínios distintos.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserAggregatesBenchmark {
+
+    private static final int DOMAINS = 1000;
+
+    @Param({"mem"})
+    public String storage;
+
+    @Param({"10000", "100000"})
+    public int tableSize;
+
+    private BenchmarkContext context;
+    private UserAggregates aggregates;
+    private JdbcTemplate jdbcTemplate;
+    private User moved;
+    private User movedBack;
+    private boolean forward;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(storage, tableSize, Map.of("crud.aggregates.enabled", "true",
+                "crud.aggregates.checkpoint-interval", "0s"));
+        StringBuilder csv = new StringBuilder(DOMAINS * 32);
+        for (int i = 0; i < DOMAINS; i++) {
+            csv.append("Domínio ").append(i).append(",contato@dominio").append(i).append(".com\n");
+        }
+        context.getBean(UserImportService.class)
+                .importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        aggregates = context.getBean(UserAggregates.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // Sem escritas entre as consultas o H2 devolveria o resultado anterior; numa tabela viva ele é recalculado
+        jdbcTemplate.execute("SET OPTIMIZE_REUSE_RESULTS 0");
+        moved = new User("Movido", "movido@bench.com");
+        movedBack = new User("Movido", "movido@dominio0.com");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserStats stats() {
+        return aggregates.stats();
+    }
+
+    @Benchmark
+    public UserStats statsAfterChange() {
+        forward = !forward;
+        if (forward) {
+            aggregates.updated(moved, movedBack.getEmail());
+        } else {
+            aggregates.updated(movedBack, moved.getEmail());
+        }
+        return aggregates.stats();
+    }
+
+    @Benchmark
+    public void groupByQuery(Blackhole blackhole) {
+        blackhole.consume(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class));
+        blackhole.consume(jdbcTemplate.queryForList(
+                "SELECT SUBSTRING(email, LOCATE('@', email) + 1) AS dominio, COUNT(*) AS total FROM usuarios "
+                        + "GROUP BY dominio ORDER BY total DESC, dominio LIMIT 20"));
+        blackhole.consume(jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT SUBSTRING(email, LOCATE('@', email) + 1)) FROM usuarios", Long.class));
+        blackhole.consume(jdbcTemplate.queryForList(
+                "SELECT CAST(criado_em AS DATE) AS dia, COUNT(*) AS total FROM usuarios WHERE criado_em >= ? "
+                        + "GROUP BY dia ORDER BY dia", Date.valueOf(LocalDate.now().minusDays(29))));
+    }
+
+    @Benchmark
+    public UserStatsCheck check() {
+        return aggregates.check();
+    }
+}
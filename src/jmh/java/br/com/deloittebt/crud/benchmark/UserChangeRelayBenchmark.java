@@ -0,0 +1,107 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.UserChange;
+import br.com.deloittebt.crud.service.UserChangeRelay;
+import br.com.deloittebt.crud.service.UserImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo do outbox de alterações:
+ * <ul>
+ *     <li>{@code importAndRelay}: importa um lote de usuários (uma transação) e, com o outbox ligado,
+ *     espera o relay sequenciar e entregar os eventos do lote; com {@code outbox=false} mede só a
+ *     importação, e a diferença é o custo dos INSERTs no outbox mais o do relay (usuários por ms);</li>
+ *     <li>{@code readRecent} / {@code readStored}: leitura de 100 alterações no fim do fluxo (anel em
+ *     memória) e numa posição antiga (banco), como no long-poll e no SSE.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class UserChangeRelayBenchmark {
+
+    @Param({"false", "true"})
+    public boolean outbox;
+
+    private static final int TABLE_SIZE = 100_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int READ_LIMIT = 100;
+
+    private BenchmarkContext context;
+    private UserImportService userImportService;
+    private UserChangeRelay relay;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("mem", TABLE_SIZE, Map.of(
+                "crud.outbox.enabled", String.valueOf(outbox),
+                "crud.import.batch-size", String.valueOf(BATCH_SIZE)));
+        userImportService = context.getBean(UserImportService.class);
+        relay = context.getBean(UserChangeRelay.class);
+        awaitPosition(outbox ? TABLE_SIZE : 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long importAndRelay() {
+        long target = relay.position() + BATCH_SIZE;
+        StringBuilder csv = new StringBuilder(BATCH_SIZE * 40);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            long n = sequence++;
+            csv.append("Relay ").append(n).append(",relay").append(n).append("@bench.com\n");
+        }
+        userImportService.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+        return outbox ? awaitPosition(target) : 0;
+    }
+
+    @Benchmark
+    public List<UserChange> readRecent() {
+        return outbox ? relay.read(Math.max(0, relay.position() - READ_LIMIT), READ_LIMIT) : List.of();
+    }
+
+    /**
+     * Posições do início do fluxo, já fora do anel em memória.
+     */
+    @Benchmark
+    public List<UserChange> readStored() {
+        return outbox ? relay.read(ThreadLocalRandom.current().nextLong(TABLE_SIZE / 2), READ_LIMIT) : List.of();
+    }
+
+    private long awaitPosition(long target) {
+        long position = relay.position();
+        while (position < target) {
+            position = relay.awaitAfter(position, Duration.ofSeconds(1)).join();
+        }
+        return position;
+    }
+}
@@ -0,0 +1,114 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks dos caminhos principais do {@link UserService} (e, por baixo, do
+ * repositório JPA) contra H2 em memória e em arquivo, com 1k, 100k e 1M usuários.
+ * Mede vazão e distribuição de latência (SampleTime: p50/p99/p999); use
+ * {@code -prof gc} para a taxa de alocação.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    @Param({"mem", "file"})
+    public String storage;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tableSize;
+
+    /**
+     * Backend do cache de findById ("none" mede o repositório; "caffeine" o cache local).
+     */
+    @Param({"none"})
+    public String cache;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(storage, tableSize, Map.of("crud.cache.backend", cache));
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Usuário criado antes de cada invocação de {@link #deleteById}, para que só a remoção seja medida.
+     */
+    @State(Scope.Thread)
+    public static class DeletionTarget {
+
+        Long id;
+
+        @Setup(Level.Invocation)
+        public void create(UserServiceBenchmark benchmark) {
+            id = benchmark.userService.create("Remover", "remover" + benchmark.sequence.incrementAndGet() + "@bench.com").getId();
+        }
+    }
+
+    @Benchmark
+    public User create() {
+        long n = sequence.incrementAndGet();
+        return userService.create("Novo " + n, "novo" + n + "-" + System.nanoTime() + "@bench.com");
+    }
+
+    @Benchmark
+    public void findById(Blackhole blackhole) {
+        try {
+            blackhole.consume(userService.findById(context.randomId()));
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e); // ID removido por outro benchmark
+        }
+    }
+
+    @Benchmark
+    public void update(Blackhole blackhole) {
+        long id = context.randomId();
+        try {
+            userService.update(id, "Alterado " + id, "alterado" + id + "@bench.com");
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e); // ID removido ou email em uso por outro usuário
+        }
+    }
+
+    @Benchmark
+    public void deleteById(DeletionTarget target) {
+        userService.deleteById(target.id);
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userService.findAll();
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo isolado das validações do construtor de {@link User}, sem Spring nem banco.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UserValidationBenchmark {
+
+    public String name = "Maria da Silva";
+    public String email = "  Maria.Silva@Example.com ";
+    public String invalidEmail = "maria.silva.example.com";
+
+    @Benchmark
+    public User validUser() {
+        return new User(name, email);
+    }
+
+    @Benchmark
+    public void invalidEmail(Blackhole blackhole) {
+        try {
+            blackhole.consume(new User(name, invalidEmail));
+        } catch (IllegalArgumentException e) {
+            blackhole.consume(e);
+        }
+    }
+}
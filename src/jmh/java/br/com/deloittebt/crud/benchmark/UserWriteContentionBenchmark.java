@@ -0,0 +1,210 @@
+package br.com.deloittebt.crud.benchmark;
+
+import br.com.deloittebt.crud.metrics.QueryCountInspector;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import br.com.deloittebt.crud.service.UserNotFoundException;
+import br.com.deloittebt.crud.service.UserService;
+import br.com.deloittebt.crud.service.UserVersionConflictException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.RollbackException;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Escritas concorrentes sobre poucas linhas ("quentes"), comparando o caminho antigo
+ * de atualização/remoção com os comandos diretos do {@link UserService}:
+ * <ul>
+ *     <li>{@code merge}: reprodução do fluxo anterior — SELECT por ID, SELECT por email,
+ *     e {@code merge} em outra transação (SELECT + UPDATE/DELETE);</li>
+ *     <li>{@code direct}: um único {@code UPDATE}/{@code DELETE} (última escrita prevalece);</li>
+ *     <li>{@code versioned}: leitura da versão e {@code UPDATE ... AND versao = ?}
+ *     (fluxo do formulário e do {@code If-Match}).</li>
+ * </ul>
+ * Além de vazão e latência, os contadores auxiliares mostram os comandos SQL
+ * ({@code statements}), as operações e os conflitos de versão; comandos por operação =
+ * {@code statements / operations}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class UserWriteContentionBenchmark {
+
+    @Param({"merge", "direct", "versioned"})
+    public String path;
+
+    /**
+     * Quantidade de linhas disputadas pelas threads (1 = contenção máxima).
+     */
+    @Param({"1", "100"})
+    public int hotRows;
+
+    @Param({"mem"})
+    public String storage;
+
+    private static final int TABLE_SIZE = 10_000;
+
+    private BenchmarkContext context;
+    private UserService userService;
+    private UserRepository userRepository;
+    private EntityManagerFactory entityManagerFactory;
+    private final AtomicLong sequence = new AtomicLong();
+    private String[] hotEmails;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Conflitos do caminho "merge" são esperados; o Hibernate os registra como ERROR a cada lote
+        context = BenchmarkContext.start(storage, TABLE_SIZE, Map.of("crud.cache.backend", "none",
+                "logging.level.org.hibernate.orm.jdbc.batch", "OFF"));
+        userService = context.getBean(UserService.class);
+        userRepository = context.getBean(UserRepository.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        // Cada linha quente mantém o próprio email, para que só a versão gere conflito
+        hotEmails = new String[hotRows];
+        for (int i = 0; i < hotRows; i++) {
+            hotEmails[i] = userService.findById(context.minId() + i).getEmail();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Contadores por thread, somados pelo JMH ao fim de cada iteração.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public long statements;
+        public long operations;
+        public long conflicts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statements = 0;
+            operations = 0;
+            conflicts = 0;
+        }
+    }
+
+    /**
+     * Usuário criado antes de cada invocação de {@link #delete}, para que só a remoção seja medida.
+     */
+    @State(Scope.Thread)
+    public static class DeletionTarget {
+
+        Long id;
+
+        @Setup(Level.Invocation)
+        public void create(UserWriteContentionBenchmark benchmark) {
+            id = benchmark.userService.create("Remover", "remover" + benchmark.sequence.incrementAndGet() + "@bench.com").getId();
+        }
+    }
+
+    @Benchmark
+    public void update(Counters counters) {
+        int row = ThreadLocalRandom.current().nextInt(hotRows);
+        long id = context.minId() + row;
+        String name = "Alterado " + sequence.incrementAndGet();
+        String email = hotEmails[row];
+        QueryCountInspector.begin();
+        try {
+            switch (path) {
+                case "merge" -> legacyUpdate(id, name, email);
+                case "direct" -> userService.update(id, name, email);
+                default -> userService.update(id, userService.findById(id).getVersion(), name, email);
+            }
+        } catch (UserVersionConflictException | OptimisticLockException | RollbackException e) {
+            counters.conflicts++;
+        } finally {
+            record(counters);
+        }
+    }
+
+    @Benchmark
+    public void delete(DeletionTarget target, Counters counters) {
+        QueryCountInspector.begin();
+        try {
+            switch (path) {
+                case "merge" -> legacyDelete(target.id);
+                case "direct" -> userService.deleteById(target.id);
+                default -> userService.deleteById(target.id, userService.findById(target.id).getVersion());
+            }
+        } finally {
+            record(counters);
+        }
+    }
+
+    private void record(Counters counters) {
+        QueryCountInspector.Stats stats = QueryCountInspector.end();
+        counters.statements += stats != null ? stats.total() : 0;
+        counters.operations++;
+    }
+
+    /**
+     * Fluxo anterior de {@code UserService.update}: lê, verifica o email e faz merge em outra transação.
+     */
+    private void legacyUpdate(long id, String name, String email) {
+        User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        user.changeName(name);
+        user.changeEmail(email);
+        userRepository.findByEmail(user.getEmail())
+                .filter(existing -> !existing.getId().equals(id))
+                .ifPresent(existing -> {
+                    throw new IllegalArgumentException("Email já cadastrado: " + email);
+                });
+        inTransaction(entityManager -> entityManager.merge(user));
+    }
+
+    /**
+     * Fluxo anterior de {@code UserService.deleteById}: lê e remove a entidade após merge.
+     */
+    private void legacyDelete(long id) {
+        User user = userRepository.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        inTransaction(entityManager -> entityManager.remove(entityManager.merge(user)));
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            work.accept(entityManager);
+            entityManager.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
@@ -1,23 +1,61 @@
 package br.com.deloittebt.crud;
 
+import br.com.deloittebt.crud.model.ImportReport;
+import br.com.deloittebt.crud.model.SearchHit;
+import br.com.deloittebt.crud.model.SearchMode;
 import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.presentation.BatchCommandRunner;
+import br.com.deloittebt.crud.repository.ShardRebalancer;
+import br.com.deloittebt.crud.service.UserImportService;
 import br.com.deloittebt.crud.service.UserService;
+import org.springframework.aot.AotDetector;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Ponto de entrada principal da aplicação CRUD de usuários.
  * Esta classe inicializa o contexto Spring Boot e executa uma interface
  * de linha de comando (CLI) para interagir com o sistema de usuários.
  * Ela também configura o servidor web para o frontend HTML.
+ * Com {@code --batch} (ou {@code --batch=arquivo}), executa os comandos da entrada padrão
+ * (ou do arquivo) sem servidor web e sem menu; ver {@link BatchCommandRunner}.
+ * Com {@code --rebalance-shards=N}, redistribui os usuários gravados em N shards pela quantidade
+ * atual ({@code crud.storage.sharded.count}) e encerra; ver {@link ShardRebalancer}.
  */
 @SpringBootApplication
 public class CrudApplication {
 
+    /**
+     * Argumento que liga o modo batch; {@code --batch=arquivo} lê os comandos do arquivo.
+     */
+    private static final String BATCH_ARGUMENT = "--batch";
+
+    /**
+     * Argumento que redistribui os shards: {@code --rebalance-shards=quantidade anterior}.
+     */
+    private static final String REBALANCE_ARGUMENT = "--rebalance-shards=";
+
+    /**
+     * Perfil ativado no modo batch (application-batch.properties), também usado no rebalanceamento.
+     */
+    private static final String BATCH_PROFILE = "batch";
+
     /**
      * Método principal da aplicação.
      * Inicializa o contexto do Spring Boot, obtém o UserService via injeção
@@ -26,12 +64,21 @@ public class CrudApplication {
      * @param args Argumentos da linha de comando.
      */
     public static void main(String[] args) {
+        String batchSource = batchSource(args);
+        if (batchSource != null) {
+            System.exit(runBatch(batchSource, args));
+        }
+        Integer previousShards = previousShardCount(args);
+        if (previousShards != null) {
+            System.exit(runRebalance(previousShards, args));
+        }
 
         // Inicializa Spring Boot e obtém o ApplicationContext
         ApplicationContext context = SpringApplication.run(CrudApplication.class, args);
 
         // Recupera o UserService gerenciado pelo Spring
         UserService userService = context.getBean(UserService.class);
+        UserImportService userImportService = context.getBean(UserImportService.class);
 
         Scanner scanner = new Scanner(System.in);
         boolean running = true;
@@ -49,6 +96,10 @@ public class CrudApplication {
                     case 3 -> findUserById(userService, scanner);
                     case 4 -> updateUser(userService, scanner);
                     case 5 -> deleteUser(userService, scanner);
+                    case 6 -> System.out.println(userService.cacheStats());
+                    case 7 -> importUsers(userImportService, scanner);
+                    case 8 -> searchUsers(userService, scanner);
+                    case 9 -> System.out.println(userService.searchIndexFootprint());
                     case 0 -> {
                         running = false;
                         System.out.println("Saindo...");
@@ -64,6 +115,94 @@ public class CrudApplication {
         scanner.close();
     }
 
+    /**
+     * Origem dos comandos do modo batch: {@code -} para a entrada padrão ou o caminho do arquivo.
+     * @param args Argumentos da linha de comando.
+     * @return Origem, ou null fora do modo batch.
+     */
+    private static String batchSource(String[] args) {
+        for (String arg : args) {
+            if (arg.equals(BATCH_ARGUMENT)) {
+                return "-";
+            }
+            if (arg.startsWith(BATCH_ARGUMENT + "=")) {
+                return arg.substring(BATCH_ARGUMENT.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Quantidade de shards com que os dados foram gravados, informada para o rebalanceamento.
+     * @param args Argumentos da linha de comando.
+     * @return Quantidade anterior, ou null sem {@code --rebalance-shards}.
+     */
+    private static Integer previousShardCount(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith(REBALANCE_ARGUMENT)) {
+                return Integer.valueOf(arg.substring(REBALANCE_ARGUMENT.length()));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sobe a aplicação sem servidor web, como no modo batch, redistribui os shards e encerra.
+     * @param previousShards Quantidade de shards com que os dados foram gravados.
+     * @param args Argumentos da linha de comando, repassados ao Spring.
+     * @return Código de saída: 0 ao concluir.
+     */
+    private static int runRebalance(int previousShards, String[] args) {
+        if (AotDetector.useGeneratedArtifacts()) {
+            throw new IllegalStateException("Rebalanceamento não suporta spring.aot.enabled=true; execute sem essa opção.");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CrudApplication.class)
+                .web(WebApplicationType.NONE)
+                .lazyInitialization(true)
+                .profiles(BATCH_PROFILE)
+                .run(args);
+        ShardRebalancer rebalancer = context.getBeanProvider(ShardRebalancer.class).getIfAvailable();
+        if (rebalancer == null) {
+            SpringApplication.exit(context);
+            throw new IllegalStateException("Rebalanceamento exige crud.storage.engine=sharded.");
+        }
+        ShardRebalancer.Result result = rebalancer.rebalance(previousShards);
+        System.out.println("Shards: " + result.previousCount() + " -> " + result.shardCount()
+                + "; usuários movidos: " + result.movedUsers() + ", emails movidos: " + result.movedEmails()
+                + " (" + result.elapsedMillis() + " ms)");
+        System.out.println("Usuários por shard: " + result.usersPerShard());
+        return SpringApplication.exit(context);
+    }
+
+    /**
+     * Sobe a aplicação sem servidor web, com inicialização preguiçosa dos beans,
+     * executa os comandos e encerra o contexto.
+     * @param source Origem dos comandos ({@code -} para a entrada padrão).
+     * @param args Argumentos da linha de comando, repassados ao Spring.
+     * @return Código de saída: 0 se todos os comandos tiveram sucesso, 1 se algum falhou.
+     */
+    private static int runBatch(String source, String[] args) {
+        if (AotDetector.useGeneratedArtifacts()) {
+            // O contexto gerado no build (perfil Maven "startup") é o web; o batch precisa do contexto normal
+            throw new IllegalStateException("Modo batch não suporta spring.aot.enabled=true; execute sem essa opção.");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CrudApplication.class)
+                .web(WebApplicationType.NONE)
+                .lazyInitialization(true)
+                .profiles(BATCH_PROFILE)
+                .run(args);
+        BatchCommandRunner.Summary summary;
+        try (BufferedReader input = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Path.of(source), StandardCharsets.UTF_8)) {
+            summary = context.getBean(BatchCommandRunner.class).run(input, System.out);
+        } catch (IOException e) {
+            SpringApplication.exit(context);
+            throw new UncheckedIOException("Não foi possível ler os comandos: " + source, e);
+        }
+        return SpringApplication.exit(context, () -> summary.failed() == 0 ? 0 : 1);
+    }
+
     /**
      * Exibe o menu de opções para o usuário no console.
      */
@@ -74,6 +213,10 @@ public class CrudApplication {
         System.out.println("3 - Buscar usuário por ID");
         System.out.println("4 - Atualizar usuário");
         System.out.println("5 - Remover usuário");
+        System.out.println("6 - Estatísticas do cache");
+        System.out.println("7 - Importar usuários (CSV)");
+        System.out.println("8 - Pesquisar por nome ou email");
+        System.out.println("9 - Uso de memória do índice de pesquisa");
         System.out.println("0 - Sair");
         System.out.print("Escolha uma opção: ");
     }
@@ -137,16 +280,62 @@ public class CrudApplication {
         System.out.println(user);
     }
 
+    /**
+     * Solicita o caminho de um arquivo CSV (nome,email) e importa os usuários em lote.
+     * Exibe o resumo da importação e as linhas rejeitadas.
+     * @param userImportService O serviço de importação em lote.
+     * @param scanner O scanner para ler a entrada do console.
+     */
+    private static void importUsers(UserImportService userImportService, Scanner scanner) {
+        System.out.print("Caminho do arquivo CSV: ");
+        Path path = Path.of(scanner.nextLine().trim());
+        ImportReport report;
+        try (InputStream input = Files.newInputStream(path)) {
+            report = userImportService.importCsv(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o arquivo: " + path, e);
+        }
+        System.out.println("Importados: " + report.getImported() + ", rejeitados: " + report.getRejected()
+                + " (" + report.getElapsedMillis() + " ms)");
+        report.getErrors().forEach(error -> System.out.println("Linha " + error.line() + ": " + error.message()));
+    }
+
+    /**
+     * Solicita um termo e o modo de pesquisa e exibe os usuários encontrados no índice em memória.
+     * @param userService O serviço de usuário para realizar a operação.
+     * @param scanner O scanner para ler a entrada do console.
+     */
+    private static void searchUsers(UserService userService, Scanner scanner) {
+        System.out.print("Termo (nome ou email): ");
+        String term = scanner.nextLine();
+        System.out.print("Aproximada? (s/N): ");
+        SearchMode mode = scanner.nextLine().trim().equalsIgnoreCase("s") ? SearchMode.FUZZY : SearchMode.SUBSTRING;
+
+        long start = System.nanoTime();
+        List<SearchHit> hits = userService.search(term, mode, 20);
+        long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+        if (hits.isEmpty()) {
+            System.out.println("Nenhum usuário encontrado.");
+        } else {
+            hits.forEach(hit -> System.out.println(hit.toUser()));
+        }
+        System.out.println(hits.size() + " resultado(s) em " + elapsedMicros + " µs");
+    }
+
     /**
      * Exibe a lista de todos os usuários cadastrados no console.
+     * Os usuários são lidos em streaming, sem carregar a tabela inteira em memória.
      * @param userService O serviço de usuário para obter a lista de usuários.
      */
     private static void viewData(UserService userService) {
-        List<User> users = userService.findAll();
-        if (users.isEmpty()) {
+        AtomicBoolean found = new AtomicBoolean(false);
+        userService.streamAll(user -> {
+            found.set(true);
+            System.out.println(user);
+        });
+        if (!found.get()) {
             System.out.println("Nenhum usuário cadastrado.");
-        } else {
-            users.forEach(System.out::println);
         }
     }
 }
\ No newline at end of file
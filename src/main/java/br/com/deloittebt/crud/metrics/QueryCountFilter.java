@@ -0,0 +1,107 @@
+package br.com.deloittebt.crud.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Mede a quantidade de comandos SQL por requisição HTTP, do início ao fim do processamento
+ * (sem open-in-view, a view não dispara consultas: tudo é carregado no controller e no serviço).
+ * Registra a distribuição em {@code crud.db.queries.per.request} e, quando a
+ * requisição estoura o orçamento ou repete o mesmo SQL várias vezes
+ * (padrão N+1), registra um aviso no log e incrementa contadores.
+ * Operações em lote ({@code crud.metrics.bulk-paths}, como a importação, que repete o mesmo
+ * INSERT por linha) entram na distribuição, mas não no orçamento nem na detecção de N+1.
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry registry;
+    private final int queryBudget;
+    private final int repeatThreshold;
+    private final String[] bulkPaths;
+
+    /**
+     * Construtor com os limites lidos das propriedades da aplicação.
+     * @param registry Registro de métricas.
+     * @param queryBudget Máximo de comandos SQL esperado por requisição.
+     * @param repeatThreshold Repetições do mesmo SQL a partir das quais se suspeita de N+1.
+     * @param bulkPaths Prefixos de caminho das operações em lote, isentas dos avisos.
+     */
+    public QueryCountFilter(MeterRegistry registry,
+                            @Value("${crud.metrics.query-budget:10}") int queryBudget,
+                            @Value("${crud.metrics.n-plus-one-threshold:5}") int repeatThreshold,
+                            @Value("${crud.metrics.bulk-paths:/importar,/exportar,/users/stream,/users/stats/rebuild,/users/stats/check}")
+                            String[] bulkPaths) {
+        this.registry = registry;
+        this.queryBudget = queryBudget;
+        this.repeatThreshold = repeatThreshold;
+        this.bulkPaths = bulkPaths;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCountInspector.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCountInspector.Stats stats = QueryCountInspector.end();
+            if (stats != null) {
+                record(request, stats);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryCountInspector.Stats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("crud.db.queries.per.request")
+                .description("Comandos SQL executados por requisição HTTP")
+                .tag("uri", uri)
+                .publishPercentiles(0.5, 0.99)
+                .register(registry)
+                .record(stats.total());
+
+        if (isBulk(request)) {
+            return;
+        }
+        if (stats.total() > queryBudget) {
+            Counter.builder("crud.db.query.budget.exceeded").tag("uri", uri).register(registry).increment();
+            log.warn("Requisição {} {} executou {} comandos SQL (orçamento: {})",
+                    request.getMethod(), request.getRequestURI(), stats.total(), queryBudget);
+        }
+        Map.Entry<String, Integer> repeated = stats.mostRepeated();
+        if (repeated != null && repeated.getValue() >= repeatThreshold) {
+            Counter.builder("crud.db.n_plus_one.suspected").tag("uri", uri).register(registry).increment();
+            log.warn("Possível N+1 em {} {}: o mesmo SQL foi executado {} vezes: {}",
+                    request.getMethod(), request.getRequestURI(), repeated.getValue(), repeated.getKey());
+        }
+    }
+
+    private boolean isBulk(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (String bulkPath : bulkPaths) {
+            if (path.startsWith(bulkPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,64 @@
+package br.com.deloittebt.crud.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Conta os comandos SQL preparados pelo Hibernate na thread atual.
+ * Registrado via {@code hibernate.session_factory.statement_inspector}; o
+ * {@link QueryCountFilter} abre e fecha a contagem a cada requisição HTTP.
+ * Além do total, guarda quantas vezes cada SQL se repetiu, para detectar N+1.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Contagem de comandos de uma requisição.
+     */
+    public static final class Stats {
+
+        private int total;
+        private final Map<String, Integer> bySql = new HashMap<>();
+
+        public int total() {
+            return total;
+        }
+
+        /**
+         * SQL mais repetido e quantas vezes apareceu.
+         */
+        Map.Entry<String, Integer> mostRepeated() {
+            return bySql.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.total++;
+            stats.bySql.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+
+    /**
+     * Inicia a contagem na thread atual.
+     */
+    public static void begin() {
+        CURRENT.set(new Stats());
+    }
+
+    /**
+     * Encerra a contagem na thread atual.
+     * @return Contagem acumulada ou null se nenhuma contagem estava aberta.
+     */
+    public static Stats end() {
+        Stats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+}
@@ -0,0 +1,77 @@
+package br.com.deloittebt.crud.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Instrumenta todos os métodos públicos dos serviços de usuário.
+ * Registra a latência em {@code crud.service} como histograma (p50/p99/p999 via
+ * {@code histogram_quantile} no Prometheus)
+ * e os erros em {@code crud.service.errors}, ambos com a tag "method" e,
+ * nos erros, o tipo da exceção (ex.: IllegalArgumentException para "Usuário não encontrado").
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry registry;
+
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Mede a execução de cada método público do pacote de serviços. Se o método devolve um
+     * {@link CompletionStage} (escritas pela fila), a medição vai até a conclusão do futuro e uma
+     * conclusão com falha conta como erro.
+     * @param joinPoint Método interceptado.
+     * @return Retorno do método.
+     * @throws Throwable Exceção lançada pelo método, repassada sem alteração.
+     */
+    @Around("execution(public * br.com.deloittebt.crud.service.User*Service.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(registry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            record(sample, method, e);
+            throw e;
+        }
+        if (result instanceof CompletionStage<?> stage) {
+            // Devolve o estágio dependente: quem aguarda o futuro só o vê concluído depois da medição
+            return stage.whenComplete((value, error) -> record(sample, method,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+        }
+        record(sample, method, null);
+        return result;
+    }
+
+    private void record(Timer.Sample sample, String method, Throwable error) {
+        String exception = error == null ? "none" : error.getClass().getSimpleName();
+        if (error != null) {
+            Counter.builder("crud.service.errors")
+                    .description("Erros nos métodos de serviço, por tipo de exceção")
+                    .tag("method", method)
+                    .tag("exception", exception)
+                    .register(registry)
+                    .increment();
+        }
+        sample.stop(Timer.builder("crud.service")
+                .description("Latência dos métodos de serviço")
+                .tag("method", method)
+                .tag("outcome", error == null ? "success" : "error")
+                .tag("exception", exception)
+                .publishPercentileHistogram()
+                .register(registry));
+    }
+}
@@ -0,0 +1,44 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Formatos suportados pela exportação de usuários.
+ */
+public enum ExportFormat {
+
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Converte o parâmetro recebido da requisição, aceitando maiúsculas ou minúsculas.
+     * Valores nulos ou em branco resultam no formato padrão (CSV).
+     * @param value Valor textual do formato.
+     * @return Formato correspondente.
+     * @throws IllegalArgumentException se o valor não for reconhecido.
+     */
+    public static ExportFormat from(String value) {
+        if (value == null || value.isBlank()) {
+            return CSV;
+        }
+        try {
+            return ExportFormat.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Formato de exportação inválido: " + value);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package br.com.deloittebt.crud.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado de uma importação em lote de usuários.
+ * Acumula a contagem de linhas importadas e rejeitadas e guarda os erros
+ * por linha (até um limite) para exibição ao operador, sem interromper a carga.
+ */
+public class ImportReport {
+
+    /**
+     * Quantidade máxima de erros detalhados mantidos em memória.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long imported;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+    private long elapsedMillis;
+
+    /**
+     * Erro associado a uma linha do arquivo de entrada.
+     * @param line Número da linha (a partir de 1).
+     * @param message Motivo da rejeição.
+     */
+    public record RowError(long line, String message) {
+    }
+
+    /**
+     * Contabiliza linhas gravadas com sucesso.
+     * @param count Quantidade de linhas.
+     */
+    public void addImported(long count) {
+        imported += count;
+    }
+
+    /**
+     * Registra a rejeição de uma linha.
+     * @param line Número da linha.
+     * @param message Motivo da rejeição.
+     */
+    public void addError(long line, String message) {
+        rejected++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportReport{" +
+                "imported=" + imported +
+                ", rejected=" + rejected +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Resultado da pesquisa em memória, já ranqueado.
+ *
+ * @param id    Identificador do usuário.
+ * @param name  Nome do usuário.
+ * @param email Email do usuário.
+ * @param score Relevância (maior é melhor).
+ */
+public record SearchHit(long id, String name, String email, double score) {
+
+    /**
+     * Converte o resultado em um usuário destacado, para exibição.
+     * @return Usuário com ID atribuído.
+     */
+    public User toUser() {
+        User user = new User(name, email);
+        user.assignId(id);
+        return user;
+    }
+}
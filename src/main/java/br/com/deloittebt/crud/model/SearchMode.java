@@ -0,0 +1,35 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Modos da pesquisa em memória por nome e email.
+ */
+public enum SearchMode {
+
+    /**
+     * Contém o termo exato (sem diferenciar maiúsculas) no nome ou no email.
+     */
+    SUBSTRING,
+
+    /**
+     * Tolerante a erros de digitação, por similaridade de trigramas.
+     */
+    FUZZY;
+
+    /**
+     * Converte o parâmetro recebido da requisição, aceitando maiúsculas ou minúsculas.
+     * Valores nulos ou em branco resultam no modo padrão (SUBSTRING).
+     * @param value Valor textual do modo.
+     * @return Modo correspondente.
+     * @throws IllegalArgumentException se o valor não for reconhecido.
+     */
+    public static SearchMode from(String value) {
+        if (value == null || value.isBlank()) {
+            return SUBSTRING;
+        }
+        try {
+            return SearchMode.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Modo de pesquisa inválido: " + value);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Ordem de listagem dos usuários, sempre aplicada sobre o ID.
+ * O ID é a chave da paginação por cursor (keyset), por isso é a única
+ * coluna de ordenação suportada.
+ */
+public enum SortOrder {
+
+    ASC,
+    DESC;
+
+    /**
+     * Indica se a ordem é crescente.
+     * @return true para ASC
+     */
+    public boolean isAscending() {
+        return this == ASC;
+    }
+
+    /**
+     * Converte o parâmetro recebido da requisição, aceitando maiúsculas ou minúsculas.
+     * Valores nulos ou em branco resultam na ordem padrão (ASC).
+     * @param value Valor textual da ordem.
+     * @return Ordem correspondente.
+     * @throws IllegalArgumentException se o valor não for reconhecido.
+     */
+    public static SortOrder from(String value) {
+        if (value == null || value.isBlank()) {
+            return ASC;
+        }
+        try {
+            return SortOrder.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Ordenação inválida: " + value);
+        }
+    }
+}
@@ -1,22 +1,43 @@
 package br.com.deloittebt.crud.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
  * Entidade User do domínio do sistema.
  * Esta classe representa um usuário e encapsula as regras de negócio.
  * Está mapeada como entidade JPA para persistência com Hibernate.
+ * Elegível ao cache de segundo nível do Hibernate, que só é ativado
+ * com o perfil "hibernate-cache" (ver application-hibernate-cache.properties).
  */
 @Entity
-@Table(name = "usuarios")
+@Table(name = "usuarios", indexes = {
+        @Index(name = "ux_usuarios_email", columnList = "email", unique = true),
+        @Index(name = "ix_usuarios_nome_busca", columnList = "nome_busca")
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class User {
 
+    /**
+     * Tamanho do bloco de IDs reservado por acesso à sequence (otimizador pooled).
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Atributo de identidade da entidade, chave primária.
-     * ID é gerado automaticamente pelo banco de dados (auto-increment).
+     * ID é gerado pela sequence "usuarios_seq" com otimizador pooled (hi/lo):
+     * o Hibernate reserva blocos de IDs em memória, o que permite agrupar
+     * INSERTs em lotes JDBC (impossível com IDENTITY).
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_seq")
+    @SequenceGenerator(name = "usuarios_seq", sequenceName = "usuarios_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
@@ -26,11 +47,40 @@ public class User {
     private String name;
 
     /**
-     * Atributo email do usuário.
+     * Atributo email do usuário, armazenado normalizado (sem espaços nas
+     * extremidades e em minúsculas) para que a unicidade e a busca exata por
+     * email não dependam de maiúsculas/minúsculas.
      */
     @Column(name = "email", nullable = false)
     private String email;
 
+    /**
+     * Nome em minúsculas, usado apenas na busca por prefixo.
+     * Coluna gerada pelo próprio banco a partir de "nome" e indexada, o que
+     * permite busca case-insensitive por {@code LIKE 'prefixo%'} sem varredura completa.
+     */
+    @Column(name = "nome_busca", insertable = false, updatable = false,
+            columnDefinition = "varchar(255) generated always as (lower(nome))")
+    private String searchName;
+
+    /**
+     * Versão para concorrência otimista, incrementada a cada alteração.
+     * Uma atualização ou remoção baseada em uma versão antiga não afeta nenhuma linha
+     * e é rejeitada, em vez de sobrescrever a alteração concorrente.
+     * O valor padrão preenche as linhas existentes quando a coluna é criada.
+     */
+    @Version
+    @Column(name = "versao", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long version;
+
+    /**
+     * Data e hora da criação, preenchidas pela JVM na gravação e nunca alteradas.
+     * Nula antes da gravação e no motor mapeado, que não a guarda.
+     */
+    @CreationTimestamp
+    @Column(name = "criado_em", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
     /**
      * Construtor público sem argumentos, necessário para o data binding do Spring/Thymeleaf.
      * As validações serão aplicadas quando os métodos changeName/changeEmail forem chamados ou no construtor completo.
@@ -49,7 +99,7 @@ public class User {
         validateName(name);
         validateEmail(email);
         this.name = name;
-        this.email = email;
+        this.email = normalizeEmail(email);
         this.id = null; // ID será atribuído pelo Hibernate após persistência
     }
 
@@ -69,6 +119,14 @@ public class User {
         return email;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
     // -------------------------
     // MÉTODOS DE DOMÍNIO
     // -------------------------
@@ -88,6 +146,26 @@ public class User {
         this.id = id;
     }
 
+    /**
+     * Atribui a versão de um usuário reconstruído fora do contexto de persistência
+     * (ex.: cópia em cache ou resultado de uma atualização direta).
+     * @param version Versão persistida
+     */
+    public void assignVersion(long version) {
+        if (version < 0) {
+            throw new IllegalArgumentException("Versão inválida.");
+        }
+        this.version = version;
+    }
+
+    /**
+     * Atribui a data de criação de um usuário gravado ou lido fora do JPA.
+     * @param createdAt Data e hora da criação
+     */
+    public void assignCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     /**
      * Atualiza o nome do usuário, garantindo as invariantes do domínio.
      * @param name Novo nome
@@ -103,7 +181,16 @@ public class User {
      */
     public void changeEmail(String email) {
         validateEmail(email);
-        this.email = email;
+        this.email = normalizeEmail(email);
+    }
+
+    /**
+     * Normaliza um email para armazenamento e comparação.
+     * @param email Email informado
+     * @return Email sem espaços nas extremidades e em minúsculas
+     */
+    public static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 
     // -------------------------
@@ -141,6 +228,7 @@ public class User {
                 "id=" + id +
                 ", name='" + name + '\'' +
                 ", email='" + email + '\'' +
+                ", version=" + version +
                 '}';
     }
 }
\ No newline at end of file
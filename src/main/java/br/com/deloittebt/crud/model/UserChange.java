@@ -0,0 +1,19 @@
+package br.com.deloittebt.crud.model;
+
+import java.time.Instant;
+
+/**
+ * Alteração de um usuário já sequenciada pelo relay do outbox, como entregue aos consumidores.
+ * As posições são crescentes na ordem de commit; a compactação pode deixar lacunas entre elas.
+ *
+ * @param position   Posição no fluxo de alterações (offset para retomar a leitura).
+ * @param type       Tipo da alteração.
+ * @param userId     Identificador do usuário.
+ * @param name       Nome após a alteração (nulo na remoção).
+ * @param email      Email após a alteração (nulo na remoção).
+ * @param version    Versão do usuário após a alteração (nula na remoção).
+ * @param recordedAt Instante em que a alteração foi registrada.
+ */
+public record UserChange(long position, UserChangeType type, long userId, String name, String email,
+                         Long version, Instant recordedAt) {
+}
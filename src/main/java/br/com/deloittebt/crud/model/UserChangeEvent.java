@@ -0,0 +1,111 @@
+package br.com.deloittebt.crud.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Linha do outbox de usuários: registro de uma alteração gravado na mesma transação da
+ * alteração, de modo que o evento existe se e somente se a alteração foi confirmada.
+ * A posição fica nula até o relay sequenciar o evento após o commit; a partir daí ela
+ * identifica o evento no fluxo entregue aos consumidores.
+ */
+@Entity
+@Table(name = "usuarios_eventos", indexes = {
+        @Index(name = "ix_usuarios_eventos_posicao", columnList = "posicao, id"),
+        @Index(name = "ix_usuarios_eventos_usuario", columnList = "usuario_id, posicao")
+})
+public class UserChangeEvent {
+
+    /**
+     * Chave técnica na ordem de inserção (não de commit), gerada por sequence com otimizador pooled
+     * para que os eventos de um lote sejam inseridos em lotes JDBC.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuarios_eventos_seq")
+    @SequenceGenerator(name = "usuarios_eventos_seq", sequenceName = "usuarios_eventos_seq",
+            allocationSize = User.ID_ALLOCATION_SIZE)
+    private Long id;
+
+    /**
+     * Posição no fluxo, atribuída pelo relay na ordem em que os commits se tornam visíveis.
+     * O índice em (posicao, id) serve tanto a leitura por posição quanto a busca dos pendentes
+     * ({@code posicao IS NULL}) já em ordem de ID, sem ordenar todos os pendentes a cada lote.
+     */
+    @Column(name = "posicao")
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", nullable = false, length = 16)
+    private UserChangeType type;
+
+    @Column(name = "usuario_id", nullable = false)
+    private long userId;
+
+    @Column(name = "nome")
+    private String name;
+
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "versao")
+    private Long version;
+
+    @Column(name = "criado_em", nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Construtor exigido pelo JPA.
+     */
+    protected UserChangeEvent() {
+    }
+
+    /**
+     * Cria o registro de uma alteração ainda não sequenciada.
+     * @param type tipo da alteração
+     * @param userId identificador do usuário
+     * @param name nome após a alteração (nulo na remoção)
+     * @param email email após a alteração (nulo na remoção)
+     * @param version versão após a alteração (nula na remoção)
+     * @param createdAt instante do registro
+     */
+    public UserChangeEvent(UserChangeType type, long userId, String name, String email, Long version,
+                           Instant createdAt) {
+        if (type == null) {
+            throw new IllegalArgumentException("Tipo da alteração não pode ser nulo.");
+        }
+        this.type = type;
+        this.userId = userId;
+        this.name = name;
+        this.email = email;
+        this.version = version;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    /**
+     * Atribui a posição no fluxo; chamado apenas pelo relay.
+     * @param position posição do evento
+     */
+    public void assignPosition(long position) {
+        this.position = position;
+    }
+
+    /**
+     * Converte o registro sequenciado na alteração entregue aos consumidores.
+     * @return alteração com a posição atribuída
+     */
+    public UserChange toChange() {
+        if (position == null) {
+            throw new IllegalStateException("Evento ainda não sequenciado: " + id);
+        }
+        return new UserChange(position, type, userId, name, email, version, createdAt);
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Tipo de alteração registrada no outbox de usuários.
+ */
+public enum UserChangeType {
+    /** Usuário criado (formulário, API, fila de escrita ou importação). */
+    CREATED,
+    /** Nome ou email alterados. */
+    UPDATED,
+    /** Usuário removido; o evento não traz nome nem email. */
+    DELETED
+}
@@ -0,0 +1,66 @@
+package br.com.deloittebt.crud.model;
+
+import java.util.List;
+
+/**
+ * Página de usuários obtida por paginação keyset (seek) sobre o ID.
+ * Em vez de OFFSET, cada página carrega cursores opacos que apontam para
+ * o último/primeiro registro exibido, permitindo navegar para a próxima
+ * ou para a página anterior com custo constante independente da posição.
+ */
+public class UserPage {
+
+    private final List<User> users;
+    private final String nextCursor;
+    private final String previousCursor;
+    private final int size;
+    private final SortOrder sort;
+
+    /**
+     * Construtor da página.
+     * @param users          Usuários da página, já na ordem de exibição.
+     * @param nextCursor     Cursor da próxima página ou null se não houver.
+     * @param previousCursor Cursor da página anterior ou null se não houver.
+     * @param size           Tamanho de página utilizado.
+     * @param sort           Ordem aplicada.
+     */
+    public UserPage(List<User> users, String nextCursor, String previousCursor, int size, SortOrder sort) {
+        this.users = List.copyOf(users);
+        this.nextCursor = nextCursor;
+        this.previousCursor = previousCursor;
+        this.size = size;
+        this.sort = sort;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public SortOrder getSort() {
+        return sort;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean isEmpty() {
+        return users.isEmpty();
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.deloittebt.crud.model;
+
+/**
+ * Projeção somente-leitura de um usuário (DTO).
+ * Usada em leituras em massa, como a exportação, onde não é necessário
+ * carregar entidades gerenciadas nem pagar pelo dirty checking do Hibernate.
+ *
+ * @param id    Identificador do usuário.
+ * @param name  Nome do usuário.
+ * @param email Email do usuário.
+ */
+public record UserRow(Long id, String name, String email) {
+}
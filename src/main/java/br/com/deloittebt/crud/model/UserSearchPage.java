@@ -0,0 +1,61 @@
+package br.com.deloittebt.crud.model;
+
+import java.util.List;
+
+/**
+ * Página de resultados da busca de usuários por email ou prefixo de nome.
+ * A busca por prefixo é paginada por número de página, limitada ao
+ * intervalo do índice que casa com o prefixo.
+ */
+public class UserSearchPage {
+
+    private final String query;
+    private final List<User> users;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+
+    /**
+     * Construtor da página de resultados.
+     * @param query   Termo pesquisado.
+     * @param users   Usuários encontrados nesta página.
+     * @param page    Número da página (a partir de 0).
+     * @param size    Tamanho de página utilizado.
+     * @param hasNext Se existe uma próxima página.
+     */
+    public UserSearchPage(String query, List<User> users, int page, int size, boolean hasNext) {
+        this.query = query;
+        this.users = List.copyOf(users);
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean hasPrevious() {
+        return page > 0;
+    }
+
+    public boolean isEmpty() {
+        return users.isEmpty();
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.deloittebt.crud.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Estatísticas agregadas dos usuários, mantidas incrementalmente a cada escrita.
+ *
+ * @param total          Quantidade de usuários cadastrados.
+ * @param domainCount    Quantidade de domínios de email distintos.
+ * @param topDomains     Domínios com mais usuários, em ordem decrescente.
+ * @param signupsPerDay  Usuários ainda cadastrados por dia de criação, do mais antigo ao mais recente.
+ * @param lastCheckpoint Instante da última gravação na tabela de agregados, ou null se ainda não houve.
+ */
+public record UserStats(long total, int domainCount, List<Count> topDomains, List<Count> signupsPerDay,
+                        Instant lastCheckpoint) {
+
+    /**
+     * Contagem associada a uma chave (domínio ou dia no formato ISO).
+     * @param key   Chave agregada.
+     * @param value Quantidade de usuários.
+     */
+    public record Count(String key, long value) {
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.deloittebt.crud.model;
+
+import java.util.List;
+
+/**
+ * Resultado da verificação dos agregados em memória contra uma contagem completa dos usuários.
+ *
+ * @param consistent    Se nenhum contador divergiu.
+ * @param scanned       Usuários percorridos na contagem.
+ * @param differences   Contadores divergentes (até um limite).
+ * @param elapsedMillis Duração da verificação.
+ */
+public record UserStatsCheck(boolean consistent, long scanned, List<Difference> differences, long elapsedMillis) {
+
+    /**
+     * Contador cujo valor em memória difere da contagem.
+     * @param counter  Tipo do contador ({@code total}, {@code dominio} ou {@code dia}).
+     * @param key      Chave do contador (vazia no total).
+     * @param expected Valor obtido na contagem.
+     * @param actual   Valor em memória.
+     */
+    public record Difference(String counter, String key, long expected, long actual) {
+    }
+}
@@ -0,0 +1,262 @@
+package br.com.deloittebt.crud.presentation;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Controle de admissão na frente dos controladores: recusa rápido, antes de qualquer
+ * acesso ao banco, o que não seria atendido a tempo.
+ * <ul>
+ *     <li><b>Limite de concorrência adaptativo</b> ({@link GradientLimit}): acompanha a latência
+ *     das requisições e encolhe quando ela sobe; acima do limite a resposta é 503 com {@code Retry-After}.</li>
+ *     <li><b>Prioridade</b>: consultas baratas ({@link RequestClass#LOOKUP}) podem ocupar todo o limite;
+ *     as demais só uma fração ({@code crud.admission.standard-share}, {@code crud.admission.bulk-share}),
+ *     de modo que sob carga a listagem e as operações em lote são recusadas primeiro.</li>
+ *     <li><b>Cota por cliente</b> ({@link TokenBucket} por endereço IP): acima dela a resposta é 429
+ *     com {@code Retry-After}; operações em lote custam mais fichas.</li>
+ * </ul>
+ * Assets e o actuator passam direto; o fluxo de alterações ({@code /users/changes}) só consome a cota,
+ * pois passa a maior parte do tempo aguardando eventos sem ocupar banco nem thread. Requisições assíncronas (fila de escrita, streaming) liberam
+ * a vaga ao terminar, e não quando a thread do Tomcat é devolvida.
+ * Ligado por {@code crud.admission.enabled=true}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "crud.admission.enabled", havingValue = "true")
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Classe de custo da requisição, que define sua prioridade.
+     */
+    enum RequestClass {
+        /** Busca pontual servida por índice ou cache: /buscar, /editar/{id}, /users/{id}, /novo, /pesquisa-rapida, estatísticas. */
+        LOOKUP,
+        /** Listagens, pesquisas e escritas. */
+        STANDARD,
+        /** Exportação, importação, streaming e varreduras das estatísticas: longas, não entram na medição de latência. */
+        BULK,
+        /** Long-poll e SSE de alterações: ociosos quase todo o tempo, fora do limite de concorrência. */
+        FEED
+    }
+
+    private static final Pattern USER_BY_ID = Pattern.compile("/users/\\d+");
+
+    private final GradientLimit limit;
+    private final double standardShare;
+    private final double bulkShare;
+    private final double clientRate;
+    private final double clientBurst;
+    private final double bulkCost;
+    private final long retryAfterSeconds;
+    private final Cache<String, TokenBucket> buckets;
+    private final MeterRegistry registry;
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.admission.*}.
+     * @param registry registro de métricas
+     * @param initialLimit limite de concorrência inicial
+     * @param minLimit limite mínimo
+     * @param maxLimit limite máximo
+     * @param standardShare fração do limite disponível para requisições comuns
+     * @param bulkShare fração do limite disponível para operações em lote
+     * @param clientRate fichas por segundo de cada cliente (zero desliga a cota)
+     * @param clientBurst capacidade do balde de cada cliente
+     * @param bulkCost fichas consumidas por uma operação em lote
+     * @param retryAfter espera sugerida no 503
+     */
+    public AdmissionControlFilter(MeterRegistry registry,
+                                  @Value("${crud.admission.initial-limit:20}") int initialLimit,
+                                  @Value("${crud.admission.min-limit:4}") int minLimit,
+                                  @Value("${crud.admission.max-limit:200}") int maxLimit,
+                                  @Value("${crud.admission.standard-share:0.8}") double standardShare,
+                                  @Value("${crud.admission.bulk-share:0.2}") double bulkShare,
+                                  @Value("${crud.admission.client-rate:50}") double clientRate,
+                                  @Value("${crud.admission.client-burst:100}") double clientBurst,
+                                  @Value("${crud.admission.bulk-cost:10}") double bulkCost,
+                                  @Value("${crud.admission.retry-after:1s}") Duration retryAfter) {
+        if (standardShare <= 0 || standardShare > 1 || bulkShare <= 0 || bulkShare > 1) {
+            throw new IllegalArgumentException("Frações do limite devem estar entre 0 e 1.");
+        }
+        if (clientRate < 0 || clientBurst < 1 || bulkCost < 1) {
+            throw new IllegalArgumentException("Parâmetros da cota por cliente inválidos.");
+        }
+        this.limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+        this.standardShare = standardShare;
+        this.bulkShare = bulkShare;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.bulkCost = bulkCost;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+        this.registry = registry;
+
+        Gauge.builder("crud.admission.limit", limit, GradientLimit::limit)
+                .description("Limite de concorrência adaptativo atual")
+                .register(registry);
+        Gauge.builder("crud.admission.inflight", limit, GradientLimit::inflight)
+                .description("Requisições admitidas em andamento")
+                .register(registry);
+        Gauge.builder("crud.admission.rtt.short", limit, l -> l.shortRttNanos() / 1e9)
+                .description("Latência recente (média curta)")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("crud.admission.rtt.long", limit, l -> l.longRttNanos() / 1e9)
+                .description("Latência de referência (média longa)")
+                .baseUnit("seconds")
+                .register(registry);
+        Gauge.builder("crud.admission.clients", buckets, Cache::estimatedSize)
+                .description("Clientes com cota em acompanhamento")
+                .register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/webjars/") || path.startsWith("/actuator/") || path.equals("/favicon.ico");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestClass requestClass = classify(request);
+
+        if (clientRate > 0) {
+            TokenBucket bucket = buckets.get(request.getRemoteAddr(),
+                    key -> new TokenBucket(clientRate, clientBurst, System.nanoTime()));
+            long waitNanos = bucket.tryConsume(requestClass == RequestClass.BULK ? bulkCost : 1, System.nanoTime());
+            if (waitNanos > 0) {
+                reject(request, response, HttpStatus.TOO_MANY_REQUESTS, requestClass,
+                        Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)),
+                        "Limite de requisições por cliente excedido.");
+                return;
+            }
+        }
+
+        if (requestClass == RequestClass.FEED) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        double share = switch (requestClass) {
+            case LOOKUP -> 1.0;
+            case STANDARD -> standardShare;
+            case BULK, FEED -> bulkShare;
+        };
+        if (!limit.tryAcquire(share)) {
+            reject(request, response, HttpStatus.SERVICE_UNAVAILABLE, requestClass, retryAfterSeconds,
+                    "Servidor sobrecarregado. Tente novamente em instantes.");
+            return;
+        }
+
+        long begin = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limit.release(System.nanoTime() - begin, requestClass != RequestClass.BULK);
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnCompletion(release));
+            } else {
+                release.run();
+            }
+        }
+    }
+
+    /**
+     * Classifica a requisição pelo método e pelo caminho.
+     */
+    static RequestClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean get = "GET".equals(request.getMethod());
+        if (get && path.equals("/users/changes")) {
+            return RequestClass.FEED;
+        }
+        if (path.startsWith("/exportar") || path.startsWith("/importar") || path.startsWith("/users/stream")
+                || path.equals("/users/stats/rebuild") || path.equals("/users/stats/check")) {
+            return RequestClass.BULK;
+        }
+        if (get && (path.equals("/buscar") || path.startsWith("/editar/") || path.equals("/novo")
+                || path.equals("/pesquisa-rapida") || path.equals("/users/stats") || path.equals("/estatisticas")
+                || USER_BY_ID.matcher(path).matches())) {
+            return RequestClass.LOOKUP;
+        }
+        return RequestClass.STANDARD;
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+                        RequestClass requestClass, long retryAfter, String message) throws IOException {
+        Counter.builder("crud.admission.rejected")
+                .tag("reason", status == HttpStatus.TOO_MANY_REQUESTS ? "client-rate" : "overload")
+                .tag("class", requestClass.name().toLowerCase())
+                .register(registry)
+                .increment();
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter));
+        response.setCharacterEncoding("UTF-8");
+        if (request.getRequestURI().startsWith(request.getContextPath() + "/users")) {
+            response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+            response.getWriter().write("{\"title\":\"" + status.getReasonPhrase() + "\",\"status\":" + status.value()
+                    + ",\"detail\":\"" + message + "\"}");
+        } else {
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write(message);
+        }
+    }
+
+    /**
+     * Libera a vaga quando a requisição assíncrona termina (com sucesso, erro ou timeout).
+     */
+    private record ReleaseOnCompletion(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
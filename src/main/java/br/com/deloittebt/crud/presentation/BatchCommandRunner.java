@@ -0,0 +1,540 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.ImportReport;
+import br.com.deloittebt.crud.model.SearchHit;
+import br.com.deloittebt.crud.model.SearchMode;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.service.CsvLineParser;
+import br.com.deloittebt.crud.service.UserAggregates;
+import br.com.deloittebt.crud.service.UserImportService;
+import br.com.deloittebt.crud.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Modo batch (não interativo) da aplicação: executa uma sequência de comandos lida de um arquivo
+ * ou da entrada padrão e escreve um resultado JSON por comando (NDJSON), na ordem da entrada,
+ * seguido de uma linha de resumo. Cada linha da entrada é um comando, em JSON ou em CSV:
+ * <pre>
+ * {"op":"criar","nome":"Ana","email":"ana@exemplo.com"}
+ * criar,Ana,ana@exemplo.com
+ * atualizar,1,Ana Maria,ana@exemplo.com[,versao]
+ * remover,1[,versao]
+ * buscar,1
+ * buscar-email,ana@exemplo.com
+ * pesquisar,termo[,aproximada]
+ * listar
+ * importar,/caminho/usuarios.csv
+ * estatisticas
+ * agregados
+ * agregados-reconstruir
+ * agregados-verificar
+ * </pre>
+ * Linhas em branco e iniciadas por {@code #} são ignoradas.
+ * <p>
+ * Os comandos são agrupados em transações de até {@code crud.batch.transaction-size} comandos, com
+ * um commit por grupo. Se um comando do grupo falhar, o grupo é desfeito e reexecutado comando a
+ * comando, cada um na sua transação, para isolar a falha (como na importação em lote); os resultados
+ * só são escritos após o commit. Com um motor que não desfaz escritas no rollback (o motor mapeado),
+ * os comandos anteriores à falha já estariam gravados: cada comando roda na sua própria transação,
+ * sem grupos nem reexecução. {@code listar}, {@code importar} e os comandos {@code agregados*} encerram
+ * o grupo corrente e rodam fora dele: o primeiro escreve os usuários em streaming, o segundo tem seus
+ * próprios lotes e os agregados só refletem as escritas já confirmadas.
+ */
+@Component
+public class BatchCommandRunner {
+
+    /**
+     * Resumo da execução.
+     *
+     * @param commands     Comandos lidos.
+     * @param succeeded    Comandos executados com sucesso.
+     * @param failed       Comandos rejeitados (inválidos ou com erro).
+     * @param transactions Transações confirmadas (grupos e reexecuções).
+     * @param retriedGroups Grupos desfeitos e reexecutados comando a comando.
+     * @param elapsedMillis Duração da execução, em milissegundos.
+     */
+    public record Summary(long commands, long succeeded, long failed, long transactions, long retriedGroups,
+                          long elapsedMillis) {
+    }
+
+    private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserAggregates aggregates;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int transactionSize;
+
+    /**
+     * Construtor com o tamanho do grupo lido de {@code crud.batch.transaction-size}.
+     * @param userService instância do UserService
+     * @param userImportService serviço usado pelo comando {@code importar}
+     * @param aggregates estatísticas usadas pelos comandos {@code agregados*}
+     * @param objectMapper leitura dos comandos JSON e escrita dos resultados
+     * @param transactionManager gerenciador das transações de cada grupo
+     * @param transactionSize comandos por transação
+     */
+    public BatchCommandRunner(UserService userService, UserImportService userImportService,
+                              UserAggregates aggregates, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${crud.batch.transaction-size:500}") int transactionSize) {
+        if (userService == null) {
+            throw new IllegalArgumentException("UserService não pode ser nulo.");
+        }
+        if (userImportService == null) {
+            throw new IllegalArgumentException("UserImportService não pode ser nulo.");
+        }
+        if (aggregates == null) {
+            throw new IllegalArgumentException("UserAggregates não pode ser nulo.");
+        }
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("ObjectMapper não pode ser nulo.");
+        }
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("PlatformTransactionManager não pode ser nulo.");
+        }
+        if (transactionSize <= 0) {
+            throw new IllegalArgumentException("Tamanho do grupo de transação deve ser maior que zero.");
+        }
+        this.userService = userService;
+        this.userImportService = userImportService;
+        this.aggregates = aggregates;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionSize = transactionSize;
+    }
+
+    /**
+     * Executa todos os comandos da entrada.
+     * @param input Comandos, um por linha (não é fechado).
+     * @param output Destino dos resultados NDJSON (não é fechado).
+     * @return Resumo da execução, também escrito como última linha da saída.
+     */
+    public Summary run(BufferedReader input, OutputStream output) {
+        long start = System.nanoTime();
+        try (JsonGenerator out = objectMapper.createGenerator(output)) {
+            out.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            out.setRootValueSeparator(null); // Cada resultado termina com uma quebra de linha
+            Execution execution = new Execution(out);
+
+            List<Command> group = new ArrayList<>(transactionSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = input.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                Command command = parse(lineNumber, trimmed);
+                execution.commands++;
+                if (command.op().isStandalone()) {
+                    execution.runGroup(group);
+                    execution.runStandalone(command);
+                    continue;
+                }
+                group.add(command);
+                if (group.size() == transactionSize) {
+                    execution.runGroup(group);
+                }
+            }
+            execution.runGroup(group);
+
+            Summary summary = new Summary(execution.commands, execution.succeeded, execution.failed,
+                    execution.transactions, execution.retriedGroups, (System.nanoTime() - start) / 1_000_000);
+            out.writeStartObject();
+            out.writeObjectFieldStart("resumo");
+            out.writeNumberField("comandos", summary.commands());
+            out.writeNumberField("sucesso", summary.succeeded());
+            out.writeNumberField("falhas", summary.failed());
+            out.writeNumberField("transacoes", summary.transactions());
+            out.writeNumberField("gruposReexecutados", summary.retriedGroups());
+            out.writeNumberField("ms", summary.elapsedMillis());
+            out.writeEndObject();
+            out.writeEndObject();
+            out.writeRaw('\n');
+            out.flush();
+            return summary;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler os comandos ou escrever os resultados.", e);
+        }
+    }
+
+    /**
+     * Operações aceitas, pelo nome usado na entrada.
+     */
+    private enum Op {
+        CRIAR, ATUALIZAR, REMOVER, BUSCAR, BUSCAR_EMAIL, PESQUISAR, LISTAR, IMPORTAR, ESTATISTICAS,
+        AGREGADOS, AGREGADOS_RECONSTRUIR, AGREGADOS_VERIFICAR;
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        /**
+         * @return true se a operação roda fora dos grupos de transação
+         */
+        boolean isStandalone() {
+            return switch (this) {
+                case LISTAR, IMPORTAR, AGREGADOS, AGREGADOS_RECONSTRUIR, AGREGADOS_VERIFICAR -> true;
+                default -> false;
+            };
+        }
+
+
+        static Op of(String label) {
+            for (Op op : values()) {
+                if (op.label().equals(label)) {
+                    return op;
+                }
+            }
+            throw new IllegalArgumentException("Operação desconhecida: " + label);
+        }
+    }
+
+    /**
+     * Comando lido da entrada; {@code error} preenchido quando a linha é inválida.
+     */
+    private record Command(long line, Op op, String label, Long id, Long version, String name, String email,
+                           String term, boolean fuzzy, String path, String error) {
+
+        static Command invalid(long line, String label, String error) {
+            return new Command(line, null, label, null, null, null, null, null, false, null, error);
+        }
+
+        /**
+         * @return o próprio comando, se os campos obrigatórios da operação estiverem presentes
+         * @throws IllegalArgumentException com o primeiro campo ausente
+         */
+        Command validated() {
+            String missing = switch (op) {
+                case CRIAR -> name == null ? "nome" : email == null ? "email" : null;
+                case ATUALIZAR -> id == null ? "id" : name == null ? "nome" : email == null ? "email" : null;
+                case REMOVER, BUSCAR -> id == null ? "id" : null;
+                case BUSCAR_EMAIL -> email == null ? "email" : null;
+                case PESQUISAR -> term == null ? "termo" : null;
+                case IMPORTAR -> path == null ? "arquivo" : null;
+                case LISTAR, ESTATISTICAS, AGREGADOS, AGREGADOS_RECONSTRUIR, AGREGADOS_VERIFICAR -> null;
+            };
+            if (missing != null) {
+                throw new IllegalArgumentException("Campo obrigatório ausente: " + missing);
+            }
+            return this;
+        }
+    }
+
+    private Command parse(long line, String text) {
+        String label = null;
+        try {
+            if (text.startsWith("{")) {
+                JsonNode node = objectMapper.readTree(text);
+                label = textField(node, "op");
+                if (label == null) {
+                    throw new IllegalArgumentException("Campo obrigatório ausente: op");
+                }
+                Op op = Op.of(label.trim().toLowerCase(Locale.ROOT));
+                return new Command(line, op, op.label(), longField(node, "id"), longField(node, "versao"),
+                        textField(node, "nome"), textField(node, "email"), textField(node, "termo"),
+                        node.path("aproximada").asBoolean(false), textField(node, "arquivo"), null).validated();
+            }
+            List<String> fields = CsvLineParser.parse(text);
+            label = fields.get(0).trim().toLowerCase(Locale.ROOT);
+            Op op = Op.of(label);
+            Command command = switch (op) {
+                case CRIAR -> new Command(line, op, label, null, null, field(fields, 1), field(fields, 2),
+                        null, false, null, null);
+                case ATUALIZAR -> new Command(line, op, label, parseLong(field(fields, 1), "id"),
+                        parseLong(field(fields, 4), "versao"), field(fields, 2), field(fields, 3), null, false, null, null);
+                case REMOVER -> new Command(line, op, label, parseLong(field(fields, 1), "id"),
+                        parseLong(field(fields, 2), "versao"), null, null, null, false, null, null);
+                case BUSCAR -> new Command(line, op, label, parseLong(field(fields, 1), "id"), null, null, null,
+                        null, false, null, null);
+                case BUSCAR_EMAIL -> new Command(line, op, label, null, null, null, field(fields, 1), null, false,
+                        null, null);
+                case PESQUISAR -> new Command(line, op, label, null, null, null, null, field(fields, 1),
+                        isTrue(field(fields, 2)), null, null);
+                case IMPORTAR -> new Command(line, op, label, null, null, null, null, null, false,
+                        field(fields, 1), null);
+                case LISTAR, ESTATISTICAS, AGREGADOS, AGREGADOS_RECONSTRUIR, AGREGADOS_VERIFICAR -> new Command(line, op, label, null, null, null, null, null, false,
+                        null, null);
+            };
+            return command.validated();
+        } catch (JsonProcessingException e) {
+            return Command.invalid(line, label, "JSON inválido: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return Command.invalid(line, label, e.getMessage());
+        }
+    }
+
+    /**
+     * Execução em andamento: escreve os resultados e acumula os contadores do resumo.
+     */
+    private final class Execution {
+
+        private final JsonGenerator out;
+        private long commands;
+        private long succeeded;
+        private long failed;
+        private long transactions;
+        private long retriedGroups;
+
+        Execution(JsonGenerator out) {
+            this.out = out;
+        }
+
+        /**
+         * Executa o grupo numa transação; se algum comando falhar, desfaz e reexecuta um a um.
+         * Sem rollback no motor, executa cada comando na sua transação. Esvazia o grupo.
+         */
+        void runGroup(List<Command> group) throws IOException {
+            if (group.isEmpty()) {
+                return;
+            }
+            List<Map<String, Object>> results = userService.isStorageTransactional()
+                    ? runInTransaction(group) : runEachAlone(group);
+            for (Map<String, Object> result : results) {
+                write(result);
+            }
+            out.flush();
+            group.clear();
+        }
+
+        private List<Map<String, Object>> runInTransaction(List<Command> group) {
+            try {
+                List<Map<String, Object>> results = transactionTemplate.execute(status -> {
+                    List<Map<String, Object>> executed = new ArrayList<>(group.size());
+                    for (Command command : group) {
+                        executed.add(command.error() != null ? failure(command, command.error()) : execute(command));
+                    }
+                    return executed;
+                });
+                transactions++;
+                return results;
+            } catch (RuntimeException e) {
+                retriedGroups++;
+                return runEachAlone(group);
+            }
+        }
+
+        private List<Map<String, Object>> runEachAlone(List<Command> group) {
+            List<Map<String, Object>> results = new ArrayList<>(group.size());
+            for (Command command : group) {
+                results.add(runAlone(command));
+            }
+            return results;
+        }
+
+        /**
+         * {@code listar}, {@code importar} e {@code agregados*}, fora dos grupos.
+         */
+        void runStandalone(Command command) throws IOException {
+            if (command.error() != null) {
+                write(failure(command, command.error()));
+            } else if (command.op() == Op.LISTAR) {
+                list(command);
+            } else {
+                // A importação grava em lotes com transações próprias; os agregados só leem o já confirmado
+                Map<String, Object> result;
+                try {
+                    result = execute(command);
+                } catch (RuntimeException e) {
+                    result = failure(command, e.getMessage());
+                }
+                write(result);
+            }
+            out.flush();
+        }
+
+        private Map<String, Object> runAlone(Command command) {
+            if (command.error() != null) {
+                return failure(command, command.error());
+            }
+            try {
+                Map<String, Object> result = transactionTemplate.execute(status -> execute(command));
+                transactions++;
+                return result;
+            } catch (RuntimeException e) {
+                return failure(command, e.getMessage());
+            }
+        }
+
+        /**
+         * Escreve os usuários conforme são lidos do banco, sem carregá-los todos em memória.
+         */
+        private void list(Command command) throws IOException {
+            out.writeStartObject();
+            out.writeNumberField("linha", command.line());
+            out.writeStringField("op", command.label());
+            out.writeArrayFieldStart("usuarios");
+            long[] total = new long[1];
+            userService.streamAll(user -> {
+                try {
+                    out.writeObject(UserResponse.from(user));
+                    total[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.writeEndArray();
+            out.writeNumberField("total", total[0]);
+            out.writeBooleanField("ok", true);
+            out.writeEndObject();
+            out.writeRaw('\n');
+            succeeded++;
+        }
+
+        private void write(Map<String, Object> result) throws IOException {
+            if (Boolean.TRUE.equals(result.get("ok"))) {
+                succeeded++;
+            } else {
+                failed++;
+            }
+            out.writeObject(result);
+            out.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Executa um comando válido; falhas de escrita propagam para desfazer o grupo.
+     * Erros esperados de leitura (ID inexistente, termo curto) viram resultado, pois as
+     * leituras não marcam a transação para rollback.
+     */
+    private Map<String, Object> execute(Command command) {
+        Map<String, Object> result = success(command);
+        switch (command.op()) {
+            case CRIAR -> result.put("usuario", UserResponse.from(userService.create(command.name(), command.email())));
+            case ATUALIZAR -> {
+                if (command.version() == null) {
+                    userService.update(command.id(), command.name(), command.email());
+                    result.put("id", command.id());
+                } else {
+                    result.put("usuario", UserResponse.from(
+                            userService.update(command.id(), command.version(), command.name(), command.email())));
+                }
+            }
+            case REMOVER -> {
+                if (command.version() == null) {
+                    userService.deleteById(command.id());
+                } else {
+                    userService.deleteById(command.id(), command.version());
+                }
+                result.put("id", command.id());
+            }
+            case BUSCAR -> {
+                try {
+                    result.put("usuario", UserResponse.from(userService.findById(command.id())));
+                } catch (IllegalArgumentException e) {
+                    return failure(command, e.getMessage());
+                }
+            }
+            case BUSCAR_EMAIL -> result.put("usuario",
+                    userService.findByEmail(command.email()).map(UserResponse::from).orElse(null));
+            case PESQUISAR -> {
+                try {
+                    List<SearchHit> hits = userService.search(command.term(),
+                            command.fuzzy() ? SearchMode.FUZZY : SearchMode.SUBSTRING, UserService.MAX_PAGE_SIZE);
+                    result.put("usuarios", hits.stream().map(hit -> UserResponse.from(hit.toUser())).toList());
+                } catch (IllegalArgumentException e) {
+                    return failure(command, e.getMessage());
+                }
+            }
+            case IMPORTAR -> result.put("importacao", importFile(command.path()));
+            case ESTATISTICAS -> {
+                result.put("cache", userService.cacheStats());
+                result.put("indice", userService.searchIndexFootprint());
+            }
+            case AGREGADOS -> result.put("agregados", UserStatsResponse.from(aggregates.stats()));
+            case AGREGADOS_RECONSTRUIR -> result.put("agregados", UserStatsResponse.from(aggregates.rebuild()));
+            case AGREGADOS_VERIFICAR -> result.put("verificacao", UserStatsCheckResponse.from(aggregates.check()));
+            case LISTAR -> throw new IllegalStateException("listar é executado fora dos grupos.");
+        }
+        return result;
+    }
+
+    private Map<String, Object> importFile(String path) {
+        ImportReport report;
+        try (InputStream input = Files.newInputStream(Path.of(path))) {
+            report = userImportService.importCsv(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Não foi possível ler o arquivo: " + path, e);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("importados", report.getImported());
+        summary.put("rejeitados", report.getRejected());
+        summary.put("ms", report.getElapsedMillis());
+        summary.put("erros", report.getErrors());
+        return summary;
+    }
+
+    private static Map<String, Object> success(Command command) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("linha", command.line());
+        result.put("op", command.label());
+        result.put("ok", true);
+        return result;
+    }
+
+    private static Map<String, Object> failure(Command command, String error) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("linha", command.line());
+        result.put("op", command.label());
+        result.put("ok", false);
+        result.put("erro", error);
+        return result;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static String textField(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Long longField(JsonNode node, String name) {
+        JsonNode value = node.get(name);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        return value.canConvertToLong() ? value.asLong() : parseLong(value.asText(), name);
+    }
+
+    private static Long parseLong(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Campo " + name + " inválido: " + value);
+        }
+    }
+
+    private static boolean isTrue(String value) {
+        return value != null && (value.equalsIgnoreCase("s") || value.equalsIgnoreCase("true"));
+    }
+}
@@ -0,0 +1,110 @@
+package br.com.deloittebt.crud.presentation;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concorrência adaptativo por gradiente de latência (no estilo do Gradient2 /
+ * TCP Vegas): compara a latência recente com a média de longo prazo e, enquanto elas
+ * estão próximas, o limite cresce devagar; quando a latência recente sobe (fila se formando
+ * no banco), o limite encolhe proporcionalmente.
+ * <pre>
+ * gradiente  = clamp(tolerância × rttLongo / rttCurto, 0,5, 1)
+ * novoLimite = limite × gradiente + √limite
+ * limite     = limite × (1 − suavização) + novoLimite × suavização
+ * </pre>
+ * Só há ajuste quando pelo menos metade do limite está em uso; sem carga, a latência
+ * não diz nada sobre a capacidade e o limite não deve crescer indefinidamente.
+ */
+final class GradientLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit <= 0 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limites de concorrência inválidos: inicial=" + initialLimit
+                    + ", mínimo=" + minLimit + ", máximo=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Ocupa uma vaga se houver menos requisições em andamento que a fração do limite.
+     * @param share fração do limite disponível para a classe da requisição (0 a 1)
+     * @return true se a requisição foi admitida; nesse caso {@link #release} é obrigatório
+     */
+    boolean tryAcquire(double share) {
+        int ceiling = Math.max(1, (int) (limit * share));
+        while (true) {
+            int current = inflight.get();
+            if (current >= ceiling) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Libera a vaga e, se for uma amostra válida, ajusta o limite pela latência observada.
+     * @param rttNanos duração da requisição
+     * @param sample se a duração representa a capacidade (falso para streaming e lotes)
+     */
+    void release(long rttNanos, boolean sample) {
+        int before = inflight.getAndDecrement();
+        if (sample) {
+            onSample(rttNanos, before);
+        }
+    }
+
+    private synchronized void onSample(long rttNanos, int inflightAtEnd) {
+        double rtt = Math.max(1, rttNanos);
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+        if (inflightAtEnd < limit / 2) {
+            return;
+        }
+        // Depois de uma sobrecarga longa a média de longo prazo fica inflada; deixa-a voltar mais rápido
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        double smoothed = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, smoothed));
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    int inflight() {
+        return inflight.get();
+    }
+
+    synchronized double shortRttNanos() {
+        return shortRtt;
+    }
+
+    synchronized double longRttNanos() {
+        return longRtt;
+    }
+}
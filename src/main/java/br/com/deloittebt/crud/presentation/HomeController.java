@@ -1,13 +1,41 @@
 package br.com.deloittebt.crud.presentation;
 
+import br.com.deloittebt.crud.model.ExportFormat;
+import br.com.deloittebt.crud.model.SearchHit;
+import br.com.deloittebt.crud.model.SearchMode;
+import br.com.deloittebt.crud.model.SortOrder;
 import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserSearchPage;
+import br.com.deloittebt.crud.model.UserStats;
+import br.com.deloittebt.crud.service.UserAggregates;
+import br.com.deloittebt.crud.service.UserExportService;
+import br.com.deloittebt.crud.service.UserImportService;
 import br.com.deloittebt.crud.service.UserService;
+import br.com.deloittebt.crud.service.UserVersionConflictException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Controlador responsável por lidar com as requisições HTTP relacionadas à gestão de usuários.
@@ -18,23 +46,56 @@ import org.springframework.web.bind.annotation.RequestParam;
 public class HomeController {
 
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final UserExportService userExportService;
+    private final PageCache pageCache;
+    private final UserAggregates aggregates;
 
     /**
-     * Construtor para injeção de dependência do UserService.
+     * Construtor para injeção de dependência dos serviços de usuários.
      * @param userService O serviço de usuários.
+     * @param userImportService O serviço de importação em lote.
+     * @param userExportService O serviço de exportação.
+     * @param pageCache O cache HTTP condicional e de fragmentos renderizados.
+     * @param aggregates As estatísticas agregadas dos usuários.
      */
-    public HomeController(UserService userService) {
+    public HomeController(UserService userService, UserImportService userImportService,
+                          UserExportService userExportService, PageCache pageCache, UserAggregates aggregates) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.userExportService = userExportService;
+        this.pageCache = pageCache;
+        this.aggregates = aggregates;
     }
 
     /**
-     * Exibe a página inicial com a lista de todos os usuários.
+     * Exibe a página inicial com uma página da lista de usuários.
+     * A navegação usa cursores keyset em vez de carregar a tabela inteira.
+     * Responde 304 enquanto a versão dos dados não mudar; a tabela vem do cache de
+     * fragmentos quando a mesma página já foi renderizada nessa versão.
+     * @param cursor Cursor opaco da página desejada; ausente para a primeira página.
+     * @param size Tamanho da página; o padrão vem de {@code crud.pagination.page-size}.
+     * @param sort Ordem da listagem por ID (asc ou desc).
+     * @param webRequest A requisição, para o {@code If-None-Match}.
+     * @param request A requisição HTTP (links do fragmento).
+     * @param response A resposta HTTP (ETag e links do fragmento).
      * @param model O modelo para adicionar atributos à view.
-     * @return O nome da view "index".
+     * @return O nome da view "index", ou null se a resposta for 304.
      */
     @GetMapping("/")
-    public String home(Model model) {
-        model.addAttribute("users", userService.findAll());
+    public String home(@RequestParam(required = false) String cursor,
+                       @RequestParam(defaultValue = "${crud.pagination.page-size:20}") int size,
+                       @RequestParam(required = false) String sort,
+                       WebRequest webRequest, HttpServletRequest request, HttpServletResponse response,
+                       Model model) {
+        long version = pageCache.currentVersion();
+        if (pageCache.checkNotModified("index", version, webRequest, response)) {
+            return null;
+        }
+        SortOrder order = SortOrder.from(sort);
+        String variant = cursor + "|" + size + "|" + order;
+        model.addAttribute("tabela", pageCache.fragment(version, "fragments/usuarios-tabela", "tabela", variant,
+                request, response, () -> Map.of("page", userService.findPage(cursor, size, order))));
         return "index";
     }
 
@@ -52,31 +113,57 @@ public class HomeController {
     /**
      * Salva um novo usuário ou atualiza um usuário existente.
      * Redireciona para a página inicial após a operação.
+     * Na edição, a versão enviada pelo formulário impede que uma alteração feita por
+     * outra pessoa nesse meio tempo seja sobrescrita: o formulário é reexibido com o estado atual.
+     * Com a fila de escrita habilitada, a requisição é liberada da thread do Tomcat e
+     * respondida quando o lote que contém a escrita é confirmado.
      * @param id O ID do usuário (nulo para novos usuários, preenchido para edição).
+     * @param version A versão do usuário quando o formulário foi aberto (apenas na edição).
      * @param name O nome do usuário.
      * @param email O email do usuário.
-     * @return Redirecionamento para a página inicial.
+     * @param model O modelo para adicionar atributos à view em caso de conflito.
+     * @return Redirecionamento para a página inicial, ou a view "form" em caso de conflito.
      */
     @PostMapping("/salvar")
-    public String salvarUsuario(@RequestParam(required = false) Long id, @RequestParam String name, @RequestParam String email) {
+    public CompletableFuture<String> salvarUsuario(@RequestParam(required = false) Long id,
+                                                   @RequestParam(required = false) Long version,
+                                                   @RequestParam String name, @RequestParam String email,
+                                                   Model model) {
         if (id == null) {
             // Refatoração: o UserService agora lida com a criação da instância de User
-            userService.create(name, email);
-        } else {
-            userService.update(id, name, email);
+            return userService.createAsync(name, email).thenApply(user -> "redirect:/");
         }
-        return "redirect:/";
+        return userService.updateAsync(id, version, name, email)
+                .handle((ignored, error) -> {
+                    if (error == null) {
+                        return "redirect:/";
+                    }
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof UserVersionConflictException) {
+                        model.addAttribute("user", userService.findById(id));
+                        model.addAttribute("erro", cause.getMessage() + " Revise os dados atuais e salve novamente.");
+                        return "form";
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                });
     }
 
     /**
      * Busca um usuário pelo ID e exibe seus detalhes.
      * Em caso de erro (usuário não encontrado), exibe uma mensagem de erro.
+     * Responde 304 enquanto a versão dos dados não mudar.
      * @param id O ID do usuário a ser buscado.
+     * @param webRequest A requisição, para o {@code If-None-Match}.
+     * @param response A resposta HTTP (ETag).
      * @param model O modelo para adicionar atributos à view.
-     * @return O nome da view "usuario-detalhe".
+     * @return O nome da view "usuario-detalhe", ou null se a resposta for 304.
      */
     @GetMapping("/buscar")
-    public String buscarUsuarioPorId(@RequestParam Long id, Model model) {
+    public String buscarUsuarioPorId(@RequestParam Long id, WebRequest webRequest, HttpServletResponse response,
+                                     Model model) {
+        if (pageCache.checkNotModified("buscar", pageCache.currentVersion(), webRequest, response)) {
+            return null;
+        }
         try {
             User user = userService.findById(id);
             model.addAttribute("usuarioEncontrado", user);
@@ -86,12 +173,69 @@ public class HomeController {
         return "usuario-detalhe";
     }
 
+    /**
+     * Pesquisa usuários por email exato (quando o termo contém "@") ou pelo início do nome.
+     * Ambas as buscas usam índices da tabela "usuarios".
+     * @param q Termo pesquisado.
+     * @param page Número da página da busca por nome (a partir de 0).
+     * @param size Tamanho da página; o padrão vem de {@code crud.pagination.page-size}.
+     * @param model O modelo para adicionar atributos à view.
+     * @return O nome da view "pesquisa".
+     */
+    @GetMapping("/pesquisar")
+    public String pesquisarUsuarios(@RequestParam String q,
+                                    @RequestParam(defaultValue = "0") int page,
+                                    @RequestParam(defaultValue = "${crud.pagination.page-size:20}") int size,
+                                    Model model) {
+        try {
+            if (q.contains("@")) {
+                List<User> users = userService.findByEmail(q).map(List::of).orElse(List.of());
+                model.addAttribute("resultado", new UserSearchPage(q.trim(), users, 0, size, false));
+            } else {
+                model.addAttribute("resultado", userService.searchByNamePrefix(q, page, size));
+            }
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("erro", e.getMessage());
+        }
+        return "pesquisa";
+    }
+
+    /**
+     * Pesquisa em memória por trecho do nome ou do email (substring) ou com
+     * tolerância a erros de digitação (fuzzy), sem acessar o banco.
+     * @param q Termo pesquisado (ao menos 3 caracteres).
+     * @param modo Modo da pesquisa (substring ou fuzzy).
+     * @param limite Quantidade máxima de resultados.
+     * @param model O modelo para adicionar atributos à view.
+     * @return O nome da view "pesquisa".
+     */
+    @GetMapping("/pesquisa-rapida")
+    public String pesquisaRapida(@RequestParam String q,
+                                 @RequestParam(required = false) String modo,
+                                 @RequestParam(defaultValue = "${crud.pagination.page-size:20}") int limite,
+                                 Model model) {
+        try {
+            long start = System.nanoTime();
+            List<SearchHit> hits = userService.search(q, SearchMode.from(modo), limite);
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+
+            List<User> users = hits.stream().map(SearchHit::toUser).toList();
+            model.addAttribute("resultado", new UserSearchPage(q.trim(), users, 0, limite, false));
+            model.addAttribute("tempoMicros", elapsedMicros);
+            model.addAttribute("indice", userService.searchIndexFootprint());
+        } catch (IllegalArgumentException e) {
+            model.addAttribute("erro", e.getMessage());
+        }
+        return "pesquisa";
+    }
+
     /**
      * Exclui um usuário pelo ID e redireciona para a página inicial.
+     * Exige POST para que links, prefetch e crawlers não removam usuários.
      * @param id O ID do usuário a ser excluído.
      * @return Redirecionamento para a página inicial.
      */
-    @GetMapping("/excluir/{id}")
+    @PostMapping("/excluir/{id}")
     public String excluirUsuario(@PathVariable Long id) {
         userService.deleteById(id);
         return "redirect:/";
@@ -99,14 +243,84 @@ public class HomeController {
 
     /**
      * Exibe o formulário pré-preenchido para edição de um usuário existente.
+     * Responde 304 enquanto a versão dos dados não mudar.
      * @param id O ID do usuário a ser editado.
+     * @param webRequest A requisição, para o {@code If-None-Match}.
+     * @param response A resposta HTTP (ETag).
      * @param model O modelo para adicionar atributos à view.
-     * @return O nome da view "form".
+     * @return O nome da view "form", ou null se a resposta for 304.
      */
     @GetMapping("/editar/{id}")
-    public String mostrarFormularioDeEdicao(@PathVariable Long id, Model model) {
+    public String mostrarFormularioDeEdicao(@PathVariable Long id, WebRequest webRequest,
+                                            HttpServletResponse response, Model model) {
+        if (pageCache.checkNotModified("editar", pageCache.currentVersion(), webRequest, response)) {
+            return null;
+        }
         User user = userService.findById(id);
         model.addAttribute("user", user);
         return "form";
     }
+
+    /**
+     * Exibe o painel de estatísticas: total, usuários por domínio e cadastros por dia,
+     * lidos dos agregados em memória sem percorrer os usuários.
+     * @param model O modelo para adicionar atributos à view.
+     * @return O nome da view "estatisticas".
+     */
+    @GetMapping("/estatisticas")
+    public String estatisticas(Model model) {
+        if (!aggregates.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Estatísticas de usuários desativadas (crud.aggregates.enabled).");
+        }
+        UserStats stats = aggregates.stats();
+        model.addAttribute("estatisticas", stats);
+        model.addAttribute("maiorDia", stats.signupsPerDay().stream().mapToLong(UserStats.Count::value).max().orElse(0));
+        model.addAttribute("ultimoCheckpoint", stats.lastCheckpoint() == null ? null
+                : LocalDateTime.ofInstant(stats.lastCheckpoint(), ZoneId.systemDefault()));
+        return "estatisticas";
+    }
+
+    /**
+     * Importa usuários em lote a partir de um arquivo CSV (nome,email) enviado via multipart.
+     * O arquivo é processado em streaming e o relatório lista as linhas rejeitadas.
+     * @param arquivo Arquivo CSV enviado pelo formulário.
+     * @param model O modelo para adicionar atributos à view.
+     * @return O nome da view "importacao".
+     * @throws IOException se o arquivo enviado não puder ser lido.
+     */
+    @PostMapping("/importar")
+    public String importarUsuarios(@RequestParam MultipartFile arquivo, Model model) throws IOException {
+        try (InputStream input = arquivo.getInputStream()) {
+            model.addAttribute("relatorio", userImportService.importCsv(input));
+        }
+        return "importacao";
+    }
+
+    /**
+     * Exporta todos os usuários em CSV ou NDJSON, escrevendo diretamente no corpo da resposta.
+     * Com {@code gzip=true} o arquivo é entregue compactado (usuarios.csv.gz / usuarios.ndjson.gz).
+     * @param formato Formato da exportação (csv ou ndjson).
+     * @param gzip Se o arquivo deve ser compactado com gzip.
+     * @param response A resposta HTTP usada como destino do streaming.
+     * @throws IOException se a escrita na resposta falhar.
+     */
+    @GetMapping("/exportar")
+    public void exportarUsuarios(@RequestParam(required = false) String formato,
+                                 @RequestParam(defaultValue = "false") boolean gzip,
+                                 HttpServletResponse response) throws IOException {
+        ExportFormat format = ExportFormat.from(formato);
+        String fileName = "usuarios." + format.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+
+        if (gzip) {
+            try (GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                userExportService.export(output, format);
+            }
+        } else {
+            OutputStream output = response.getOutputStream();
+            userExportService.export(output, format);
+            output.flush();
+        }
+    }
 }
@@ -0,0 +1,195 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.service.DataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.spring6.expression.ThymeleafEvaluationContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache HTTP condicional e cache de fragmentos renderizados das páginas Thymeleaf.
+ * <ul>
+ *     <li>As páginas recebem uma ETag fraca derivada da {@link DataVersion} (fraca porque a mesma versão
+ *     pode sair comprimida ou não, e o Tomcat não comprime respostas com ETag forte); um {@code If-None-Match}
+ *     igual responde 304 sem consultar nem renderizar nada.</li>
+ *     <li>Fragmentos (como a tabela da listagem) ficam em memória por versão e variante (cursor,
+ *     tamanho e ordem): enquanto nenhuma escrita acontece, a consulta e a renderização são evitadas.
+ *     Uma escrita muda a versão, e as entradas antigas deixam de ser usadas e saem por tamanho.</li>
+ * </ul>
+ * Métricas: acertos do cache em {@code cache.gets{cache=fragmentos}}, respostas 304 em
+ * {@code crud.http.not_modified}, tempo gasto nas renderizações em {@code crud.fragment_cache.render.time}
+ * e tempo de consulta e renderização evitado pelos acertos em {@code crud.fragment_cache.render.saved}.
+ */
+@Component
+public class PageCache implements MeterBinder {
+
+    private final DataVersion dataVersion;
+    private final ITemplateEngine templateEngine;
+    private final ApplicationContext applicationContext;
+    private final Cache<Key, Rendered> fragments;
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder savedNanos = new LongAdder();
+    private MeterRegistry registry;
+
+    /**
+     * Aplicação web do Thymeleaf, criada na primeira renderização a partir do contexto do servlet
+     * da requisição (o bean também existe em contextos sem servidor web, como nos benchmarks).
+     */
+    private volatile JakartaServletWebApplication application;
+
+    private record Key(long version, String template, String fragment, String variant) {
+    }
+
+    /**
+     * Fragmento renderizado e o custo (consulta + renderização) de produzi-lo.
+     */
+    private record Rendered(String html, long costNanos) {
+    }
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.fragment-cache.*}.
+     * @param dataVersion versão dos dados usada nas ETags e nas chaves
+     * @param templateEngine motor do Thymeleaf
+     * @param applicationContext contexto do Spring (expressões dos templates)
+     * @param enabled se os fragmentos são guardados em memória
+     * @param maximumSize quantidade máxima de fragmentos em memória
+     */
+    public PageCache(DataVersion dataVersion, ITemplateEngine templateEngine, ApplicationContext applicationContext,
+                     @Value("${crud.fragment-cache.enabled:true}") boolean enabled,
+                     @Value("${crud.fragment-cache.maximum-size:500}") long maximumSize) {
+        if (dataVersion == null) {
+            throw new IllegalArgumentException("DataVersion não pode ser nulo.");
+        }
+        if (templateEngine == null) {
+            throw new IllegalArgumentException("ITemplateEngine não pode ser nulo.");
+        }
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Tamanho máximo do cache de fragmentos deve ser maior que zero.");
+        }
+        this.dataVersion = dataVersion;
+        this.templateEngine = templateEngine;
+        this.applicationContext = applicationContext;
+        this.fragments = enabled
+                ? Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build()
+                : null;
+    }
+
+    /**
+     * Versão atual dos dados; deve ser lida antes de consultar e renderizar a página.
+     * @return versão dos dados
+     */
+    public long currentVersion() {
+        return dataVersion.current();
+    }
+
+    /**
+     * Define a ETag da página para a versão lida e verifica o {@code If-None-Match}.
+     * Com {@code no-cache} o navegador revalida a cada visita, recebendo 304 enquanto nada mudar.
+     * @param page nome da página (tag das métricas)
+     * @param version versão lida com {@link #currentVersion()}
+     * @param request requisição atual
+     * @param response resposta atual
+     * @return true se a resposta já é 304 e o controlador deve retornar sem renderizar
+     */
+    public boolean checkNotModified(String page, long version, WebRequest request, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (!request.checkNotModified("W/\"" + dataVersion.etag(version) + "\"")) {
+            return false;
+        }
+        if (registry != null) {
+            Counter.builder("crud.http.not_modified").tag("page", page).register(registry).increment();
+        }
+        return true;
+    }
+
+    /**
+     * Devolve o HTML de um fragmento de template, renderizando-o só na falta em cache.
+     * @param version versão lida com {@link #currentVersion()}
+     * @param template nome do template
+     * @param fragment nome do {@code th:fragment}
+     * @param variant parâmetros que distinguem o conteúdo (por exemplo cursor, tamanho e ordem)
+     * @param request requisição atual (links do template)
+     * @param response resposta atual (links do template)
+     * @param variables consulta que produz as variáveis do fragmento, executada só na falta
+     * @return HTML do fragmento
+     */
+    public String fragment(long version, String template, String fragment, String variant,
+                           HttpServletRequest request, HttpServletResponse response,
+                           Supplier<Map<String, Object>> variables) {
+        if (fragments == null) {
+            return render(template, fragment, request, response, variables).html();
+        }
+        boolean[] rendered = new boolean[1];
+        Rendered result = fragments.get(new Key(version, template, fragment, variant), ignored -> {
+            rendered[0] = true;
+            return render(template, fragment, request, response, variables);
+        });
+        if (!rendered[0]) {
+            savedNanos.add(result.costNanos());
+        }
+        return result.html();
+    }
+
+    /**
+     * Expõe as estatísticas do cache de fragmentos e o tempo de renderização gasto e evitado.
+     * @param registry registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        if (fragments != null) {
+            CaffeineCacheMetrics.monitor(registry, fragments, "fragmentos");
+        }
+        FunctionCounter.builder("crud.fragment_cache.render.time", renderNanos, PageCache::seconds)
+                .description("Tempo de consulta e renderização dos fragmentos")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("crud.fragment_cache.render.saved", savedNanos, PageCache::seconds)
+                .description("Tempo de consulta e renderização evitado por acertos no cache de fragmentos")
+                .baseUnit("seconds")
+                .register(registry);
+    }
+
+    private Rendered render(String template, String fragment, HttpServletRequest request,
+                            HttpServletResponse response, Supplier<Map<String, Object>> variables) {
+        long begin = System.nanoTime();
+        JakartaServletWebApplication web = application;
+        if (web == null) {
+            web = JakartaServletWebApplication.buildApplication(request.getServletContext());
+            application = web;
+        }
+        WebContext context = new WebContext(web.buildExchange(request, response), request.getLocale(),
+                variables.get());
+        context.setVariable(ThymeleafEvaluationContext.THYMELEAF_EVALUATION_CONTEXT_CONTEXT_VARIABLE_NAME,
+                new ThymeleafEvaluationContext(applicationContext, null));
+        String html = templateEngine.process(template, Set.of(fragment), context);
+        long cost = System.nanoTime() - begin;
+        renderNanos.add(cost);
+        return new Rendered(html, cost);
+    }
+
+    private static double seconds(LongAdder nanos) {
+        return nanos.sum() / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+}
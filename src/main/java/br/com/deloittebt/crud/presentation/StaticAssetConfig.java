@@ -0,0 +1,227 @@
+package br.com.deloittebt.crud.presentation;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.CssLinkResourceTransformer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+import org.springframework.web.servlet.resource.ResourceTransformer;
+import org.springframework.web.servlet.resource.ResourceTransformerChain;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URL;
+import java.nio.channels.ReadableByteChannel;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Entrega dos assets estáticos (webjars e {@code classpath:/static/}).
+ * <ul>
+ *     <li>As URLs geradas pelos templates ({@code @{...}}) recebem o hash do conteúdo
+ *     ({@code bootstrap.min-<md5>.css}) pelo {@link ResourceUrlEncodingFilter}; como o conteúdo
+ *     não muda sob a mesma URL, a resposta de uma URL com hash válido vai com
+ *     {@code Cache-Control: public, max-age, immutable}. Pela URL sem hash o mesmo arquivo muda a cada
+ *     versão da aplicação: vai com {@code no-cache} e é revalidado pela data de modificação.</li>
+ *     <li>Versões pré-comprimidas gravadas no build ({@code .gz} ao lado do arquivo, ver o
+ *     {@code maven-antrun-plugin} no pom) são servidas a clientes com {@code Accept-Encoding}
+ *     compatível, sem comprimir a cada requisição.</li>
+ *     <li>Os recursos resolvidos ficam em cache (por caminho e codificação).</li>
+ * </ul>
+ * Substitui o mapeamento padrão do Spring Boot ({@code spring.web.resources.add-mappings=false}),
+ * que não oferece {@code immutable}.
+ */
+@Configuration
+public class StaticAssetConfig implements WebMvcConfigurer {
+
+    private final String versionedCacheControl;
+
+    /**
+     * Construtor com a validade lida de {@code crud.assets.max-age}.
+     * @param maxAge por quanto tempo navegadores e proxies guardam os assets com hash na URL
+     */
+    public StaticAssetConfig(@Value("${crud.assets.max-age:365d}") Duration maxAge) {
+        if (maxAge.isNegative()) {
+            throw new IllegalArgumentException("Validade dos assets não pode ser negativa.");
+        }
+        this.versionedCacheControl = CacheControl.maxAge(maxAge).cachePublic().immutable().getHeaderValue();
+    }
+
+    /**
+     * Registra os webjars e os recursos estáticos com hash de conteúdo e pré-compressão.
+     * @param registry registro de handlers de recursos
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/webjars/**")
+                .addResourceLocations("classpath:/META-INF/resources/webjars/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new ImmutableVersionResourceResolver(versionedCacheControl))
+                .addTransformer(new ImmutableResourceTransformer())
+                .addTransformer(new CssLinkResourceTransformer());
+        registry.addResourceHandler("/**")
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.noCache())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new ImmutableVersionResourceResolver(versionedCacheControl))
+                .addTransformer(new ImmutableResourceTransformer())
+                .addTransformer(new CssLinkResourceTransformer());
+    }
+
+    /**
+     * Reescreve os links gerados pelos templates para as URLs com hash.
+     * @return filtro de reescrita de URLs
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+
+    /**
+     * Resolve as URLs com hash de conteúdo e marca como imutáveis só os recursos encontrados por elas.
+     * Depois deste resolvedor só vem o de caminhos, que devolve recursos simples: um {@link HttpResource}
+     * aqui é o recurso de uma URL cujo hash conferiu com o conteúdo. O handler aplica os cabeçalhos do
+     * recurso depois do {@code Cache-Control} padrão, substituindo-o.
+     */
+    private static final class ImmutableVersionResourceResolver extends VersionResourceResolver {
+
+        private final String cacheControl;
+
+        ImmutableVersionResourceResolver(String cacheControl) {
+            this.cacheControl = cacheControl;
+            addContentVersionStrategy("/**");
+        }
+
+        @Override
+        protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                                   List<? extends Resource> locations, ResourceResolverChain chain) {
+            Resource resource = super.resolveResourceInternal(request, requestPath, locations, chain);
+            if (resource instanceof HttpResource versioned) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.putAll(versioned.getResponseHeaders());
+                headers.setCacheControl(cacheControl);
+                return new ImmutableResource(resource, headers);
+            }
+            return resource;
+        }
+    }
+
+    /**
+     * Mantém o {@code Cache-Control} imutável no CSS com hash na URL: o {@link CssLinkResourceTransformer},
+     * registrado depois deste, reescreve os links e devolve um recurso novo, sem os cabeçalhos do original.
+     */
+    private static final class ImmutableResourceTransformer implements ResourceTransformer {
+
+        @Override
+        public Resource transform(HttpServletRequest request, Resource resource, ResourceTransformerChain chain)
+                throws IOException {
+            Resource transformed = chain.transform(request, resource);
+            if (resource instanceof ImmutableResource immutable && !(transformed instanceof HttpResource)) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.setCacheControl(immutable.getResponseHeaders().getCacheControl());
+                return new ImmutableResource(transformed, headers);
+            }
+            return transformed;
+        }
+    }
+
+    /**
+     * Recurso com hash de conteúdo na URL, com os cabeçalhos a aplicar na resposta.
+     */
+    private static final class ImmutableResource extends AbstractResource implements HttpResource {
+
+        private final Resource original;
+        private final HttpHeaders headers;
+
+        ImmutableResource(Resource original, HttpHeaders headers) {
+            this.original = original;
+            this.headers = headers;
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean exists() {
+            return original.exists();
+        }
+
+        @Override
+        public boolean isReadable() {
+            return original.isReadable();
+        }
+
+        @Override
+        public boolean isFile() {
+            return original.isFile();
+        }
+
+        @Override
+        public URL getURL() throws IOException {
+            return original.getURL();
+        }
+
+        @Override
+        public URI getURI() throws IOException {
+            return original.getURI();
+        }
+
+        @Override
+        public File getFile() throws IOException {
+            return original.getFile();
+        }
+
+        @Override
+        public ReadableByteChannel readableChannel() throws IOException {
+            return original.readableChannel();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return original.contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return original.lastModified();
+        }
+
+        @Override
+        public Resource createRelative(String relativePath) throws IOException {
+            return original.createRelative(relativePath);
+        }
+
+        @Override
+        public String getFilename() {
+            return original.getFilename();
+        }
+
+        @Override
+        public String getDescription() {
+            return original.getDescription();
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return original.getInputStream();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.deloittebt.crud.presentation;
+
+/**
+ * Balde de fichas de um cliente: reabastece {@code rate} fichas por segundo até {@code burst}.
+ */
+final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double burst;
+    private double tokens;
+    private long updatedAt;
+
+    TokenBucket(double ratePerSecond, double burst, long now) {
+        this.ratePerNano = ratePerSecond / 1_000_000_000.0;
+        this.burst = burst;
+        this.tokens = burst;
+        this.updatedAt = now;
+    }
+
+    /**
+     * Consome as fichas, se houver.
+     * @param cost fichas exigidas pela requisição
+     * @param now instante atual ({@link System#nanoTime()})
+     * @return 0 se consumiu; senão, nanossegundos até haver fichas suficientes
+     */
+    synchronized long tryConsume(double cost, long now) {
+        tokens = Math.min(burst, tokens + (now - updatedAt) * ratePerNano);
+        updatedAt = now;
+        double needed = Math.min(cost, burst);
+        if (tokens >= needed) {
+            tokens -= needed;
+            return 0;
+        }
+        return (long) Math.ceil((needed - tokens) / ratePerNano);
+    }
+}
@@ -0,0 +1,21 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserChange;
+
+import java.util.List;
+
+/**
+ * Resposta do long-poll de alterações.
+ *
+ * @param alteracoes Alterações após a posição pedida, em ordem.
+ * @param posicao    Posição a repassar em {@code after} na próxima requisição.
+ * @param atual      Última posição entregue pelo relay (maior que {@code posicao} se há mais a ler).
+ */
+public record UserChangeBatchResponse(List<UserChangeResponse> alteracoes, long posicao, long atual) {
+
+    static UserChangeBatchResponse from(long after, List<UserChange> changes, long current) {
+        long position = changes.isEmpty() ? after : changes.get(changes.size() - 1).position();
+        return new UserChangeBatchResponse(changes.stream().map(UserChangeResponse::from).toList(), position,
+                Math.max(current, position));
+    }
+}
@@ -0,0 +1,224 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserChange;
+import br.com.deloittebt.crud.service.ChangeFeedExpiredException;
+import br.com.deloittebt.crud.service.UserChangeRelay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Fluxo de alterações de usuários para sincronização incremental, servido pelo {@link UserChangeRelay}.
+ * Um consumidor lê a posição atual ({@code atual}), copia o estado completo ({@code /users/stream})
+ * e daí em diante aplica só as alterações posteriores àquela posição:
+ * <ul>
+ *     <li><b>Long-poll</b> ({@code application/json}): devolve as alterações após {@code after}; sem
+ *     nenhuma, espera até {@code wait} segundos por novas antes de responder vazio.</li>
+ *     <li><b>Server-Sent Events</b> ({@code text/event-stream}): envia as alterações à medida que são
+ *     entregues, com a posição no {@code id} de cada evento; o {@code EventSource} do navegador retoma
+ *     sozinho do cabeçalho {@code Last-Event-ID} ao reconectar.</li>
+ * </ul>
+ * Posições já removidas pela retenção respondem 410: o consumidor deve ressincronizar.
+ * As esperas não ocupam threads: o envio é retomado quando o relay avança.
+ */
+@RestController
+@RequestMapping("/users/changes")
+public class UserChangeFeedController {
+
+    /**
+     * Máximo de alterações por resposta do long-poll e por rodada de envio do SSE.
+     */
+    private static final int MAX_LIMIT = 1000;
+
+    /**
+     * Espera máxima do long-poll, em segundos.
+     */
+    private static final int MAX_WAIT_SECONDS = 30;
+
+    private final UserChangeRelay relay;
+    private final Duration heartbeat;
+    private final ExecutorService feedExecutor;
+
+    /**
+     * Construtor com o intervalo de keep-alive do SSE lido de {@code crud.outbox.sse-heartbeat}.
+     * @param relay relay do outbox
+     * @param heartbeat intervalo máximo sem envio no SSE (um comentário detecta clientes desconectados)
+     */
+    public UserChangeFeedController(UserChangeRelay relay,
+                                    @Value("${crud.outbox.sse-heartbeat:15s}") Duration heartbeat) {
+        if (relay == null) {
+            throw new IllegalArgumentException("UserChangeRelay não pode ser nulo.");
+        }
+        this.relay = relay;
+        this.heartbeat = heartbeat;
+        // Leituras e envios retomados após a espera; fora da thread do relay, que não pode bloquear
+        this.feedExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("user-changes-", 0).factory());
+    }
+
+    /**
+     * Long-poll das alterações após a posição informada.
+     * @param after Última posição já processada (0 para o início do fluxo retido).
+     * @param limit Quantidade máxima de alterações (até 1000).
+     * @param wait Segundos de espera se não houver alterações (até 30; 0 responde imediatamente).
+     * @return Alterações e a posição a usar na próxima requisição.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<UserChangeBatchResponse> poll(@RequestParam(defaultValue = "0") long after,
+                                                           @RequestParam(defaultValue = "100") int limit,
+                                                           @RequestParam(defaultValue = "0") int wait) {
+        requireEnabled();
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + MAX_LIMIT + ".");
+        }
+        if (wait < 0 || wait > MAX_WAIT_SECONDS) {
+            throw new IllegalArgumentException("Espera deve estar entre 0 e " + MAX_WAIT_SECONDS + " segundos.");
+        }
+        List<UserChange> changes = relay.read(after, limit);
+        if (!changes.isEmpty() || wait == 0) {
+            return CompletableFuture.completedFuture(UserChangeBatchResponse.from(after, changes, relay.position()));
+        }
+        return relay.awaitAfter(after, Duration.ofSeconds(wait))
+                .thenApplyAsync(position -> UserChangeBatchResponse.from(after, relay.read(after, limit),
+                        relay.position()), feedExecutor);
+    }
+
+    /**
+     * Envia as alterações como Server-Sent Events a partir da posição informada.
+     * @param after Última posição já processada; sem ela (e sem {@code Last-Event-ID}) parte da posição atual.
+     * @param lastEventId Posição do último evento recebido, enviada pelo {@code EventSource} ao reconectar.
+     * @return Fluxo de eventos {@code created}, {@code updated} e {@code deleted}.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) Long after,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        requireEnabled();
+        long start;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                start = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Last-Event-ID inválido: " + lastEventId);
+            }
+        } else {
+            start = after != null ? after : relay.position();
+        }
+        // Primeira leitura na thread da requisição: posição inválida ou expirada responde 400/410
+        List<UserChange> first = relay.read(start, MAX_LIMIT);
+        SseEmitter emitter = new SseEmitter();
+        ChangeStream stream = new ChangeStream(emitter, start);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        feedExecutor.execute(() -> stream.pump(first));
+        return emitter;
+    }
+
+    @ExceptionHandler(ChangeFeedExpiredException.class)
+    public ProblemDetail expirado(ChangeFeedExpiredException e) {
+        ProblemDetail problem = ProblemDetail.forStatusAndDetail(HttpStatus.GONE, e.getMessage());
+        problem.setProperty("posicaoMaisAntiga", e.getOldestPosition());
+        return problem;
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail requisicaoInvalida(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    private void requireEnabled() {
+        if (!relay.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Fluxo de alterações desativado (crud.outbox.enabled).");
+        }
+    }
+
+    /**
+     * Envio de um cliente SSE: alterna entre enviar o que há após a posição e aguardar o relay avançar
+     * (ou o keep-alive vencer). Só uma etapa roda por vez, então a posição não precisa de trava.
+     */
+    private final class ChangeStream {
+
+        private final SseEmitter emitter;
+        private long position;
+        private volatile boolean closed;
+
+        ChangeStream(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        void pump(List<UserChange> pending) {
+            try {
+                List<UserChange> changes = pending;
+                while (!closed) {
+                    if (changes.isEmpty()) {
+                        changes = relay.read(position, MAX_LIMIT);
+                        if (changes.isEmpty()) {
+                            break;
+                        }
+                    }
+                    send(changes);
+                    changes = List.of();
+                }
+                if (!closed) {
+                    relay.awaitAfter(position, heartbeat).thenRunAsync(this::resume, feedExecutor);
+                }
+            } catch (ChangeFeedExpiredException e) {
+                // Consumidor lento demais para a retenção: encerra e a reconexão recebe 410
+                close();
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                close(); // Cliente desconectado ou emissor já encerrado
+            }
+        }
+
+        private void resume() {
+            if (closed) {
+                return;
+            }
+            if (!relay.isRunning()) {
+                close();
+                emitter.complete();
+                return;
+            }
+            if (relay.position() <= position) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                    return;
+                }
+            }
+            pump(List.of());
+        }
+
+        private void send(List<UserChange> changes) throws IOException {
+            for (UserChange change : changes) {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.position()))
+                        .name(change.type().name().toLowerCase())
+                        .data(UserChangeResponse.from(change), MediaType.APPLICATION_JSON));
+            }
+            position = changes.get(changes.size() - 1).position();
+        }
+
+        void close() {
+            closed = true;
+        }
+    }
+}
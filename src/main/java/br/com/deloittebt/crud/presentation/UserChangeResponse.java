@@ -0,0 +1,25 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserChange;
+
+import java.time.Instant;
+
+/**
+ * Representação JSON de uma alteração no fluxo {@code /users/changes}.
+ *
+ * @param posicao      Posição no fluxo (repassada em {@code after} ou {@code Last-Event-ID} para retomar).
+ * @param tipo         created, updated ou deleted.
+ * @param id           Identificador do usuário.
+ * @param nome         Nome após a alteração (nulo na remoção).
+ * @param email        Email após a alteração (nulo na remoção).
+ * @param versao       Versão após a alteração (nula na remoção).
+ * @param registradoEm Instante em que a alteração foi registrada.
+ */
+public record UserChangeResponse(long posicao, String tipo, long id, String nome, String email, Long versao,
+                                 Instant registradoEm) {
+
+    static UserChangeResponse from(UserChange change) {
+        return new UserChangeResponse(change.position(), change.type().name().toLowerCase(), change.userId(),
+                change.name(), change.email(), change.version(), change.recordedAt());
+    }
+}
@@ -0,0 +1,25 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserPage;
+
+import java.util.List;
+
+/**
+ * Página da listagem da API REST. Os cursores são opacos e devem ser repassados
+ * no parâmetro {@code cursor} da próxima requisição; nulos quando não há página.
+ *
+ * @param usuarios        Usuários da página.
+ * @param proximoCursor   Cursor da próxima página.
+ * @param anteriorCursor  Cursor da página anterior.
+ * @param tamanho         Tamanho de página solicitado.
+ * @param ordem           Ordem por ID (asc ou desc).
+ */
+public record UserPageResponse(List<UserResponse> usuarios, String proximoCursor, String anteriorCursor,
+                               int tamanho, String ordem) {
+
+    static UserPageResponse from(UserPage page) {
+        return new UserPageResponse(page.getUsers().stream().map(UserResponse::from).toList(),
+                page.getNextCursor(), page.getPreviousCursor(), page.getSize(),
+                page.getSort().name().toLowerCase());
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.deloittebt.crud.presentation;
+
+/**
+ * Corpo JSON de criação e atualização de usuários na API REST.
+ *
+ * @param nome  Nome do usuário.
+ * @param email Email do usuário.
+ */
+public record UserRequest(String nome, String email) {
+}
@@ -0,0 +1,18 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.User;
+
+/**
+ * Representação JSON de um usuário na API REST (campos da exportação NDJSON mais a versão).
+ *
+ * @param id    Identificador.
+ * @param nome  Nome.
+ * @param email Email.
+ * @param versao Versão para concorrência otimista (também enviada como ETag).
+ */
+public record UserResponse(Long id, String nome, String email, long versao) {
+
+    static UserResponse from(User user) {
+        return new UserResponse(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+    }
+}
@@ -0,0 +1,211 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.ExportFormat;
+import br.com.deloittebt.crud.model.SortOrder;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.service.DuplicateEmailException;
+import br.com.deloittebt.crud.service.UserExportService;
+import br.com.deloittebt.crud.service.UserNotFoundException;
+import br.com.deloittebt.crud.service.UserService;
+import br.com.deloittebt.crud.service.UserVersionConflictException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+
+/**
+ * API REST/JSON para consumo programático dos usuários, ao lado da interface Thymeleaf.
+ * Leituras de um usuário devolvem ETag (a versão) e respondem 304 a {@code If-None-Match};
+ * alterações aceitam {@code If-Match} e respondem 412 se o usuário mudou.
+ * A listagem completa é enviada em streaming (NDJSON ou Server-Sent Events) a partir
+ * de um cursor do banco, fora da thread do Tomcat.
+ */
+@RestController
+@RequestMapping("/users")
+public class UserRestController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserService userService;
+    private final UserExportService userExportService;
+
+    /**
+     * Construtor para injeção de dependência dos serviços de usuários.
+     * @param userService O serviço de usuários.
+     * @param userExportService O serviço de exportação, usado no streaming.
+     */
+    public UserRestController(UserService userService, UserExportService userExportService) {
+        this.userService = userService;
+        this.userExportService = userExportService;
+    }
+
+    /**
+     * Lista uma página de usuários com paginação keyset.
+     * @param cursor Cursor opaco devolvido na página anterior; ausente para a primeira página.
+     * @param size Tamanho da página; o padrão vem de {@code crud.pagination.page-size}.
+     * @param sort Ordem por ID (asc ou desc).
+     * @return Página de usuários com os cursores de navegação.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public UserPageResponse listar(@RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "${crud.pagination.page-size:20}") int size,
+                                   @RequestParam(required = false) String sort) {
+        return UserPageResponse.from(userService.findPage(cursor, size, SortOrder.from(sort)));
+    }
+
+    /**
+     * Envia todos os usuários em NDJSON, um objeto por linha, em ordem de ID.
+     * @return Corpo escrito de forma assíncrona à medida que o cliente consome.
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamNdjson() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON + ";charset=UTF-8"))
+                .body(output -> userExportService.export(output, ExportFormat.NDJSON));
+    }
+
+    /**
+     * Envia todos os usuários como Server-Sent Events, um evento por usuário.
+     * @return Corpo escrito de forma assíncrona à medida que o cliente consome.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEvents() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noStore())
+                .body(userExportService::exportEvents);
+    }
+
+    /**
+     * Busca um usuário pelo ID. Com {@code If-None-Match} igual à ETag atual responde 304 sem corpo.
+     * @param id O ID do usuário.
+     * @return O usuário com sua ETag.
+     */
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponse> buscar(@PathVariable Long id) {
+        User user = userService.findById(id);
+        return ResponseEntity.ok()
+                .eTag(etag(user))
+                .cacheControl(CacheControl.noCache())
+                .body(UserResponse.from(user));
+    }
+
+    /**
+     * Cria um usuário.
+     * @param request Nome e email.
+     * @return 201 com o usuário criado, sua ETag e o cabeçalho Location.
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponse> criar(@RequestBody UserRequest request) {
+        User user = userService.create(request.nome(), request.email());
+        return ResponseEntity.created(URI.create("/users/" + user.getId()))
+                .eTag(etag(user))
+                .body(UserResponse.from(user));
+    }
+
+    /**
+     * Atualiza nome e email de um usuário.
+     * Com {@code If-Match} a atualização é condicional à versão (um único UPDATE) e responde
+     * 412 se o usuário mudou; sem ele, a última escrita prevalece.
+     * @param id O ID do usuário.
+     * @param ifMatch ETag esperada (opcional).
+     * @param request Novo nome e email.
+     * @return O usuário atualizado com a nova ETag.
+     */
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UserResponse> atualizar(@PathVariable Long id,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                  @RequestBody UserRequest request) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        User user;
+        if (expectedVersion == null) {
+            userService.update(id, request.nome(), request.email());
+            user = userService.findById(id);
+        } else {
+            user = userService.update(id, expectedVersion, request.nome(), request.email());
+        }
+        return ResponseEntity.ok()
+                .eTag(etag(user))
+                .body(UserResponse.from(user));
+    }
+
+    /**
+     * Remove um usuário (um único DELETE).
+     * @param id O ID do usuário.
+     * @param ifMatch ETag esperada (opcional); se o usuário mudou, responde 412.
+     * @return 204 sem corpo.
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> excluir(@PathVariable Long id,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = expectedVersion(ifMatch);
+        if (expectedVersion == null) {
+            userService.deleteById(id);
+        } else {
+            userService.deleteById(id, expectedVersion);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(UserNotFoundException.class)
+    public ProblemDetail naoEncontrado(UserNotFoundException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(DuplicateEmailException.class)
+    public ProblemDetail emailDuplicado(DuplicateEmailException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ProblemDetail requisicaoInvalida(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(UserVersionConflictException.class)
+    public ProblemDetail versaoDivergente(UserVersionConflictException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED, e.getMessage());
+    }
+
+    /**
+     * ETag forte: a versão do usuário, incrementada a cada alteração.
+     */
+    private static String etag(User user) {
+        return "\"" + user.getVersion() + "\"";
+    }
+
+    /**
+     * Versão esperada a partir do cabeçalho If-Match; null se ausente ou "*".
+     * Uma ETag que não é uma versão vira -1, que nunca confere (responde 412 ou 404).
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserStatsCheck;
+
+import java.util.List;
+
+/**
+ * Representação JSON da verificação dos agregados contra uma contagem completa.
+ *
+ * @param consistente  Se nenhum contador divergiu.
+ * @param verificados  Usuários percorridos.
+ * @param divergencias Contadores divergentes (até 100).
+ * @param tempoMs      Duração da verificação.
+ */
+public record UserStatsCheckResponse(boolean consistente, long verificados, List<Divergencia> divergencias, long tempoMs) {
+
+    /**
+     * @param contador Tipo do contador (total, dominio ou dia).
+     * @param chave    Chave do contador.
+     * @param esperado Valor da contagem completa.
+     * @param atual    Valor em memória.
+     */
+    public record Divergencia(String contador, String chave, long esperado, long atual) {
+    }
+
+    static UserStatsCheckResponse from(UserStatsCheck check) {
+        return new UserStatsCheckResponse(check.consistent(), check.scanned(),
+                check.differences().stream()
+                        .map(d -> new Divergencia(d.counter(), d.key(), d.expected(), d.actual()))
+                        .toList(),
+                check.elapsedMillis());
+    }
+}
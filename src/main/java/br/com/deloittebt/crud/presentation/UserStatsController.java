@@ -0,0 +1,67 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.service.UserAggregates;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Estatísticas agregadas dos usuários, mantidas incrementalmente pelo {@link UserAggregates}.
+ * A consulta não percorre os usuários; a reconstrução e a verificação percorrem todos e são
+ * operações administrativas. Com os agregados desligados, as rotas respondem 404.
+ */
+@RestController
+@RequestMapping("/users/stats")
+public class UserStatsController {
+
+    private final UserAggregates aggregates;
+
+    /**
+     * @param aggregates agregados de usuários
+     */
+    public UserStatsController(UserAggregates aggregates) {
+        if (aggregates == null) {
+            throw new IllegalArgumentException("UserAggregates não pode ser nulo.");
+        }
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Total de usuários, ranking de domínios e cadastros por dia.
+     * @return Estatísticas atuais.
+     */
+    @GetMapping
+    public UserStatsResponse estatisticas() {
+        requireEnabled();
+        return UserStatsResponse.from(aggregates.stats());
+    }
+
+    /**
+     * Reconstrói os agregados do zero a partir dos usuários cadastrados.
+     * @return Estatísticas reconstruídas.
+     */
+    @PostMapping("/rebuild")
+    public UserStatsResponse reconstruir() {
+        requireEnabled();
+        return UserStatsResponse.from(aggregates.rebuild());
+    }
+
+    /**
+     * Compara os agregados com uma contagem completa dos usuários, sem alterá-los.
+     * @return Resultado da verificação.
+     */
+    @GetMapping("/check")
+    public UserStatsCheckResponse verificar() {
+        requireEnabled();
+        return UserStatsCheckResponse.from(aggregates.check());
+    }
+
+    private void requireEnabled() {
+        if (!aggregates.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Estatísticas de usuários desativadas (crud.aggregates.enabled).");
+        }
+    }
+}
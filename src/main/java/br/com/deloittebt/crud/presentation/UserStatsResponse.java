@@ -0,0 +1,37 @@
+package br.com.deloittebt.crud.presentation;
+
+import br.com.deloittebt.crud.model.UserStats;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Representação JSON das estatísticas agregadas dos usuários.
+ *
+ * @param total            Usuários cadastrados.
+ * @param dominios         Domínios de email distintos.
+ * @param topDominios      Domínios com mais usuários, em ordem decrescente.
+ * @param cadastrosPorDia  Usuários por dia de criação, do mais antigo ao mais recente.
+ * @param ultimoCheckpoint Instante da última gravação dos agregados, ou null.
+ */
+public record UserStatsResponse(long total, int dominios, List<Contagem> topDominios, List<Contagem> cadastrosPorDia,
+                                Instant ultimoCheckpoint) {
+
+    /**
+     * @param chave Domínio ou dia (ISO).
+     * @param valor Quantidade de usuários.
+     */
+    public record Contagem(String chave, long valor) {
+
+        static Contagem from(UserStats.Count count) {
+            return new Contagem(count.key(), count.value());
+        }
+    }
+
+    static UserStatsResponse from(UserStats stats) {
+        return new UserStatsResponse(stats.total(), stats.domainCount(),
+                stats.topDomains().stream().map(Contagem::from).toList(),
+                stats.signupsPerDay().stream().map(Contagem::from).toList(),
+                stats.lastCheckpoint());
+    }
+}
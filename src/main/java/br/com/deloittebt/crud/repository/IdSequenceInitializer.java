@@ -0,0 +1,68 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Alinha a sequence "usuarios_seq" com os IDs já existentes ao final de cada migração do Flyway,
+ * antes de o Hibernate subir e o Tomcat aceitar requisições.
+ * Bancos criados quando o ID era IDENTITY (ou restaurados de um backup) já possuem linhas cujos IDs a
+ * sequence ainda não conhece; sem este ajuste os primeiros INSERTs colidiriam com a chave primária.
+ */
+@Component
+public class IdSequenceInitializer implements Callback {
+
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_MIGRATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    /**
+     * Reinicia a sequence acima do maior ID caso ela esteja atrasada.
+     * Como o otimizador pooled trata o valor lido como o topo do bloco,
+     * o reinício soma o tamanho do bloco para que o menor ID gerado seja max(id) + 1.
+     *
+     * @param event   evento do Flyway (sempre {@link Event#AFTER_MIGRATE})
+     * @param context contexto com a conexão usada na migração
+     */
+    @Override
+    public void handle(Event event, Context context) {
+        Connection connection = context.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            long maxId = single(statement, "SELECT COALESCE(MAX(id), 0) FROM usuarios");
+            long nextValue = single(statement,
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'USUARIOS_SEQ'");
+            if (nextValue <= maxId) {
+                statement.executeUpdate("ALTER SEQUENCE usuarios_seq RESTART WITH " + (maxId + User.ID_ALLOCATION_SIZE));
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Falha ao alinhar a sequence usuarios_seq com os IDs existentes.", e);
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "alinhamento da usuarios_seq";
+    }
+
+    private static long single(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package br.com.deloittebt.crud.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserRow;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Motor de armazenamento padrão ({@code crud.storage.engine=jpa}) do {@link UserRepository}.
+ * Utiliza JPA/Hibernate sobre o H2 para abstrair toda a lógica de acesso a dados.
+ * Não deve conter regras de negócio, apenas operações de CRUD.
+ * O Spring Boot gerencia transações automaticamente com @Transactional.
+ */
+@Repository
+@ConditionalOnProperty(name = "crud.storage.engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaUserRepository implements UserRepository {
+
+    /**
+     * EntityManager utilizado para realizar operações de persistência.
+     * Injetado automaticamente pelo Spring Boot via @PersistenceContext.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Persiste um novo usuário no banco de dados.
+     * O ID é gerado automaticamente pelo Hibernate.
+     *
+     * @param user usuário a ser salvo
+     * @return usuário persistido com ID preenchido
+     */
+    @Override
+    @Transactional
+    public User save(User user) {
+        entityManager.persist(user); // Persistência JPA
+        // O INSERT sai agora, e não no commit: email duplicado é sinalizado por este método, como nos outros motores
+        entityManager.flush();
+        return user;
+    }
+
+    /**
+     * Persiste um lote de usuários em uma única transação.
+     * Com o ID gerado por sequence (pooled), o Hibernate agrupa os INSERTs
+     * em lotes JDBC ({@code hibernate.jdbc.batch_size}). Ao final, o contexto
+     * de persistência é descarregado e limpo para não acumular entidades.
+     *
+     * @param users usuários a serem salvos
+     */
+    @Override
+    @Transactional
+    public void saveAll(List<User> users) {
+        for (User user : users) {
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Retorna todos os usuários cadastrados no banco.
+     *
+     * @return lista de usuários
+     */
+    @Override
+    public List<User> findAll() {
+        TypedQuery<User> query = entityManager.createQuery("SELECT u FROM User u", User.class);
+        return query.getResultList();
+    }
+
+    /**
+     * Busca uma fatia de usuários por paginação keyset (seek) sobre o ID.
+     * Usa {@code WHERE id > :afterId} (ou {@code <} na ordem decrescente) em vez de OFFSET,
+     * de modo que o custo da consulta depende apenas do tamanho da página e não da posição.
+     *
+     * @param afterId   ID âncora; registros são buscados após ele no sentido da varredura.
+     *                  Nulo indica o início da tabela.
+     * @param ascending sentido da varredura (true para ID crescente)
+     * @param limit     quantidade máxima de registros retornados
+     * @return usuários encontrados na ordem da varredura
+     */
+    @Override
+    public List<User> findPage(Long afterId, boolean ascending, int limit) {
+        String direction = ascending ? "ASC" : "DESC";
+        String jpql = afterId == null
+                ? "SELECT u FROM User u ORDER BY u.id " + direction
+                : "SELECT u FROM User u WHERE u.id " + (ascending ? ">" : "<") + " :afterId ORDER BY u.id " + direction;
+        TypedQuery<User> query = entityManager.createQuery(jpql, User.class);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+        }
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Percorre todos os usuários com um cursor JDBC somente-avanço, entregando
+     * cada registro ao consumidor. O contexto de persistência é limpo a cada
+     * {@code fetchSize} registros, mantendo o uso de memória limitado
+     * independentemente do tamanho da tabela.
+     *
+     * @param fetchSize quantidade de linhas buscadas por ida ao banco
+     * @param consumer  consumidor de cada usuário lido
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(int fetchSize, Consumer<User> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<User> results = session
+                .createQuery("SELECT u FROM User u ORDER BY u.id", User.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            int count = 0;
+            while (results.next()) {
+                consumer.accept(results.get());
+                if (++count % fetchSize == 0) {
+                    session.clear(); // Libera as entidades já consumidas
+                }
+            }
+        }
+    }
+
+    /**
+     * Percorre todos os usuários como projeções {@link UserRow}, em ordem de ID,
+     * com um cursor JDBC somente-avanço. Projeções não são entidades gerenciadas:
+     * não entram no contexto de persistência nem passam por dirty checking.
+     *
+     * @param fetchSize quantidade de linhas buscadas por ida ao banco
+     * @param consumer  consumidor de cada linha lida
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamRows(int fetchSize, Consumer<UserRow> consumer) {
+        Session session = entityManager.unwrap(Session.class);
+        try (ScrollableResults<UserRow> results = session
+                .createQuery("SELECT new br.com.deloittebt.crud.model.UserRow(u.id, u.name, u.email) "
+                        + "FROM User u ORDER BY u.id", UserRow.class)
+                .setFetchSize(fetchSize)
+                .setReadOnly(true)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                consumer.accept(results.get());
+            }
+        }
+    }
+
+    /**
+     * Busca usuário por ID.
+     *
+     * @param id identificador do usuário
+     * @return Optional contendo o usuário se encontrado
+     */
+    @Override
+    public Optional<User> findById(Long id) {
+        User user = entityManager.find(User.class, id);
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Busca usuário por ID com {@code SELECT ... FOR UPDATE} quando há transação ativa.
+     * A entidade é desanexada: o {@code UPDATE} direto não a altera, e uma nova leitura na mesma
+     * transação (ex.: outra atualização do usuário no mesmo lote da fila de escrita) precisa ir ao banco.
+     *
+     * @param id identificador do usuário
+     * @return Optional contendo o usuário se encontrado
+     */
+    @Override
+    public Optional<User> findByIdForUpdate(Long id) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return findById(id);
+        }
+        User user = entityManager.find(User.class, id, LockModeType.PESSIMISTIC_WRITE);
+        if (user != null) {
+            entityManager.detach(user);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Busca usuário pelo email (já normalizado), usando o índice único de email.
+     *
+     * @param email email normalizado
+     * @return Optional contendo o usuário se encontrado
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return entityManager.createQuery("SELECT u FROM User u WHERE u.email = :email", User.class)
+                .setParameter("email", email)
+                .setMaxResults(1)
+                .getResultList() // Lista (e não stream): fora de transação o EntityManager fecha após a consulta
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Busca usuários cujo nome começa com o prefixo informado, sem diferenciar maiúsculas.
+     * A consulta usa {@code LIKE 'prefixo%'} sobre a coluna indexada "nome_busca",
+     * percorrendo apenas o intervalo do índice que casa com o prefixo.
+     *
+     * @param prefix prefixo em minúsculas, já com curingas escapados
+     * @param offset quantidade de registros a pular
+     * @param limit  quantidade máxima de registros retornados
+     * @return usuários ordenados por nome e ID
+     */
+    @Override
+    public List<User> searchByNamePrefix(String prefix, int offset, int limit) {
+        return entityManager.createQuery(
+                        "SELECT u FROM User u WHERE u.searchName LIKE :prefix ESCAPE '\\' "
+                                + "ORDER BY u.searchName, u.id", User.class)
+                .setParameter("prefix", prefix + "%")
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Atualiza nome e email diretamente, com um único {@code UPDATE}, incrementando a versão.
+     * Com {@code expectedVersion} informado a linha só é alterada se ainda estiver nessa versão.
+     *
+     * @param id              identificador do usuário
+     * @param name            novo nome
+     * @param email           novo email, já normalizado
+     * @param expectedVersion versão esperada, ou null para atualizar qualquer versão
+     * @return quantidade de linhas alteradas (0 se não existe ou se a versão mudou)
+     */
+    @Override
+    @Transactional
+    public int update(Long id, String name, String email, Long expectedVersion) {
+        String jpql = "UPDATE User u SET u.name = :name, u.email = :email, u.version = u.version + 1 "
+                + "WHERE u.id = :id" + (expectedVersion != null ? " AND u.version = :version" : "");
+        Query query = entityManager.createQuery(jpql)
+                .setParameter("name", name)
+                .setParameter("email", email)
+                .setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * Remove um usuário diretamente, com um único {@code DELETE}, sem carregá-lo antes.
+     * Com {@code expectedVersion} informado a linha só é removida se ainda estiver nessa versão.
+     *
+     * @param id              identificador do usuário
+     * @param expectedVersion versão esperada, ou null para remover qualquer versão
+     * @return quantidade de linhas removidas (0 se não existe ou se a versão mudou)
+     */
+    @Override
+    @Transactional
+    public int delete(Long id, Long expectedVersion) {
+        String jpql = "DELETE FROM User u WHERE u.id = :id"
+                + (expectedVersion != null ? " AND u.version = :version" : "");
+        Query query = entityManager.createQuery(jpql).setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("version", expectedVersion);
+        }
+        return query.executeUpdate();
+    }
+
+    /**
+     * Verifica se existe usuário com o ID, sem carregar a entidade.
+     * Usado para distinguir "não encontrado" de "conflito de versão" quando nenhuma linha foi alterada.
+     *
+     * @param id identificador do usuário
+     * @return true se o usuário existe
+     */
+    @Override
+    public boolean existsById(Long id) {
+        return !entityManager.createQuery("SELECT 1 FROM User u WHERE u.id = :id", Integer.class)
+                .setParameter("id", id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+}
@@ -0,0 +1,374 @@
+package br.com.deloittebt.crud.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+/**
+ * Log de registros de usuário somente-append, mapeado em memória ({@link MappedByteBuffer})
+ * em regiões de tamanho fixo. Cada registro tem layout binário fixo de campos:
+ * <pre>
+ * int   tamanho total do registro (incluindo este campo e o CRC)
+ * byte  tipo: 1 = gravação, 2 = remoção, 3 = próximo ID (gravado na compactação)
+ * long  ID
+ * long  versão
+ * short tamanho do nome em UTF-8, seguido dos bytes do nome
+ * short tamanho do email em UTF-8, seguido dos bytes do email
+ * int   CRC32C dos bytes anteriores do registro
+ * </pre>
+ * Um registro nunca atravessa regiões: o resto de uma região sem espaço é marcado com -1 e pulado.
+ * O arquivo começa com um cabeçalho (assinatura, tamanho da região e indicador de fechamento
+ * normal). Na abertura o log é relido do início; a leitura para no primeiro registro incompleto
+ * ou com CRC divergente (escrita interrompida por uma queda), e o que vem depois dele é descartado.
+ * Escritas não são thread-safe: o {@link MappedUserRepository} as serializa.
+ */
+final class MappedRecordLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedRecordLog.class);
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte SEQUENCE = 3;
+
+    private static final int MAGIC = 0x55535231; // "USR1"
+    private static final int FILE_HEADER_BYTES = 16;
+    private static final int STATE_AT = 2 * Integer.BYTES;
+    private static final int STATE_OPEN = 0;
+    private static final int STATE_CLOSED = 1;
+    private static final int SKIP_MARKER = -1;
+    private static final int NAME_LENGTH_AT = Integer.BYTES + 1 + 2 * Long.BYTES;
+    private static final int FIXED_BYTES = NAME_LENGTH_AT + 2 * Short.BYTES + Integer.BYTES;
+    private static final int MAX_FIELD_BYTES = 0xFFFF;
+
+    /**
+     * Registro decodificado, com sua posição e tamanho no log.
+     */
+    record LogRecord(long offset, int length, byte type, long id, long version, String name, String email) {
+    }
+
+    /**
+     * Recebe cada registro válido durante a releitura do log.
+     */
+    interface Visitor {
+
+        void accept(LogRecord record);
+    }
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final boolean closedCleanly;
+    private final ReentrantLock forceLock = new ReentrantLock();
+    /**
+     * Substituído (cópia) ao mapear uma nova região: a compactação lê regiões antigas sem trava.
+     */
+    private volatile MappedByteBuffer[] regions;
+    private long end;
+    private long unforcedFrom;
+
+    private MappedRecordLog(FileChannel channel, int regionSize, MappedByteBuffer[] regions, boolean closedCleanly) {
+        this.channel = channel;
+        this.regionSize = regionSize;
+        this.closedCleanly = closedCleanly;
+        this.regions = regions;
+        this.end = FILE_HEADER_BYTES;
+        this.unforcedFrom = FILE_HEADER_BYTES;
+    }
+
+    /**
+     * Abre (ou cria) o log e mapeia as regiões existentes. Logs existentes mantêm o
+     * tamanho de região com que foram criados. Chame {@link #replay(Visitor)} antes de escrever.
+     * @param path arquivo do log
+     * @param regionSize tamanho de cada região mapeada, para logs novos
+     * @return log aberto
+     * @throws IOException se o arquivo não puder ser aberto ou não for um log de usuários
+     */
+    static MappedRecordLog open(Path path, int regionSize) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long fileSize = channel.size();
+            if (fileSize == 0) {
+                MappedByteBuffer first = channel.map(FileChannel.MapMode.READ_WRITE, 0, regionSize);
+                first.putInt(0, MAGIC).putInt(Integer.BYTES, regionSize).putInt(STATE_AT, STATE_OPEN);
+                return new MappedRecordLog(channel, regionSize, new MappedByteBuffer[]{first}, true);
+            }
+            ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Arquivo não é um log de usuários: " + path);
+            }
+            int storedRegionSize = header.getInt(Integer.BYTES);
+            if (storedRegionSize != regionSize) {
+                log.info("Log {} usa regiões de {} bytes (configurado: {}).", path, storedRegionSize, regionSize);
+            }
+            int count = (int) Math.max(1, (fileSize + storedRegionSize - 1) / storedRegionSize);
+            MappedByteBuffer[] regions = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * storedRegionSize, storedRegionSize);
+            }
+            return new MappedRecordLog(channel, storedRegionSize, regions,
+                    regions[0].getInt(STATE_AT) == STATE_CLOSED);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Relê o log do início, entregando cada registro válido ao visitante, e posiciona o fim
+     * do log após o último deles. Se o log não foi fechado normalmente, um final incompleto ou
+     * corrompido é apagado, para que registros antigos não reapareçam numa próxima releitura.
+     * @param visitor visitante de cada registro
+     * @throws IOException se o arquivo não puder ser truncado
+     */
+    void replay(Visitor visitor) throws IOException {
+        long position = scan(FILE_HEADER_BYTES, Long.MAX_VALUE, visitor);
+        end = position;
+        unforcedFrom = position;
+        if (!closedCleanly && position < mappedBytes()) {
+            // Zera o resto da região atual (só onde há dados, sem materializar páginas vazias)
+            ByteBuffer current = region(position);
+            boolean discarded = false;
+            int i = position(position);
+            for (; i < regionSize && (i & (Long.BYTES - 1)) != 0; i++) {
+                discarded |= current.get(i) != 0;
+                current.put(i, (byte) 0);
+            }
+            for (; i + Long.BYTES <= regionSize; i += Long.BYTES) {
+                if (current.getLong(i) != 0) {
+                    discarded = true;
+                    current.putLong(i, 0);
+                }
+            }
+            if (discarded) {
+                log.warn("Log de usuários com final incompleto ou corrompido a partir da posição {}; descartado.", position);
+            }
+        }
+        // Regiões após a atual só existem se uma escrita interrompida chegou a elas
+        int keep = Math.min(regions.length, regionIndex(position) + 1);
+        if (keep < regions.length) {
+            regions = Arrays.copyOf(regions, keep);
+            channel.truncate((long) keep * regionSize);
+        }
+        regions[0].putInt(STATE_AT, STATE_OPEN);
+        regions[0].force(0, FILE_HEADER_BYTES);
+    }
+
+    /**
+     * Percorre os registros válidos a partir de uma posição.
+     * @param from posição inicial (início de registro)
+     * @param limit posição final (exclusiva)
+     * @param visitor visitante de cada registro
+     * @return posição logo após o último registro válido
+     */
+    long scan(long from, long limit, Visitor visitor) {
+        long position = from;
+        while (position < limit && position < mappedBytes()) {
+            int at = position(position);
+            int remaining = regionSize - at;
+            if (remaining < Integer.BYTES) {
+                position = nextRegion(position);
+                continue;
+            }
+            ByteBuffer region = region(position);
+            int length = region.getInt(at);
+            if (length == SKIP_MARKER) {
+                position = nextRegion(position);
+                continue;
+            }
+            if (!isValid(region, at, length, remaining)) {
+                return position; // Fim do log (zeros) ou escrita interrompida
+            }
+            visitor.accept(decode(region, at, position));
+            position += length;
+        }
+        return Math.min(position, limit);
+    }
+
+    /**
+     * Acrescenta um registro ao final do log.
+     * @return posição do registro
+     */
+    long append(byte type, long id, long version, String name, String email) throws IOException {
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > MAX_FIELD_BYTES || emailBytes.length > MAX_FIELD_BYTES) {
+            throw new IllegalArgumentException("Nome ou email excede o tamanho máximo de um registro.");
+        }
+        int length = FIXED_BYTES + nameBytes.length + emailBytes.length;
+        long offset = reserve(length);
+        ByteBuffer region = region(offset);
+        int at = position(offset);
+        int emailAt = at + NAME_LENGTH_AT + Short.BYTES + nameBytes.length;
+        region.putInt(at, length)
+                .put(at + Integer.BYTES, type)
+                .putLong(at + Integer.BYTES + 1, id)
+                .putLong(at + Integer.BYTES + 1 + Long.BYTES, version)
+                .putShort(at + NAME_LENGTH_AT, (short) nameBytes.length)
+                .put(at + NAME_LENGTH_AT + Short.BYTES, nameBytes)
+                .putShort(emailAt, (short) emailBytes.length)
+                .put(emailAt + Short.BYTES, emailBytes);
+        region.putInt(at + length - Integer.BYTES, crc(region, at, length - Integer.BYTES));
+        end = offset + length;
+        return offset;
+    }
+
+    /**
+     * Copia um registro de outro log, sem decodificá-lo (usado na compactação).
+     * @return posição do registro neste log
+     */
+    long appendCopy(MappedRecordLog source, long sourceOffset) throws IOException {
+        int length = source.lengthAt(sourceOffset);
+        long offset = reserve(length);
+        region(offset).put(position(offset), source.region(sourceOffset), source.position(sourceOffset), length);
+        end = offset + length;
+        return offset;
+    }
+
+    /**
+     * Lê o registro na posição informada (devolvida por {@link #append}).
+     */
+    LogRecord read(long offset) {
+        return decode(region(offset), position(offset), offset);
+    }
+
+    int lengthAt(long offset) {
+        return region(offset).getInt(position(offset));
+    }
+
+    /**
+     * Posição logo após o último registro.
+     */
+    long end() {
+        return end;
+    }
+
+    /**
+     * Força para o disco as regiões escritas desde a última chamada.
+     */
+    void force() {
+        forceLock.lock();
+        try {
+            long target = end;
+            long from = unforcedFrom;
+            while (from < target) {
+                int at = position(from);
+                int length = (int) Math.min(regionSize - at, target - from);
+                region(from).force(at, length);
+                from += length;
+            }
+            unforcedFrom = target;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Força o log ao disco, marca o fechamento normal e fecha o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        regions[0].putInt(STATE_AT, STATE_CLOSED);
+        regions[0].force(0, FILE_HEADER_BYTES);
+        channel.close();
+    }
+
+    private long reserve(int length) throws IOException {
+        if (length > regionSize - FILE_HEADER_BYTES) {
+            throw new IllegalArgumentException("Registro maior que a região do log: " + length + " bytes.");
+        }
+        int at = position(end);
+        if (regionSize - at < length) {
+            if (regionSize - at >= Integer.BYTES) {
+                region(end).putInt(at, SKIP_MARKER);
+            }
+            end = nextRegion(end);
+        }
+        int index = regionIndex(end);
+        if (index >= regions.length) {
+            MappedByteBuffer[] grown = Arrays.copyOf(regions, index + 1);
+            grown[index] = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * regionSize, regionSize);
+            regions = grown;
+        }
+        return end;
+    }
+
+    private boolean isValid(ByteBuffer region, int at, int length, int remaining) {
+        if (length < FIXED_BYTES || length > remaining) {
+            return false;
+        }
+        byte type = region.get(at + Integer.BYTES);
+        if (type != PUT && type != DELETE && type != SEQUENCE) {
+            return false;
+        }
+        int nameLength = Short.toUnsignedInt(region.getShort(at + NAME_LENGTH_AT));
+        int emailLengthAt = at + NAME_LENGTH_AT + Short.BYTES + nameLength;
+        if (FIXED_BYTES + nameLength > length) {
+            return false;
+        }
+        int emailLength = Short.toUnsignedInt(region.getShort(emailLengthAt));
+        return FIXED_BYTES + nameLength + emailLength == length
+                && region.getInt(at + length - Integer.BYTES) == crc(region, at, length - Integer.BYTES);
+    }
+
+    private static LogRecord decode(ByteBuffer region, int at, long offset) {
+        int nameLength = Short.toUnsignedInt(region.getShort(at + NAME_LENGTH_AT));
+        int emailAt = at + NAME_LENGTH_AT + Short.BYTES + nameLength;
+        int emailLength = Short.toUnsignedInt(region.getShort(emailAt));
+        return new LogRecord(offset,
+                region.getInt(at),
+                region.get(at + Integer.BYTES),
+                region.getLong(at + Integer.BYTES + 1),
+                region.getLong(at + Integer.BYTES + 1 + Long.BYTES),
+                string(region, at + NAME_LENGTH_AT + Short.BYTES, nameLength),
+                string(region, emailAt + Short.BYTES, emailLength));
+    }
+
+    private static String string(ByteBuffer region, int at, int length) {
+        byte[] bytes = new byte[length];
+        region.get(at, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(ByteBuffer region, int at, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(region.slice(at, length));
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer region(long offset) {
+        return regions[regionIndex(offset)];
+    }
+
+    private int regionIndex(long offset) {
+        return (int) (offset / regionSize);
+    }
+
+    private int position(long offset) {
+        return (int) (offset % regionSize);
+    }
+
+    private long nextRegion(long offset) {
+        return (offset / regionSize + 1) * regionSize;
+    }
+
+    private long mappedBytes() {
+        return (long) regions.length * regionSize;
+    }
+}
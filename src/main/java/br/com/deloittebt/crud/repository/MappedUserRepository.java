@@ -0,0 +1,613 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserRow;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Motor de armazenamento alternativo ({@code crud.storage.engine=mapped}) do {@link UserRepository},
+ * sem Hibernate, JDBC nem H2: cada gravação acrescenta um registro binário a um
+ * {@link MappedRecordLog} (arquivo mapeado em memória), e o {@link OffHeapIdIndex} aponta
+ * cada ID para o seu registro mais recente. Email (único) e nome em minúsculas (busca por
+ * prefixo) têm índices secundários no heap, reconstruídos na inicialização ao reler o log.
+ * <p>
+ * Leituras compartilham uma trava de leitura; escritas são serializadas pela trava de escrita.
+ * Cada operação é atômica por si, mas não participa de rollback: quando há transação ativa,
+ * os registros são forçados ao disco uma vez no commit (group commit); fora dela, a cada escrita
+ * ({@code crud.storage.mapped.force-on-commit=false} deixa a gravação ao sistema operacional).
+ * Uma thread de fundo compacta o log quando registros sobrescritos ou removidos passam de
+ * {@code compaction-garbage-ratio} do arquivo: os registros vivos são copiados sem trava para um
+ * novo arquivo, e só a cauda escrita durante a cópia e a troca dos arquivos bloqueiam as escritas.
+ */
+@Repository
+@ConditionalOnProperty(name = "crud.storage.engine", havingValue = "mapped")
+public class MappedUserRepository implements UserRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedUserRepository.class);
+
+    /**
+     * Lixo mínimo para compactar, evitando reescrever logs pequenos.
+     */
+    private static final long MIN_COMPACTION_GARBAGE_BYTES = DataSize.ofMegabytes(1).toBytes();
+
+    private final Path path;
+    private final Path compactionPath;
+    private final int regionSize;
+    private final boolean forceOnCommit;
+    private final double compactionGarbageRatio;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+
+    // Protegidos por lock
+    private MappedRecordLog recordLog;
+    private OffHeapIdIndex index;
+    private final Map<String, Long> idsByEmail = new HashMap<>();
+    private final NavigableSet<NameKey> names = new TreeSet<>();
+    private long nextId = 1;
+    private long garbageBytes;
+
+    /**
+     * Entrada do índice de nomes: nome em minúsculas e ID, na ordem da busca por prefixo.
+     */
+    private record NameKey(String searchName, long id) implements Comparable<NameKey> {
+
+        @Override
+        public int compareTo(NameKey other) {
+            int byName = searchName.compareTo(other.searchName);
+            return byName != 0 ? byName : Long.compare(id, other.id);
+        }
+    }
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.storage.mapped.*}; abre e relê o log.
+     * @param path arquivo do log
+     * @param regionSize tamanho de cada região mapeada
+     * @param forceOnCommit se as escritas são forçadas ao disco no commit (ou a cada escrita, fora de transação)
+     * @param compactionInterval intervalo entre as verificações de compactação
+     * @param compactionGarbageRatio fração de registros mortos no log que dispara a compactação
+     */
+    public MappedUserRepository(@Value("${crud.storage.mapped.path:./data/usuarios.log}") String path,
+                                @Value("${crud.storage.mapped.region-size:64MB}") DataSize regionSize,
+                                @Value("${crud.storage.mapped.force-on-commit:true}") boolean forceOnCommit,
+                                @Value("${crud.storage.mapped.compaction-interval:30s}") Duration compactionInterval,
+                                @Value("${crud.storage.mapped.compaction-garbage-ratio:0.5}") double compactionGarbageRatio) {
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("Caminho do log de usuários não pode ser vazio.");
+        }
+        if (regionSize.toBytes() < DataSize.ofMegabytes(1).toBytes() || regionSize.toBytes() > Integer.MAX_VALUE
+                || regionSize.toBytes() % Long.BYTES != 0) {
+            throw new IllegalArgumentException("Tamanho de região inválido: " + regionSize);
+        }
+        if (compactionGarbageRatio <= 0 || compactionGarbageRatio >= 1) {
+            throw new IllegalArgumentException("Fração de compactação deve estar entre 0 e 1.");
+        }
+        this.path = Path.of(path).toAbsolutePath();
+        this.compactionPath = this.path.resolveSibling(this.path.getFileName() + ".compact");
+        this.regionSize = (int) regionSize.toBytes();
+        this.forceOnCommit = forceOnCommit;
+        this.compactionGarbageRatio = compactionGarbageRatio;
+        open();
+        this.compactor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("user-log-compactor").daemon().factory());
+        long intervalMillis = compactionInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void open() {
+        long begin = System.nanoTime();
+        try {
+            // Uma compactação interrompida antes da troca deixa só o arquivo temporário
+            Files.deleteIfExists(compactionPath);
+            recordLog = MappedRecordLog.open(path, regionSize);
+            index = new OffHeapIdIndex(1024);
+            recordLog.replay(this::apply);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao abrir o log de usuários " + path, e);
+        }
+        log.info("Log de usuários {} relido: {} usuários, {} bytes ({} de registros mortos) em {} ms.",
+                path, index.live(), recordLog.end(), garbageBytes,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    /**
+     * Aplica um registro relido aos índices.
+     */
+    private void apply(MappedRecordLog.LogRecord record) {
+        nextId = Math.max(nextId, record.type() == MappedRecordLog.SEQUENCE ? record.id() : record.id() + 1);
+        if (record.type() == MappedRecordLog.SEQUENCE) {
+            garbageBytes += record.length();
+            return;
+        }
+        long previous = index.get(record.id());
+        if (previous != OffHeapIdIndex.ABSENT) {
+            unindex(recordLog.read(previous));
+        }
+        if (record.type() == MappedRecordLog.PUT) {
+            index.put(record.id(), record.offset());
+            indexSecondary(record.id(), record.name(), record.email());
+        } else {
+            index.remove(record.id());
+            garbageBytes += record.length();
+        }
+    }
+
+    @Override
+    public User save(User user) {
+        saveAll(List.of(user));
+        return user;
+    }
+
+    /**
+     * Grava o lote sob uma única trava de escrita e um único force; emails já cadastrados
+     * ou repetidos no lote são rejeitados antes de qualquer gravação.
+     */
+    @Override
+    public void saveAll(List<User> users) {
+        lock.writeLock().lock();
+        try {
+            Set<String> batchEmails = new HashSet<>();
+            for (User user : users) {
+                if (user.getId() != null) {
+                    throw new IllegalStateException("Usuário já persistido: " + user.getId());
+                }
+                if (idsByEmail.containsKey(user.getEmail()) || !batchEmails.add(user.getEmail())) {
+                    throw duplicateEmail(user.getEmail());
+                }
+            }
+            for (User user : users) {
+                long id = nextId;
+                long offset = recordLog.append(MappedRecordLog.PUT, id, user.getVersion(), user.getName(), user.getEmail());
+                nextId++;
+                index.put(id, offset);
+                indexSecondary(id, user.getName(), user.getEmail());
+                user.assignId(id);
+            }
+        } catch (IOException e) {
+            throw failure(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        durable();
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        streamAll(Integer.MAX_VALUE, users::add);
+        return users;
+    }
+
+    @Override
+    public List<User> findPage(Long afterId, boolean ascending, int limit) {
+        return page(afterId, ascending, limit, MappedUserRepository::toUser);
+    }
+
+    /**
+     * Percorre o índice em blocos de {@code fetchSize}: cada bloco é lido sob a trava de leitura
+     * e entregue ao consumidor fora dela, sem bloquear escritas durante toda a varredura.
+     */
+    @Override
+    public void streamAll(int fetchSize, Consumer<User> consumer) {
+        stream(fetchSize, MappedUserRepository::toUser, User::getId, consumer);
+    }
+
+    @Override
+    public void streamRows(int fetchSize, Consumer<UserRow> consumer) {
+        stream(fetchSize, record -> new UserRow(record.id(), record.name(), record.email()), UserRow::id, consumer);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            long offset = index.get(id);
+            return offset == OffHeapIdIndex.ABSENT ? Optional.empty() : Optional.of(toUser(recordLog.read(offset)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sem transações, equivale a {@link #findById(Long)}: a trava de escrita só dura cada operação.
+     */
+    @Override
+    public Optional<User> findByIdForUpdate(Long id) {
+        return findById(id);
+    }
+
+    @Override
+    public Optional<User> findByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            Long id = idsByEmail.get(email);
+            return id == null ? Optional.empty() : Optional.of(toUser(recordLog.read(index.get(id))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<User> searchByNamePrefix(String prefix, int offset, int limit) {
+        String term = unescapeLike(prefix);
+        List<User> users = new ArrayList<>(Math.min(limit, 100));
+        lock.readLock().lock();
+        try {
+            int skipped = 0;
+            for (NameKey key : names.tailSet(new NameKey(term, Long.MIN_VALUE), true)) {
+                if (!key.searchName().startsWith(term) || users.size() >= limit) {
+                    break;
+                }
+                if (skipped++ >= offset) {
+                    users.add(toUser(recordLog.read(index.get(key.id()))));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return users;
+    }
+
+    @Override
+    public int update(Long id, String name, String email, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(id);
+            if (offset == OffHeapIdIndex.ABSENT) {
+                return 0;
+            }
+            MappedRecordLog.LogRecord current = recordLog.read(offset);
+            if (expectedVersion != null && current.version() != expectedVersion) {
+                return 0;
+            }
+            Long owner = idsByEmail.get(email);
+            if (owner != null && owner != id.longValue()) {
+                throw duplicateEmail(email);
+            }
+            long updated = recordLog.append(MappedRecordLog.PUT, id, current.version() + 1, name, email);
+            unindex(current);
+            index.put(id, updated);
+            indexSecondary(id, name, email);
+        } catch (IOException e) {
+            throw failure(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        durable();
+        return 1;
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        lock.writeLock().lock();
+        try {
+            long offset = index.get(id);
+            if (offset == OffHeapIdIndex.ABSENT) {
+                return 0;
+            }
+            MappedRecordLog.LogRecord current = recordLog.read(offset);
+            if (expectedVersion != null && current.version() != expectedVersion) {
+                return 0;
+            }
+            long deleted = recordLog.append(MappedRecordLog.DELETE, id, current.version(), "", "");
+            unindex(current);
+            index.remove(id);
+            garbageBytes += recordLog.lengthAt(deleted);
+        } catch (IOException e) {
+            throw failure(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        durable();
+        return 1;
+    }
+
+    /**
+     * As escritas são gravadas no log de imediato e não participam de rollback.
+     */
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        lock.readLock().lock();
+        try {
+            return id != null && index.get(id) != OffHeapIdIndex.ABSENT;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compacta o log se os registros mortos passaram do limite configurado.
+     */
+    void compactIfNeeded() {
+        long garbage;
+        long size;
+        lock.readLock().lock();
+        try {
+            garbage = garbageBytes;
+            size = recordLog.end();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (garbage >= MIN_COMPACTION_GARBAGE_BYTES && garbage >= size * compactionGarbageRatio) {
+            compact();
+        }
+    }
+
+    /**
+     * Reescreve o log só com os registros vivos, em ordem de ID.
+     * Os registros são copiados a partir de um retrato do índice, sem trava; em seguida, sob a
+     * trava de escrita, a cauda gravada durante a cópia é reaplicada, o novo arquivo é forçado ao
+     * disco e substitui o antigo (move atômico). Uma queda antes da troca mantém o log antigo.
+     */
+    public void compact() {
+        if (!compactionLock.tryLock()) {
+            return;
+        }
+        long begin = System.nanoTime();
+        MappedRecordLog compacted = null;
+        try {
+            MappedRecordLog source;
+            OffHeapIdIndex snapshot;
+            long snapshotEnd;
+            long sequence;
+            lock.readLock().lock();
+            try {
+                source = recordLog;
+                snapshot = index.copy();
+                snapshotEnd = source.end();
+                sequence = nextId;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            Files.deleteIfExists(compactionPath);
+            compacted = MappedRecordLog.open(compactionPath, regionSize);
+            long sequenceOffset = compacted.append(MappedRecordLog.SEQUENCE, sequence, 0, "", "");
+            OffHeapIdIndex compactedIndex = new OffHeapIdIndex(snapshot.live());
+            for (int i = 0; i < snapshot.size(); i++) {
+                long offset = snapshot.offsetAt(i);
+                if (offset != OffHeapIdIndex.ABSENT) {
+                    compactedIndex.put(snapshot.idAt(i), compacted.appendCopy(source, offset));
+                }
+            }
+
+            long sourceBytes;
+            lock.writeLock().lock();
+            try {
+                MappedRecordLog target = compacted;
+                long[] tailGarbage = {compacted.lengthAt(sequenceOffset)};
+                source.scan(snapshotEnd, source.end(), record -> {
+                    if (record.type() == MappedRecordLog.SEQUENCE) {
+                        return;
+                    }
+                    try {
+                        long offset = target.appendCopy(source, record.offset());
+                        long previous = compactedIndex.get(record.id());
+                        if (previous != OffHeapIdIndex.ABSENT) {
+                            tailGarbage[0] += target.lengthAt(previous);
+                        }
+                        if (record.type() == MappedRecordLog.PUT) {
+                            compactedIndex.put(record.id(), offset);
+                        } else {
+                            compactedIndex.remove(record.id());
+                            tailGarbage[0] += record.length();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                compacted.force();
+                Files.move(compactionPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                sourceBytes = source.end();
+                recordLog = compacted;
+                index = compactedIndex;
+                garbageBytes = tailGarbage[0];
+                compacted = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            source.close();
+            log.info("Log de usuários compactado: {} -> {} bytes em {} ms.", sourceBytes, recordLog.end(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Falha ao compactar o log de usuários; o log atual foi mantido.", e);
+        } finally {
+            if (compacted != null) {
+                closeQuietly(compacted);
+                try {
+                    Files.deleteIfExists(compactionPath);
+                } catch (IOException e) {
+                    log.debug("Arquivo temporário de compactação não removido.", e);
+                }
+            }
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Para a compactação, força o log ao disco e fecha o arquivo.
+     */
+    @PreDestroy
+    public void close() {
+        compactor.shutdownNow();
+        compactionLock.lock();
+        lock.writeLock().lock();
+        try {
+            recordLog.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar o log de usuários.", e);
+        } finally {
+            lock.writeLock().unlock();
+            compactionLock.unlock();
+        }
+    }
+
+    private <T> List<T> page(Long afterId, boolean ascending, int limit,
+                             Function<MappedRecordLog.LogRecord, T> mapper) {
+        List<T> result = new ArrayList<>(Math.min(limit, 1000));
+        lock.readLock().lock();
+        try {
+            int step = ascending ? 1 : -1;
+            int position;
+            if (afterId == null) {
+                position = ascending ? 0 : index.size() - 1;
+            } else {
+                int found = index.search(afterId);
+                int insertion = found >= 0 ? found : -(found + 1);
+                position = found >= 0 ? found + step : (ascending ? insertion : insertion - 1);
+            }
+            for (; position >= 0 && position < index.size() && result.size() < limit; position += step) {
+                long offset = index.offsetAt(position);
+                if (offset != OffHeapIdIndex.ABSENT) {
+                    result.add(mapper.apply(recordLog.read(offset)));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private <T> void stream(int fetchSize, Function<MappedRecordLog.LogRecord, T> mapper,
+                            Function<T, Long> idOf, Consumer<T> consumer) {
+        Long afterId = null;
+        while (true) {
+            List<T> chunk = page(afterId, true, fetchSize, mapper);
+            chunk.forEach(consumer);
+            if (chunk.size() < fetchSize) {
+                return;
+            }
+            afterId = idOf.apply(chunk.get(chunk.size() - 1));
+        }
+    }
+
+    /**
+     * Garante a durabilidade das escritas: uma vez no commit da transação ativa (várias
+     * escritas, um só force) ou imediatamente, fora de transação.
+     */
+    private void durable() {
+        if (!forceOnCommit) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            force();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(this)) {
+            return; // Force já registrado para esta transação
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                force();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(MappedUserRepository.this);
+            }
+        });
+    }
+
+    private void force() {
+        lock.readLock().lock();
+        try {
+            recordLog.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexSecondary(long id, String name, String email) {
+        idsByEmail.put(email, id);
+        names.add(new NameKey(name.toLowerCase(Locale.ROOT), id));
+    }
+
+    private void unindex(MappedRecordLog.LogRecord record) {
+        idsByEmail.remove(record.email(), record.id());
+        names.remove(new NameKey(record.name().toLowerCase(Locale.ROOT), record.id()));
+        garbageBytes += record.length();
+    }
+
+    private static User toUser(MappedRecordLog.LogRecord record) {
+        User user = new User(record.name(), record.email());
+        user.assignId(record.id());
+        user.assignVersion(record.version());
+        return user;
+    }
+
+    /**
+     * Remove os escapes de LIKE aplicados pelo serviço ({@code \\}, {@code \%}, {@code \_}).
+     */
+    private static String unescapeLike(String prefix) {
+        StringBuilder term = new StringBuilder(prefix.length());
+        for (int i = 0; i < prefix.length(); i++) {
+            char c = prefix.charAt(i);
+            if (c == '\\' && i + 1 < prefix.length()) {
+                c = prefix.charAt(++i);
+            }
+            term.append(c);
+        }
+        return term.toString();
+    }
+
+    private static DataIntegrityViolationException duplicateEmail(String email) {
+        return new DataIntegrityViolationException("Email já cadastrado: " + email);
+    }
+
+    private static DataAccessResourceFailureException failure(IOException e) {
+        return new DataAccessResourceFailureException("Falha ao gravar no log de usuários.", e);
+    }
+
+    private static void closeQuietly(MappedRecordLog recordLog) {
+        try {
+            recordLog.close();
+        } catch (IOException e) {
+            log.debug("Falha ao fechar log de compactação.", e);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package br.com.deloittebt.crud.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Índice primário ID → posição no log, fora do heap: pares {@code (long id, long offset)}
+ * em um {@link ByteBuffer} direto, ordenados por ID. Como os IDs são gerados em ordem
+ * crescente, a inclusão é um append; a busca é binária e a ordem permite a paginação keyset.
+ * Remoções marcam a entrada com {@link #ABSENT}; as entradas removidas somem na compactação.
+ * Não é thread-safe: o {@link MappedUserRepository} controla o acesso.
+ */
+final class OffHeapIdIndex {
+
+    /**
+     * Posição de uma entrada removida (ou de um ID inexistente em {@link #get}).
+     */
+    static final long ABSENT = -1;
+
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final int MAX_ENTRIES = Integer.MAX_VALUE / ENTRY_BYTES;
+
+    private ByteBuffer entries;
+    private int size;
+    private int live;
+
+    /**
+     * @param expectedEntries quantidade esperada de entradas (capacidade inicial)
+     */
+    OffHeapIdIndex(int expectedEntries) {
+        entries = allocate(Math.min(MAX_ENTRIES, Math.max(16, expectedEntries)));
+    }
+
+    /**
+     * Posição do registro atual do ID.
+     * @param id identificador
+     * @return posição no log, ou {@link #ABSENT}
+     */
+    long get(long id) {
+        int position = search(id);
+        return position >= 0 ? offsetAt(position) : ABSENT;
+    }
+
+    /**
+     * Inclui ou atualiza a posição do ID.
+     * @param id identificador
+     * @param offset posição do registro no log
+     */
+    void put(long id, long offset) {
+        if (size == 0 || id > idAt(size - 1)) {
+            ensureCapacity();
+            write(size++, id, offset);
+            live++;
+            return;
+        }
+        int position = search(id);
+        if (position >= 0) {
+            if (offsetAt(position) == ABSENT) {
+                live++;
+            }
+            write(position, id, offset);
+            return;
+        }
+        // ID menor que o maior já indexado (não ocorre com IDs crescentes): desloca as entradas
+        int insertion = -(position + 1);
+        ensureCapacity();
+        for (int i = size; i > insertion; i--) {
+            write(i, idAt(i - 1), offsetAt(i - 1));
+        }
+        write(insertion, id, offset);
+        size++;
+        live++;
+    }
+
+    /**
+     * Marca o ID como removido.
+     * @param id identificador
+     * @return posição anterior do registro, ou {@link #ABSENT} se não existia
+     */
+    long remove(long id) {
+        int position = search(id);
+        if (position < 0 || offsetAt(position) == ABSENT) {
+            return ABSENT;
+        }
+        long previous = offsetAt(position);
+        write(position, id, ABSENT);
+        live--;
+        return previous;
+    }
+
+    /**
+     * Busca binária pelo ID.
+     * @param id identificador
+     * @return índice da entrada, ou {@code -(ponto de inserção) - 1} se ausente
+     */
+    int search(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = idAt(middle);
+            if (current < id) {
+                low = middle + 1;
+            } else if (current > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    long idAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    long offsetAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES + Long.BYTES);
+    }
+
+    /**
+     * Quantidade de entradas, incluindo as removidas.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Quantidade de IDs presentes.
+     */
+    int live() {
+        return live;
+    }
+
+    /**
+     * Cópia independente (usada como retrato do índice na compactação).
+     */
+    OffHeapIdIndex copy() {
+        OffHeapIdIndex copy = new OffHeapIdIndex(size);
+        copy.entries.put(0, entries, 0, size * ENTRY_BYTES);
+        copy.size = size;
+        copy.live = live;
+        return copy;
+    }
+
+    private void write(int index, long id, long offset) {
+        entries.putLong(index * ENTRY_BYTES, id);
+        entries.putLong(index * ENTRY_BYTES + Long.BYTES, offset);
+    }
+
+    private void ensureCapacity() {
+        int capacity = entries.capacity() / ENTRY_BYTES;
+        if (size < capacity) {
+            return;
+        }
+        if (capacity == MAX_ENTRIES) {
+            throw new IllegalStateException("Índice de IDs cheio (" + MAX_ENTRIES + " entradas).");
+        }
+        ByteBuffer grown = allocate((int) Math.min((long) capacity * 2, MAX_ENTRIES));
+        grown.put(0, entries, 0, size * ENTRY_BYTES);
+        entries = grown;
+    }
+
+    private static ByteBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * ENTRY_BYTES).order(ByteOrder.nativeOrder());
+    }
+}
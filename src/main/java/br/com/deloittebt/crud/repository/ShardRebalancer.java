@@ -0,0 +1,197 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redistribui usuários e entradas do diretório de emails quando {@code crud.storage.sharded.count}
+ * muda: cada shard anterior é percorrido por ID (ou email), e as linhas cujo shard mudou são copiadas
+ * para o novo com {@code MERGE} e depois removidas da origem, em lotes. Com o hash consistente do
+ * {@link ShardRouter}, ao acrescentar shards só os baldes que passam para os novos se movem.
+ * Deve rodar com a aplicação parada (ver {@code --rebalance-shards} em {@code CrudApplication});
+ * uma interrupção no meio pode ser retomada executando de novo, pois cópia e remoção são idempotentes.
+ * Ao reduzir a quantidade, os bancos dos shards excedentes ficam vazios e podem ser apagados.
+ */
+@Component
+@ConditionalOnProperty(name = "crud.storage.engine", havingValue = "sharded")
+public class ShardRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ShardedUserRepository repository;
+
+    /**
+     * Resultado de um rebalanceamento.
+     * @param previousCount quantidade de shards anterior
+     * @param shardCount quantidade de shards atual
+     * @param movedUsers usuários que mudaram de shard
+     * @param movedEmails entradas do diretório de emails que mudaram de shard
+     * @param usersPerShard usuários em cada shard ao final
+     * @param elapsedMillis duração
+     */
+    public record Result(int previousCount, int shardCount, long movedUsers, long movedEmails,
+                         List<Long> usersPerShard, long elapsedMillis) {
+    }
+
+    /**
+     * Linha movida entre shards: as colunas na ordem do {@code MERGE}.
+     */
+    private record Moved(int target, Object key, Object[] values) {
+    }
+
+    /**
+     * @param repository repositório particionado, já aberto com a quantidade atual de shards
+     */
+    public ShardRebalancer(ShardedUserRepository repository) {
+        if (repository == null) {
+            throw new IllegalArgumentException("ShardedUserRepository não pode ser nulo.");
+        }
+        this.repository = repository;
+    }
+
+    /**
+     * Move para o shard correto, pela quantidade atual, tudo o que estava distribuído em {@code previousCount} shards.
+     * @param previousCount quantidade de shards com que os dados foram gravados
+     * @return resumo do rebalanceamento
+     */
+    public Result rebalance(int previousCount) {
+        if (previousCount < 1 || previousCount > ShardRouter.MAX_SHARDS) {
+            throw new IllegalArgumentException("Quantidade anterior de shards deve estar entre 1 e " + ShardRouter.MAX_SHARDS + ".");
+        }
+        long begin = System.nanoTime();
+        int current = repository.shardCount();
+        List<HikariDataSource> extra = new ArrayList<>();
+        long movedUsers = 0;
+        long movedEmails = 0;
+        try {
+            List<DataSource> sources = new ArrayList<>();
+            for (int shard = 0; shard < Math.max(previousCount, current); shard++) {
+                if (shard < current) {
+                    sources.add(repository.shard(shard));
+                } else {
+                    HikariDataSource excess = repository.openShard(shard);
+                    extra.add(excess);
+                    sources.add(excess);
+                }
+            }
+            for (int shard = 0; shard < sources.size(); shard++) {
+                long users = moveUsers(shard, sources.get(shard));
+                long emails = moveEmails(shard, sources.get(shard));
+                log.info("Shard {}: {} usuários e {} emails movidos.", shard, users, emails);
+                movedUsers += users;
+                movedEmails += emails;
+            }
+        } catch (SQLException e) {
+            throw ShardedUserRepository.translate("rebalanceamento dos shards", e);
+        } finally {
+            extra.forEach(HikariDataSource::close);
+        }
+        repository.resetIdBlocks();
+        return new Result(previousCount, current, movedUsers, movedEmails, repository.countPerShard(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+    }
+
+    private long moveUsers(int shard, DataSource source) throws SQLException {
+        long moved = 0;
+        long afterId = Long.MIN_VALUE;
+        while (true) {
+            List<User> page;
+            try (Connection connection = source.getConnection()) {
+                page = ShardedUserRepository.query(connection,
+                        "SELECT " + ShardedUserRepository.COLUMNS + " FROM usuarios WHERE id > ? ORDER BY id LIMIT ?",
+                        ShardedUserRepository::toUser, afterId, BATCH_SIZE);
+            }
+            List<Moved> misplaced = new ArrayList<>();
+            for (User user : page) {
+                int target = repository.router().shardOfId(user.getId());
+                if (target != shard) {
+                    misplaced.add(new Moved(target, user.getId(),
+                            new Object[]{user.getId(), user.getName(), user.getEmail(), user.getVersion(), user.getCreatedAt()}));
+                }
+            }
+            moved += move(source, misplaced, "MERGE INTO usuarios (" + ShardedUserRepository.COLUMNS + ") KEY (id) VALUES (?, ?, ?, ?, ?)",
+                    "DELETE FROM usuarios WHERE id = ?");
+            if (page.size() < BATCH_SIZE) {
+                return moved;
+            }
+            afterId = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private long moveEmails(int shard, DataSource source) throws SQLException {
+        long moved = 0;
+        String afterEmail = "";
+        while (true) {
+            List<Object[]> page;
+            try (Connection connection = source.getConnection()) {
+                page = ShardedUserRepository.query(connection,
+                        "SELECT email, usuario_id FROM usuarios_emails WHERE email > ? ORDER BY email LIMIT ?",
+                        rs -> new Object[]{rs.getString(1), rs.getLong(2)}, afterEmail, BATCH_SIZE);
+            }
+            List<Moved> misplaced = new ArrayList<>();
+            for (Object[] row : page) {
+                int target = repository.router().shardOfEmail((String) row[0]);
+                if (target != shard) {
+                    misplaced.add(new Moved(target, row[0], row));
+                }
+            }
+            moved += move(source, misplaced, "MERGE INTO usuarios_emails (email, usuario_id) KEY (email) VALUES (?, ?)",
+                    "DELETE FROM usuarios_emails WHERE email = ?");
+            if (page.size() < BATCH_SIZE) {
+                return moved;
+            }
+            afterEmail = (String) page.get(page.size() - 1)[0];
+        }
+    }
+
+    /**
+     * Copia as linhas para os shards de destino (um lote por destino) e só então as remove da origem:
+     * uma queda entre os dois passos deixa a linha duplicada, e não perdida, até a próxima execução.
+     */
+    private long move(DataSource source, List<Moved> rows, String mergeSql, String deleteSql) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Map<Integer, List<Moved>> byTarget = new TreeMap<>();
+        for (Moved row : rows) {
+            byTarget.computeIfAbsent(row.target(), key -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<Integer, List<Moved>> entry : byTarget.entrySet()) {
+            try (Connection connection = repository.shard(entry.getKey()).getConnection();
+                 PreparedStatement merge = connection.prepareStatement(mergeSql)) {
+                for (Moved row : entry.getValue()) {
+                    for (int i = 0; i < row.values().length; i++) {
+                        merge.setObject(i + 1, row.values()[i]);
+                    }
+                    merge.addBatch();
+                }
+                merge.executeBatch();
+            }
+        }
+        try (Connection connection = source.getConnection();
+             PreparedStatement delete = connection.prepareStatement(deleteSql)) {
+            for (Moved row : rows) {
+                delete.setObject(1, row.key());
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        return rows.size();
+    }
+}
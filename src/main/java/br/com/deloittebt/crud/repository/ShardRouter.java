@@ -0,0 +1,110 @@
+package br.com.deloittebt.crud.repository;
+
+/**
+ * Distribuição dos usuários entre os shards do {@link ShardedUserRepository}.
+ * Os 10 bits baixos do ID guardam um balde (0 a 1023), escolhido na criação pelo hash do email;
+ * os bits altos vêm da sequence do shard onde o usuário foi criado. Como cada balde pertence a um
+ * único shard por vez, o par (sequence, balde) é único no conjunto dos shards.
+ * O shard de um balde é dado pelo hash consistente "jump" (Lamping e Veach): ao passar de N
+ * para N + 1 shards, só cerca de 1/(N + 1) dos baldes muda de lugar.
+ * O diretório de emails usa a mesma função sobre o balde do email, de modo que, na criação,
+ * usuário e email ficam no mesmo shard.
+ */
+final class ShardRouter {
+
+    /**
+     * Bits do ID reservados para o balde.
+     */
+    static final int BUCKET_BITS = 10;
+
+    /**
+     * Quantidade de baldes, e portanto o máximo de shards.
+     */
+    static final int MAX_SHARDS = 1 << BUCKET_BITS;
+
+    private static final long BUCKET_MASK = MAX_SHARDS - 1;
+
+    private final int shardCount;
+
+    /**
+     * @param shardCount quantidade de shards (entre 1 e {@link #MAX_SHARDS})
+     */
+    ShardRouter(int shardCount) {
+        if (shardCount < 1 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Quantidade de shards deve estar entre 1 e " + MAX_SHARDS + ".");
+        }
+        this.shardCount = shardCount;
+    }
+
+    int shardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @param id ID do usuário
+     * @return shard que guarda o usuário
+     */
+    int shardOfId(long id) {
+        return shardOfBucket((int) (id & BUCKET_MASK));
+    }
+
+    /**
+     * @param email email normalizado
+     * @return shard que guarda a entrada do email no diretório
+     */
+    int shardOfEmail(String email) {
+        return shardOfBucket(bucketOf(email));
+    }
+
+    /**
+     * @param email email normalizado
+     * @return balde do email, usado também no ID do usuário criado com ele
+     */
+    static int bucketOf(String email) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            h ^= email.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return (int) (mix(h) & BUCKET_MASK);
+    }
+
+    /**
+     * @param sequence valor da sequence do shard
+     * @param bucket   balde do usuário
+     * @return ID composto
+     */
+    static long compose(long sequence, int bucket) {
+        return (sequence << BUCKET_BITS) | bucket;
+    }
+
+    /**
+     * @param id ID composto
+     * @return valor da sequence contido no ID
+     */
+    static long sequenceOf(long id) {
+        return id >>> BUCKET_BITS;
+    }
+
+    private int shardOfBucket(int bucket) {
+        // Jump consistent hash sobre o balde misturado
+        long key = mix(bucket + 0x9E3779B97F4A7C15L);
+        long shard = -1;
+        long next = 0;
+        while (next < shardCount) {
+            shard = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((shard + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) shard;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,724 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserRow;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.support.SQLExceptionSubclassTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Motor de armazenamento particionado ({@code crud.storage.engine=sharded}) do {@link UserRepository}:
+ * os usuários são distribuídos pelo ID entre {@code crud.storage.sharded.count} bancos H2
+ * independentes, cada um com o seu pool de conexões e as mesmas migrações do banco principal
+ * (mais o diretório de emails de {@code db/shard}). O {@link ShardRouter} define o shard de cada ID
+ * e de cada email; os IDs são gerados pela sequence do shard de destino, sem coordenação entre shards.
+ * <p>
+ * Busca, atualização e remoção por ID vão a um único shard; a busca por email consulta o diretório
+ * no shard do email e depois o shard do usuário. Listagem, paginação, varredura e busca por prefixo
+ * consultam todos os shards em paralelo e intercalam os resultados já ordenados de cada um.
+ * Dentro de uma transação Spring as escritas usam uma conexão por shard, confirmada no commit
+ * (antes do commit do banco principal) ou desfeita no rollback; fora dela, cada operação é uma
+ * transação local. O commit de vários shards não é atômico: uma falha entre eles deixa parte das
+ * escritas confirmada. Mudanças na quantidade de shards exigem {@link ShardRebalancer}.
+ */
+@Repository
+@ConditionalOnProperty(name = "crud.storage.engine", havingValue = "sharded")
+public class ShardedUserRepository implements UserRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedUserRepository.class);
+
+    /**
+     * Marcador do índice do shard na URL JDBC.
+     */
+    static final String SHARD_PLACEHOLDER = "{shard}";
+
+    /**
+     * Colunas gravadas na inserção e lidas por {@link #toUser(ResultSet)}, nessa ordem.
+     */
+    static final String COLUMNS = "id, nome, email, versao, criado_em";
+
+    private static final SQLExceptionTranslator TRANSLATOR = new SQLExceptionSubclassTranslator();
+
+    private final ShardRouter router;
+    private final String urlTemplate;
+    private final int poolSize;
+    private final String username;
+    private final String password;
+    private final List<HikariDataSource> shards;
+    private final IdBlock[] idBlocks;
+    private final ExecutorService fanOut;
+
+    /**
+     * Trabalho JDBC sobre a conexão de um shard.
+     */
+    @FunctionalInterface
+    interface ShardWork<T> {
+        T apply(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Escrita sobre as conexões de uma transação de shards.
+     */
+    @FunctionalInterface
+    private interface TransactionWork<T> {
+        T apply(ShardTransaction transaction) throws SQLException;
+    }
+
+    /**
+     * Usuário lido com o nome em minúsculas, chave de ordenação da busca por prefixo.
+     */
+    private record NamedUser(User user, String searchName) {
+    }
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.storage.sharded.*}; abre e migra os shards.
+     * @param count quantidade de shards
+     * @param urlTemplate URL JDBC dos shards, com {@code {shard}} no lugar do índice
+     * @param poolSize conexões por shard
+     * @param username usuário dos bancos
+     * @param password senha dos bancos
+     */
+    public ShardedUserRepository(@Value("${crud.storage.sharded.count:4}") int count,
+                                 @Value("${crud.storage.sharded.url:jdbc:h2:file:./data/shard-{shard}}") String urlTemplate,
+                                 @Value("${crud.storage.sharded.pool-size:4}") int poolSize,
+                                 @Value("${spring.datasource.username:sa}") String username,
+                                 @Value("${spring.datasource.password:}") String password) {
+        if (urlTemplate == null || !urlTemplate.contains(SHARD_PLACEHOLDER)) {
+            throw new IllegalArgumentException("URL dos shards deve conter " + SHARD_PLACEHOLDER + ".");
+        }
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool de cada shard deve ter ao menos uma conexão.");
+        }
+        this.router = new ShardRouter(count);
+        this.urlTemplate = urlTemplate;
+        this.poolSize = poolSize;
+        this.username = username;
+        this.password = password;
+        this.shards = new ArrayList<>(count);
+        this.idBlocks = new IdBlock[count];
+        try {
+            for (int shard = 0; shard < count; shard++) {
+                shards.add(openShard(shard));
+                idBlocks[shard] = new IdBlock(shards.get(shard));
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(HikariDataSource::close);
+            throw e;
+        }
+        this.fanOut = Executors.newFixedThreadPool(count, Thread.ofPlatform().name("shard-query-", 0).daemon().factory());
+        log.info("{} shards abertos ({}).", count, urlTemplate);
+    }
+
+    @Override
+    public User save(User user) {
+        saveAll(List.of(user));
+        return user;
+    }
+
+    /**
+     * Grava o lote agrupado por shard, com um lote JDBC por shard; usuário e entrada do diretório
+     * de emails ficam no mesmo shard. Os IDs só são atribuídos às instâncias após a gravação;
+     * a data de criação, como no JPA, é a da JVM no momento da gravação.
+     */
+    @Override
+    public void saveAll(List<User> users) {
+        long[] ids = new long[users.size()];
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        Map<Integer, List<Integer>> byShard = new TreeMap<>();
+        for (int i = 0; i < users.size(); i++) {
+            User user = users.get(i);
+            if (user.getId() != null) {
+                throw new IllegalStateException("Usuário já persistido: " + user.getId());
+            }
+            int bucket = ShardRouter.bucketOf(user.getEmail());
+            int shard = router.shardOfEmail(user.getEmail());
+            ids[i] = ShardRouter.compose(idBlocks[shard].next(), bucket);
+            byShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(i);
+        }
+        write(transaction -> {
+            for (Map.Entry<Integer, List<Integer>> entry : byShard.entrySet()) {
+                Connection connection = transaction.connection(entry.getKey());
+                try (PreparedStatement insertUser = connection.prepareStatement(
+                        "INSERT INTO usuarios (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)");
+                     PreparedStatement insertEmail = connection.prepareStatement(
+                             "INSERT INTO usuarios_emails (email, usuario_id) VALUES (?, ?)")) {
+                    for (int i : entry.getValue()) {
+                        User user = users.get(i);
+                        insertEmail.setString(1, user.getEmail());
+                        insertEmail.setLong(2, ids[i]);
+                        insertEmail.addBatch();
+                        insertUser.setLong(1, ids[i]);
+                        insertUser.setString(2, user.getName());
+                        insertUser.setString(3, user.getEmail());
+                        insertUser.setLong(4, user.getVersion());
+                        insertUser.setTimestamp(5, createdAt);
+                        insertUser.addBatch();
+                    }
+                    insertEmail.executeBatch(); // Email repetido falha aqui, antes de gravar os usuários
+                    insertUser.executeBatch();
+                }
+            }
+            return null;
+        });
+        for (int i = 0; i < users.size(); i++) {
+            users.get(i).assignId(ids[i]);
+            users.get(i).assignCreatedAt(createdAt.toLocalDateTime());
+        }
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<List<User>> perShard = fanOut(connection -> query(connection,
+                "SELECT " + COLUMNS + " FROM usuarios ORDER BY id", ShardedUserRepository::toUser));
+        return merge(perShard, Comparator.comparingLong(User::getId), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cada shard devolve até {@code limit} usuários após a âncora; a intercalação por ID
+     * fica com os {@code limit} primeiros do conjunto.
+     */
+    @Override
+    public List<User> findPage(Long afterId, boolean ascending, int limit) {
+        String sql = "SELECT " + COLUMNS + " FROM usuarios"
+                + (afterId == null ? "" : " WHERE id " + (ascending ? ">" : "<") + " ?")
+                + " ORDER BY id " + (ascending ? "ASC" : "DESC") + " LIMIT ?";
+        List<List<User>> perShard = fanOut(connection -> query(connection, sql, ShardedUserRepository::toUser,
+                afterId == null ? new Object[]{limit} : new Object[]{afterId, limit}));
+        Comparator<User> byId = Comparator.comparingLong(User::getId);
+        return merge(perShard, ascending ? byId : byId.reversed(), 0, limit);
+    }
+
+    @Override
+    public void streamAll(int fetchSize, Consumer<User> consumer) {
+        stream(fetchSize, Function.identity(), consumer);
+    }
+
+    @Override
+    public void streamRows(int fetchSize, Consumer<UserRow> consumer) {
+        stream(fetchSize, user -> new UserRow(user.getId(), user.getName(), user.getEmail()), consumer);
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        List<User> found = read(router.shardOfId(id), connection -> query(connection,
+                "SELECT " + COLUMNS + " FROM usuarios WHERE id = ?", ShardedUserRepository::toUser, id));
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Lê com {@code FOR UPDATE} na conexão do shard vinculada à transação, a mesma que a
+     * atualização ou remoção seguinte vai usar.
+     */
+    @Override
+    public Optional<User> findByIdForUpdate(Long id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        int shard = router.shardOfId(id);
+        List<User> found = write(transaction -> query(transaction.connection(shard),
+                "SELECT " + COLUMNS + " FROM usuarios WHERE id = ? FOR UPDATE", ShardedUserRepository::toUser, id));
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Consulta o diretório no shard do email e lê o usuário no shard do ID.
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        List<Long> ids = read(router.shardOfEmail(email), connection -> query(connection,
+                "SELECT usuario_id FROM usuarios_emails WHERE email = ?", rs -> rs.getLong(1), email));
+        if (ids.isEmpty()) {
+            return Optional.empty();
+        }
+        return findById(ids.get(0)).filter(user -> user.getEmail().equals(email));
+    }
+
+    /**
+     * Cada shard devolve os primeiros {@code offset + limit} do seu intervalo do índice de nomes;
+     * a intercalação por nome e ID descarta os {@code offset} primeiros do conjunto.
+     */
+    @Override
+    public List<User> searchByNamePrefix(String prefix, int offset, int limit) {
+        int perShardLimit = (int) Math.min(Integer.MAX_VALUE, (long) offset + limit);
+        List<List<NamedUser>> perShard = fanOut(connection -> query(connection,
+                "SELECT " + COLUMNS + ", nome_busca FROM usuarios WHERE nome_busca LIKE ? ESCAPE '\\' "
+                        + "ORDER BY nome_busca, id LIMIT ?",
+                rs -> new NamedUser(toUser(rs), rs.getString(6)), prefix + "%", perShardLimit));
+        Comparator<NamedUser> byName = Comparator.comparing(NamedUser::searchName)
+                .thenComparingLong(named -> named.user().getId());
+        return merge(perShard, byName, offset, limit).stream().map(NamedUser::user).toList();
+    }
+
+    /**
+     * Atualiza no shard do usuário; se o email mudou, a entrada nova do diretório é inserida
+     * (email já cadastrado falha aqui) e a antiga removida, cada uma no shard do seu email.
+     */
+    @Override
+    public int update(Long id, String name, String email, Long expectedVersion) {
+        int shard = router.shardOfId(id);
+        return write(transaction -> {
+            Connection connection = transaction.connection(shard);
+            String current;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT email, versao FROM usuarios WHERE id = ? FOR UPDATE")) {
+                select.setLong(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next() || (expectedVersion != null && rs.getLong(2) != expectedVersion)) {
+                        return 0;
+                    }
+                    current = rs.getString(1);
+                }
+            }
+            if (!current.equals(email)) {
+                execute(transaction.connection(router.shardOfEmail(email)),
+                        "INSERT INTO usuarios_emails (email, usuario_id) VALUES (?, ?)", email, id);
+                execute(transaction.connection(router.shardOfEmail(current)),
+                        "DELETE FROM usuarios_emails WHERE email = ? AND usuario_id = ?", current, id);
+            }
+            return execute(connection, "UPDATE usuarios SET nome = ?, email = ?, versao = versao + 1 WHERE id = ?",
+                    name, email, id);
+        });
+    }
+
+    @Override
+    public int delete(Long id, Long expectedVersion) {
+        int shard = router.shardOfId(id);
+        return write(transaction -> {
+            Connection connection = transaction.connection(shard);
+            String current;
+            try (PreparedStatement select = connection.prepareStatement(
+                    "SELECT email, versao FROM usuarios WHERE id = ? FOR UPDATE")) {
+                select.setLong(1, id);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next() || (expectedVersion != null && rs.getLong(2) != expectedVersion)) {
+                        return 0;
+                    }
+                    current = rs.getString(1);
+                }
+            }
+            execute(transaction.connection(router.shardOfEmail(current)),
+                    "DELETE FROM usuarios_emails WHERE email = ? AND usuario_id = ?", current, id);
+            return execute(connection, "DELETE FROM usuarios WHERE id = ?", id);
+        });
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && !read(router.shardOfId(id), connection -> query(connection,
+                "SELECT 1 FROM usuarios WHERE id = ?", rs -> rs.getInt(1), id)).isEmpty();
+    }
+
+    /**
+     * @return quantidade de shards
+     */
+    public int shardCount() {
+        return router.shardCount();
+    }
+
+    /**
+     * @return usuários em cada shard, na ordem dos shards
+     */
+    public List<Long> countPerShard() {
+        return fanOut(connection -> query(connection, "SELECT COUNT(*) FROM usuarios", rs -> rs.getLong(1)).get(0));
+    }
+
+    /**
+     * Fecha os pools dos shards.
+     */
+    @PreDestroy
+    public void close() {
+        fanOut.shutdownNow();
+        shards.forEach(HikariDataSource::close);
+    }
+
+    ShardRouter router() {
+        return router;
+    }
+
+    DataSource shard(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * Abre e migra o banco de um shard, inclusive de índices fora da configuração atual
+     * (usado pelo {@link ShardRebalancer} ao reduzir a quantidade de shards).
+     * @param index índice do shard
+     * @return pool de conexões do shard
+     */
+    HikariDataSource openShard(int index) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("shard-" + index);
+        config.setJdbcUrl(urlTemplate.replace(SHARD_PLACEHOLDER, String.valueOf(index)));
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setMinimumIdle(1);
+        HikariDataSource dataSource = new HikariDataSource(config);
+        try {
+            Flyway.configure()
+                    .dataSource(dataSource)
+                    .locations("classpath:db/migration", "classpath:db/shard")
+                    .load()
+                    .migrate();
+            alignSequence(dataSource);
+        } catch (RuntimeException e) {
+            dataSource.close();
+            throw e;
+        }
+        return dataSource;
+    }
+
+    /**
+     * Realinha as sequences acima dos IDs presentes em cada shard e descarta os blocos de IDs
+     * já reservados, depois que o rebalanceamento trouxe usuários de outros shards.
+     */
+    void resetIdBlocks() {
+        for (int shard = 0; shard < shards.size(); shard++) {
+            alignSequence(shards.get(shard));
+            idBlocks[shard] = new IdBlock(shards.get(shard));
+        }
+    }
+
+    /**
+     * Reinicia a sequence do shard acima do maior valor de sequence contido nos seus IDs, como o
+     * {@link IdSequenceInitializer} faz no motor JPA: os baldes que este shard recebeu de outros
+     * trazem IDs gerados pela sequence de lá.
+     */
+    private static void alignSequence(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            long maxSequence = ShardRouter.sequenceOf(query(connection,
+                    "SELECT COALESCE(MAX(id), 0) FROM usuarios", rs -> rs.getLong(1)).get(0));
+            long nextValue = query(connection,
+                    "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'USUARIOS_SEQ'",
+                    rs -> rs.getLong(1)).get(0);
+            if (nextValue <= maxSequence) {
+                execute(connection, "ALTER SEQUENCE usuarios_seq RESTART WITH " + (maxSequence + 1));
+            }
+        } catch (SQLException e) {
+            throw translate("alinhar sequence", e);
+        }
+    }
+
+    private <T> void stream(int fetchSize, Function<User, T> mapper, Consumer<T> consumer) {
+        Long afterId = null;
+        while (true) {
+            List<User> chunk = findPage(afterId, true, fetchSize);
+            chunk.forEach(user -> consumer.accept(mapper.apply(user)));
+            if (chunk.size() < fetchSize) {
+                return;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    /**
+     * Executa a leitura em todos os shards em paralelo (com um só shard, na própria thread).
+     * Shards com escrita pendente na transação corrente são lidos pela conexão da transação.
+     * @return resultado de cada shard, na ordem dos shards
+     */
+    private <T> List<T> fanOut(ShardWork<T> work) {
+        ShardTransaction transaction = currentTransaction();
+        if (shards.size() == 1) {
+            return List.of(read(transaction, 0, work));
+        }
+        List<Future<T>> futures = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            int index = shard;
+            futures.add(fanOut.submit(() -> read(transaction, index, work)));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new DataAccessResourceFailureException("Consulta aos shards interrompida.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new DataAccessResourceFailureException("Falha na consulta aos shards.", e.getCause());
+        }
+        return results;
+    }
+
+    private <T> T read(int shard, ShardWork<T> work) {
+        return read(currentTransaction(), shard, work);
+    }
+
+    private <T> T read(ShardTransaction transaction, int shard, ShardWork<T> work) {
+        try {
+            if (transaction != null && transaction.holds(shard)) {
+                return work.apply(transaction.connection(shard));
+            }
+            try (Connection connection = shards.get(shard).getConnection()) {
+                return work.apply(connection);
+            }
+        } catch (SQLException e) {
+            throw translate("leitura no shard " + shard, e);
+        }
+    }
+
+    /**
+     * Executa a escrita na transação de shards vinculada à transação Spring corrente ou,
+     * sem transação, numa transação local confirmada ao final.
+     */
+    private <T> T write(TransactionWork<T> work) {
+        ShardTransaction transaction = currentTransaction();
+        if (transaction == null && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            transaction = bindTransaction();
+        }
+        try {
+            if (transaction != null) {
+                return work.apply(transaction);
+            }
+            ShardTransaction local = new ShardTransaction();
+            try {
+                T result = work.apply(local);
+                local.commit();
+                return result;
+            } finally {
+                local.close();
+            }
+        } catch (SQLException e) {
+            throw translate("escrita nos shards", e);
+        }
+    }
+
+    private ShardTransaction currentTransaction() {
+        return (ShardTransaction) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private ShardTransaction bindTransaction() {
+        ShardTransaction transaction = new ShardTransaction();
+        TransactionSynchronizationManager.bindResource(this, transaction);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                try {
+                    transaction.commit();
+                } catch (SQLException e) {
+                    throw translate("commit dos shards", e);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResource(ShardedUserRepository.this);
+                transaction.close();
+            }
+        });
+        return transaction;
+    }
+
+    /**
+     * Intercala listas já ordenadas, pulando {@code skip} elementos e parando em {@code limit}.
+     */
+    private static <T> List<T> merge(List<List<T>> sorted, Comparator<T> order, int skip, int limit) {
+        if (sorted.size() == 1) {
+            List<T> only = sorted.get(0);
+            int from = Math.min(skip, only.size());
+            return only.subList(from, (int) Math.min(only.size(), (long) from + limit));
+        }
+        PriorityQueue<int[]> heads = new PriorityQueue<>(sorted.size(),
+                (a, b) -> order.compare(sorted.get(a[0]).get(a[1]), sorted.get(b[0]).get(b[1])));
+        int total = 0;
+        for (int i = 0; i < sorted.size(); i++) {
+            total += sorted.get(i).size();
+            if (!sorted.get(i).isEmpty()) {
+                heads.add(new int[]{i, 0});
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.max(0, Math.min(limit, total - skip)));
+        int skipped = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            int[] head = heads.poll();
+            List<T> list = sorted.get(head[0]);
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                merged.add(list.get(head[1]));
+            }
+            if (++head[1] < list.size()) {
+                heads.add(head);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Executa uma consulta e mapeia as linhas.
+     */
+    static <T> List<T> query(Connection connection, String sql, RowMapper<T> mapper, Object... parameters)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(mapper.map(rs));
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Executa um comando de alteração.
+     * @return linhas alteradas
+     */
+    static int execute(Connection connection, String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            bind(statement, parameters);
+            return statement.executeUpdate();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object... parameters) throws SQLException {
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    /**
+     * Converte a {@link SQLException} na hierarquia do Spring: a violação da chave do diretório
+     * de emails (ou do índice único de cada shard) vira {@link org.springframework.dao.DataIntegrityViolationException},
+     * como nos outros motores.
+     */
+    static DataAccessException translate(String task, SQLException e) {
+        DataAccessException translated = TRANSLATOR.translate(task, null, e);
+        return translated != null ? translated : new DataAccessResourceFailureException(task, e);
+    }
+
+    static User toUser(ResultSet rs) throws SQLException {
+        User user = new User(rs.getString(2), rs.getString(3));
+        user.assignId(rs.getLong(1));
+        user.assignVersion(rs.getLong(4));
+        Timestamp createdAt = rs.getTimestamp(5);
+        user.assignCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        return user;
+    }
+
+    /**
+     * Mapeamento de uma linha do {@link ResultSet}.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Bloco de valores da sequence de um shard reservado em memória: uma ida ao banco a cada
+     * {@link User#ID_ALLOCATION_SIZE} IDs (a sequence avança nesse passo), como o otimizador pooled do Hibernate.
+     */
+    private static final class IdBlock {
+
+        private final DataSource dataSource;
+        private long next;
+        private long limit;
+
+        IdBlock(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        synchronized long next() {
+            if (next == limit) {
+                try (Connection connection = dataSource.getConnection()) {
+                    next = query(connection, "SELECT NEXT VALUE FOR usuarios_seq", rs -> rs.getLong(1)).get(0);
+                } catch (SQLException e) {
+                    throw translate("reservar IDs", e);
+                }
+                limit = next + User.ID_ALLOCATION_SIZE;
+            }
+            return next++;
+        }
+    }
+
+    /**
+     * Conexões abertas por uma transação, uma por shard, sem auto-commit.
+     */
+    private final class ShardTransaction {
+
+        private final Map<Integer, Connection> connections = new TreeMap<>();
+
+        boolean holds(int shard) {
+            return connections.containsKey(shard);
+        }
+
+        Connection connection(int shard) throws SQLException {
+            Connection connection = connections.get(shard);
+            if (connection == null) {
+                connection = shards.get(shard).getConnection();
+                connection.setAutoCommit(false);
+                connections.put(shard, connection);
+            }
+            return connection;
+        }
+
+        void commit() throws SQLException {
+            for (Connection connection : connections.values()) {
+                connection.commit();
+            }
+        }
+
+        /**
+         * Desfaz o que não foi confirmado e devolve as conexões aos pools.
+         */
+        void close() {
+            for (Connection connection : connections.values()) {
+                try {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                } catch (SQLException e) {
+                    log.warn("Falha ao desfazer transação de shard.", e);
+                }
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Falha ao devolver conexão de shard.", e);
+                }
+            }
+            connections.clear();
+        }
+    }
+}
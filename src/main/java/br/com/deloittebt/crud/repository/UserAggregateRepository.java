@@ -0,0 +1,80 @@
+package br.com.deloittebt.crud.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+
+/**
+ * Acesso à tabela de checkpoint dos agregados de usuários ({@code usuarios_agregados}), sempre no H2
+ * via JPA, qualquer que seja o motor de armazenamento dos usuários. Cada linha é um contador
+ * identificado por tipo e chave.
+ */
+@Repository
+public class UserAggregateRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Linha da tabela de agregados.
+     * @param type  tipo do contador
+     * @param key   chave dentro do tipo
+     * @param value valor
+     */
+    public record Row(String type, String key, long value) {
+    }
+
+    /**
+     * Todas as linhas gravadas no último checkpoint.
+     * @return linhas em ordem de tipo e chave
+     */
+    @Transactional(readOnly = true)
+    public List<Row> findAll() {
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT tipo, chave, valor FROM usuarios_agregados ORDER BY tipo, chave")
+                .getResultList();
+        return rows.stream()
+                .map(row -> (Object[]) row)
+                .map(row -> new Row((String) row[0], (String) row[1], ((Number) row[2]).longValue()))
+                .toList();
+    }
+
+    /**
+     * Substitui o conteúdo da tabela pelas linhas informadas, numa única transação
+     * (quem lê a tabela nunca vê um checkpoint pela metade).
+     * @param rows linhas do novo checkpoint
+     */
+    @Transactional
+    public void replaceAll(List<Row> rows) {
+        entityManager.createNativeQuery("DELETE FROM usuarios_agregados").executeUpdate();
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO usuarios_agregados (tipo, chave, valor) VALUES (?, ?, ?)")) {
+                for (Row row : rows) {
+                    statement.setString(1, row.type());
+                    statement.setString(2, row.key());
+                    statement.setLong(3, row.value());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Altera a marca de checkpoint limpo (gravado no desligamento, sem escritas posteriores),
+     * se houver checkpoint.
+     * @param clean novo valor da marca
+     */
+    @Transactional
+    public void markClean(boolean clean) {
+        entityManager.createNativeQuery("UPDATE usuarios_agregados SET valor = ? WHERE tipo = 'estado' AND chave = 'limpo'")
+                .setParameter(1, clean ? 1 : 0)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,167 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.UserChange;
+import br.com.deloittebt.crud.model.UserChangeEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Acesso à tabela do outbox de usuários ({@code usuarios_eventos}), sempre no H2 via JPA,
+ * qualquer que seja o motor de armazenamento dos usuários.
+ * Os eventos são inseridos dentro da transação da alteração ({@link Propagation#MANDATORY})
+ * e sequenciados depois pelo relay, que é o único a atribuir posições.
+ */
+@Repository
+public class UserOutboxRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Insere os eventos na transação corrente; a inserção é descarregada junto com a alteração.
+     * @param events eventos ainda não sequenciados
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<UserChangeEvent> events) {
+        for (UserChangeEvent event : events) {
+            entityManager.persist(event);
+        }
+    }
+
+    /**
+     * Atribui posições consecutivas aos eventos confirmados e ainda não sequenciados, na ordem
+     * em que aparecem. Um evento cuja transação ainda não terminou não é visível e recebe uma
+     * posição maior quando confirmado, de modo que as posições seguem a ordem de commit.
+     * @param nextPosition primeira posição a atribuir
+     * @param limit quantidade máxima de eventos
+     * @return eventos sequenciados, em ordem de posição
+     */
+    @Transactional
+    public List<UserChange> sequence(long nextPosition, int limit) {
+        // ORDER BY posicao, id (posicao é nula em todos) percorre o índice já ordenado
+        List<UserChangeEvent> pending = entityManager.createQuery("SELECT e FROM UserChangeEvent e "
+                        + "WHERE e.position IS NULL ORDER BY e.position, e.id", UserChangeEvent.class)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+        if (pending.isEmpty()) {
+            return List.of();
+        }
+        List<UserChange> changes = new ArrayList<>(pending.size());
+        long position = nextPosition;
+        for (UserChangeEvent event : pending) {
+            event.assignPosition(position++);
+            changes.add(event.toChange());
+        }
+        // Um único lote JDBC que altera só a posição, sem o dirty checking das entidades
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE usuarios_eventos SET posicao = ? WHERE id = ?")) {
+                for (UserChangeEvent event : pending) {
+                    statement.setLong(1, event.getPosition());
+                    statement.setLong(2, event.getId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+        entityManager.clear();
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     * Eventos sequenciados depois da posição informada.
+     * @param afterPosition posição já lida (exclusiva)
+     * @param limit quantidade máxima de eventos
+     * @return eventos em ordem de posição
+     */
+    @Transactional(readOnly = true)
+    public List<UserChange> findAfter(long afterPosition, int limit) {
+        return entityManager.createQuery(
+                        "SELECT e FROM UserChangeEvent e WHERE e.position > :position ORDER BY e.position, e.id",
+                        UserChangeEvent.class)
+                .setParameter("position", afterPosition)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(UserChangeEvent::toChange)
+                .toList();
+    }
+
+    /**
+     * Maior posição atribuída (0 se nenhum evento foi sequenciado).
+     * @return última posição
+     */
+    @Transactional(readOnly = true)
+    public long maxPosition() {
+        Long max = entityManager.createQuery("SELECT MAX(e.position) FROM UserChangeEvent e", Long.class)
+                .getSingleResult();
+        return max == null ? 0 : max;
+    }
+
+    /**
+     * Menor posição ainda guardada (0 se nenhum evento sequenciado foi guardado).
+     * @return primeira posição
+     */
+    @Transactional(readOnly = true)
+    public long minPosition() {
+        Long min = entityManager.createQuery("SELECT MIN(e.position) FROM UserChangeEvent e", Long.class)
+                .getSingleResult();
+        return min == null ? 0 : min;
+    }
+
+    /**
+     * Compactação: remove eventos sequenciados antes do instante que já foram superados por um
+     * evento posterior do mesmo usuário. Quem lê a partir de qualquer posição continua chegando
+     * ao estado final de cada usuário, só sem os estados intermediários.
+     * @param before instante limite
+     * @return quantidade de eventos removidos
+     */
+    @Transactional
+    public int compact(Instant before) {
+        return entityManager.createQuery("DELETE FROM UserChangeEvent e WHERE e.position IS NOT NULL "
+                        + "AND e.createdAt < :before AND EXISTS (SELECT 1 FROM UserChangeEvent l "
+                        + "WHERE l.userId = e.userId AND l.position > e.position)")
+                .setParameter("before", before)
+                .executeUpdate();
+    }
+
+    /**
+     * Retenção: maior posição sequenciada antes do instante, sem contar o último evento, que é
+     * sempre preservado para que a numeração continue dele após um reinício.
+     * @param before instante limite
+     * @return posição até a qual os eventos podem ser removidos, ou 0 se nenhum
+     */
+    @Transactional(readOnly = true)
+    public long lastExpired(Instant before) {
+        Long last = entityManager.createQuery("SELECT MAX(e.position) FROM UserChangeEvent e "
+                        + "WHERE e.position IS NOT NULL AND e.createdAt < :before "
+                        + "AND e.position < (SELECT MAX(m.position) FROM UserChangeEvent m)", Long.class)
+                .setParameter("before", before)
+                .getSingleResult();
+        return last == null ? 0 : last;
+    }
+
+    /**
+     * Remove os eventos até a posição informada (inclusive).
+     * @param position última posição removida
+     * @return quantidade de eventos removidos
+     */
+    @Transactional
+    public int deleteThrough(long position) {
+        return entityManager.createQuery("DELETE FROM UserChangeEvent e WHERE e.position <= :position")
+                .setParameter("position", position)
+                .executeUpdate();
+    }
+}
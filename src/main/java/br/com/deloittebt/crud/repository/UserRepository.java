@@ -1,53 +1,73 @@
 package br.com.deloittebt.crud.repository;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.TypedQuery;
 import br.com.deloittebt.crud.model.User;
-import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
+import br.com.deloittebt.crud.model.UserRow;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repositório responsável exclusivamente pela persistência da entidade User.
- * Utiliza JPA/Hibernate para abstrair toda a lógica de acesso a dados.
  * Não deve conter regras de negócio, apenas operações de CRUD.
- * O Spring Boot gerencia transações automaticamente com @Transactional.
+ * O motor de armazenamento é escolhido por {@code crud.storage.engine}:
+ * {@code jpa} (padrão, {@link JpaUserRepository}), {@code mapped}
+ * ({@link MappedUserRepository}, log de registros mapeado em memória) ou {@code sharded}
+ * ({@link ShardedUserRepository}, vários bancos H2 particionados pelo ID).
+ * Email duplicado é sinalizado com {@link org.springframework.dao.DataIntegrityViolationException}
+ * em todos os motores.
  */
-@Repository
-public class UserRepository {
+public interface UserRepository {
 
     /**
-     * EntityManager utilizado para realizar operações de persistência.
-     * Injetado automaticamente pelo Spring Boot via @PersistenceContext.
+     * Persiste um novo usuário, atribuindo o ID gerado.
+     *
+     * @param user usuário a ser salvo
+     * @return usuário persistido com ID preenchido
      */
-    @PersistenceContext
-    private EntityManager entityManager;
+    User save(User user);
 
     /**
-     * Persiste um novo usuário no banco de dados.
-     * O ID é gerado automaticamente pelo Hibernate.
+     * Persiste um lote de usuários de uma só vez: ou todos são gravados, ou nenhum.
      *
-     * @param user usuário a ser salvo
-     * @return usuário persistido com ID preenchido
+     * @param users usuários a serem salvos
      */
-    @Transactional
-    public User save(User user) {
-        entityManager.persist(user); // Persistência JPA
-        return user;
-    }
+    void saveAll(List<User> users);
 
     /**
-     * Retorna todos os usuários cadastrados no banco.
+     * Retorna todos os usuários cadastrados.
      *
      * @return lista de usuários
      */
-    public List<User> findAll() {
-        TypedQuery<User> query = entityManager.createQuery("SELECT u FROM User u", User.class);
-        return query.getResultList();
-    }
+    List<User> findAll();
+
+    /**
+     * Busca uma fatia de usuários por paginação keyset (seek) sobre o ID.
+     *
+     * @param afterId   ID âncora; registros são buscados após ele no sentido da varredura.
+     *                  Nulo indica o início da tabela.
+     * @param ascending sentido da varredura (true para ID crescente)
+     * @param limit     quantidade máxima de registros retornados
+     * @return usuários encontrados na ordem da varredura
+     */
+    List<User> findPage(Long afterId, boolean ascending, int limit);
+
+    /**
+     * Percorre todos os usuários em ordem de ID, entregando cada um ao consumidor,
+     * com uso de memória limitado independentemente do tamanho da tabela.
+     *
+     * @param fetchSize quantidade de registros lidos por vez
+     * @param consumer  consumidor de cada usuário lido
+     */
+    void streamAll(int fetchSize, Consumer<User> consumer);
+
+    /**
+     * Percorre todos os usuários como projeções {@link UserRow}, em ordem de ID.
+     *
+     * @param fetchSize quantidade de registros lidos por vez
+     * @param consumer  consumidor de cada linha lida
+     */
+    void streamRows(int fetchSize, Consumer<UserRow> consumer);
 
     /**
      * Busca usuário por ID.
@@ -55,32 +75,74 @@ public class UserRepository {
      * @param id identificador do usuário
      * @return Optional contendo o usuário se encontrado
      */
-    public Optional<User> findById(Long id) {
-        User user = entityManager.find(User.class, id);
-        return Optional.ofNullable(user);
-    }
+    Optional<User> findById(Long id);
 
     /**
-     * Atualiza os dados de um usuário existente.
+     * Busca usuário por ID travando-o até o fim da transação corrente, para que o estado lido
+     * seja exatamente o que a atualização ou remoção seguinte vai alterar.
+     * Sem transação (ou num motor sem transações) equivale a {@link #findById(Long)}.
      *
-     * @param user usuário com dados modificados
-     * @return true se a atualização ocorreu com sucesso
+     * @param id identificador do usuário
+     * @return Optional contendo o usuário se encontrado
      */
-    @Transactional
-    public boolean update(User user) {
-        entityManager.merge(user); // Atualiza entidade gerenciada
-        return true;
-    }
+    Optional<User> findByIdForUpdate(Long id);
+
+    /**
+     * Busca usuário pelo email (já normalizado).
+     *
+     * @param email email normalizado
+     * @return Optional contendo o usuário se encontrado
+     */
+    Optional<User> findByEmail(String email);
+
+    /**
+     * Busca usuários cujo nome começa com o prefixo informado, sem diferenciar maiúsculas.
+     *
+     * @param prefix prefixo em minúsculas, com curingas de LIKE ({@code \ % _}) escapados por {@code \}
+     * @param offset quantidade de registros a pular
+     * @param limit  quantidade máxima de registros retornados
+     * @return usuários ordenados por nome e ID
+     */
+    List<User> searchByNamePrefix(String prefix, int offset, int limit);
+
+    /**
+     * Atualiza nome e email diretamente, sem carregar o usuário, incrementando a versão.
+     * Com {@code expectedVersion} informado o usuário só é alterado se ainda estiver nessa versão.
+     *
+     * @param id              identificador do usuário
+     * @param name            novo nome
+     * @param email           novo email, já normalizado
+     * @param expectedVersion versão esperada, ou null para atualizar qualquer versão
+     * @return quantidade de usuários alterados (0 se não existe ou se a versão mudou)
+     */
+    int update(Long id, String name, String email, Long expectedVersion);
+
+    /**
+     * Remove um usuário diretamente, sem carregá-lo antes.
+     * Com {@code expectedVersion} informado o usuário só é removido se ainda estiver nessa versão.
+     *
+     * @param id              identificador do usuário
+     * @param expectedVersion versão esperada, ou null para remover qualquer versão
+     * @return quantidade de usuários removidos (0 se não existe ou se a versão mudou)
+     */
+    int delete(Long id, Long expectedVersion);
+
+    /**
+     * Verifica se existe usuário com o ID, sem carregá-lo.
+     * Usado para distinguir "não encontrado" de "conflito de versão" quando nada foi alterado.
+     *
+     * @param id identificador do usuário
+     * @return true se o usuário existe
+     */
+    boolean existsById(Long id);
 
     /**
-     * Remove usuário do banco.
+     * Indica se as escritas participam da transação ativa, sendo desfeitas no rollback.
+     * O motor mapeado grava cada operação de imediato e não as desfaz.
      *
-     * @param user usuário a ser removido
-     * @return true se a remoção ocorreu com sucesso
+     * @return true se um rollback desfaz as escritas feitas na transação
      */
-    @Transactional
-    public boolean delete(User user) {
-        entityManager.remove(entityManager.contains(user) ? user : entityManager.merge(user));
+    default boolean isTransactional() {
         return true;
     }
 }
\ No newline at end of file
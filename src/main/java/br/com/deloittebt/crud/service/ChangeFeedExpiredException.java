@@ -0,0 +1,26 @@
+package br.com.deloittebt.crud.service;
+
+/**
+ * Exceção lançada quando a leitura do fluxo de alterações parte de uma posição cujos eventos
+ * seguintes já foram removidos pela retenção: o consumidor precisa ressincronizar a partir
+ * da listagem completa e retomar da posição atual.
+ */
+public class ChangeFeedExpiredException extends RuntimeException {
+
+    private final long oldestPosition;
+
+    /**
+     * Construtor com a posição pedida e a mais antiga que ainda pode ser usada.
+     * @param position posição informada pelo consumidor
+     * @param oldestPosition menor posição a partir da qual a leitura é completa
+     */
+    public ChangeFeedExpiredException(long position, long oldestPosition) {
+        super("Alterações após a posição " + position + " já foram removidas pela retenção; "
+                + "ressincronize e retome a partir da posição " + oldestPosition + " ou posterior.");
+        this.oldestPosition = oldestPosition;
+    }
+
+    public long getOldestPosition() {
+        return oldestPosition;
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.deloittebt.crud.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leitor mínimo de linhas CSV (RFC 4180) usado pela importação em lote e pelos scripts do modo batch.
+ * Suporta campos entre aspas com vírgulas e aspas escapadas ("").
+ * Campos com quebra de linha não são suportados: cada linha do arquivo é um registro.
+ */
+public final class CsvLineParser {
+
+    private CsvLineParser() {
+    }
+
+    /**
+     * Separa uma linha em campos.
+     * @param line Linha do arquivo.
+     * @return Campos da linha, sem as aspas delimitadoras.
+     * @throws IllegalArgumentException se houver aspas não fechadas.
+     */
+    public static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Aspas não fechadas.");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
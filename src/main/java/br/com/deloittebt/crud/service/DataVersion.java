@@ -0,0 +1,44 @@
+package br.com.deloittebt.crud.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versão monotônica dos dados de usuários, incrementada após cada escrita confirmada
+ * (criação, atualização, remoção e lotes importados).
+ * Serve de base para as ETags das páginas e para as chaves do cache de fragmentos:
+ * enquanto a versão não muda, o conteúdo renderizado também não muda.
+ * A ETag inclui o instante da inicialização, para que a contagem reiniciada após um
+ * restart não repita ETags emitidas antes dele.
+ */
+@Component
+public class DataVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Versão atual. Deve ser lida antes de consultar os dados que ela identifica.
+     * @return versão dos dados
+     */
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Registra uma escrita confirmada. Deve ser chamado após o commit.
+     */
+    public void increment() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Valor de ETag (sem aspas) para um conteúdo derivado da versão informada.
+     * @param version versão lida com {@link #current()}
+     * @return valor da ETag
+     */
+    public String etag(long version) {
+        return Long.toString(epoch, 36) + "-" + version;
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.deloittebt.crud.service;
+
+/**
+ * Lançada quando o email já pertence a outro usuário.
+ * Estende {@link IllegalArgumentException} para manter o tratamento já existente
+ * na interface web e no console; a API REST a traduz em 409.
+ */
+public class DuplicateEmailException extends IllegalArgumentException {
+
+    /**
+     * @param email Email normalizado já cadastrado.
+     */
+    public DuplicateEmailException(String email) {
+        super("Email já cadastrado: " + email);
+    }
+}
@@ -0,0 +1,342 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Filtro de existência de emails em memória ({@link ScalableBloomFilter}) na frente da consulta
+ * por email: um email que o filtro nunca viu certamente não está cadastrado, e a verificação de
+ * duplicidade na criação (e a busca por email) dispensa o banco. Só os "talvez presentes" vão à
+ * consulta indexada.
+ * <p>
+ * O filtro é carregado do repositório na inicialização; até lá, toda consulta é tratada como
+ * "talvez presente". Os emails são inseridos antes da gravação (uma criação concorrente com o mesmo
+ * email já vê o positivo) e de novo após o commit, o que garante que uma reconstrução em andamento
+ * também os receba. Como o filtro não remove, atualizações e remoções deixam entradas obsoletas
+ * (o email antigo não é conhecido sem ler o usuário): elas só custam uma consulta a mais, e quando
+ * passam de {@code crud.email-filter.rebuild-stale-ratio} das inserções o filtro é reconstruído em
+ * segundo plano, já dimensionado para o total atual.
+ * Ligado por {@code crud.email-filter.enabled=true}.
+ */
+@Component
+public class EmailFilter implements ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailFilter.class);
+
+    private static final int BUILD_FETCH_SIZE = 1000;
+
+    /**
+     * Folga da capacidade inicial de uma reconstrução sobre o total carregado antes dela.
+     */
+    private static final double REBUILD_HEADROOM = 1.5;
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long expectedInsertions;
+    private final double rebuildStaleRatio;
+
+    /**
+     * Trava de leitura nas inserções e de escrita ao iniciar e concluir uma reconstrução:
+     * uma inserção feita após o commit ou precede o início da leitura do banco (que então vê o email)
+     * ou encontra o filtro em construção e o insere nele também.
+     */
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicLong stale = new AtomicLong();
+    private final LongAdder negatives = new LongAdder();
+    private final LongAdder positives = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final ExecutorService rebuilder;
+
+    private volatile ScalableBloomFilter current;
+    private ScalableBloomFilter building;
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.email-filter.*}.
+     * @param userRepository repositório usado na carga e nas reconstruções
+     * @param enabled liga o filtro
+     * @param falsePositiveRate taxa de falso positivo desejada (entre 0 e 1)
+     * @param expectedInsertions capacidade inicial prevista; o filtro cresce além dela
+     * @param rebuildStaleRatio fração de entradas obsoletas que dispara a reconstrução
+     */
+    public EmailFilter(UserRepository userRepository,
+                       @Value("${crud.email-filter.enabled:false}") boolean enabled,
+                       @Value("${crud.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                       @Value("${crud.email-filter.expected-insertions:100000}") long expectedInsertions,
+                       @Value("${crud.email-filter.rebuild-stale-ratio:0.25}") double rebuildStaleRatio) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Taxa de falso positivo deve estar entre 0 e 1.");
+        }
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Capacidade prevista do filtro deve ser maior que zero.");
+        }
+        if (rebuildStaleRatio <= 0) {
+            throw new IllegalArgumentException("Fração de obsoletos para reconstrução deve ser maior que zero.");
+        }
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.expectedInsertions = expectedInsertions;
+        this.rebuildStaleRatio = rebuildStaleRatio;
+        this.rebuilder = enabled
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("email-filter-rebuild").daemon().factory())
+                : null;
+    }
+
+    /**
+     * Indica se o filtro está ligado e já carregado, ou seja, se um negativo dispensa o banco.
+     * @return true se {@link #mightContain} pode responder false
+     */
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * Indica se o email pode estar cadastrado. Sem o filtro (desligado ou ainda carregando)
+     * a resposta é sempre true.
+     * @param email Email normalizado ({@link br.com.deloittebt.crud.model.User#normalizeEmail}).
+     * @return false se o email certamente não está cadastrado
+     */
+    public boolean mightContain(String email) {
+        ScalableBloomFilter filter = current;
+        if (filter == null) {
+            return true;
+        }
+        if (filter.mightContain(email)) {
+            positives.increment();
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Registra que um "talvez presente" não estava no banco (falso positivo ou entrada obsoleta).
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * Insere um email criado ou atribuído por atualização. Deve ser chamado antes da gravação
+     * e novamente após o commit.
+     * @param email Email normalizado.
+     */
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            ScalableBloomFilter filter = current;
+            if (filter != null) {
+                filter.put(email);
+            }
+            ScalableBloomFilter next = building;
+            if (next != null) {
+                next.put(email);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Insere vários emails (importação em lote).
+     * @param emails Emails normalizados.
+     */
+    public void addAll(List<String> emails) {
+        if (!enabled) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            ScalableBloomFilter filter = current;
+            ScalableBloomFilter next = building;
+            for (String email : emails) {
+                if (filter != null) {
+                    filter.put(email);
+                }
+                if (next != null) {
+                    next.put(email);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Registra que um email pode ter deixado de existir (atualização ou remoção confirmada)
+     * e agenda a reconstrução quando as entradas obsoletas passam do limite.
+     */
+    public void markStale() {
+        if (!enabled) {
+            return;
+        }
+        long staleEntries = stale.incrementAndGet();
+        ScalableBloomFilter filter = current;
+        if (filter != null && staleEntries > filter.insertions() * rebuildStaleRatio
+                && rebuilding.compareAndSet(false, true)) {
+            rebuilder.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.warn("Falha na reconstrução do filtro de emails.", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Carrega o filtro na inicialização.
+     * @param args argumentos da aplicação (não utilizados)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reconstrói o filtro a partir do repositório sem bloquear as escritas, descartando as
+     * entradas obsoletas. O filtro anterior continua respondendo até a troca.
+     */
+    public void rebuild() {
+        long begin = System.nanoTime();
+        ScalableBloomFilter before = current;
+        long capacity = before == null
+                ? expectedInsertions
+                : Math.max(expectedInsertions, (long) (before.insertions() * REBUILD_HEADROOM));
+        ScalableBloomFilter built = new ScalableBloomFilter(capacity, falsePositiveRate);
+        long staleAtStart;
+        swapLock.writeLock().lock();
+        try {
+            building = built;
+            staleAtStart = stale.get();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        long[] loaded = new long[1];
+        try {
+            userRepository.streamRows(BUILD_FETCH_SIZE, row -> {
+                built.put(row.email());
+                loaded[0]++;
+            });
+        } catch (RuntimeException e) {
+            swapLock.writeLock().lock();
+            building = null;
+            swapLock.writeLock().unlock();
+            throw e;
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            building = null;
+            current = built;
+            stale.addAndGet(-staleAtStart);
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        rebuilds.increment();
+        log.info("Filtro de emails construído: {} emails, {} KB, em {} ms.",
+                loaded[0], built.sizeInBytes() / 1024, (System.nanoTime() - begin) / 1_000_000);
+    }
+
+    /**
+     * Interrompe uma reconstrução em andamento.
+     */
+    @PreDestroy
+    public void close() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    /**
+     * Expõe a memória e a ocupação do filtro, as consultas ao banco evitadas e os falsos positivos.
+     * @param registry registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("crud.email_filter.memory", this, f -> f.measure(ScalableBloomFilter::sizeInBytes))
+                .description("Memória dos bits do filtro de emails")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("crud.email_filter.entries", this, f -> f.measure(ScalableBloomFilter::insertions))
+                .description("Emails inseridos no filtro desde a última reconstrução")
+                .register(registry);
+        Gauge.builder("crud.email_filter.stages", this, f -> f.measure(ScalableBloomFilter::stageCount))
+                .description("Estágios do filtro escalável")
+                .register(registry);
+        Gauge.builder("crud.email_filter.stale", stale, AtomicLong::get)
+                .description("Atualizações e remoções desde a última reconstrução (entradas possivelmente obsoletas)")
+                .register(registry);
+        Gauge.builder("crud.email_filter.false_positive_rate.expected", this,
+                        f -> f.measure(ScalableBloomFilter::expectedFalsePositiveRate))
+                .description("Taxa de falso positivo esperada com a ocupação atual")
+                .register(registry);
+        Gauge.builder("crud.email_filter.saved_ratio", this, EmailFilter::savedRatio)
+                .description("Fração das verificações de email respondidas sem consultar o banco")
+                .register(registry);
+        FunctionCounter.builder("crud.email_filter.checks", negatives, LongAdder::sum)
+                .description("Verificações de email pelo filtro")
+                .tag("result", "absent")
+                .register(registry);
+        FunctionCounter.builder("crud.email_filter.checks", positives, LongAdder::sum)
+                .description("Verificações de email pelo filtro")
+                .tag("result", "maybe-present")
+                .register(registry);
+        FunctionCounter.builder("crud.email_filter.false_positives", falsePositives, LongAdder::sum)
+                .description("Talvez presentes que o banco não encontrou")
+                .register(registry);
+        FunctionCounter.builder("crud.email_filter.rebuilds", rebuilds, LongAdder::sum)
+                .description("Cargas e reconstruções do filtro")
+                .register(registry);
+    }
+
+    private double savedRatio() {
+        long absent = negatives.sum();
+        long checks = absent + positives.sum();
+        return checks == 0 ? 0 : (double) absent / checks;
+    }
+
+    private double measure(ToDoubleFunction<ScalableBloomFilter> metric) {
+        ScalableBloomFilter filter = current;
+        return filter == null ? 0 : metric.applyAsDouble(filter);
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.deloittebt.crud.service;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> int com endereçamento aberto (sondagem linear) sobre arrays primitivos.
+ * Evita o boxing de {@code Map<Long, Integer>} nas estruturas do índice de busca,
+ * onde há milhões de entradas. Não é thread-safe.
+ * {@link Long#MIN_VALUE} é reservado como marcador de posição vazia.
+ */
+final class LongIntHashMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int resizeAt;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Valor associado à chave ou {@code missing} se ausente.
+     */
+    int get(long key, int missing) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == EMPTY) {
+                return missing;
+            }
+        }
+    }
+
+    void put(long key, int value) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Remove a chave, reposicionando as entradas seguintes do mesmo agrupamento
+     * (remoção por deslocamento, sem marcadores de exclusão).
+     * @return Valor removido ou {@code missing} se ausente.
+     */
+    int remove(long key, int missing) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return missing;
+            }
+            i = (i + 1) & mask;
+        }
+        int removed = values[i];
+        int gap = i;
+        for (int j = (gap + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            // Move a entrada j para o buraco se sua posição ideal não estiver entre gap e j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Memória aproximada ocupada pelos arrays internos, em bytes.
+     */
+    long estimatedBytes() {
+        return 16L + keys.length * 8L + 16L + values.length * 4L;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        int mask = newCapacity - 1;
+        for (int s = 0; s < oldKeys.length; s++) {
+            if (oldKeys[s] != EMPTY) {
+                int i = mix(oldKeys[s]) & mask;
+                while (keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[s];
+                values[i] = oldValues[s];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
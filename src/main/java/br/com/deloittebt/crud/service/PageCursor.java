@@ -0,0 +1,85 @@
+package br.com.deloittebt.crud.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor opaco da paginação keyset.
+ * Guarda o ID âncora e o sentido da navegação (para frente ou para trás)
+ * e é serializado em Base64 URL-safe para trafegar como parâmetro de query.
+ */
+final class PageCursor {
+
+    private static final String FORWARD = "n";
+    private static final String BACKWARD = "p";
+
+    private final long id;
+    private final boolean backward;
+
+    private PageCursor(long id, boolean backward) {
+        this.id = id;
+        this.backward = backward;
+    }
+
+    /**
+     * Cursor para a página seguinte ao registro informado.
+     * @param id ID do último registro exibido.
+     * @return Cursor para frente.
+     */
+    static PageCursor forward(long id) {
+        return new PageCursor(id, false);
+    }
+
+    /**
+     * Cursor para a página anterior ao registro informado.
+     * @param id ID do primeiro registro exibido.
+     * @return Cursor para trás.
+     */
+    static PageCursor backward(long id) {
+        return new PageCursor(id, true);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    boolean isBackward() {
+        return backward;
+    }
+
+    /**
+     * Serializa o cursor como token opaco.
+     * @return Token Base64 URL-safe.
+     */
+    String encode() {
+        String raw = (backward ? BACKWARD : FORWARD) + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Lê um token gerado por {@link #encode()}.
+     * @param token Token recebido; nulo ou em branco indica a primeira página.
+     * @return Cursor decodificado ou null para a primeira página.
+     * @throws IllegalArgumentException se o token for inválido.
+     */
+    static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            String direction = raw.substring(0, separator);
+            long id = Long.parseLong(raw.substring(separator + 1));
+            if (FORWARD.equals(direction)) {
+                return forward(id);
+            }
+            if (BACKWARD.equals(direction)) {
+                return backward(id);
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            // tratado abaixo
+        }
+        throw new IllegalArgumentException("Cursor de paginação inválido.");
+    }
+}
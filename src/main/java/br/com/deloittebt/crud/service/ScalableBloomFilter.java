@@ -0,0 +1,216 @@
+package br.com.deloittebt.crud.service;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtro de Bloom escalável sobre strings: responde "certamente ausente" ou "talvez presente".
+ * Começa com um estágio dimensionado para a capacidade inicial; quando ele enche, um novo estágio
+ * com o dobro da capacidade e metade da taxa de falso positivo é acrescentado, de modo que a taxa
+ * total continua limitada à configurada (soma geométrica) sem conhecer o tamanho final.
+ * Os bits de cada estágio ficam num {@code long[]} e são marcados com OR atômico, então inserções
+ * e consultas concorrentes dispensam trava. Não há remoção: quem usa o filtro reconstrói
+ * a partir da fonte quando as entradas obsoletas passam a pesar (ver {@link EmailFilter}).
+ */
+final class ScalableBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * Razão entre as taxas de falso positivo de estágios consecutivos.
+     */
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private static final double LN2 = Math.log(2);
+
+    private final double falsePositiveRate;
+    private final AtomicLong insertions = new AtomicLong();
+    private volatile Stage[] stages;
+
+    /**
+     * @param initialCapacity inserções previstas para o primeiro estágio
+     * @param falsePositiveRate taxa de falso positivo total desejada (entre 0 e 1, exclusivos)
+     */
+    ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("Capacidade inicial deve ser maior que zero.");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Taxa de falso positivo deve estar entre 0 e 1.");
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        // Metade da taxa para o primeiro estágio: com razão 0,5 a soma de todos não passa da taxa total
+        this.stages = new Stage[]{new Stage(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO))};
+    }
+
+    /**
+     * Insere a chave no estágio atual, acrescentando um estágio se ele estiver cheio.
+     * Uma chave que já consta (ou colide com o que consta) não é inserida de novo,
+     * para não consumir a capacidade dos estágios com repetições.
+     * @param key chave (já normalizada pelo chamador)
+     * @return true se a chave foi inserida; false se já constava
+     */
+    boolean put(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        Stage[] current = stages;
+        for (Stage stage : current) {
+            if (stage.test(h1, h2)) {
+                return false;
+            }
+        }
+        Stage last = current[current.length - 1];
+        if (last.count.incrementAndGet() > last.capacity) {
+            last = grow(current);
+        }
+        last.set(h1, h2);
+        insertions.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @param key chave (já normalizada pelo chamador)
+     * @return false se a chave certamente nunca foi inserida; true se talvez tenha sido
+     */
+    boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L) | 1;
+        for (Stage stage : stages) {
+            if (stage.test(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return chaves inseridas (sem as repetidas)
+     */
+    long insertions() {
+        return insertions.get();
+    }
+
+    /**
+     * @return quantidade de estágios
+     */
+    int stageCount() {
+        return stages.length;
+    }
+
+    /**
+     * @return memória dos bits de todos os estágios, em bytes
+     */
+    long sizeInBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.words.length * (long) Long.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Taxa de falso positivo esperada com a ocupação atual: 1 menos a chance de
+     * todos os estágios responderem negativo.
+     * @return probabilidade estimada de uma chave ausente ser reportada como presente
+     */
+    double expectedFalsePositiveRate() {
+        double allNegative = 1;
+        for (Stage stage : stages) {
+            double filled = 1 - Math.exp(-(double) stage.hashes * Math.min(stage.count.get(), stage.capacity) / stage.bits);
+            allNegative *= 1 - Math.pow(filled, stage.hashes);
+        }
+        return 1 - allNegative;
+    }
+
+    /**
+     * @return taxa de falso positivo total configurada
+     */
+    double falsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    private synchronized Stage grow(Stage[] seen) {
+        Stage[] current = stages;
+        if (current != seen) {
+            return current[current.length - 1]; // Outra thread já acrescentou o estágio
+        }
+        Stage last = current[current.length - 1];
+        Stage next = new Stage(last.capacity * 2, last.falsePositiveRate * TIGHTENING_RATIO);
+        Stage[] grown = new Stage[current.length + 1];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        grown[current.length] = next;
+        next.count.incrementAndGet();
+        stages = grown;
+        return next;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre os caracteres, seguido da mistura final do MurmurHash3.
+     */
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Um filtro de Bloom clássico de tamanho fixo. As {@code hashes} posições de uma chave
+     * derivam de dois hashes de 64 bits (h1 + i·h2, Kirsch–Mitzenmacher).
+     */
+    private static final class Stage {
+
+        final long capacity;
+        final double falsePositiveRate;
+        final long bits;
+        final int hashes;
+        final long[] words;
+        final AtomicLong count = new AtomicLong();
+
+        Stage(long capacity, double falsePositiveRate) {
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (LN2 * LN2));
+            long wordCount = Math.max(1, (optimalBits + 63) / 64);
+            if (wordCount > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Estágio do filtro grande demais: " + capacity + " chaves.");
+            }
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            this.words = new long[(int) wordCount];
+            this.bits = wordCount * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * LN2));
+        }
+
+        void set(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.unsignedMultiplyHigh(combined, bits);
+                WORDS.getAndBitwiseOr(words, (int) (bit >>> 6), 1L << bit);
+                combined += h2;
+            }
+        }
+
+        boolean test(long h1, long h2) {
+            long combined = h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.unsignedMultiplyHigh(combined, bits);
+                if (((long) WORDS.getVolatile(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += h2;
+            }
+            return true;
+        }
+    }
+}
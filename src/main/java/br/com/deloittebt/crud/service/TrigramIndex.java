@@ -0,0 +1,387 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.SearchHit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * Índice invertido de trigramas sobre nome e email dos usuários.
+ * Cada usuário indexado recebe um número de documento sequencial (int) e cada
+ * trigrama aponta para uma lista de postings em {@code int[]}, mantida em ordem
+ * crescente porque documentos só são acrescentados ao final. Atualizações geram
+ * um novo documento e marcam o anterior como removido; a compactação descarta
+ * os removidos quando eles passam a ser maioria.
+ * Não é thread-safe: a sincronização fica a cargo de {@link UserSearchIndex}.
+ */
+final class TrigramIndex {
+
+    /**
+     * Limite de candidatos verificados por pesquisa, para manter a latência previsível
+     * em termos muito comuns.
+     */
+    static final int MAX_VERIFIED_CANDIDATES = 50_000;
+
+    /**
+     * Na pesquisa aproximada, trigramas presentes em mais documentos que isso
+     * são ignorados: contribuem pouco para o ranking e dominariam o custo.
+     */
+    static final int MAX_FUZZY_POSTING = 50_000;
+
+    /**
+     * Fração mínima dos trigramas do termo que um documento deve conter
+     * para ser um resultado aproximado.
+     */
+    static final double MIN_FUZZY_COVERAGE = 0.5;
+
+    private static final int INITIAL_DOCS = 1024;
+    private static final int INITIAL_POSTING = 4;
+
+    // Documentos (posição = número do documento)
+    private long[] userIds = new long[INITIAL_DOCS];
+    private String[] names = new String[INITIAL_DOCS];
+    private String[] lowerNames = new String[INITIAL_DOCS];
+    private String[] emails = new String[INITIAL_DOCS];
+    private int[] gramCounts = new int[INITIAL_DOCS];
+    private long[] deleted = new long[INITIAL_DOCS >>> 6];
+    private int docCount;
+    private int liveCount;
+    private final LongIntHashMap docByUserId = new LongIntHashMap(INITIAL_DOCS);
+
+    // Trigramas (posição = slot do trigrama)
+    private final LongIntHashMap slotByGram = new LongIntHashMap(INITIAL_DOCS);
+    private int[][] postings = new int[INITIAL_DOCS][];
+    private int[] postingSizes = new int[INITIAL_DOCS];
+    private int gramCount;
+    private long postingEntries;
+
+    /**
+     * Indexa (ou reindexa) um usuário.
+     */
+    void add(long userId, String name, String email) {
+        remove(userId);
+        int doc = docCount++;
+        ensureDocCapacity(docCount);
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        userIds[doc] = userId;
+        names[doc] = name;
+        lowerNames[doc] = lowerName.equals(name) ? name : lowerName;
+        emails[doc] = email;
+        docByUserId.put(userId, doc);
+        liveCount++;
+
+        long[] grams = distinctGrams(lowerName + '\n' + email);
+        gramCounts[doc] = grams.length;
+        for (long gram : grams) {
+            append(slotFor(gram), doc);
+        }
+    }
+
+    /**
+     * Marca o documento do usuário como removido.
+     * @return true se o usuário estava indexado.
+     */
+    boolean remove(long userId) {
+        int doc = docByUserId.remove(userId, -1);
+        if (doc < 0) {
+            return false;
+        }
+        deleted[doc >>> 6] |= 1L << doc;
+        names[doc] = null;
+        lowerNames[doc] = null;
+        emails[doc] = null;
+        liveCount--;
+        return true;
+    }
+
+    int liveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Indica se vale a pena compactar (documentos removidos são maioria).
+     */
+    boolean needsCompaction() {
+        return docCount > INITIAL_DOCS && docCount - liveCount > liveCount;
+    }
+
+    /**
+     * Cria um novo índice apenas com os documentos vivos.
+     */
+    TrigramIndex compact() {
+        TrigramIndex compacted = new TrigramIndex();
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!isDeleted(doc)) {
+                compacted.add(userIds[doc], names[doc], emails[doc]);
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Pesquisa usuários cujo nome ou email contém o termo (sem diferenciar maiúsculas).
+     * Intersecta as listas de postings dos trigramas do termo, da menor para a maior,
+     * e confirma cada candidato com {@link String#contains(CharSequence)}.
+     * @param term Termo com ao menos 3 caracteres.
+     * @param limit Quantidade máxima de resultados.
+     * @return Resultados ordenados por relevância.
+     */
+    List<SearchHit> searchSubstring(String term, int limit) {
+        String needle = term.toLowerCase(Locale.ROOT);
+        long[] grams = distinctGrams(needle);
+        int[] slots = new int[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            slots[i] = slotByGram.get(grams[i], -1);
+            if (slots[i] < 0) {
+                return List.of(); // Algum trigrama não existe: nenhum documento contém o termo
+            }
+        }
+        Integer[] order = new Integer[slots.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = slots[i];
+        }
+        Arrays.sort(order, Comparator.comparingInt(slot -> postingSizes[slot]));
+
+        int[] driver = postings[order[0]];
+        int driverSize = postingSizes[order[0]];
+        int[] cursors = new int[order.length];
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingDouble(SearchHit::score));
+        int verified = 0;
+
+        candidates:
+        for (int p = 0; p < driverSize && verified < MAX_VERIFIED_CANDIDATES; p++) {
+            int doc = driver[p];
+            if (isDeleted(doc)) {
+                continue;
+            }
+            for (int l = 1; l < order.length; l++) {
+                int slot = order[l];
+                cursors[l] = advance(postings[slot], postingSizes[slot], cursors[l], doc);
+                if (cursors[l] >= postingSizes[slot] || postings[slot][cursors[l]] != doc) {
+                    continue candidates;
+                }
+            }
+            verified++;
+            double score = substringScore(doc, needle);
+            if (score > 0) {
+                offer(top, hit(doc, score), limit);
+            }
+        }
+        return drain(top);
+    }
+
+    /**
+     * Pesquisa aproximada, tolerante a erros de digitação: ranqueia documentos pela
+     * fração dos trigramas do termo que contêm (cobertura), desempatando pela
+     * similaridade de Jaccard, que favorece textos mais próximos do termo como um todo.
+     * As listas de postings (ordenadas) são percorridas em merge de k vias, contando
+     * em quantas listas cada documento aparece, sem estruturas auxiliares por documento.
+     * @param term Termo com ao menos 3 caracteres.
+     * @param limit Quantidade máxima de resultados.
+     * @return Resultados ordenados por similaridade.
+     */
+    List<SearchHit> searchFuzzy(String term, int limit) {
+        long[] grams = distinctGrams(term.toLowerCase(Locale.ROOT));
+        int[][] lists = new int[grams.length][];
+        int[] sizes = new int[grams.length];
+        int k = 0;
+        for (long gram : grams) {
+            int slot = slotByGram.get(gram, -1);
+            if (slot >= 0 && postingSizes[slot] <= MAX_FUZZY_POSTING) {
+                lists[k] = postings[slot];
+                sizes[k] = postingSizes[slot];
+                k++;
+            }
+        }
+        int[] cursors = new int[k];
+        PriorityQueue<SearchHit> top = new PriorityQueue<>(Comparator.comparingDouble(SearchHit::score));
+        while (true) {
+            int doc = Integer.MAX_VALUE;
+            for (int l = 0; l < k; l++) {
+                if (cursors[l] < sizes[l] && lists[l][cursors[l]] < doc) {
+                    doc = lists[l][cursors[l]];
+                }
+            }
+            if (doc == Integer.MAX_VALUE) {
+                break;
+            }
+            int common = 0;
+            for (int l = 0; l < k; l++) {
+                if (cursors[l] < sizes[l] && lists[l][cursors[l]] == doc) {
+                    common++;
+                    cursors[l]++;
+                }
+            }
+            if (isDeleted(doc)) {
+                continue;
+            }
+            double coverage = (double) common / grams.length;
+            if (coverage >= MIN_FUZZY_COVERAGE) {
+                double jaccard = (double) common / (grams.length + gramCounts[doc] - common);
+                offer(top, hit(doc, coverage + jaccard / 10), limit);
+            }
+        }
+        return drain(top);
+    }
+
+    /**
+     * Estatísticas de tamanho e memória aproximada do índice.
+     */
+    UserSearchIndex.Footprint footprint() {
+        long bytes = 0;
+        // Arrays por documento
+        bytes += 16L + userIds.length * 8L;
+        bytes += 3 * (16L + names.length * 4L); // referências (compressed oops)
+        bytes += 16L + gramCounts.length * 4L;
+        bytes += 16L + deleted.length * 8L;
+        // Textos (strings compactas Latin-1: ~40 bytes de cabeçalho + 1 byte/caractere)
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!isDeleted(doc)) {
+                bytes += 40L + names[doc].length() + 40L + emails[doc].length();
+                if (lowerNames[doc] != names[doc]) {
+                    bytes += 40L + lowerNames[doc].length();
+                }
+            }
+        }
+        // Postings
+        long postingBytes = 16L + postings.length * 4L + 16L + postingSizes.length * 4L;
+        for (int slot = 0; slot < gramCount; slot++) {
+            postingBytes += 16L + postings[slot].length * 4L;
+        }
+        bytes += postingBytes;
+        bytes += docByUserId.estimatedBytes() + slotByGram.estimatedBytes();
+        return new UserSearchIndex.Footprint(liveCount, docCount - liveCount, gramCount, postingEntries,
+                postingBytes, bytes);
+    }
+
+    private double substringScore(int doc, String needle) {
+        String name = lowerNames[doc];
+        int position = name.indexOf(needle);
+        if (position >= 0) {
+            double base;
+            if (name.length() == needle.length()) {
+                base = 4; // Nome idêntico
+            } else if (position == 0) {
+                base = 3; // Prefixo do nome
+            } else if (!Character.isLetterOrDigit(name.charAt(position - 1))) {
+                base = 2.5; // Início de outra palavra do nome
+            } else {
+                base = 2;
+            }
+            return base + 1.0 / (1 + name.length());
+        }
+        String email = emails[doc];
+        if (email.contains(needle)) {
+            return 1 + 1.0 / (1 + email.length());
+        }
+        return 0; // Falso positivo dos trigramas (ex.: trigramas fora de ordem)
+    }
+
+    private SearchHit hit(int doc, double score) {
+        return new SearchHit(userIds[doc], names[doc], emails[doc], score);
+    }
+
+    private static void offer(PriorityQueue<SearchHit> top, SearchHit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (hit.score() > top.peek().score()) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static List<SearchHit> drain(PriorityQueue<SearchHit> top) {
+        List<SearchHit> hits = new ArrayList<>(top);
+        hits.sort(Comparator.comparingDouble(SearchHit::score).reversed());
+        return hits;
+    }
+
+    /**
+     * Avança o cursor até o primeiro posting >= doc, com busca exponencial (galloping).
+     */
+    private static int advance(int[] list, int size, int from, int doc) {
+        if (from >= size || list[from] >= doc) {
+            return from;
+        }
+        int step = 1;
+        int low = from;
+        int high = from + 1;
+        while (high < size && list[high] < doc) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        high = Math.min(high, size);
+        int index = Arrays.binarySearch(list, low + 1, high, doc);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private boolean isDeleted(int doc) {
+        return (deleted[doc >>> 6] & (1L << doc)) != 0;
+    }
+
+    private int slotFor(long gram) {
+        int slot = slotByGram.get(gram, -1);
+        if (slot >= 0) {
+            return slot;
+        }
+        slot = gramCount++;
+        if (slot == postings.length) {
+            postings = Arrays.copyOf(postings, slot << 1);
+            postingSizes = Arrays.copyOf(postingSizes, slot << 1);
+        }
+        postings[slot] = new int[INITIAL_POSTING];
+        slotByGram.put(gram, slot);
+        return slot;
+    }
+
+    private void append(int slot, int doc) {
+        int size = postingSizes[slot];
+        int[] list = postings[slot];
+        if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            postings[slot] = list;
+        }
+        list[size] = doc;
+        postingSizes[slot] = size + 1;
+        postingEntries++;
+    }
+
+    private void ensureDocCapacity(int required) {
+        if (required <= userIds.length) {
+            return;
+        }
+        int capacity = userIds.length << 1;
+        userIds = Arrays.copyOf(userIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        lowerNames = Arrays.copyOf(lowerNames, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        gramCounts = Arrays.copyOf(gramCounts, capacity);
+        deleted = Arrays.copyOf(deleted, capacity >>> 6);
+    }
+
+    /**
+     * Trigramas distintos do texto, codificados como long (3 caracteres de 16 bits).
+     */
+    static long[] distinctGrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+}
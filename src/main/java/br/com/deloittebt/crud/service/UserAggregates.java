@@ -0,0 +1,676 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserStats;
+import br.com.deloittebt.crud.model.UserStatsCheck;
+import br.com.deloittebt.crud.repository.UserAggregateRepository;
+import br.com.deloittebt.crud.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estatísticas agregadas dos usuários (total, usuários por domínio de email e cadastros por dia)
+ * mantidas incrementalmente: cada criação, atualização e remoção confirmada ajusta contadores
+ * {@link LongAdder} em memória, sem disputa entre escritas concorrentes, e a consulta devolve o
+ * resultado montado na última mudança, sem percorrer os usuários.
+ * <p>
+ * Os contadores são gravados na tabela {@code usuarios_agregados} a cada {@code checkpoint-interval}
+ * (se mudaram) e no desligamento, que marca o checkpoint como limpo. O checkpoint guarda também o motor de
+ * armazenamento e o maior ID de usuário no momento da gravação. Na inicialização um checkpoint limpo do
+ * mesmo motor e com o mesmo maior ID é carregado; caso contrário (queda, primeira execução, execução com os
+ * agregados desligados, troca de motor ou usuários alterados por fora) os contadores são reconstruídos
+ * percorrendo os usuários.
+ * <p>
+ * {@link #rebuild()} e {@link #check()} percorrem todos os usuários. A reconstrução registra as mudanças
+ * aplicadas durante a varredura e, antes de trocar os contadores, reaplica as que a varredura não viu (de
+ * usuários pelos quais o cursor já tinha passado ou além do último percorrido). Na verificação, escritas
+ * confirmadas durante a varredura aparecem como divergências, e uma nova verificação com o sistema quieto
+ * confirma o resultado. No motor mapeado, que não guarda a data de criação, a série de cadastros
+ * por dia só vem do checkpoint e das criações desta execução, e não entra na reconstrução nem na verificação.
+ * Ligado por {@code crud.aggregates.enabled=true}.
+ */
+@Component
+public class UserAggregates implements ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAggregates.class);
+
+    private static final int SCAN_FETCH_SIZE = 1000;
+
+    /**
+     * Quantidade máxima de divergências detalhadas na verificação.
+     */
+    private static final int MAX_REPORTED_DIFFERENCES = 100;
+
+    static final String TOTAL = "total";
+    static final String DOMAIN = "dominio";
+    static final String DAY = "dia";
+    static final String STATE = "estado";
+    static final String CLEAN_KEY = "limpo";
+    static final String CHECKPOINT_KEY = "gravado_em";
+    static final String MAX_ID_KEY = "maior_id";
+    static final String ENGINE = "motor";
+
+    private final UserRepository userRepository;
+    private final UserAggregateRepository aggregateRepository;
+    private final String engine;
+    private final boolean enabled;
+    private final Duration checkpointInterval;
+    private final int days;
+    private final int topDomains;
+    private final ScheduledExecutorService checkpointer;
+
+    /**
+     * Mudanças aplicadas aos contadores; identifica o resultado montado e o último checkpoint.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile Counters counters = new Counters();
+    private volatile Rebuilding rebuilding;
+    private volatile Built built;
+    private volatile Instant lastCheckpoint;
+    private volatile boolean ready;
+
+    /**
+     * Valor de {@link #changes} gravado no último checkpoint (acessado só com o monitor deste objeto).
+     */
+    private long checkpointedChanges = -1;
+
+    /**
+     * Serializa as reconstruções: só uma varredura por vez registra as mudanças a reaplicar.
+     */
+    private final Object rebuildLock = new Object();
+
+    /**
+     * Contadores em memória. Uma entrada zerada continua no mapa até a próxima reconstrução:
+     * removê-la poderia perder um incremento concorrente.
+     */
+    private static final class Counters {
+
+        private final LongAdder total = new LongAdder();
+        private final ConcurrentHashMap<String, LongAdder> domains = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<LocalDate, LongAdder> signups = new ConcurrentHashMap<>();
+
+        void add(String email, LocalDate day, int delta) {
+            total.add(delta);
+            domains.computeIfAbsent(domainOf(email), key -> new LongAdder()).add(delta);
+            if (day != null) {
+                signups.computeIfAbsent(day, key -> new LongAdder()).add(delta);
+            }
+        }
+
+        void moveDomain(String previousEmail, String email) {
+            String previous = domainOf(previousEmail);
+            String current = domainOf(email);
+            if (!previous.equals(current)) {
+                domains.computeIfAbsent(previous, key -> new LongAdder()).decrement();
+                domains.computeIfAbsent(current, key -> new LongAdder()).increment();
+            }
+        }
+
+        List<UserAggregateRepository.Row> rows() {
+            List<UserAggregateRepository.Row> rows = new ArrayList<>();
+            rows.add(new UserAggregateRepository.Row(TOTAL, "", total.sum()));
+            domains.forEach((domain, count) -> {
+                long value = count.sum();
+                if (value != 0) {
+                    rows.add(new UserAggregateRepository.Row(DOMAIN, domain, value));
+                }
+            });
+            signups.forEach((day, count) -> {
+                long value = count.sum();
+                if (value != 0) {
+                    rows.add(new UserAggregateRepository.Row(DAY, day.toString(), value));
+                }
+            });
+            return rows;
+        }
+
+        void load(List<UserAggregateRepository.Row> rows) {
+            for (UserAggregateRepository.Row row : rows) {
+                switch (row.type()) {
+                    case TOTAL -> total.add(row.value());
+                    case DOMAIN -> domains.computeIfAbsent(row.key(), key -> new LongAdder()).add(row.value());
+                    case DAY -> signups.computeIfAbsent(LocalDate.parse(row.key()), key -> new LongAdder()).add(row.value());
+                    default -> {
+                        // Linhas de estado não são contadores
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Contagem completa obtida percorrendo os usuários.
+     * @param dated se todos os usuários têm data de criação (o motor a guarda)
+     */
+    private record Scan(Counters counters, long scanned, boolean dated) {
+    }
+
+    /**
+     * Mudança aplicada aos contadores: uma criação ou remoção ({@code amount} 1 ou -1) ou, com
+     * {@code previousEmail}, a troca de domínio de um usuário.
+     */
+    private record Delta(String email, String previousEmail, LocalDate day, int amount) {
+
+        void applyTo(Counters target, boolean dated) {
+            if (previousEmail != null) {
+                target.moveDomain(previousEmail, email);
+            } else {
+                target.add(email, dated ? day : null, amount);
+            }
+        }
+    }
+
+    /**
+     * Mudança aplicada durante uma reconstrução.
+     * @param passed se a varredura já tinha passado pelo usuário quando a mudança foi aplicada
+     */
+    private record Recorded(long id, boolean passed, Delta delta) {
+    }
+
+    /**
+     * Reconstrução em andamento: a posição da varredura (o último ID percorrido, que avança em ordem)
+     * e as mudanças aplicadas desde o início dela, acessadas com o monitor deste objeto.
+     */
+    private static final class Rebuilding {
+
+        private volatile long position;
+        private final List<Recorded> recorded = new ArrayList<>();
+        private boolean finished;
+    }
+
+    /**
+     * Resultado montado para a versão {@code changes} dos contadores.
+     */
+    private record Built(long changes, long total, int domainCount, List<UserStats.Count> topDomains,
+                         List<UserStats.Count> signupsPerDay, LocalDate day) {
+    }
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.aggregates.*}.
+     * @param userRepository repositório percorrido na reconstrução e na verificação
+     * @param aggregateRepository tabela de checkpoint
+     * @param engine motor de armazenamento dos usuários ({@code crud.storage.engine}), gravado no checkpoint
+     * @param enabled liga os agregados
+     * @param checkpointInterval intervalo entre checkpoints (zero grava só no desligamento)
+     * @param days dias exibidos na série de cadastros por dia
+     * @param topDomains domínios exibidos no ranking
+     */
+    public UserAggregates(UserRepository userRepository, UserAggregateRepository aggregateRepository,
+                          @Value("${crud.storage.engine:jpa}") String engine,
+                          @Value("${crud.aggregates.enabled:false}") boolean enabled,
+                          @Value("${crud.aggregates.checkpoint-interval:30s}") Duration checkpointInterval,
+                          @Value("${crud.aggregates.days:30}") int days,
+                          @Value("${crud.aggregates.top-domains:20}") int topDomains) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (aggregateRepository == null) {
+            throw new IllegalArgumentException("UserAggregateRepository não pode ser nulo.");
+        }
+        if (engine == null || engine.isBlank()) {
+            throw new IllegalArgumentException("Motor de armazenamento não pode ser vazio.");
+        }
+        if (checkpointInterval.isNegative()) {
+            throw new IllegalArgumentException("Intervalo de checkpoint não pode ser negativo.");
+        }
+        if (days <= 0 || days > 3660) {
+            throw new IllegalArgumentException("Dias da série de cadastros devem estar entre 1 e 3660.");
+        }
+        if (topDomains <= 0) {
+            throw new IllegalArgumentException("Quantidade de domínios do ranking deve ser maior que zero.");
+        }
+        this.userRepository = userRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.engine = engine;
+        this.enabled = enabled;
+        this.checkpointInterval = checkpointInterval;
+        this.days = days;
+        this.topDomains = topDomains;
+        this.checkpointer = enabled && !checkpointInterval.isZero()
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("user-aggregates-checkpoint").daemon().factory())
+                : null;
+    }
+
+    /**
+     * Indica se os agregados estão ligados.
+     * @return true se {@code crud.aggregates.enabled} estiver ligado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Indica se os agregados já foram carregados ou reconstruídos na inicialização.
+     * @return true se {@link #stats()} reflete todos os usuários
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Registra um usuário criado. Deve ser chamado após o commit.
+     * @param user Usuário persistido.
+     */
+    public void created(User user) {
+        if (enabled) {
+            apply(user.getId(), new Delta(user.getEmail(), null, dayOf(user), 1));
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra vários usuários criados de uma vez (importação em lote).
+     * @param users Usuários persistidos.
+     */
+    public void createdAll(List<User> users) {
+        if (enabled && !users.isEmpty()) {
+            users.forEach(user -> apply(user.getId(), new Delta(user.getEmail(), null, dayOf(user), 1)));
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra a troca de email de um usuário. Deve ser chamado após o commit.
+     * @param previous Estado lido antes da atualização, ou null se o usuário não foi lido.
+     * @param email Novo email, já normalizado.
+     */
+    public void updated(User previous, String email) {
+        if (enabled && previous != null) {
+            apply(previous.getId(), new Delta(email, previous.getEmail(), null, 0));
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra a remoção de um usuário. Deve ser chamado após o commit.
+     * @param previous Estado lido antes da remoção, ou null se o usuário não foi lido.
+     */
+    public void deleted(User previous) {
+        if (enabled && previous != null) {
+            LocalDate day = previous.getCreatedAt() == null ? null : previous.getCreatedAt().toLocalDate();
+            apply(previous.getId(), new Delta(previous.getEmail(), null, day, -1));
+            changes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Estatísticas atuais. Entre duas mudanças a consulta devolve o resultado já montado (O(1));
+     * a primeira consulta após uma mudança o remonta a partir dos contadores, em tempo proporcional
+     * à quantidade de domínios e de dias, nunca à de usuários.
+     * @return estatísticas agregadas
+     * @throws IllegalStateException se os agregados estiverem desligados
+     */
+    public UserStats stats() {
+        if (!enabled) {
+            throw new IllegalStateException("Agregados de usuários desligados (crud.aggregates.enabled).");
+        }
+        long version = changes.get();
+        LocalDate today = LocalDate.now();
+        Built current = built;
+        if (current == null || current.changes() != version || !current.day().equals(today)) {
+            current = build(version, today);
+            built = current;
+        }
+        return new UserStats(current.total(), current.domainCount(), current.topDomains(),
+                current.signupsPerDay(), lastCheckpoint);
+    }
+
+    /**
+     * Carrega o checkpoint limpo ou reconstrói os contadores, e agenda os checkpoints periódicos.
+     * Um checkpoint limpo só é carregado se foi gravado pelo mesmo motor e com o mesmo maior ID atual.
+     * Desligado, apenas invalida um checkpoint existente, que deixaria de contar as escritas desta execução.
+     * @param args argumentos da aplicação (não utilizados)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            aggregateRepository.markClean(false);
+            return;
+        }
+        long begin = System.nanoTime();
+        List<UserAggregateRepository.Row> saved = aggregateRepository.findAll();
+        String stale = staleReason(saved);
+        if (stale == null) {
+            // Soma ao que as escritas desde o início da aplicação já contaram
+            counters.load(saved);
+            saved.stream()
+                    .filter(row -> STATE.equals(row.type()) && CHECKPOINT_KEY.equals(row.key()))
+                    .findFirst()
+                    .ifPresent(row -> lastCheckpoint = Instant.ofEpochMilli(row.value()));
+            aggregateRepository.markClean(false);
+            changes.incrementAndGet();
+            ready = true;
+            log.info("Agregados de usuários carregados do checkpoint em {} ms.", (System.nanoTime() - begin) / 1_000_000);
+        } else {
+            // Sem datas no motor, a série do último checkpoint é a melhor informação disponível
+            Scan scan = rescan(saved.stream().filter(row -> DAY.equals(row.type())).toList());
+            changes.incrementAndGet();
+            ready = true;
+            checkpoint();
+            log.info("Agregados de usuários reconstruídos ({}): {} usuários em {} ms.",
+                    stale, scan.scanned(), (System.nanoTime() - begin) / 1_000_000);
+        }
+        if (checkpointer != null) {
+            long intervalMillis = checkpointInterval.toMillis();
+            checkpointer.scheduleWithFixedDelay(this::periodicCheckpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reconstrói os contadores do zero percorrendo todos os usuários e grava um checkpoint.
+     * @return estatísticas reconstruídas
+     * @throws IllegalStateException se os agregados estiverem desligados
+     */
+    public UserStats rebuild() {
+        if (!enabled) {
+            throw new IllegalStateException("Agregados de usuários desligados (crud.aggregates.enabled).");
+        }
+        long begin = System.nanoTime();
+        Scan scan = rescan(List.of());
+        changes.incrementAndGet();
+        ready = true;
+        checkpoint();
+        log.info("Agregados de usuários reconstruídos: {} usuários em {} ms.",
+                scan.scanned(), (System.nanoTime() - begin) / 1_000_000);
+        return stats();
+    }
+
+    /**
+     * Compara os contadores em memória com uma contagem completa dos usuários, sem alterá-los.
+     * @return resultado da verificação, com as divergências encontradas
+     * @throws IllegalStateException se os agregados estiverem desligados
+     */
+    public UserStatsCheck check() {
+        if (!enabled) {
+            throw new IllegalStateException("Agregados de usuários desligados (crud.aggregates.enabled).");
+        }
+        long begin = System.nanoTime();
+        Scan scan = scan(null);
+        Counters current = counters;
+        List<UserStatsCheck.Difference> differences = new ArrayList<>();
+        long[] found = new long[1];
+        compare(TOTAL, Map.of("", scan.counters().total), Map.of("", current.total), differences, found);
+        compare(DOMAIN, scan.counters().domains, current.domains, differences, found);
+        if (scan.dated()) {
+            compare(DAY, scan.counters().signups, current.signups, differences, found);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        if (found[0] > 0) {
+            log.warn("Agregados de usuários divergentes: {} contadores.", found[0]);
+        }
+        return new UserStatsCheck(found[0] == 0, scan.scanned(), differences, elapsedMillis);
+    }
+
+    /**
+     * Grava os contadores na tabela de agregados, marcando o checkpoint como não limpo.
+     */
+    public synchronized void checkpoint() {
+        write(false);
+    }
+
+    /**
+     * Interrompe os checkpoints periódicos e grava o checkpoint limpo, carregado na próxima inicialização.
+     */
+    @PreDestroy
+    public void close() {
+        if (checkpointer != null) {
+            checkpointer.shutdownNow();
+        }
+        if (ready) {
+            try {
+                synchronized (this) {
+                    write(true);
+                }
+                log.info("Checkpoint final dos agregados de usuários gravado.");
+            } catch (RuntimeException e) {
+                log.warn("Falha no checkpoint final dos agregados; serão reconstruídos na próxima inicialização.", e);
+            }
+        }
+    }
+
+    /**
+     * Expõe o total de usuários e de domínios.
+     * @param registry registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("crud.aggregates.users", this, aggregates -> aggregates.counters.total.sum())
+                .description("Usuários cadastrados, pelos agregados incrementais")
+                .register(registry);
+        Gauge.builder("crud.aggregates.domains", this, aggregates -> aggregates.stats().domainCount())
+                .description("Domínios de email distintos, pelos agregados incrementais")
+                .register(registry);
+    }
+
+    private void periodicCheckpoint() {
+        try {
+            synchronized (this) {
+                if (checkpointedChanges != changes.get()) {
+                    write(false);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Falha no checkpoint dos agregados de usuários.", e);
+        }
+    }
+
+    /**
+     * Motivo para não carregar o checkpoint gravado.
+     * @return motivo, ou null se o checkpoint é limpo, do motor atual e com o maior ID atual
+     */
+    private String staleReason(List<UserAggregateRepository.Row> saved) {
+        if (saved.isEmpty()) {
+            return "sem checkpoint";
+        }
+        if (stateValue(saved, CLEAN_KEY) != 1) {
+            return "checkpoint não limpo";
+        }
+        String savedEngine = saved.stream().filter(row -> ENGINE.equals(row.type()))
+                .map(UserAggregateRepository.Row::key).findFirst().orElse(null);
+        if (!engine.equals(savedEngine)) {
+            return "checkpoint do motor " + savedEngine + ", motor atual " + engine;
+        }
+        long savedMaxId = stateValue(saved, MAX_ID_KEY);
+        long maxId = maxId();
+        if (savedMaxId != maxId) {
+            return "checkpoint com maior ID " + savedMaxId + ", atual " + maxId;
+        }
+        return null;
+    }
+
+    private static long stateValue(List<UserAggregateRepository.Row> saved, String key) {
+        return saved.stream().filter(row -> STATE.equals(row.type()) && key.equals(row.key()))
+                .mapToLong(UserAggregateRepository.Row::value).findFirst().orElse(-1);
+    }
+
+    /**
+     * Maior ID de usuário (0 sem usuários), por uma página keyset de um registro.
+     */
+    private long maxId() {
+        List<User> last = userRepository.findPage(null, false, 1);
+        return last.isEmpty() ? 0 : last.get(0).getId();
+    }
+
+    /**
+     * Grava o checkpoint; chamado com o monitor deste objeto.
+     * O maior ID é lido antes dos contadores: uma escrita entre as duas leituras torna o checkpoint
+     * divergente (reconstruído na inicialização), nunca aceito com contadores incompletos.
+     */
+    private void write(boolean clean) {
+        long maxId = maxId();
+        long version = changes.get();
+        Instant now = Instant.now();
+        List<UserAggregateRepository.Row> rows = counters.rows();
+        rows.add(new UserAggregateRepository.Row(STATE, CLEAN_KEY, clean ? 1 : 0));
+        rows.add(new UserAggregateRepository.Row(STATE, CHECKPOINT_KEY, now.toEpochMilli()));
+        rows.add(new UserAggregateRepository.Row(STATE, MAX_ID_KEY, maxId));
+        rows.add(new UserAggregateRepository.Row(ENGINE, engine, 1));
+        aggregateRepository.replaceAll(rows);
+        checkpointedChanges = version;
+        lastCheckpoint = now;
+    }
+
+    /**
+     * Aplica uma mudança aos contadores. Durante uma reconstrução a mudança também é registrada,
+     * para ser reaplicada sobre a contagem se a varredura não a viu.
+     */
+    private void apply(Long id, Delta delta) {
+        Rebuilding current = rebuilding;
+        if (current != null && id != null) {
+            synchronized (current) {
+                if (!current.finished) {
+                    delta.applyTo(counters, true);
+                    current.recorded.add(new Recorded(id, id <= current.position, delta));
+                    return;
+                }
+            }
+        }
+        delta.applyTo(counters, true);
+    }
+
+    /**
+     * Percorre os usuários e troca os contadores pela contagem. Antes da troca reaplica sobre ela as
+     * mudanças registradas durante a varredura que ela não viu: as de usuários pelos quais o cursor já
+     * tinha passado e as de usuários além do último percorrido (criados depois da última leitura).
+     * Sem datas no motor, a série de cadastros por dia continua a dos contadores atuais mais {@code savedDays}.
+     * @param savedDays linhas de cadastros por dia do checkpoint a somar quando o motor não guarda datas
+     * @return contagem que passou a ser a dos contadores
+     */
+    private Scan rescan(List<UserAggregateRepository.Row> savedDays) {
+        synchronized (rebuildLock) {
+            Rebuilding current = new Rebuilding();
+            rebuilding = current;
+            try {
+                Scan scan = scan(current);
+                Counters scanned = scan.counters();
+                synchronized (current) {
+                    for (Recorded change : current.recorded) {
+                        if (change.passed() || change.id() > current.position) {
+                            change.delta().applyTo(scanned, scan.dated());
+                        }
+                    }
+                    if (!scan.dated()) {
+                        counters.signups.forEach((day, count) ->
+                                scanned.signups.computeIfAbsent(day, key -> new LongAdder()).add(count.sum()));
+                        savedDays.forEach(row -> scanned.signups
+                                .computeIfAbsent(LocalDate.parse(row.key()), key -> new LongAdder()).add(row.value()));
+                    }
+                    counters = scanned;
+                    current.finished = true;
+                }
+                return scan;
+            } finally {
+                rebuilding = null;
+            }
+        }
+    }
+
+    /**
+     * Conta todos os usuários.
+     * @param progress reconstrução cuja posição acompanha a varredura, ou null
+     */
+    private Scan scan(Rebuilding progress) {
+        Counters scanned = new Counters();
+        long[] count = new long[1];
+        boolean[] dated = {true};
+        userRepository.streamAll(SCAN_FETCH_SIZE, user -> {
+            if (progress != null) {
+                progress.position = user.getId();
+            }
+            count[0]++;
+            if (user.getCreatedAt() == null) {
+                dated[0] = false;
+            }
+            scanned.add(user.getEmail(), user.getCreatedAt() == null ? null : user.getCreatedAt().toLocalDate(), 1);
+        });
+        return new Scan(scanned, count[0], dated[0]);
+    }
+
+    private Built build(long version, LocalDate today) {
+        Counters current = counters;
+        Comparator<UserStats.Count> ranking = Comparator.comparingLong(UserStats.Count::value)
+                .thenComparing(UserStats.Count::key, Comparator.reverseOrder());
+        PriorityQueue<UserStats.Count> top = new PriorityQueue<>(topDomains + 1, ranking);
+        int domainCount = 0;
+        for (Map.Entry<String, LongAdder> entry : current.domains.entrySet()) {
+            long value = entry.getValue().sum();
+            if (value <= 0) {
+                continue;
+            }
+            domainCount++;
+            top.add(new UserStats.Count(entry.getKey(), value));
+            if (top.size() > topDomains) {
+                top.poll();
+            }
+        }
+        List<UserStats.Count> topList = new ArrayList<>(top);
+        topList.sort(ranking.reversed());
+
+        List<UserStats.Count> series = new ArrayList<>(days);
+        for (int i = days - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            LongAdder count = current.signups.get(day);
+            series.add(new UserStats.Count(day.toString(), count == null ? 0 : count.sum()));
+        }
+        return new Built(version, current.total.sum(), domainCount, List.copyOf(topList), List.copyOf(series), today);
+    }
+
+    private static <K extends Comparable<? super K>> void compare(String counter, Map<K, LongAdder> expected,
+                                                                  Map<K, LongAdder> actual,
+                                                                  List<UserStatsCheck.Difference> differences,
+                                                                  long[] found) {
+        Set<K> keys = new TreeSet<>(expected.keySet());
+        keys.addAll(actual.keySet());
+        for (K key : keys) {
+            long expectedValue = expected.containsKey(key) ? expected.get(key).sum() : 0;
+            long actualValue = actual.containsKey(key) ? actual.get(key).sum() : 0;
+            if (expectedValue != actualValue) {
+                found[0]++;
+                if (differences.size() < MAX_REPORTED_DIFFERENCES) {
+                    differences.add(new UserStatsCheck.Difference(counter, key.toString(), expectedValue, actualValue));
+                }
+            }
+        }
+    }
+
+    /**
+     * Dia da criação: a data gravada ou, se o motor não a devolve, a data atual (a criação acabou de ocorrer).
+     */
+    private static LocalDate dayOf(User user) {
+        return user.getCreatedAt() == null ? LocalDate.now() : user.getCreatedAt().toLocalDate();
+    }
+
+    private static String domainOf(String email) {
+        return email.substring(email.lastIndexOf('@') + 1);
+    }
+}
@@ -0,0 +1,135 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Cache em memória (read-through) para buscas de usuário por ID.
+ * Usa Caffeine com limite de tamanho, expiração por tempo (TTL) e política
+ * de despejo W-TinyLFU, adequada para tráfego concentrado em poucos usuários.
+ * Armazena cópias imutáveis do estado do usuário: cada leitura devolve uma
+ * nova instância, de modo que alterações feitas pelo chamador não contaminam o cache.
+ * Acertos, falhas e despejos são publicados como métricas "cache.*" com a tag cache=usuarios.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    /**
+     * Backend local (Caffeine). Qualquer outro valor desliga este cache,
+     * por exemplo "hibernate" quando o cache de segundo nível do Hibernate é usado.
+     */
+    private static final String LOCAL_BACKEND = "caffeine";
+
+    private final boolean enabled;
+    private final Cache<Long, CachedUser> cache;
+
+    /**
+     * Construtor com os limites do cache lidos das propriedades da aplicação.
+     * @param backend Backend de cache configurado em {@code crud.cache.backend}.
+     * @param maximumSize Quantidade máxima de usuários em cache.
+     * @param ttl Tempo de vida de cada entrada após a escrita.
+     */
+    public UserCache(@Value("${crud.cache.backend:caffeine}") String backend,
+                     @Value("${crud.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${crud.cache.ttl:10m}") Duration ttl) {
+        this.enabled = LOCAL_BACKEND.equalsIgnoreCase(backend);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Retorna o usuário em cache ou carrega pelo loader em caso de ausência.
+     * Ausências no banco não são armazenadas (sem cache negativo).
+     * @param id Identificador do usuário.
+     * @param loader Função de carga a partir do repositório.
+     * @return Usuário encontrado, se existir.
+     */
+    public Optional<User> get(Long id, Function<Long, Optional<User>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        CachedUser cached = cache.get(id, key -> loader.apply(key).map(CachedUser::of).orElse(null));
+        return Optional.ofNullable(cached).map(CachedUser::toUser);
+    }
+
+    /**
+     * Armazena (ou substitui) o estado de um usuário recém-persistido.
+     * @param user Usuário com ID atribuído.
+     */
+    public void put(User user) {
+        if (enabled && user.getId() != null) {
+            cache.put(user.getId(), CachedUser.of(user));
+        }
+    }
+
+    /**
+     * Remove o usuário do cache. Se houver uma carga em andamento para o mesmo
+     * ID, a remoção aguarda seu término, evitando que um valor antigo permaneça.
+     * @param id Identificador do usuário.
+     */
+    public void invalidate(Long id) {
+        if (enabled) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Indica se o cache local está ativo.
+     * @return true se o backend configurado for Caffeine.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Contadores acumulados de acertos, falhas e despejos.
+     * @return Estatísticas do Caffeine.
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "usuarios");
+    }
+
+    /**
+     * Quantidade aproximada de entradas em cache.
+     * @return Número estimado de usuários em cache.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Cópia imutável do estado de um usuário.
+     */
+    private record CachedUser(Long id, String name, String email, long version) {
+
+        static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+        }
+
+        User toUser() {
+            User user = new User(name, email);
+            user.assignId(id);
+            user.assignVersion(version);
+            return user;
+        }
+    }
+}
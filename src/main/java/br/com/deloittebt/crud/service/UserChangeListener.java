@@ -0,0 +1,22 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.UserChange;
+
+import java.util.List;
+
+/**
+ * Consumidor dentro da JVM do fluxo de alterações de usuários.
+ * Beans do Spring que implementam esta interface são inscritos automaticamente no
+ * {@link UserChangeRelay}; outros objetos podem se inscrever com {@link UserChangeRelay#subscribe}.
+ * Os lotes chegam na ordem das posições, na thread do relay: o processamento deve ser rápido
+ * (ou repassado a outra thread), pois atrasa a entrega aos demais consumidores.
+ */
+@FunctionalInterface
+public interface UserChangeListener {
+
+    /**
+     * Recebe um lote de alterações recém-sequenciadas.
+     * @param changes alterações em ordem crescente de posição
+     */
+    void onChanges(List<UserChange> changes);
+}
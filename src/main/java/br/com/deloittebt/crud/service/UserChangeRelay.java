@@ -0,0 +1,449 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.UserChange;
+import br.com.deloittebt.crud.repository.UserOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Relay do outbox de usuários: uma única thread sequencia os eventos confirmados na tabela
+ * {@code usuarios_eventos}, atribuindo posições consecutivas na ordem em que os commits se tornam
+ * visíveis, e os entrega em lotes de até {@code crud.outbox.batch-size}:
+ * <ul>
+ *     <li>aos {@link UserChangeListener} inscritos, na própria thread do relay;</li>
+ *     <li>aos consumidores remotos (SSE e long-poll), que leem com {@link #read} a partir da posição
+ *     em que pararam e esperam novas posições com {@link #awaitAfter}.</li>
+ * </ul>
+ * A thread é acordada após cada commit com eventos ({@link UserOutbox}) e, na falta de sinal,
+ * a cada {@code poll-interval}. As leituras recentes são servidas por um anel em memória com os
+ * últimos eventos entregues; as mais antigas vão ao banco.
+ * <p>
+ * Manutenção periódica ({@code maintenance-interval}): eventos mais antigos que {@code compact-after}
+ * já superados por um evento posterior do mesmo usuário são compactados (o estado final continua
+ * no fluxo), e eventos mais antigos que {@code retention} são removidos; quem tentar ler a partir
+ * de uma posição removida recebe {@link ChangeFeedExpiredException} e deve ressincronizar.
+ */
+@Component
+public class UserChangeRelay implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeRelay.class);
+
+    /**
+     * Capacidade do anel de eventos recentes (potência de dois).
+     */
+    private static final int RECENT_CAPACITY = 1 << 14;
+
+    private final UserOutboxRepository outboxRepository;
+    private final ObjectProvider<UserChangeListener> listenerBeans;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalNanos;
+    private final Duration compactAfter;
+    private final Duration retention;
+    private final long maintenanceIntervalNanos;
+
+    private final List<UserChangeListener> listeners = new CopyOnWriteArrayList<>();
+    private final Set<CompletableFuture<Long>> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicReferenceArray<UserChange> recent = new AtomicReferenceArray<>(RECENT_CAPACITY);
+    private final AtomicBoolean signaled = new AtomicBoolean();
+
+    /**
+     * Última posição entregue; só a thread do relay escreve.
+     */
+    private volatile long head;
+
+    /**
+     * Posição até a qual (inclusive) os eventos podem ter sido removidos pela retenção.
+     */
+    private volatile long truncatedThrough;
+
+    private volatile boolean running;
+    private volatile Thread relayThread;
+
+    private Counter relayedEvents;
+    private Timer batchTimer;
+    private DistributionSummary batchSizes;
+    private Timer deliveryLag;
+    private Counter compactedEvents;
+    private Counter expiredEvents;
+    private Counter memoryReads;
+    private Counter databaseReads;
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.outbox.*}.
+     * @param outboxRepository repositório da tabela do outbox
+     * @param listenerBeans consumidores declarados como beans, inscritos no início
+     * @param enabled se o outbox está habilitado
+     * @param batchSize quantidade máxima de eventos por lote
+     * @param pollInterval espera máxima entre verificações sem sinal de commit
+     * @param compactAfter idade a partir da qual eventos superados são compactados (zero desliga)
+     * @param retention idade a partir da qual eventos são removidos (zero desliga)
+     * @param maintenanceInterval intervalo entre compactações e remoções
+     */
+    public UserChangeRelay(UserOutboxRepository outboxRepository, ObjectProvider<UserChangeListener> listenerBeans,
+                           @Value("${crud.outbox.enabled:false}") boolean enabled,
+                           @Value("${crud.outbox.batch-size:500}") int batchSize,
+                           @Value("${crud.outbox.poll-interval:1s}") Duration pollInterval,
+                           @Value("${crud.outbox.compact-after:1h}") Duration compactAfter,
+                           @Value("${crud.outbox.retention:7d}") Duration retention,
+                           @Value("${crud.outbox.maintenance-interval:1m}") Duration maintenanceInterval) {
+        if (outboxRepository == null) {
+            throw new IllegalArgumentException("UserOutboxRepository não pode ser nulo.");
+        }
+        if (batchSize <= 0 || batchSize > RECENT_CAPACITY) {
+            throw new IllegalArgumentException("Tamanho do lote do outbox deve estar entre 1 e " + RECENT_CAPACITY + ".");
+        }
+        if (pollInterval.isNegative() || pollInterval.isZero() || maintenanceInterval.isNegative()
+                || maintenanceInterval.isZero() || compactAfter.isNegative() || retention.isNegative()) {
+            throw new IllegalArgumentException("Intervalos do outbox inválidos.");
+        }
+        this.outboxRepository = outboxRepository;
+        this.listenerBeans = listenerBeans;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.compactAfter = compactAfter;
+        this.retention = retention;
+        this.maintenanceIntervalNanos = maintenanceInterval.toNanos();
+    }
+
+    /**
+     * Indica se o fluxo de alterações está disponível.
+     * @return true se {@code crud.outbox.enabled} estiver ligado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Última posição entregue; um consumidor novo parte dela depois de ler o estado completo.
+     * @return posição atual do fluxo
+     */
+    public long position() {
+        return head;
+    }
+
+    /**
+     * Menor posição a partir da qual a leitura ainda é completa.
+     * @return posição mais antiga utilizável
+     */
+    public long oldestPosition() {
+        return truncatedThrough;
+    }
+
+    /**
+     * Inscreve um consumidor, que passa a receber os lotes entregues a partir de agora.
+     * Para retomar de uma posição anterior, leia antes com {@link #read}.
+     * @param listener consumidor
+     */
+    public void subscribe(UserChangeListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("UserChangeListener não pode ser nulo.");
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Cancela a inscrição de um consumidor.
+     * @param listener consumidor inscrito com {@link #subscribe}
+     */
+    public void unsubscribe(UserChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Lê as alterações entregues depois da posição informada.
+     * @param afterPosition última posição já processada pelo consumidor (0 para o início)
+     * @param limit quantidade máxima de alterações
+     * @return alterações em ordem de posição (vazia se não houver novas)
+     * @throws IllegalArgumentException se a posição for negativa ou ainda não existir
+     * @throws ChangeFeedExpiredException se eventos após a posição já foram removidos pela retenção
+     */
+    public List<UserChange> read(long afterPosition, int limit) {
+        long current = head;
+        if (afterPosition < 0 || afterPosition > current) {
+            throw new IllegalArgumentException("Posição inválida: " + afterPosition + " (atual: " + current + ").");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero.");
+        }
+        checkRetained(afterPosition);
+        if (afterPosition == current) {
+            return List.of();
+        }
+        long last = Math.min(current, afterPosition + limit);
+        List<UserChange> changes = new ArrayList<>((int) (last - afterPosition));
+        for (long position = afterPosition + 1; position <= last; position++) {
+            UserChange change = recent.get(slot(position));
+            if (change == null || change.position() != position) {
+                // Fora do anel (anterior ao início ou já sobrescrito): lê do banco
+                List<UserChange> stored = outboxRepository.findAfter(afterPosition, limit);
+                checkRetained(afterPosition);
+                increment(databaseReads);
+                return stored;
+            }
+            changes.add(change);
+        }
+        increment(memoryReads);
+        return changes;
+    }
+
+    /**
+     * Futuro completado quando o fluxo passar da posição informada ou ao fim da espera.
+     * @param position posição já lida pelo consumidor
+     * @param timeout espera máxima
+     * @return futuro com a posição atual quando completado
+     */
+    public CompletableFuture<Long> awaitAfter(long position, Duration timeout) {
+        CompletableFuture<Long> waiter = new CompletableFuture<>();
+        // Registra antes de ler a posição: um avanço concorrente vê o registro ou é visto aqui
+        waiters.add(waiter);
+        long current = head;
+        if (current > position || !running) {
+            waiters.remove(waiter);
+            waiter.complete(current);
+            return waiter;
+        }
+        waiter.completeOnTimeout(current, timeout.toNanos(), TimeUnit.NANOSECONDS)
+                .whenComplete((value, error) -> waiters.remove(waiter));
+        return waiter;
+    }
+
+    /**
+     * Acorda o relay para sequenciar eventos recém-confirmados.
+     */
+    public void signal() {
+        Thread current = relayThread;
+        if (current != null) {
+            signaled.set(true);
+            LockSupport.unpark(current);
+        }
+    }
+
+    private void run() {
+        long nextMaintenance = System.nanoTime() + maintenanceIntervalNanos;
+        while (running) {
+            try {
+                relayPending();
+                if (System.nanoTime() - nextMaintenance >= 0) {
+                    maintain();
+                    nextMaintenance = System.nanoTime() + maintenanceIntervalNanos;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Falha no relay do outbox; nova tentativa em {} ms.",
+                        TimeUnit.NANOSECONDS.toMillis(pollIntervalNanos), e);
+            }
+            if (!signaled.getAndSet(false)) {
+                LockSupport.parkNanos(this, pollIntervalNanos);
+            }
+        }
+        // Entrega o que foi confirmado até o encerramento
+        try {
+            relayPending();
+        } catch (RuntimeException e) {
+            log.warn("Falha ao entregar os últimos eventos do outbox; serão entregues no próximo início.", e);
+        }
+    }
+
+    /**
+     * Sequencia e entrega lotes até não haver eventos confirmados pendentes.
+     */
+    private void relayPending() {
+        while (true) {
+            long begin = System.nanoTime();
+            List<UserChange> batch = outboxRepository.sequence(head + 1, batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            deliver(batch);
+            if (relayedEvents != null) {
+                relayedEvents.increment(batch.size());
+                batchSizes.record(batch.size());
+                batchTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+                Instant recordedAt = batch.get(0).recordedAt();
+                if (recordedAt != null) {
+                    deliveryLag.record(Duration.between(recordedAt, Instant.now()));
+                }
+            }
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(List<UserChange> batch) {
+        for (UserChange change : batch) {
+            recent.set(slot(change.position()), change);
+        }
+        long position = batch.get(batch.size() - 1).position();
+        head = position;
+        for (Iterator<CompletableFuture<Long>> it = waiters.iterator(); it.hasNext(); ) {
+            CompletableFuture<Long> waiter = it.next();
+            it.remove();
+            waiter.complete(position);
+        }
+        for (UserChangeListener listener : listeners) {
+            try {
+                listener.onChanges(batch);
+            } catch (RuntimeException e) {
+                log.warn("Consumidor {} falhou ao processar as alterações {} a {}.", listener,
+                        batch.get(0).position(), position, e);
+            }
+        }
+    }
+
+    /**
+     * Compactação e retenção. A posição truncada é publicada antes da remoção, para que uma
+     * leitura concorrente do banco nunca devolva um trecho incompleto sem acusar.
+     */
+    private void maintain() {
+        Instant now = Instant.now();
+        if (!compactAfter.isZero()) {
+            int compacted = outboxRepository.compact(now.minus(compactAfter));
+            increment(compactedEvents, compacted);
+        }
+        if (!retention.isZero()) {
+            long last = outboxRepository.lastExpired(now.minus(retention));
+            if (last > truncatedThrough) {
+                truncatedThrough = last;
+                increment(expiredEvents, outboxRepository.deleteThrough(last));
+            }
+        }
+    }
+
+    private void checkRetained(long afterPosition) {
+        long truncated = truncatedThrough;
+        if (afterPosition < truncated) {
+            throw new ChangeFeedExpiredException(afterPosition, truncated);
+        }
+    }
+
+    private static int slot(long position) {
+        return (int) (position & (RECENT_CAPACITY - 1));
+    }
+
+    private static void increment(Counter counter) {
+        increment(counter, 1);
+    }
+
+    private static void increment(Counter counter, double amount) {
+        if (counter != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        head = outboxRepository.maxPosition();
+        long oldest = outboxRepository.minPosition();
+        truncatedThrough = oldest > 0 ? oldest - 1 : head;
+        listenerBeans.orderedStream().forEach(listeners::add);
+        running = true;
+        relayThread = Thread.ofPlatform().name("user-change-relay").start(this::run);
+        log.info("Outbox de usuários habilitado (posição {}, lote máximo {}, {} consumidores na JVM).",
+                head, batchSize, listeners.size());
+    }
+
+    /**
+     * Para a thread depois de entregar os eventos já confirmados e libera quem espera por novos.
+     */
+    @Override
+    public void stop() {
+        Thread current = relayThread;
+        running = false;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        try {
+            current.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        relayThread = null;
+        for (CompletableFuture<Long> waiter : waiters) {
+            waiter.complete(head);
+        }
+    }
+
+    /**
+     * Indica se o relay está entregando eventos; falso também durante o encerramento.
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Fase menor que a da fila de escrita: o relay para depois dela, entregando os eventos
+     * dos últimos lotes gravados, e antes de o pool de conexões fechar.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("crud.outbox.position", this, UserChangeRelay::position)
+                .description("Última posição entregue pelo relay do outbox")
+                .register(registry);
+        Gauge.builder("crud.outbox.waiters", waiters, Set::size)
+                .description("Consumidores remotos aguardando novas alterações")
+                .register(registry);
+        relayedEvents = Counter.builder("crud.outbox.relay.events")
+                .description("Eventos sequenciados e entregues pelo relay")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("crud.outbox.relay.batch.size")
+                .description("Eventos por lote do relay")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        batchTimer = Timer.builder("crud.outbox.relay.batch.time")
+                .description("Tempo para sequenciar e entregar um lote")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        deliveryLag = Timer.builder("crud.outbox.relay.lag")
+                .description("Tempo entre o registro do evento e a entrega")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        compactedEvents = Counter.builder("crud.outbox.compacted")
+                .description("Eventos superados removidos pela compactação")
+                .register(registry);
+        expiredEvents = Counter.builder("crud.outbox.expired")
+                .description("Eventos removidos pela retenção")
+                .register(registry);
+        memoryReads = Counter.builder("crud.outbox.feed.reads").tag("source", "memory")
+                .description("Leituras do fluxo de alterações")
+                .register(registry);
+        databaseReads = Counter.builder("crud.outbox.feed.reads").tag("source", "database")
+                .description("Leituras do fluxo de alterações")
+                .register(registry);
+    }
+}
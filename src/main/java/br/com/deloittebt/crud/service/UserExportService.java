@@ -0,0 +1,160 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.ExportFormat;
+import br.com.deloittebt.crud.model.UserRow;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exportação completa da tabela de usuários em CSV, NDJSON ou Server-Sent Events.
+ * As linhas são lidas por um cursor somente-avanço como projeções (sem
+ * entidades gerenciadas) e escritas diretamente no fluxo de saída, de modo
+ * que o uso de memória é constante independentemente da quantidade de registros.
+ */
+@Service
+public class UserExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final UserRepository userRepository;
+    private final int fetchSize;
+
+    /**
+     * Construtor com o fetch size lido de {@code crud.export.fetch-size}.
+     * @param userRepository instância do UserRepository
+     * @param fetchSize quantidade de linhas buscadas por ida ao banco
+     */
+    public UserExportService(UserRepository userRepository,
+                             @Value("${crud.export.fetch-size:1000}") int fetchSize) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        this.userRepository = userRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Escreve todos os usuários no fluxo informado, em ordem de ID.
+     * O fluxo não é fechado; o buffer interno é descarregado ao final.
+     * @param output Fluxo de saída (ex.: corpo da resposta HTTP).
+     * @param format Formato da exportação.
+     * @return Quantidade de usuários exportados.
+     */
+    public long export(OutputStream output, ExportFormat format) {
+        if (format == ExportFormat.CSV) {
+            return stream(output, "id,nome,email\n", this::writeCsv);
+        }
+        return stream(output, "", (writer, row) -> {
+            writeJson(writer, row);
+            writer.write('\n');
+        });
+    }
+
+    /**
+     * Escreve todos os usuários como Server-Sent Events ({@code text/event-stream}),
+     * um evento por usuário com o ID no campo {@code id} e o JSON no campo {@code data}.
+     * Como a escrita é bloqueante, um cliente lento segura o cursor do banco
+     * (backpressure) em vez de acumular linhas em memória.
+     * @param output Fluxo de saída (corpo da resposta HTTP).
+     * @return Quantidade de usuários enviados.
+     */
+    public long exportEvents(OutputStream output) {
+        return stream(output, "", (writer, row) -> {
+            writer.write("id: ");
+            writer.write(String.valueOf(row.id()));
+            writer.write("\ndata: ");
+            writeJson(writer, row);
+            writer.write("\n\n");
+        });
+    }
+
+    /**
+     * Escrita de uma linha no formato de saída.
+     */
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(Writer writer, UserRow row) throws IOException;
+    }
+
+    private long stream(OutputStream output, String header, RowWriter rowWriter) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        long[] count = {0};
+        try {
+            writer.write(header);
+            userRepository.streamRows(fetchSize, row -> {
+                try {
+                    rowWriter.write(writer, row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao escrever a exportação.", e);
+        }
+        return count[0];
+    }
+
+    private void writeCsv(Writer writer, UserRow row) throws IOException {
+        writer.write(String.valueOf(row.id()));
+        writer.write(',');
+        writeCsvField(writer, row.name());
+        writer.write(',');
+        writeCsvField(writer, row.email());
+        writer.write('\n');
+    }
+
+    private void writeCsvField(Writer writer, String value) throws IOException {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeJson(Writer writer, UserRow row) throws IOException {
+        writer.write("{\"id\":");
+        writer.write(String.valueOf(row.id()));
+        writer.write(",\"nome\":");
+        writeJsonString(writer, row.name());
+        writer.write(",\"email\":");
+        writeJsonString(writer, row.email());
+        writer.write('}');
+    }
+
+    private void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writer.write("\\\"");
+                case '\\' -> writer.write("\\\\");
+                case '\n' -> writer.write("\\n");
+                case '\r' -> writer.write("\\r");
+                case '\t' -> writer.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+        writer.write('"');
+    }
+}
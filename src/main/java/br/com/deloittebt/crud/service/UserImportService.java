@@ -0,0 +1,267 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.ImportReport;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Importação em lote de usuários a partir de CSV (colunas: nome,email).
+ * A entrada é lida linha a linha, cada linha é validada pelas invariantes
+ * de {@link User} e as linhas válidas são gravadas em lotes JDBC, cada lote
+ * em sua própria transação (junto com os eventos do outbox, quando habilitado). Linhas inválidas ou rejeitadas pelo banco são
+ * registradas no relatório sem abortar o restante da carga.
+ * Com o {@link EmailFilter} carregado, os emails de cada lote são conferidos antes da gravação: só os
+ * "talvez presentes" são consultados no banco, e duplicados (no banco ou no próprio lote) saem do lote
+ * em vez de derrubá-lo para a regravação linha a linha.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private final UserRepository userRepository;
+    private final UserSearchIndex userSearchIndex;
+    private final UserReadModel readModel;
+    private final DataVersion dataVersion;
+    private final UserOutbox outbox;
+    private final EmailFilter emailFilter;
+    private final UserAggregates aggregates;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    /**
+     * Construtor com o tamanho do lote lido de {@code crud.import.batch-size}.
+     * @param userRepository instância do UserRepository
+     * @param userSearchIndex índice de pesquisa atualizado a cada lote gravado
+     * @param readModel modelo de leitura publicado a cada lote gravado
+     * @param dataVersion versão dos dados, incrementada a cada lote gravado
+     * @param outbox outbox em que cada usuário importado é registrado, na transação do lote
+     * @param emailFilter filtro de emails usado na conferência de duplicados e atualizado a cada lote
+     * @param aggregates estatísticas agregadas atualizadas a cada lote gravado
+     * @param transactionManager gerenciador de transações usado em cada lote
+     * @param batchSize quantidade de usuários gravados por transação
+     */
+    public UserImportService(UserRepository userRepository, UserSearchIndex userSearchIndex,
+                             UserReadModel readModel, DataVersion dataVersion, UserOutbox outbox,
+                             EmailFilter emailFilter, UserAggregates aggregates,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${crud.import.batch-size:1000}") int batchSize) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (userSearchIndex == null) {
+            throw new IllegalArgumentException("UserSearchIndex não pode ser nulo.");
+        }
+        if (readModel == null) {
+            throw new IllegalArgumentException("UserReadModel não pode ser nulo.");
+        }
+        if (dataVersion == null) {
+            throw new IllegalArgumentException("DataVersion não pode ser nulo.");
+        }
+        if (outbox == null) {
+            throw new IllegalArgumentException("UserOutbox não pode ser nulo.");
+        }
+        if (emailFilter == null) {
+            throw new IllegalArgumentException("EmailFilter não pode ser nulo.");
+        }
+        if (aggregates == null) {
+            throw new IllegalArgumentException("UserAggregates não pode ser nulo.");
+        }
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("PlatformTransactionManager não pode ser nulo.");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser maior que zero.");
+        }
+        this.userRepository = userRepository;
+        this.userSearchIndex = userSearchIndex;
+        this.readModel = readModel;
+        this.dataVersion = dataVersion;
+        this.outbox = outbox;
+        this.emailFilter = emailFilter;
+        this.aggregates = aggregates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importa usuários de um CSV codificado em UTF-8.
+     * Uma primeira linha de cabeçalho ("nome,email" ou "name,email") é ignorada.
+     * @param input Fluxo com o conteúdo CSV; não é fechado por este método.
+     * @return Relatório com contagens e erros por linha.
+     */
+    public ImportReport importCsv(InputStream input) {
+        long start = System.nanoTime();
+        ImportReport report = new ImportReport();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isHeader(line))) {
+                    continue;
+                }
+                try {
+                    batch.add(new PendingRow(lineNumber, parseUser(line)));
+                } catch (IllegalArgumentException e) {
+                    report.addError(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    flush(batch, report);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ler o arquivo de importação.", e);
+        }
+        flush(batch, report);
+
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        return report;
+    }
+
+    /**
+     * Grava o lote atual e o esvazia. Se a gravação do lote falhar no banco (ex.: email
+     * duplicado), as linhas são regravadas uma a uma para isolar as rejeitadas. Falhas nas
+     * atualizações após o commit não desfazem nem regravam o lote, que já está no banco.
+     */
+    private void flush(List<PendingRow> batch, ImportReport report) {
+        if (emailFilter.isReady()) {
+            removeDuplicates(batch, report);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<User> users = new ArrayList<>(batch.size());
+        List<String> emails = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            users.add(row.user());
+            emails.add(row.user().getEmail());
+        }
+        try {
+            emailFilter.addAll(emails);
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.saveAll(users);
+                outbox.recordCreated(users);
+            });
+        } catch (RuntimeException e) {
+            saveOneByOne(batch, report);
+            batch.clear();
+            return;
+        }
+        report.addImported(batch.size());
+        afterCommit(users.size(), () -> {
+            emailFilter.addAll(emails);
+            userSearchIndex.indexAll(users);
+            readModel.publishAll(users);
+            aggregates.createdAll(users);
+            dataVersion.increment();
+        });
+        batch.clear();
+    }
+
+    private void saveOneByOne(List<PendingRow> batch, ImportReport report) {
+        for (PendingRow row : batch) {
+            // A tentativa em lote já atribuiu IDs às instâncias; grava cópias novas
+            User user = new User(row.user().getName(), row.user().getEmail());
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    userRepository.save(user);
+                    outbox.recordCreated(user);
+                });
+            } catch (DataIntegrityViolationException e) {
+                report.addError(row.line(), "Email já cadastrado: " + user.getEmail());
+                continue;
+            } catch (RuntimeException e) {
+                report.addError(row.line(), "Falha ao gravar: " + e.getMessage());
+                continue;
+            }
+            report.addImported(1);
+            afterCommit(1, () -> {
+                emailFilter.add(user.getEmail());
+                userSearchIndex.index(user);
+                readModel.publish(user);
+                aggregates.created(user);
+                dataVersion.increment();
+            });
+        }
+    }
+
+    /**
+     * Atualiza as estruturas derivadas (filtro, índice de pesquisa, modelo de leitura, agregados)
+     * após o commit. Os usuários já estão gravados: uma falha aqui é só registrada no log, para
+     * que a reconciliação ou a reconstrução dessas estruturas a corrija.
+     */
+    private void afterCommit(int imported, Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            log.warn("{} usuário(s) importado(s), mas a atualização após o commit falhou.", imported, e);
+        }
+    }
+
+    /**
+     * Retira do lote os emails repetidos no próprio lote e os já cadastrados; pelo filtro,
+     * só os "talvez presentes" custam uma consulta.
+     */
+    private void removeDuplicates(List<PendingRow> batch, ImportReport report) {
+        Set<String> seen = new HashSet<>(batch.size() * 2);
+        Iterator<PendingRow> rows = batch.iterator();
+        while (rows.hasNext()) {
+            PendingRow row = rows.next();
+            String email = row.user().getEmail();
+            boolean duplicate = !seen.add(email);
+            if (!duplicate && emailFilter.mightContain(email)) {
+                duplicate = userRepository.findByEmail(email).isPresent();
+                if (!duplicate) {
+                    emailFilter.recordFalsePositive();
+                }
+            }
+            if (duplicate) {
+                report.addError(row.line(), "Email já cadastrado: " + email);
+                rows.remove();
+            }
+        }
+    }
+
+    private User parseUser(String line) {
+        List<String> fields = CsvLineParser.parse(line);
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("Esperadas 2 colunas (nome,email), encontradas " + fields.size() + ".");
+        }
+        return new User(fields.get(0).trim(), fields.get(1).trim());
+    }
+
+    /**
+     * Usuário validado aguardando gravação, com a linha de origem para o relatório.
+     */
+    private record PendingRow(long line, User user) {
+    }
+
+    private boolean isHeader(String line) {
+        String normalized = line.replace("\"", "").replace(" ", "").toLowerCase();
+        return normalized.equals("nome,email") || normalized.equals("name,email");
+    }
+}
@@ -0,0 +1,16 @@
+package br.com.deloittebt.crud.service;
+
+/**
+ * Lançada quando não existe usuário com o ID informado.
+ * Estende {@link IllegalArgumentException} para manter o tratamento já existente
+ * na interface web e no console; a API REST a traduz em 404.
+ */
+public class UserNotFoundException extends IllegalArgumentException {
+
+    /**
+     * @param id ID procurado.
+     */
+    public UserNotFoundException(Long id) {
+        super("Usuário não encontrado com id: " + id);
+    }
+}
@@ -0,0 +1,128 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserChangeEvent;
+import br.com.deloittebt.crud.model.UserChangeType;
+import br.com.deloittebt.crud.repository.UserOutboxRepository;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lado de escrita do outbox de usuários: registra cada alteração como um {@link UserChangeEvent}
+ * dentro da transação que a executa, sem nenhuma E/S além do INSERT descarregado no mesmo commit.
+ * Após o commit o {@link UserChangeRelay} é acordado para sequenciar e entregar os eventos.
+ * Exige uma transação ativa; com {@code crud.outbox.enabled=false} (padrão) nada é registrado.
+ * <p>
+ * Com o motor mapeado ({@code crud.storage.engine=mapped}) o outbox continua no H2: o evento é
+ * desfeito junto com a transação, mas o log mapeado não desfaz a escrita já aplicada, então uma
+ * falha no commit do H2 pode deixar uma alteração sem evento (o consumidor corrige ao ressincronizar).
+ */
+@Component
+public class UserOutbox {
+
+    private final UserOutboxRepository outboxRepository;
+    private final UserRepository userRepository;
+    private final UserChangeRelay relay;
+    private final boolean enabled;
+
+    /**
+     * Construtor com o parâmetro lido de {@code crud.outbox.enabled}.
+     * @param outboxRepository repositório da tabela do outbox
+     * @param userRepository repositório de usuários, para reler a versão de atualizações sem versão esperada
+     * @param relay relay acordado após cada commit com eventos
+     * @param enabled se as alterações são registradas
+     */
+    public UserOutbox(UserOutboxRepository outboxRepository, UserRepository userRepository, UserChangeRelay relay,
+                      @Value("${crud.outbox.enabled:false}") boolean enabled) {
+        if (outboxRepository == null) {
+            throw new IllegalArgumentException("UserOutboxRepository não pode ser nulo.");
+        }
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (relay == null) {
+            throw new IllegalArgumentException("UserChangeRelay não pode ser nulo.");
+        }
+        this.outboxRepository = outboxRepository;
+        this.userRepository = userRepository;
+        this.relay = relay;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Indica se as alterações estão sendo registradas.
+     * @return true se {@code crud.outbox.enabled} estiver ligado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra a criação de um usuário já persistido (com ID atribuído).
+     * @param user usuário criado
+     */
+    public void recordCreated(User user) {
+        recordCreated(List.of(user));
+    }
+
+    /**
+     * Registra a criação de um lote de usuários já persistidos, com inserts em lote JDBC.
+     * @param users usuários criados
+     */
+    public void recordCreated(List<User> users) {
+        if (!enabled || users.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<UserChangeEvent> events = new ArrayList<>(users.size());
+        for (User user : users) {
+            events.add(new UserChangeEvent(UserChangeType.CREATED, user.getId(), user.getName(), user.getEmail(),
+                    user.getVersion(), now));
+        }
+        append(events);
+    }
+
+    /**
+     * Registra a atualização de um usuário.
+     * @param id identificador do usuário
+     * @param name novo nome
+     * @param email novo email
+     * @param version versão após a atualização, ou null para relê-la na transação (a linha
+     *                continua travada pelo UPDATE, então a versão lida é a desta atualização)
+     */
+    public void recordUpdated(long id, String name, String email, Long version) {
+        if (!enabled) {
+            return;
+        }
+        Long current = version != null ? version
+                : userRepository.findById(id).map(User::getVersion).orElse(null);
+        append(List.of(new UserChangeEvent(UserChangeType.UPDATED, id, name, email, current, Instant.now())));
+    }
+
+    /**
+     * Registra a remoção de um usuário.
+     * @param id identificador do usuário removido
+     */
+    public void recordDeleted(long id) {
+        if (enabled) {
+            append(List.of(new UserChangeEvent(UserChangeType.DELETED, id, null, null, null, Instant.now())));
+        }
+    }
+
+    private void append(List<UserChangeEvent> events) {
+        outboxRepository.append(events);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                relay.signal();
+            }
+        });
+    }
+}
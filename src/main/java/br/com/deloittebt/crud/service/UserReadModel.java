@@ -0,0 +1,333 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Modelo de leitura em memória (CQRS) para a listagem e a busca por ID.
+ * As leituras consultam um {@link UserSnapshot} imutável por uma referência volátil, sem
+ * travas e sem acessar o JPA; cada escrita confirmada publica um novo retrato (copy-on-write).
+ * Publicações concorrentes são agrupadas: quem obtém a trava aplica todas as pendentes de uma vez,
+ * e a escrita só retorna depois de publicada (o autor sempre lê a própria escrita).
+ * <p>
+ * Com {@code crud.read-model.source=database} (padrão) o modelo fica desligado e as leituras vão ao banco.
+ * O retrato é construído a partir do repositório na inicialização e, com
+ * {@code crud.read-model.reconcile-interval} maior que zero, reconstruído periodicamente
+ * para corrigir qualquer divergência em relação ao banco.
+ */
+@Component
+public class UserReadModel implements ApplicationRunner, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserReadModel.class);
+
+    /**
+     * Fonte que liga este modelo; qualquer outro valor mantém as leituras no banco.
+     */
+    public static final String PROJECTION_SOURCE = "projection";
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final Duration reconcileInterval;
+    private final ReentrantLock publishLock = new ReentrantLock();
+    private final ConcurrentLinkedQueue<UserSnapshot.Entry> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicLong reconcileDrift = new AtomicLong();
+    private final ScheduledExecutorService reconciler;
+
+    private volatile UserSnapshot snapshot = UserSnapshot.empty();
+    private volatile boolean ready;
+
+    /**
+     * IDs publicados durante uma reconstrução, reaplicados sobre o retrato reconstruído
+     * (acessado só com {@link #publishLock}).
+     */
+    private Set<Long> touchedDuringRebuild;
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.read-model.*}.
+     * @param userRepository repositório usado na carga e na reconciliação
+     * @param source fonte das leituras: {@code projection} ou {@code database}
+     * @param reconcileInterval intervalo entre reconstruções (zero desliga)
+     */
+    public UserReadModel(UserRepository userRepository,
+                         @Value("${crud.read-model.source:database}") String source,
+                         @Value("${crud.read-model.reconcile-interval:0s}") Duration reconcileInterval) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (reconcileInterval.isNegative()) {
+            throw new IllegalArgumentException("Intervalo de reconciliação não pode ser negativo.");
+        }
+        this.userRepository = userRepository;
+        this.enabled = PROJECTION_SOURCE.equalsIgnoreCase(source);
+        this.reconcileInterval = reconcileInterval;
+        this.reconciler = enabled && !reconcileInterval.isZero()
+                ? Executors.newSingleThreadScheduledExecutor(
+                        Thread.ofPlatform().name("user-read-model-reconciler").daemon().factory())
+                : null;
+    }
+
+    /**
+     * Indica se as leituras devem ser servidas por este modelo: ligado e já carregado.
+     * Antes da carga inicial terminar, as leituras continuam indo ao banco.
+     * @return true se o retrato pode ser consultado
+     */
+    public boolean isServing() {
+        return ready;
+    }
+
+    /**
+     * Número da publicação atual; muda a cada escrita publicada.
+     * @return versão do retrato
+     */
+    public long version() {
+        return snapshot.version();
+    }
+
+    /**
+     * Busca um usuário pelo ID no retrato atual.
+     * @param id Identificador do usuário.
+     * @return Cópia do usuário, se existir.
+     */
+    public Optional<User> findById(Long id) {
+        UserSnapshot.Entry entry = snapshot.get(id);
+        return entry == null ? Optional.empty() : Optional.of(entry.toUser());
+    }
+
+    /**
+     * Página keyset do retrato atual (mesma semântica de {@link UserRepository#findPage}).
+     * @param afterId ID a partir do qual listar (exclusivo), ou null para o início
+     * @param ascending sentido da varredura
+     * @param limit quantidade máxima de usuários
+     * @return Cópias dos usuários da página.
+     */
+    public List<User> findPage(Long afterId, boolean ascending, int limit) {
+        return snapshot.page(afterId, ascending, limit).stream().map(UserSnapshot.Entry::toUser).toList();
+    }
+
+    /**
+     * Todos os usuários do retrato atual, em ordem de ID.
+     * @return Cópias dos usuários.
+     */
+    public List<User> findAll() {
+        UserSnapshot current = snapshot;
+        List<User> users = new ArrayList<>(current.size());
+        current.forEach(entry -> users.add(entry.toUser()));
+        return users;
+    }
+
+    /**
+     * Publica um usuário criado ou atualizado, com a versão confirmada.
+     * Deve ser chamado após o commit.
+     * @param user Usuário persistido.
+     */
+    public void publish(User user) {
+        if (enabled) {
+            pending.add(UserSnapshot.Entry.of(user));
+            drain();
+        }
+    }
+
+    /**
+     * Publica vários usuários de uma vez (importação em lote), num único retrato.
+     * @param users Usuários persistidos.
+     */
+    public void publishAll(List<User> users) {
+        if (enabled) {
+            users.forEach(user -> pending.add(UserSnapshot.Entry.of(user)));
+            drain();
+        }
+    }
+
+    /**
+     * Publica a remoção de um usuário. Deve ser chamado após o commit.
+     * @param id Identificador do usuário removido.
+     */
+    public void publishRemoval(Long id) {
+        if (enabled) {
+            pending.add(UserSnapshot.Entry.removed(id));
+            drain();
+        }
+    }
+
+    /**
+     * Relê um usuário do repositório e publica o estado confirmado. Usado quando a escrita
+     * não conhece a versão resultante (atualização sem versão esperada).
+     * A leitura acontece com a trava de publicação, depois de qualquer escrita já publicada.
+     * @param id Identificador do usuário alterado.
+     */
+    public void reload(Long id) {
+        if (!enabled) {
+            return;
+        }
+        publishLock.lock();
+        try {
+            pending.add(userRepository.findById(id)
+                    .map(UserSnapshot.Entry::of)
+                    .orElseGet(() -> UserSnapshot.Entry.removed(id)));
+            publishPending();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Constrói o retrato na inicialização e agenda a reconciliação, se configurada.
+     * @param args argumentos da aplicação (não utilizados)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        rebuild();
+        if (reconciler != null) {
+            long intervalMillis = reconcileInterval.toMillis();
+            reconciler.scheduleWithFixedDelay(this::reconcile, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Reconstrói o retrato a partir do repositório sem bloquear as escritas: os IDs publicados
+     * durante a leitura são reaplicados a partir do retrato atual, prevalecendo a versão mais nova.
+     * Também descarta as lápides acumuladas.
+     */
+    public void rebuild() {
+        long begin = System.nanoTime();
+        publishLock.lock();
+        try {
+            touchedDuringRebuild = new HashSet<>();
+        } finally {
+            publishLock.unlock();
+        }
+
+        UserSnapshot before = snapshot;
+        UserSnapshot.Builder builder = new UserSnapshot.Builder();
+        long[] drift = new long[1];
+        try {
+            userRepository.streamAll(1000, user -> {
+                builder.add(user);
+                if (ready && !UserSnapshot.Entry.of(user).equals(before.get(user.getId()))) {
+                    drift[0]++;
+                }
+            });
+        } catch (RuntimeException e) {
+            publishLock.lock();
+            touchedDuringRebuild = null;
+            publishLock.unlock();
+            throw e;
+        }
+
+        publishLock.lock();
+        try {
+            UserSnapshot current = snapshot;
+            List<UserSnapshot.Entry> replay = new ArrayList<>(touchedDuringRebuild.size());
+            for (Long id : touchedDuringRebuild) {
+                UserSnapshot.Entry entry = current.entry(id);
+                if (entry != null) {
+                    replay.add(entry);
+                }
+            }
+            touchedDuringRebuild = null;
+            UserSnapshot rebuilt = builder.build(current.version() + 1).with(replay, current.version() + 1);
+            if (ready) {
+                drift[0] += Math.max(0, before.size() - rebuilt.size());
+                reconcileDrift.addAndGet(drift[0]);
+            }
+            snapshot = rebuilt;
+            ready = true;
+            log.info("Modelo de leitura reconstruído: {} usuários, {} divergências, em {} ms.",
+                    rebuilt.size(), drift[0], (System.nanoTime() - begin) / 1_000_000);
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    /**
+     * Interrompe a reconciliação periódica.
+     */
+    @PreDestroy
+    public void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+        }
+    }
+
+    /**
+     * Expõe o tamanho e a versão do retrato, e as divergências corrigidas pela reconciliação.
+     * @param registry registro de métricas
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("crud.read_model.users", this, model -> model.snapshot.size())
+                .description("Usuários no modelo de leitura em memória")
+                .register(registry);
+        Gauge.builder("crud.read_model.version", this, model -> model.snapshot.version())
+                .description("Publicações do modelo de leitura")
+                .register(registry);
+        Gauge.builder("crud.read_model.reconcile.drift", reconcileDrift, AtomicLong::get)
+                .description("Usuários divergentes do banco corrigidos pela reconciliação")
+                .register(registry);
+    }
+
+    private void reconcile() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Falha na reconciliação do modelo de leitura.", e);
+        }
+    }
+
+    /**
+     * Publica as alterações pendentes; se outra thread já as publicou enquanto esta
+     * esperava pela trava, não há nada a fazer.
+     */
+    private void drain() {
+        publishLock.lock();
+        try {
+            publishPending();
+        } finally {
+            publishLock.unlock();
+        }
+    }
+
+    private void publishPending() {
+        List<UserSnapshot.Entry> changes = new ArrayList<>();
+        for (UserSnapshot.Entry entry; (entry = pending.poll()) != null; ) {
+            changes.add(entry);
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (touchedDuringRebuild != null) {
+            changes.forEach(entry -> touchedDuringRebuild.add(entry.id()));
+        }
+        UserSnapshot current = snapshot;
+        snapshot = current.with(changes, current.version() + 1);
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.SearchHit;
+import br.com.deloittebt.crud.model.SearchMode;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de pesquisa em memória sobre nome e email dos usuários.
+ * É construído a partir do repositório na inicialização (ou, com {@code crud.search-index.preload=false},
+ * na primeira pesquisa) e mantido incrementalmente pelo {@link UserService} e pela importação em lote.
+ * Pesquisas concorrentes compartilham a trava de leitura; escritas usam a de escrita.
+ */
+@Component
+public class UserSearchIndex implements ApplicationRunner {
+
+    /**
+     * Tamanho mínimo do termo pesquisado (um trigrama).
+     */
+    public static final int MIN_TERM_LENGTH = 3;
+
+    private static final int BUILD_FETCH_SIZE = 1000;
+
+    private final UserRepository userRepository;
+    private final boolean preload;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrigramIndex index = new TrigramIndex();
+    private volatile boolean loaded;
+
+    /**
+     * Tamanho e memória aproximada do índice, para dimensionamento do heap.
+     *
+     * @param liveDocuments    Usuários indexados.
+     * @param deletedDocuments Documentos removidos ainda não compactados.
+     * @param trigrams         Trigramas distintos.
+     * @param postingEntries   Total de entradas nas listas de postings.
+     * @param postingBytes     Memória das listas de postings, em bytes.
+     * @param totalBytes       Memória total estimada, em bytes.
+     */
+    public record Footprint(int liveDocuments, int deletedDocuments, int trigrams, long postingEntries,
+                            long postingBytes, long totalBytes) {
+
+        @Override
+        public String toString() {
+            return String.format("Índice de pesquisa: usuários=%d, removidos=%d, trigramas=%d, postings=%d, "
+                            + "memória postings=%.1f MB, memória total estimada=%.1f MB",
+                    liveDocuments, deletedDocuments, trigrams, postingEntries,
+                    postingBytes / 1048576.0, totalBytes / 1048576.0);
+        }
+    }
+
+    /**
+     * Construtor que recebe o repositório usado na carga inicial.
+     * @param userRepository instância do UserRepository
+     * @param preload constrói o índice na inicialização; senão, na primeira pesquisa
+     */
+    public UserSearchIndex(UserRepository userRepository,
+                           @Value("${crud.search-index.preload:true}") boolean preload) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        this.userRepository = userRepository;
+        this.preload = preload;
+    }
+
+    /**
+     * Constrói o índice na inicialização, se configurado.
+     * @param args argumentos da aplicação (não utilizados)
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (preload) {
+            load();
+        }
+    }
+
+    /**
+     * Constrói o índice a partir de todos os usuários do banco (lidos em streaming).
+     * A trava de escrita é mantida durante a carga para que nenhuma alteração
+     * concorrente se perca.
+     */
+    private void load() {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+            TrigramIndex built = new TrigramIndex();
+            userRepository.streamRows(BUILD_FETCH_SIZE, row -> built.add(row.id(), row.name(), row.email()));
+            index = built;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa um usuário recém-criado ou atualizado.
+     * @param user Usuário persistido.
+     */
+    public void index(User user) {
+        lock.writeLock().lock();
+        try {
+            index.add(user.getId(), user.getName(), user.getEmail());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexa vários usuários de uma vez (importação em lote).
+     * @param users Usuários persistidos.
+     */
+    public void indexAll(List<User> users) {
+        lock.writeLock().lock();
+        try {
+            for (User user : users) {
+                index.add(user.getId(), user.getName(), user.getEmail());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove um usuário do índice, compactando-o se os removidos forem maioria.
+     * @param id Identificador do usuário.
+     */
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            index.remove(id);
+            if (index.needsCompaction()) {
+                index = index.compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Pesquisa usuários por trecho do nome ou do email.
+     * @param term Termo pesquisado (ao menos {@link #MIN_TERM_LENGTH} caracteres).
+     * @param mode Modo da pesquisa.
+     * @param limit Quantidade máxima de resultados.
+     * @return Resultados ordenados por relevância.
+     * @throws IllegalArgumentException se o termo for curto demais.
+     */
+    public List<SearchHit> search(String term, SearchMode mode, int limit) {
+        String trimmed = term == null ? "" : term.trim();
+        if (trimmed.length() < MIN_TERM_LENGTH) {
+            throw new IllegalArgumentException("Informe ao menos " + MIN_TERM_LENGTH + " caracteres para a pesquisa.");
+        }
+        if (!loaded) {
+            load();
+        }
+        lock.readLock().lock();
+        try {
+            return mode == SearchMode.FUZZY
+                    ? index.searchFuzzy(trimmed, limit)
+                    : index.searchSubstring(trimmed, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Relatório de tamanho e memória do índice.
+     * @return Estatísticas do índice.
+     */
+    public Footprint footprint() {
+        if (!loaded) {
+            load();
+        }
+        lock.readLock().lock();
+        try {
+            return index.footprint();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
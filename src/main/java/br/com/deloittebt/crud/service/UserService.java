@@ -1,9 +1,29 @@
 package br.com.deloittebt.crud.service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import br.com.deloittebt.crud.model.SearchHit;
+import br.com.deloittebt.crud.model.SearchMode;
+import br.com.deloittebt.crud.model.SortOrder;
 import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserPage;
+import br.com.deloittebt.crud.model.UserSearchPage;
 import br.com.deloittebt.crud.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Camada de serviço responsável por regras de negócio da entidade User.
@@ -13,23 +33,127 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserService {
 
+    /**
+     * Tamanho máximo de página aceito na listagem paginada.
+     */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /**
+     * Quantidade de linhas buscadas por ida ao banco na listagem em streaming.
+     */
+    private static final int STREAM_FETCH_SIZE = 500;
+
     /**
      * Repositório responsável pela persistência de usuários.
      * Gerenciado pelo Spring via injeção de dependência.
      */
     private final UserRepository userRepository;
 
+    /**
+     * Cache read-through das buscas por ID.
+     */
+    private final UserCache userCache;
+
+    /**
+     * Índice de pesquisa em memória por nome e email.
+     */
+    private final UserSearchIndex userSearchIndex;
+
+    /**
+     * Fila de escrita com group commit (opcional, {@code crud.write-behind.enabled}).
+     */
+    private final UserWriteBehindQueue writeBehindQueue;
+
+    /**
+     * Modelo de leitura em memória da listagem e da busca por ID (opcional, {@code crud.read-model.source}).
+     */
+    private final UserReadModel readModel;
+
+    /**
+     * Versão dos dados, incrementada após cada escrita confirmada (ETags e cache de fragmentos).
+     */
+    private final DataVersion dataVersion;
+
+    /**
+     * Outbox em que cada alteração é registrada na própria transação (opcional, {@code crud.outbox.enabled}).
+     */
+    private final UserOutbox outbox;
+
+    /**
+     * Filtro de existência de emails que dispensa a consulta quando o email certamente não existe
+     * (opcional, {@code crud.email-filter.enabled}).
+     */
+    private final EmailFilter emailFilter;
+
+    /**
+     * Estatísticas agregadas mantidas a cada escrita confirmada (opcional, {@code crud.aggregates.enabled}).
+     */
+    private final UserAggregates aggregates;
+
+    /**
+     * Transação das escritas síncronas chamadas por dentro deste serviço (sem passar pelo proxy).
+     */
+    private final TransactionTemplate transactionTemplate;
+
     /**
      * Construtor que recebe o repositório via injeção automatica do spring.
-     * Garante que a dependência não seja nula.
+     * Garante que as dependências não sejam nulas.
      *
      * @param userRepository instância do UserRepository
+     * @param userCache instância do UserCache
+     * @param userSearchIndex instância do UserSearchIndex
+     * @param writeBehindQueue instância do UserWriteBehindQueue
+     * @param readModel instância do UserReadModel
+     * @param dataVersion instância do DataVersion
+     * @param outbox instância do UserOutbox
+     * @param emailFilter instância do EmailFilter
+     * @param aggregates instância do UserAggregates
+     * @param transactionManager gerenciador de transações das escritas síncronas sem a fila
      */
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserCache userCache, UserSearchIndex userSearchIndex,
+                       UserWriteBehindQueue writeBehindQueue, UserReadModel readModel,
+                       DataVersion dataVersion, UserOutbox outbox, EmailFilter emailFilter,
+                       UserAggregates aggregates, PlatformTransactionManager transactionManager) {
         if (userRepository == null) {
             throw new IllegalArgumentException("UserRepository não pode ser nulo.");
         }
+        if (userCache == null) {
+            throw new IllegalArgumentException("UserCache não pode ser nulo.");
+        }
+        if (userSearchIndex == null) {
+            throw new IllegalArgumentException("UserSearchIndex não pode ser nulo.");
+        }
+        if (writeBehindQueue == null) {
+            throw new IllegalArgumentException("UserWriteBehindQueue não pode ser nulo.");
+        }
+        if (readModel == null) {
+            throw new IllegalArgumentException("UserReadModel não pode ser nulo.");
+        }
+        if (dataVersion == null) {
+            throw new IllegalArgumentException("DataVersion não pode ser nulo.");
+        }
+        if (outbox == null) {
+            throw new IllegalArgumentException("UserOutbox não pode ser nulo.");
+        }
+        if (emailFilter == null) {
+            throw new IllegalArgumentException("EmailFilter não pode ser nulo.");
+        }
+        if (aggregates == null) {
+            throw new IllegalArgumentException("UserAggregates não pode ser nulo.");
+        }
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("PlatformTransactionManager não pode ser nulo.");
+        }
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userSearchIndex = userSearchIndex;
+        this.writeBehindQueue = writeBehindQueue;
+        this.readModel = readModel;
+        this.dataVersion = dataVersion;
+        this.outbox = outbox;
+        this.emailFilter = emailFilter;
+        this.aggregates = aggregates;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -37,11 +161,98 @@ public class UserService {
      * @param name Nome do usuário.
      * @param email Email do usuário.
      * @return Usuário persistido.
+     * @throws IllegalArgumentException se os dados forem inválidos ou o email já estiver cadastrado.
      */
+    @Transactional
     public User create(String name, String email) {
         // As validações de name e email já estão no construtor de User
         User user = new User(name, email);
-        return userRepository.save(user); // Persiste via JPA
+        ensureEmailAvailable(user.getEmail(), null);
+        emailFilter.add(user.getEmail()); // Antes da gravação: uma criação concorrente já vê o positivo
+        User saved;
+        try {
+            saved = userRepository.save(user); // Persiste via JPA
+        } catch (DataIntegrityViolationException e) {
+            // Criação concorrente com o mesmo email entre a verificação e a gravação: o índice único decide
+            throw new DuplicateEmailException(user.getEmail());
+        }
+        outbox.recordCreated(saved);
+        afterCommit(() -> {
+            emailFilter.add(saved.getEmail());
+            userCache.put(saved); // Write-through: o usuário recém-criado já fica em cache
+            userSearchIndex.index(saved);
+            readModel.publish(saved);
+            aggregates.created(saved);
+            dataVersion.increment();
+        });
+        return saved;
+    }
+
+    /**
+     * Cria um usuário pela fila de escrita, quando habilitada: a validação é imediata e a
+     * gravação acontece no próximo lote (group commit). Sem a fila, equivale a {@link #create}.
+     * O email duplicado é detectado pelo índice único no momento da gravação.
+     * @param name Nome do usuário.
+     * @param email Email do usuário.
+     * @return Futuro completado com o usuário persistido após o commit.
+     * @throws IllegalArgumentException se os dados forem inválidos.
+     * @throws WriteQueueFullException se a fila continuar cheia após o tempo de espera.
+     */
+    public CompletableFuture<User> createAsync(String name, String email) {
+        if (!writeBehindQueue.isEnabled()) {
+            return supplySync(() -> transactionTemplate.execute(status -> create(name, email)));
+        }
+        User user = new User(name, email); // Valida antes de enfileirar
+        emailFilter.add(user.getEmail());
+        return writeBehindQueue.create(user.getName(), user.getEmail())
+                .thenApply(saved -> {
+                    emailFilter.add(saved.getEmail());
+                    userCache.put(saved);
+                    userSearchIndex.index(saved);
+                    readModel.publish(saved);
+                    aggregates.created(saved);
+                    dataVersion.increment();
+                    return saved;
+                });
+    }
+
+    /**
+     * Atualiza um usuário pela fila de escrita, quando habilitada (mesma semântica de
+     * {@link #update(Long, String, String)} ou, com versão, de {@link #update(Long, long, String, String)}).
+     * @param id Identificador do usuário.
+     * @param expectedVersion Versão esperada, ou null para atualizar qualquer versão.
+     * @param name Novo nome.
+     * @param email Novo email.
+     * @return Futuro completado após o commit; falha com {@link UserNotFoundException},
+     * {@link UserVersionConflictException} ou {@link DuplicateEmailException}.
+     * @throws IllegalArgumentException se o ID ou os dados forem inválidos.
+     * @throws WriteQueueFullException se a fila continuar cheia após o tempo de espera.
+     */
+    public CompletableFuture<Void> updateAsync(Long id, Long expectedVersion, String name, String email) {
+        if (!writeBehindQueue.isEnabled()) {
+            return supplySync(() -> transactionTemplate.execute(status -> {
+                if (expectedVersion == null) {
+                    update(id, name, email);
+                } else {
+                    update(id, expectedVersion, name, email);
+                }
+                return null;
+            }));
+        }
+        validateId(id);
+        User changes = new User(name, email); // Valida antes de enfileirar
+        emailFilter.add(changes.getEmail());
+        return writeBehindQueue.update(id, expectedVersion, changes.getName(), changes.getEmail(), aggregates.isEnabled())
+                .thenAccept(previous -> {
+                    changes.assignId(id);
+                    emailFilter.add(changes.getEmail());
+                    emailFilter.markStale();
+                    userCache.invalidate(id);
+                    userSearchIndex.index(changes);
+                    publishUpdate(changes, expectedVersion);
+                    aggregates.updated(previous, changes.getEmail());
+                    dataVersion.increment();
+                });
     }
 
     /**
@@ -49,53 +260,367 @@ public class UserService {
      * @return Lista de usuários.
      */
     public List<User> findAll() {
+        if (readModel.isServing()) {
+            return readModel.findAll();
+        }
         return userRepository.findAll(); // Busca todos usuários via JPA
     }
 
     /**
-     * Busca um usuário pelo ID.
+     * Retorna uma página de usuários usando paginação keyset sobre o ID.
+     * @param cursor Cursor opaco recebido de uma página anterior; nulo para a primeira página.
+     * @param size Tamanho da página (entre 1 e {@link #MAX_PAGE_SIZE}).
+     * @param sort Ordem da listagem.
+     * @return Página com os usuários e os cursores de navegação.
+     * @throws IllegalArgumentException se o cursor ou o tamanho forem inválidos.
+     */
+    public UserPage findPage(String cursor, int size, SortOrder sort) {
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamanho de página deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        SortOrder order = sort == null ? SortOrder.ASC : sort;
+        PageCursor pageCursor = PageCursor.decode(cursor);
+        boolean backward = pageCursor != null && pageCursor.isBackward();
+
+        // Para voltar uma página, varre no sentido inverso a partir do primeiro ID exibido
+        boolean ascending = order.isAscending() != backward;
+        Long anchor = pageCursor == null ? null : pageCursor.getId();
+
+        // Busca um registro extra para saber se existe mais uma página no sentido da varredura
+        List<User> rows = new ArrayList<>(readModel.isServing()
+                ? readModel.findPage(anchor, ascending, size + 1)
+                : userRepository.findPage(anchor, ascending, size + 1));
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows.remove(rows.size() - 1);
+        }
+        if (backward) {
+            Collections.reverse(rows);
+        }
+        if (rows.isEmpty()) {
+            return new UserPage(rows, null, null, size, order);
+        }
+
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : pageCursor != null;
+        String next = hasNext ? PageCursor.forward(rows.get(rows.size() - 1).getId()).encode() : null;
+        String previous = hasPrevious ? PageCursor.backward(rows.get(0).getId()).encode() : null;
+        return new UserPage(rows, next, previous, size, order);
+    }
+
+    /**
+     * Busca um usuário pelo email exato (sem diferenciar maiúsculas), via índice único.
+     * Um email que o filtro de emails certamente não conhece é respondido sem consultar o banco.
+     * @param email Email a buscar.
+     * @return Usuário encontrado, se existir.
+     */
+    public Optional<User> findByEmail(String email) {
+        if (email == null || email.isBlank()) {
+            return Optional.empty();
+        }
+        String normalized = User.normalizeEmail(email);
+        if (!emailFilter.mightContain(normalized)) {
+            return Optional.empty();
+        }
+        Optional<User> found = userRepository.findByEmail(normalized);
+        if (found.isEmpty()) {
+            emailFilter.recordFalsePositive();
+        }
+        return found;
+    }
+
+    /**
+     * Busca usuários cujo nome começa com o prefixo informado, sem diferenciar maiúsculas.
+     * Curingas do LIKE presentes no termo são tratados como texto literal.
+     * @param prefix Início do nome.
+     * @param page Número da página (a partir de 0).
+     * @param size Tamanho da página (entre 1 e {@link #MAX_PAGE_SIZE}).
+     * @return Página de resultados ordenada por nome.
+     * @throws IllegalArgumentException se o prefixo, a página ou o tamanho forem inválidos.
+     */
+    public UserSearchPage searchByNamePrefix(String prefix, int page, int size) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Informe o início do nome para a busca.");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("Página inválida.");
+        }
+        if (size <= 0 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Tamanho de página deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        String term = prefix.trim();
+        String escaped = term.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+
+        // Busca um registro extra para saber se existe próxima página
+        List<User> rows = new ArrayList<>(userRepository.searchByNamePrefix(escaped, page * size, size + 1));
+        boolean hasNext = rows.size() > size;
+        if (hasNext) {
+            rows.remove(rows.size() - 1);
+        }
+        return new UserSearchPage(term, rows, page, size, hasNext);
+    }
+
+    /**
+     * Pesquisa em memória por trecho do nome ou do email, sem acessar o banco.
+     * @param term Termo pesquisado (ao menos 3 caracteres).
+     * @param mode Modo da pesquisa (substring ou aproximada).
+     * @param limit Quantidade máxima de resultados (entre 1 e {@link #MAX_PAGE_SIZE}).
+     * @return Resultados ordenados por relevância.
+     * @throws IllegalArgumentException se o termo ou o limite forem inválidos.
+     */
+    public List<SearchHit> search(String term, SearchMode mode, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limite deve estar entre 1 e " + MAX_PAGE_SIZE + ".");
+        }
+        return userSearchIndex.search(term, mode, limit);
+    }
+
+    /**
+     * Relatório de memória do índice de pesquisa em memória.
+     * @return Texto com o tamanho e a memória estimada do índice.
+     */
+    public String searchIndexFootprint() {
+        return userSearchIndex.footprint().toString();
+    }
+
+    /**
+     * Percorre todos os usuários em streaming, com memória limitada,
+     * para chamadores que realmente precisam de todos os registros.
+     * @param consumer Consumidor de cada usuário, chamado na ordem do ID.
+     */
+    public void streamAll(Consumer<User> consumer) {
+        userRepository.streamAll(STREAM_FETCH_SIZE, consumer);
+    }
+
+    /**
+     * Busca um usuário pelo ID no modelo de leitura, quando ativo, ou passando primeiro pelo cache em memória.
      * Lança exceção se não encontrado.
      * @param id Identificador do usuário.
      * @return Usuário encontrado.
-     * @throws IllegalArgumentException se o ID for inválido ou usuário não encontrado.
+     * @throws IllegalArgumentException se o ID for inválido.
+     * @throws UserNotFoundException se o usuário não for encontrado.
      */
     public User findById(Long id) {
         validateId(id);
-        return userRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Usuário não encontrado com id: " + id));
+        if (readModel.isServing()) {
+            return readModel.findById(id).orElseThrow(() -> new UserNotFoundException(id));
+        }
+        return userCache.get(id, userRepository::findById)
+                .orElseThrow(() -> new UserNotFoundException(id));
     }
 
     /**
-     * Atualiza nome e email de um usuário existente.
+     * Atualiza nome e email de um usuário existente com um único {@code UPDATE},
+     * sem ler o usuário antes. O email duplicado é detectado pelo índice único.
      * @param id Identificador do usuário.
      * @param name Novo nome.
      * @param email Novo email.
-     * @throws IllegalArgumentException se o ID for inválido ou usuário não encontrado.
+     * @throws IllegalArgumentException se o ID ou os dados forem inválidos.
+     * @throws UserNotFoundException se o usuário não for encontrado.
+     * @throws DuplicateEmailException se o email já pertencer a outro usuário.
      */
+    @Transactional
     public void update(Long id, String name, String email) {
-        validateId(id);
-        User user = findById(id);
-
-        user.changeName(name);
-        user.changeEmail(email);
+        applyUpdate(id, name, email, null);
+    }
 
-        userRepository.update(user); // Atualiza via JPA
+    /**
+     * Atualiza nome e email somente se o usuário ainda estiver na versão informada
+     * (concorrência otimista), com um único {@code UPDATE ... WHERE id = ? AND versao = ?}.
+     * @param id Identificador do usuário.
+     * @param expectedVersion Versão em que a alteração se baseia.
+     * @param name Novo nome.
+     * @param email Novo email.
+     * @return Usuário atualizado, já com a nova versão.
+     * @throws IllegalArgumentException se o ID ou os dados forem inválidos.
+     * @throws UserNotFoundException se o usuário não for encontrado.
+     * @throws UserVersionConflictException se o usuário mudou desde a versão informada.
+     * @throws DuplicateEmailException se o email já pertencer a outro usuário.
+     */
+    @Transactional
+    public User update(Long id, long expectedVersion, String name, String email) {
+        User updated = applyUpdate(id, name, email, expectedVersion);
+        updated.assignVersion(expectedVersion + 1);
+        return updated;
     }
 
     /**
-     * Remove um usuário pelo ID.
+     * Remove um usuário pelo ID com um único {@code DELETE}, sem ler o usuário antes.
      * @param id Identificador do usuário.
-     * @throws IllegalArgumentException se o ID for inválido ou usuário não encontrado.
-     * @throws IllegalStateException se a remoção falhar.
+     * @throws IllegalArgumentException se o ID for inválido.
+     * @throws UserNotFoundException se o usuário não for encontrado.
      */
+    @Transactional
     public void deleteById(Long id) {
+        applyDelete(id, null);
+    }
+
+    /**
+     * Remove um usuário somente se ele ainda estiver na versão informada.
+     * @param id Identificador do usuário.
+     * @param expectedVersion Versão em que a remoção se baseia.
+     * @throws IllegalArgumentException se o ID for inválido.
+     * @throws UserNotFoundException se o usuário não for encontrado.
+     * @throws UserVersionConflictException se o usuário mudou desde a versão informada.
+     */
+    @Transactional
+    public void deleteById(Long id, long expectedVersion) {
+        applyDelete(id, expectedVersion);
+    }
+
+    /**
+     * Indica se o motor de armazenamento desfaz as escritas no rollback da transação.
+     * Sem isso, um grupo de escritas que falhou não pode ser reexecutado: as anteriores à falha já valem.
+     * @return true se as escritas participam da transação
+     */
+    public boolean isStorageTransactional() {
+        return userRepository.isTransactional();
+    }
+
+    /**
+     * Resumo dos contadores do cache de usuários (acertos, falhas e despejos).
+     * @return Texto com as estatísticas do cache.
+     */
+    public String cacheStats() {
+        if (!userCache.isEnabled()) {
+            return "Cache local desativado (crud.cache.backend).";
+        }
+        CacheStats stats = userCache.stats();
+        return String.format("Cache de usuários: entradas=%d, acertos=%d, falhas=%d, despejos=%d, taxa de acerto=%.2f%%",
+                userCache.size(), stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate() * 100);
+    }
+
+    /**
+     * Garante que o email não pertence a outro usuário. Um email que o filtro de emails
+     * certamente não conhece dispensa a consulta; os demais vão ao índice único.
+     * @param email Email normalizado.
+     * @param ownerId ID do usuário que pode possuir o email (nulo na criação).
+     * @throws DuplicateEmailException se o email já estiver cadastrado para outro usuário.
+     */
+    private void ensureEmailAvailable(String email, Long ownerId) {
+        if (!emailFilter.mightContain(email)) {
+            return;
+        }
+        Optional<User> existing = userRepository.findByEmail(email);
+        if (existing.isEmpty()) {
+            emailFilter.recordFalsePositive();
+        }
+        existing.filter(user -> !user.getId().equals(ownerId))
+                .ifPresent(user -> {
+                    throw new DuplicateEmailException(email);
+                });
+    }
+
+    private User applyUpdate(Long id, String name, String email, Long expectedVersion) {
+        validateId(id);
+        // As validações de name e email já estão no construtor de User
+        User changes = new User(name, email);
+        emailFilter.add(changes.getEmail());
+        User previous = lockPrevious(id);
+        int updated;
+        try {
+            updated = userRepository.update(id, changes.getName(), changes.getEmail(), expectedVersion);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateEmailException(changes.getEmail());
+        }
+        if (updated == 0) {
+            throw missingOrConflict(id, expectedVersion);
+        }
+        changes.assignId(id);
+        outbox.recordUpdated(id, changes.getName(), changes.getEmail(),
+                expectedVersion == null ? null : expectedVersion + 1);
+        afterCommit(() -> {
+            emailFilter.add(changes.getEmail());
+            emailFilter.markStale(); // O email anterior, se mudou, continua no filtro
+            userCache.invalidate(id); // A próxima leitura recarrega o estado atual (com a nova versão)
+            userSearchIndex.index(changes);
+            publishUpdate(changes, expectedVersion);
+            aggregates.updated(previous, changes.getEmail());
+            dataVersion.increment();
+        });
+        return changes;
+    }
+
+    private void applyDelete(Long id, Long expectedVersion) {
         validateId(id);
-        User user = findById(id);
+        User previous = lockPrevious(id);
+        if (userRepository.delete(id, expectedVersion) == 0) {
+            throw missingOrConflict(id, expectedVersion);
+        }
+        outbox.recordDeleted(id);
+        afterCommit(() -> {
+            emailFilter.markStale();
+            userCache.invalidate(id);
+            userSearchIndex.remove(id);
+            readModel.publishRemoval(id);
+            aggregates.deleted(previous);
+            dataVersion.increment();
+        });
+    }
 
-        boolean deleted = userRepository.delete(user); // Remove via JPA
+    /**
+     * Estado anterior do usuário para os agregados (email e data de criação), lido com trava
+     * para que seja o estado que a escrita seguinte altera. Sem os agregados, não há leitura extra.
+     */
+    private User lockPrevious(Long id) {
+        return aggregates.isEnabled() ? userRepository.findByIdForUpdate(id).orElse(null) : null;
+    }
+
+    /**
+     * Publica uma atualização confirmada no modelo de leitura: com versão esperada a nova versão
+     * é conhecida; sem ela, o estado confirmado é relido do repositório.
+     */
+    private void publishUpdate(User changes, Long expectedVersion) {
+        if (expectedVersion == null) {
+            readModel.reload(changes.getId());
+            return;
+        }
+        User updated = new User(changes.getName(), changes.getEmail());
+        updated.assignId(changes.getId());
+        updated.assignVersion(expectedVersion + 1);
+        readModel.publish(updated);
+    }
+
+    /**
+     * Nenhuma linha afetada: o usuário não existe ou (com versão esperada) foi alterado por outra operação.
+     * A consulta extra só ocorre nesse caso de falha.
+     */
+    private RuntimeException missingOrConflict(Long id, Long expectedVersion) {
+        if (expectedVersion != null && userRepository.existsById(id)) {
+            return new UserVersionConflictException(id, expectedVersion);
+        }
+        return new UserNotFoundException(id);
+    }
+
+    /**
+     * Executa a ação após o commit da transação atual (ou imediatamente, sem transação),
+     * para que o cache e o índice nunca reflitam uma alteração desfeita e para que
+     * uma leitura concorrente não recarregue o estado anterior ao commit.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
 
-        if (!deleted) {
-            throw new IllegalStateException("Erro ao remover usuário com id: " + id);
+    /**
+     * Executa a escrita síncrona e devolve o resultado (ou a falha) como futuro já completado.
+     */
+    private static <T> CompletableFuture<T> supplySync(Supplier<T> write) {
+        try {
+            return CompletableFuture.completedFuture(write.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
         }
     }
 
@@ -0,0 +1,326 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Retrato imutável de todos os usuários, ordenado por ID, servido sem travas pelo {@link UserReadModel}.
+ * Os usuários ficam em blocos de até {@link #CHUNK_SIZE} entradas: uma alteração copia apenas os
+ * blocos afetados e a tabela de blocos (copy-on-write com compartilhamento estrutural), de modo
+ * que publicar uma escrita custa O(n / CHUNK_SIZE + CHUNK_SIZE), e não O(n).
+ * Remoções deixam uma lápide com versão máxima, para que uma publicação atrasada de uma
+ * escrita anterior não ressuscite o usuário; as lápides somem na reconstrução.
+ */
+final class UserSnapshot {
+
+    static final int CHUNK_SIZE = 512;
+
+    private static final UserSnapshot EMPTY = new UserSnapshot(0, new long[0], new Entry[0][], 0);
+
+    private final long version;
+    private final long[] firstIds;
+    private final Entry[][] chunks;
+    private final int size;
+
+    /**
+     * Estado de um usuário no retrato; {@code name == null} indica lápide (usuário removido).
+     */
+    record Entry(long id, String name, String email, long version) {
+
+        static Entry of(User user) {
+            return new Entry(user.getId(), user.getName(), user.getEmail(), user.getVersion());
+        }
+
+        static Entry removed(long id) {
+            return new Entry(id, null, null, Long.MAX_VALUE);
+        }
+
+        boolean isRemoved() {
+            return name == null;
+        }
+
+        /**
+         * Indica se esta entrada deve substituir a atual: lápides nunca são substituídas
+         * e, para o mesmo ID, versões só avançam.
+         */
+        boolean supersedes(Entry current) {
+            return current == null || (!current.isRemoved() && (isRemoved() || version >= current.version));
+        }
+
+        User toUser() {
+            User user = new User(name, email);
+            user.assignId(id);
+            user.assignVersion(version);
+            return user;
+        }
+    }
+
+    private UserSnapshot(long version, long[] firstIds, Entry[][] chunks, int size) {
+        this.version = version;
+        this.firstIds = firstIds;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    static UserSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Monta um retrato a partir de usuários em ordem crescente de ID (carga completa).
+     */
+    static final class Builder {
+
+        private final List<Entry[]> chunks = new ArrayList<>();
+        private final List<Entry> current = new ArrayList<>(CHUNK_SIZE);
+        private int size;
+
+        void add(User user) {
+            current.add(Entry.of(user));
+            size++;
+            if (current.size() == CHUNK_SIZE) {
+                chunks.add(current.toArray(Entry[]::new));
+                current.clear();
+            }
+        }
+
+        UserSnapshot build(long version) {
+            if (!current.isEmpty()) {
+                chunks.add(current.toArray(Entry[]::new));
+            }
+            return fromChunks(version, chunks, size);
+        }
+    }
+
+    /**
+     * Número da publicação que produziu este retrato (cresce a cada escrita publicada).
+     */
+    long version() {
+        return version;
+    }
+
+    /**
+     * Quantidade de usuários (sem lápides).
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Entrada do ID, incluindo lápides.
+     */
+    Entry entry(long id) {
+        int chunk = chunkFor(id);
+        if (chunk < 0) {
+            return null;
+        }
+        int position = search(chunks[chunk], id);
+        return position >= 0 ? chunks[chunk][position] : null;
+    }
+
+    /**
+     * Usuário com o ID, ou null se não existir (ou tiver sido removido).
+     */
+    Entry get(long id) {
+        Entry entry = entry(id);
+        return entry == null || entry.isRemoved() ? null : entry;
+    }
+
+    /**
+     * Fatia por paginação keyset, na mesma semântica de {@code UserRepository.findPage}.
+     */
+    List<Entry> page(Long afterId, boolean ascending, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, CHUNK_SIZE));
+        if (chunks.length == 0 || limit <= 0) {
+            return result;
+        }
+        int chunk;
+        int position;
+        if (afterId == null) {
+            chunk = ascending ? 0 : chunks.length - 1;
+            position = ascending ? 0 : chunks[chunk].length - 1;
+        } else {
+            chunk = Math.max(0, chunkFor(afterId));
+            int found = search(chunks[chunk], afterId);
+            int insertion = found >= 0 ? found : -(found + 1);
+            position = ascending ? (found >= 0 ? found + 1 : insertion) : insertion - 1;
+        }
+        int step = ascending ? 1 : -1;
+        while (chunk >= 0 && chunk < chunks.length && result.size() < limit) {
+            Entry[] entries = chunks[chunk];
+            for (; position >= 0 && position < entries.length && result.size() < limit; position += step) {
+                if (!entries[position].isRemoved()) {
+                    result.add(entries[position]);
+                }
+            }
+            chunk += step;
+            if (chunk >= 0 && chunk < chunks.length) {
+                position = ascending ? 0 : chunks[chunk].length - 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Percorre todos os usuários em ordem de ID.
+     */
+    void forEach(Consumer<Entry> consumer) {
+        for (Entry[] entries : chunks) {
+            for (Entry entry : entries) {
+                if (!entry.isRemoved()) {
+                    consumer.accept(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Novo retrato com as alterações aplicadas; este permanece inalterado.
+     * Cada alteração só prevalece se {@link Entry#supersedes} a entrada atual.
+     * @param changes entradas novas ou lápides
+     * @param newVersion número da publicação
+     * @return retrato resultante (compartilha os blocos não alterados)
+     */
+    UserSnapshot with(Collection<Entry> changes, long newVersion) {
+        if (changes.isEmpty()) {
+            return this;
+        }
+        List<Entry> sorted = new ArrayList<>(changes);
+        sorted.sort(Comparator.comparingLong(Entry::id));
+
+        Map<Integer, List<Entry>> copies = new HashMap<>();
+        List<Entry> appended = new ArrayList<>();
+        int delta = 0;
+        for (Entry change : sorted) {
+            int chunk = chunkFor(change.id());
+            if (chunks.length == 0 || (chunk == chunks.length - 1 && change.id() > lastId())) {
+                // Maior ID até agora: vai para o último bloco (ou para um novo)
+                Entry previous = appended.isEmpty() ? null : appended.get(appended.size() - 1);
+                if (previous != null && previous.id() == change.id()) {
+                    if (change.supersedes(previous)) {
+                        delta += liveDelta(previous, change);
+                        appended.set(appended.size() - 1, change);
+                    }
+                } else {
+                    delta += liveDelta(null, change);
+                    appended.add(change);
+                }
+                continue;
+            }
+            List<Entry> copy = copies.computeIfAbsent(Math.max(0, chunk),
+                    index -> new ArrayList<>(Arrays.asList(chunks[index])));
+            int position = searchList(copy, change.id());
+            if (position >= 0) {
+                Entry current = copy.get(position);
+                if (change.supersedes(current)) {
+                    delta += liveDelta(current, change);
+                    copy.set(position, change);
+                }
+            } else {
+                delta += liveDelta(null, change);
+                copy.add(-(position + 1), change);
+            }
+        }
+
+        List<Entry[]> result = new ArrayList<>(chunks.length + 1);
+        for (int i = 0; i < chunks.length; i++) {
+            List<Entry> copy = copies.get(i);
+            if (i == chunks.length - 1 && !appended.isEmpty()) {
+                copy = copy != null ? copy : new ArrayList<>(Arrays.asList(chunks[i]));
+                copy.addAll(appended);
+                appended = List.of();
+            }
+            if (copy == null) {
+                result.add(chunks[i]);
+                continue;
+            }
+            for (int from = 0; from < copy.size(); from += CHUNK_SIZE) {
+                result.add(copy.subList(from, Math.min(copy.size(), from + CHUNK_SIZE)).toArray(Entry[]::new));
+            }
+        }
+        for (int from = 0; from < appended.size(); from += CHUNK_SIZE) {
+            result.add(appended.subList(from, Math.min(appended.size(), from + CHUNK_SIZE)).toArray(Entry[]::new));
+        }
+        return fromChunks(newVersion, result, size + delta);
+    }
+
+    private static int liveDelta(Entry before, Entry after) {
+        int wasLive = before != null && !before.isRemoved() ? 1 : 0;
+        int isLive = after.isRemoved() ? 0 : 1;
+        return isLive - wasLive;
+    }
+
+    private static UserSnapshot fromChunks(long version, List<Entry[]> chunks, int size) {
+        long[] firstIds = new long[chunks.size()];
+        for (int i = 0; i < firstIds.length; i++) {
+            firstIds[i] = chunks.get(i)[0].id();
+        }
+        return new UserSnapshot(version, firstIds, chunks.toArray(Entry[][]::new), size);
+    }
+
+    private long lastId() {
+        Entry[] last = chunks[chunks.length - 1];
+        return last[last.length - 1].id();
+    }
+
+    /**
+     * Índice do bloco que contém (ou conteria) o ID; -1 se o ID for menor que todos.
+     */
+    private int chunkFor(long id) {
+        int low = 0;
+        int high = firstIds.length - 1;
+        int result = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (firstIds[middle] <= id) {
+                result = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return result;
+    }
+
+    private static int search(Entry[] entries, long id) {
+        int low = 0;
+        int high = entries.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = entries[middle].id();
+            if (current < id) {
+                low = middle + 1;
+            } else if (current > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int searchList(List<Entry> entries, long id) {
+        int low = 0;
+        int high = entries.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = entries.get(middle).id();
+            if (current < id) {
+                low = middle + 1;
+            } else if (current > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
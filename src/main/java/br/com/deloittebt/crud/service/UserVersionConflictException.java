@@ -0,0 +1,16 @@
+package br.com.deloittebt.crud.service;
+
+/**
+ * Lançada quando o usuário foi alterado por outra operação desde a versão lida
+ * (concorrência otimista). A API REST a traduz em 412; a interface web recarrega o formulário.
+ */
+public class UserVersionConflictException extends IllegalStateException {
+
+    /**
+     * @param id              ID do usuário.
+     * @param expectedVersion Versão em que a alteração se baseou.
+     */
+    public UserVersionConflictException(Long id, long expectedVersion) {
+        super("Usuário " + id + " foi alterado por outra operação (versão esperada: " + expectedVersion + ").");
+    }
+}
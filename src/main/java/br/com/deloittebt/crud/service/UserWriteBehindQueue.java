@@ -0,0 +1,371 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fila de escrita (write-behind) com group commit para criações e atualizações de usuários.
+ * Quando habilitada ({@code crud.write-behind.enabled}), as escritas entram numa fila sem
+ * travas ({@link ConcurrentLinkedQueue}) limitada por um semáforo, e uma thread dedicada as
+ * grava em lotes de até {@code max-batch-size}, aguardando até {@code linger} para completar
+ * o lote: cada lote é uma única transação, com um só commit (e sync do arquivo H2).
+ * O futuro de cada escrita é completado depois do commit do seu lote.
+ * Se o lote falhar (ex.: email duplicado), as escritas são refeitas uma a uma, como na importação;
+ * com o motor mapeado, que não desfaz escritas, só a escrita que falhou é rejeitada.
+ * Com a fila cheia, quem escreve espera até {@code offer-timeout} e então recebe
+ * {@link WriteQueueFullException}. No encerramento a fila é esvaziada antes de o banco fechar.
+ */
+@Component
+public class UserWriteBehindQueue implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWriteBehindQueue.class);
+
+    /**
+     * Espera máxima da thread de escrita ociosa antes de reavaliar o encerramento.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final UserRepository userRepository;
+    private final UserOutbox outbox;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+
+    private final ConcurrentLinkedQueue<Write> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore capacity;
+    private final AtomicInteger producersInFlight = new AtomicInteger();
+    private volatile boolean accepting;
+    private volatile boolean writerWaiting;
+    private volatile Thread writer;
+    private DistributionSummary batchSizes;
+
+    /**
+     * Escrita pendente; {@link #apply(UserRepository, UserOutbox)} roda dentro da transação do lote,
+     * registrando o evento no outbox junto com a escrita, e devolve a ação que completa o futuro após o commit.
+     */
+    private sealed interface Write permits Create, Update {
+
+        Runnable apply(UserRepository repository, UserOutbox outbox);
+
+        void fail(Throwable error);
+    }
+
+    /**
+     * Construtor com os parâmetros lidos de {@code crud.write-behind.*}.
+     * @param userRepository instância do UserRepository
+     * @param outbox outbox em que cada escrita do lote é registrada
+     * @param transactionManager gerenciador de transações usado em cada lote
+     * @param enabled se a fila está habilitada
+     * @param queueCapacity quantidade máxima de escritas pendentes
+     * @param maxBatchSize quantidade máxima de escritas por transação
+     * @param linger espera máxima para completar um lote
+     * @param offerTimeout espera máxima por espaço na fila
+     * @param shutdownTimeout espera máxima para esvaziar a fila no encerramento
+     */
+    public UserWriteBehindQueue(UserRepository userRepository, UserOutbox outbox,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${crud.write-behind.enabled:false}") boolean enabled,
+                                @Value("${crud.write-behind.queue-capacity:10000}") int queueCapacity,
+                                @Value("${crud.write-behind.max-batch-size:500}") int maxBatchSize,
+                                @Value("${crud.write-behind.linger:2ms}") Duration linger,
+                                @Value("${crud.write-behind.offer-timeout:1s}") Duration offerTimeout,
+                                @Value("${crud.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout) {
+        if (userRepository == null) {
+            throw new IllegalArgumentException("UserRepository não pode ser nulo.");
+        }
+        if (outbox == null) {
+            throw new IllegalArgumentException("UserOutbox não pode ser nulo.");
+        }
+        if (transactionManager == null) {
+            throw new IllegalArgumentException("PlatformTransactionManager não pode ser nulo.");
+        }
+        if (queueCapacity <= 0 || maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Capacidade da fila e tamanho do lote devem ser maiores que zero.");
+        }
+        this.userRepository = userRepository;
+        this.outbox = outbox;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.capacity = new Semaphore(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = linger.toNanos();
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    /**
+     * Indica se as escritas devem passar pela fila.
+     * @return true se {@code crud.write-behind.enabled} estiver ligado
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enfileira a criação de um usuário já validado.
+     * @param name Nome.
+     * @param email Email normalizado.
+     * @return Futuro completado com o usuário persistido após o commit do lote.
+     * @throws WriteQueueFullException se não houver espaço na fila dentro do tempo configurado.
+     */
+    public CompletableFuture<User> create(String name, String email) {
+        CompletableFuture<User> future = new CompletableFuture<>();
+        enqueue(new Create(name, email, future));
+        return future;
+    }
+
+    /**
+     * Enfileira a atualização direta de um usuário já validado.
+     * @param id Identificador.
+     * @param expectedVersion Versão esperada, ou null para atualizar qualquer versão.
+     * @param name Novo nome.
+     * @param email Novo email normalizado.
+     * @param readPrevious se o estado anterior deve ser lido, travado, na transação do lote antes da atualização.
+     * @return Futuro completado após o commit do lote com o estado anterior, ou null se não foi lido.
+     * @throws WriteQueueFullException se não houver espaço na fila dentro do tempo configurado.
+     */
+    public CompletableFuture<User> update(Long id, Long expectedVersion, String name, String email,
+                                          boolean readPrevious) {
+        CompletableFuture<User> future = new CompletableFuture<>();
+        enqueue(new Update(id, expectedVersion, name, email, readPrevious, future));
+        return future;
+    }
+
+    /**
+     * Quantidade de escritas aguardando gravação.
+     * @return Tamanho atual da fila.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    private void enqueue(Write write) {
+        producersInFlight.incrementAndGet();
+        try {
+            if (!accepting) {
+                throw new IllegalStateException("Fila de escrita indisponível (desabilitada ou em encerramento).");
+            }
+            boolean acquired;
+            try {
+                acquired = capacity.tryAcquire(offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrompido aguardando espaço na fila de escrita.", e);
+            }
+            if (!acquired) {
+                throw new WriteQueueFullException();
+            }
+            queue.offer(write);
+        } finally {
+            producersInFlight.decrementAndGet();
+        }
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    /**
+     * Laço da thread de escrita: espera a primeira escrita, completa o lote até o tamanho
+     * máximo ou o fim do linger e grava. Termina quando a fila foi fechada e esvaziada.
+     */
+    private void drain() {
+        List<Write> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            Write first = queue.poll();
+            if (first == null) {
+                if (!accepting && producersInFlight.get() == 0 && queue.isEmpty()) {
+                    return;
+                }
+                park(IDLE_PARK_NANOS);
+                continue;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < maxBatchSize) {
+                Write next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !accepting) {
+                    break;
+                }
+                park(remaining);
+            }
+            capacity.release(batch.size());
+            if (batchSizes != null) {
+                batchSizes.record(batch.size());
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void park(long nanos) {
+        writerWaiting = true;
+        if (queue.isEmpty()) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        writerWaiting = false;
+    }
+
+    /**
+     * Grava o lote numa única transação; em caso de falha, refaz cada escrita na sua própria transação.
+     */
+    private void commit(List<Write> batch) {
+        try {
+            List<Runnable> completions = transactionTemplate.execute(status -> {
+                List<Runnable> results = new ArrayList<>(batch.size());
+                for (Write write : batch) {
+                    if (batch.size() == 1) {
+                        results.add(write.apply(userRepository, outbox));
+                        continue;
+                    }
+                    try {
+                        results.add(write.apply(userRepository, outbox));
+                    } catch (RuntimeException e) {
+                        // No motor JPA a falha marca a transação para rollback e o lote é refeito abaixo;
+                        // o motor mapeado não desfaz as escritas anteriores, então só esta escrita falha
+                        results.add(() -> write.fail(e));
+                    }
+                }
+                return results;
+            });
+            completions.forEach(Runnable::run);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).fail(e);
+                return;
+            }
+            for (Write write : batch) {
+                commit(List.of(write));
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        accepting = true;
+        writer = Thread.ofPlatform().name("user-write-behind").start(this::drain);
+        log.info("Write-behind de usuários habilitado (lote máximo {}, linger {} µs).",
+                maxBatchSize, TimeUnit.NANOSECONDS.toMicros(lingerNanos));
+    }
+
+    /**
+     * Para de aceitar escritas e aguarda a thread gravar o que restou na fila.
+     */
+    @Override
+    public void stop() {
+        Thread current = writer;
+        accepting = false;
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        try {
+            current.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current.isAlive()) {
+            log.warn("Write-behind não esvaziou a fila em {}; {} escritas pendentes.", shutdownTimeout, queue.size());
+        }
+        writer = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return writer != null;
+    }
+
+    /**
+     * Fase menor que a do servidor web: a fila só é fechada depois que o Tomcat
+     * deixou de aceitar requisições, e antes de o pool de conexões fechar.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("crud.write_behind.queue.size", queue, ConcurrentLinkedQueue::size)
+                .description("Escritas aguardando gravação")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("crud.write_behind.batch.size")
+                .description("Escritas por transação (group commit)")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private record Create(String name, String email, CompletableFuture<User> future) implements Write {
+
+        @Override
+        public Runnable apply(UserRepository repository, UserOutbox outbox) {
+            // Instância nova a cada tentativa: um lote desfeito já atribuiu ID à anterior
+            User user = repository.save(new User(name, email));
+            outbox.recordCreated(user);
+            return () -> future.complete(user);
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            future.completeExceptionally(error instanceof DataIntegrityViolationException
+                    ? new DuplicateEmailException(email) : error);
+        }
+    }
+
+    private record Update(Long id, Long expectedVersion, String name, String email, boolean readPrevious,
+                          CompletableFuture<User> future) implements Write {
+
+        @Override
+        public Runnable apply(UserRepository repository, UserOutbox outbox) {
+            // Travado até o commit do lote: é exatamente o estado que a atualização substitui
+            User previous = readPrevious ? repository.findByIdForUpdate(id).orElse(null) : null;
+            if (repository.update(id, name, email, expectedVersion) > 0) {
+                outbox.recordUpdated(id, name, email, expectedVersion == null ? null : expectedVersion + 1);
+                return () -> future.complete(previous);
+            }
+            // Nenhuma linha alterada não desfaz o lote: só esta escrita falha
+            RuntimeException error = expectedVersion != null && repository.existsById(id)
+                    ? new UserVersionConflictException(id, expectedVersion)
+                    : new UserNotFoundException(id);
+            return () -> future.completeExceptionally(error);
+        }
+
+        @Override
+        public void fail(Throwable error) {
+            future.completeExceptionally(error instanceof DataIntegrityViolationException
+                    ? new DuplicateEmailException(email) : error);
+        }
+    }
+}
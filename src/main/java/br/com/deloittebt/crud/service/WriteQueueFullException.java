@@ -0,0 +1,16 @@
+package br.com.deloittebt.crud.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Lançada quando a fila de escrita (write-behind) continua cheia após o tempo de espera
+ * configurado. Respondida como 503 para que o cliente tente novamente mais tarde.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteQueueFullException extends IllegalStateException {
+
+    public WriteQueueFullException() {
+        super("Fila de escrita cheia; tente novamente em instantes.");
+    }
+}
@@ -0,0 +1,33 @@
+-- Tabela de usuários. Idempotente: bancos criados antes das migrações (pelo ddl-auto do Hibernate,
+-- inclusive os da primeira versão, com ID IDENTITY e sem versão) entram na linha de base 0
+-- e são completados aqui.
+
+CREATE SEQUENCE IF NOT EXISTS usuarios_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id         BIGINT       NOT NULL PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL,
+    nome       VARCHAR(255) NOT NULL,
+    nome_busca VARCHAR(255) GENERATED ALWAYS AS (LOWER(nome)),
+    versao     BIGINT       DEFAULT 0 NOT NULL
+);
+
+-- Concorrência otimista: linhas existentes começam na versão 0
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS versao BIGINT DEFAULT 0 NOT NULL;
+
+-- Busca por prefixo do nome sem diferenciar maiúsculas
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS nome_busca VARCHAR(255) GENERATED ALWAYS AS (LOWER(nome));
+CREATE INDEX IF NOT EXISTS ix_usuarios_nome_busca ON usuarios (nome_busca);
+
+-- Emails são gravados e buscados normalizados (User.normalizeEmail): linhas antigas, gravadas como digitadas,
+-- são normalizadas antes da restrição de unicidade
+UPDATE usuarios SET email = LOWER(TRIM(email)) WHERE email <> LOWER(TRIM(email));
+
+-- Emails que só diferiam por maiúsculas ou espaços viram duplicados: a migração é interrompida com a lista
+-- (o H2 não tem comando para lançar erro; a conversão do texto em número falha e o mostra na mensagem).
+-- Sem duplicados o LISTAGG é nulo e a consulta não falha.
+SELECT CAST('Emails duplicados após a normalização; remova ou corrija antes de migrar: '
+            || LISTAGG(email, ', ') WITHIN GROUP (ORDER BY email) AS INT)
+FROM (SELECT email FROM usuarios GROUP BY email HAVING COUNT(*) > 1);
+
+ALTER TABLE usuarios ADD CONSTRAINT IF NOT EXISTS ux_usuarios_email UNIQUE (email);
@@ -0,0 +1,18 @@
+-- Outbox de alterações de usuários (UserOutbox / UserChangeRelay). A posição é atribuída pelo
+-- relay na ordem de commit; os pendentes (posicao IS NULL) são lidos em ordem de ID pelo índice.
+
+CREATE SEQUENCE IF NOT EXISTS usuarios_eventos_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS usuarios_eventos (
+    id         BIGINT                   NOT NULL PRIMARY KEY,
+    criado_em  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    email      VARCHAR(255),
+    nome       VARCHAR(255),
+    posicao    BIGINT,
+    tipo       ENUM ('CREATED', 'DELETED', 'UPDATED') NOT NULL,
+    usuario_id BIGINT                   NOT NULL,
+    versao     BIGINT
+);
+
+CREATE INDEX IF NOT EXISTS ix_usuarios_eventos_posicao ON usuarios_eventos (posicao, id);
+CREATE INDEX IF NOT EXISTS ix_usuarios_eventos_usuario ON usuarios_eventos (usuario_id, posicao);
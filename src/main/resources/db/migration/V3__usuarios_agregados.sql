@@ -0,0 +1,11 @@
+-- Data de criação, base dos cadastros por dia. Linhas já existentes recebem a data desta migração.
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS criado_em TIMESTAMP DEFAULT LOCALTIMESTAMP NOT NULL;
+
+-- Checkpoint dos agregados mantidos em memória (crud.aggregates.enabled): total de usuários,
+-- usuários por domínio de email e cadastros por dia, mais o indicador de desligamento limpo.
+CREATE TABLE IF NOT EXISTS usuarios_agregados (
+    tipo  VARCHAR(16)  NOT NULL,
+    chave VARCHAR(255) NOT NULL,
+    valor BIGINT       NOT NULL,
+    PRIMARY KEY (tipo, chave)
+);
@@ -0,0 +1,8 @@
+-- Só nos bancos dos shards (crud.storage.engine=sharded): diretório global de emails.
+-- Cada email fica no shard do seu balde, e a chave primária garante a unicidade entre todos os
+-- shards; o usuário pode estar em outro shard depois de uma troca de email.
+
+CREATE TABLE IF NOT EXISTS usuarios_emails (
+    email      VARCHAR(255) NOT NULL PRIMARY KEY,
+    usuario_id BIGINT       NOT NULL
+);
@@ -0,0 +1,53 @@
+package br.com.deloittebt.crud.metrics;
+
+import br.com.deloittebt.crud.service.DuplicateEmailException;
+import br.com.deloittebt.crud.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Métricas das escritas pela fila: o tempo vai até a conclusão do futuro e a falha dele conta como erro.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:metricas-fila;DB_CLOSE_DELAY=-1",
+        "crud.write-behind.enabled=true"})
+class ServiceMetricsAspectTest {
+
+    private static final String METHOD = "UserService.createAsync";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void asyncFailureIsCountedWhenFutureCompletes() {
+        userService.createAsync("Ana", "ana@teste.com").join();
+        CompletableFuture<?> duplicate = userService.createAsync("Outra Ana", "ana@teste.com");
+
+        CompletionException error = assertThrows(CompletionException.class, duplicate::join);
+        assertInstanceOf(DuplicateEmailException.class, error.getCause());
+        Counter errors = registry.find("crud.service.errors")
+                .tags("method", METHOD, "exception", "DuplicateEmailException").counter();
+        assertNotNull(errors);
+        assertEquals(1, errors.count());
+        Timer failed = registry.find("crud.service")
+                .tags("method", METHOD, "outcome", "error", "exception", "DuplicateEmailException").timer();
+        assertNotNull(failed);
+        assertEquals(1, failed.count());
+        assertEquals(1, registry.find("crud.service").tags("method", METHOD, "outcome", "success").timer().count());
+    }
+}
@@ -0,0 +1,75 @@
+package br.com.deloittebt.crud.presentation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Modo batch em cada motor de armazenamento: uma falha num grupo só rejeita o comando que falhou,
+ * e os demais comandos do grupo são aplicados uma única vez.
+ */
+abstract class BatchCommandRunnerContractTest {
+
+    @Autowired
+    private BatchCommandRunner runner;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void failedWriteRejectsOnlyThatCommand() throws IOException {
+        List<JsonNode> results = run("""
+                criar,Ana,ana@lote.com
+                criar,Outra Ana,ana@lote.com
+                criar,Bruno,bruno@lote.com
+                """);
+
+        assertTrue(results.get(0).path("ok").asBoolean(), results.get(0).toString());
+        assertFalse(results.get(1).path("ok").asBoolean());
+        assertEquals("Email já cadastrado: ana@lote.com", results.get(1).path("erro").asText());
+        assertTrue(results.get(2).path("ok").asBoolean(), results.get(2).toString());
+        assertEquals(2, results.get(3).path("resumo").path("sucesso").asLong());
+        assertEquals(1, results.get(3).path("resumo").path("falhas").asLong());
+
+        long ana = results.get(0).path("usuario").path("id").asLong();
+        List<JsonNode> found = run("buscar-email,ana@lote.com\nremover," + ana + "\nbuscar-email,bruno@lote.com");
+        assertEquals(ana, found.get(0).path("usuario").path("id").asLong());
+        run("remover," + found.get(2).path("usuario").path("id").asLong());
+    }
+
+    @Test
+    void failedLookupDoesNotReplayGroup() throws IOException {
+        List<JsonNode> results = run("""
+                criar,Carla,carla@lote.com
+                buscar,999999999
+                """);
+
+        assertTrue(results.get(0).path("ok").asBoolean());
+        assertFalse(results.get(1).path("ok").asBoolean());
+        assertEquals(0, results.get(2).path("resumo").path("gruposReexecutados").asLong());
+        run("remover," + results.get(0).path("usuario").path("id").asLong());
+    }
+
+    private List<JsonNode> run(String commands) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        runner.run(new BufferedReader(new StringReader(commands)), output);
+        List<JsonNode> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+}
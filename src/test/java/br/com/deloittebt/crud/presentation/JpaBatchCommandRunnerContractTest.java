@@ -0,0 +1,12 @@
+package br.com.deloittebt.crud.presentation;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Modo batch sobre o motor JPA: o grupo é desfeito e reexecutado comando a comando.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:lote-jpa;DB_CLOSE_DELAY=-1",
+        "crud.storage.engine=jpa"})
+class JpaBatchCommandRunnerContractTest extends BatchCommandRunnerContractTest {
+}
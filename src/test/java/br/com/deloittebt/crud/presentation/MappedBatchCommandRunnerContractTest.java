@@ -0,0 +1,21 @@
+package br.com.deloittebt.crud.presentation;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Modo batch sobre o motor mapeado, que não desfaz escritas: nada é reexecutado.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:lote-mapped;DB_CLOSE_DELAY=-1",
+        "crud.storage.engine=mapped",
+        "crud.storage.mapped.region-size=1MB"})
+class MappedBatchCommandRunnerContractTest extends BatchCommandRunnerContractTest {
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("crud.storage.mapped.path",
+                () -> "./target/test-db/lote-" + System.nanoTime() + "/usuarios.log");
+    }
+}
@@ -0,0 +1,54 @@
+package br.com.deloittebt.crud.presentation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Cache dos assets: imutável só pela URL com hash do conteúdo; pela URL sem hash, revalidado.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:assets;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class StaticAssetConfigTest {
+
+    private static final String CSS = "/webjars/bootstrap/5.3.3/css/bootstrap.min.css";
+
+    private static final String JS = "/webjars/bootstrap/5.3.3/js/bootstrap.bundle.min.js";
+
+    private static final String IMMUTABLE = "max-age=31536000, public, immutable";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ResourceUrlProvider resourceUrlProvider;
+
+    @Test
+    void onlyFingerprintedUrlIsImmutable() throws Exception {
+        for (String asset : new String[]{CSS, JS}) {
+            String versioned = resourceUrlProvider.getForLookupPath(asset);
+            assertNotEquals(asset, versioned);
+
+            mockMvc.perform(get(versioned))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Cache-Control", IMMUTABLE));
+            mockMvc.perform(get(versioned).header("Accept-Encoding", "gzip"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Encoding", "gzip"))
+                    .andExpect(header().string("Cache-Control", IMMUTABLE));
+            mockMvc.perform(get(asset))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Cache-Control", "no-cache"));
+        }
+        mockMvc.perform(get(JS.replace(".min.js", ".min-0123456789abcdef0123456789abcdef.js")))
+                .andExpect(status().isNotFound());
+    }
+}
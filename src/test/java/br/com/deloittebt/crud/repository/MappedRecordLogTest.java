@@ -0,0 +1,137 @@
+package br.com.deloittebt.crud.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Recuperação do {@link MappedRecordLog} após uma queda: a releitura para no primeiro registro
+ * incompleto ou com CRC divergente e apaga o que vem depois dele. A queda é simulada fechando o
+ * log e voltando o indicador de fechamento normal do cabeçalho para "aberto".
+ */
+class MappedRecordLogTest {
+
+    private static final int REGION_SIZE = 256;
+    private static final int STATE_AT = 2 * Integer.BYTES;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayReturnsAllRecordsAcrossRegions() throws IOException {
+        Path path = dir.resolve("usuarios.log");
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            recordLog.replay(record -> { });
+            appendUsers(recordLog, 1, 12);
+            recordLog.append(MappedRecordLog.DELETE, 5, 0, "", "");
+        }
+
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            List<MappedRecordLog.LogRecord> records = replay(recordLog);
+            assertEquals(13, records.size());
+            assertEquals(MappedRecordLog.DELETE, records.get(12).type());
+            assertEquals("usuario12@teste.com", records.get(11).email());
+        }
+    }
+
+    @Test
+    void crcMismatchDiscardsRecordAndEverythingAfterIt() throws IOException {
+        Path path = dir.resolve("usuarios.log");
+        long corrupted;
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            recordLog.replay(record -> { });
+            recordLog.append(MappedRecordLog.PUT, 1, 0, "Ana", "ana@teste.com");
+            corrupted = recordLog.append(MappedRecordLog.PUT, 2, 0, "Bruno", "bruno@teste.com");
+            recordLog.append(MappedRecordLog.PUT, 3, 0, "Carla", "carla@teste.com");
+        }
+        crash(path);
+        flipByte(path, corrupted + 30); // Um byte do email do segundo registro
+
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            assertEquals(List.of(1L), ids(replay(recordLog)));
+            assertEquals(corrupted, recordLog.end());
+            // Mesmo tamanho do registro descartado: o terceiro registro, intacto, viria logo depois
+            recordLog.append(MappedRecordLog.PUT, 4, 0, "Bruna", "bruna@teste.com");
+        }
+
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            assertEquals(List.of(1L, 4L), ids(replay(recordLog)));
+        }
+    }
+
+    @Test
+    void tornTailIsDiscardedAndLaterRegionsTruncated() throws IOException {
+        Path path = dir.resolve("usuarios.log");
+        long torn;
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            recordLog.replay(record -> { });
+            appendUsers(recordLog, 1, 2);
+            torn = recordLog.append(MappedRecordLog.PUT, 3, 0, "Usuário 3", "usuario3@teste.com");
+            appendUsers(recordLog, 4, 12);
+        }
+        assertEquals(3 * REGION_SIZE, Files.size(path));
+        crash(path);
+        // Escrita interrompida: o tamanho do terceiro registro foi gravado, o restante não
+        zero(path, torn + Integer.BYTES, REGION_SIZE - (int) torn - Integer.BYTES);
+
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            assertEquals(List.of(1L, 2L), ids(replay(recordLog)));
+            assertEquals(torn, recordLog.end());
+        }
+        assertEquals(REGION_SIZE, Files.size(path));
+
+        try (MappedRecordLog recordLog = MappedRecordLog.open(path, REGION_SIZE)) {
+            assertEquals(List.of(1L, 2L), ids(replay(recordLog)));
+        }
+    }
+
+    private static void appendUsers(MappedRecordLog recordLog, int from, int to) throws IOException {
+        for (int id = from; id <= to; id++) {
+            recordLog.append(MappedRecordLog.PUT, id, 0, "Usuário " + id, "usuario" + id + "@teste.com");
+        }
+    }
+
+    private static List<MappedRecordLog.LogRecord> replay(MappedRecordLog recordLog) throws IOException {
+        List<MappedRecordLog.LogRecord> records = new ArrayList<>();
+        recordLog.replay(records::add);
+        return records;
+    }
+
+    private static List<Long> ids(List<MappedRecordLog.LogRecord> records) {
+        return records.stream().map(MappedRecordLog.LogRecord::id).toList();
+    }
+
+    /**
+     * Desfaz o indicador de fechamento normal, como se o processo tivesse caído com o log aberto.
+     */
+    private static void crash(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, 0), STATE_AT);
+        }
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, position);
+        }
+    }
+
+    private static void zero(Path path, long position, int length) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(length), position);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reconstrução do {@link OffHeapIdIndex} e dos índices secundários do {@link MappedUserRepository}
+ * ao reabrir o log, com e sem compactação.
+ */
+class MappedUserRepositoryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopenRebuildsIndexesFromLog() {
+        List<Long> ids;
+        MappedUserRepository repository = open();
+        try {
+            List<User> users = List.of(new User("Ana", "ana@teste.com"), new User("Bruno", "bruno@teste.com"),
+                    new User("Carla", "carla@teste.com"), new User("Davi", "davi@teste.com"),
+                    new User("Eva", "eva@teste.com"));
+            repository.saveAll(users);
+            ids = users.stream().map(User::getId).toList();
+            assertEquals(1, repository.update(ids.get(1), "Bruno Lima", "bruno.lima@teste.com", 0L));
+            assertEquals(1, repository.delete(ids.get(3), 0L));
+        } finally {
+            repository.close();
+        }
+
+        MappedUserRepository reopened = open();
+        try {
+            List<Long> live = List.of(ids.get(0), ids.get(1), ids.get(2), ids.get(4));
+            assertEquals(live, ids(reopened.findPage(null, true, 10)));
+            assertEquals(live.reversed(), ids(reopened.findPage(null, false, 10)));
+            assertEquals(List.of(ids.get(2), ids.get(4)), ids(reopened.findPage(ids.get(1), true, 10)));
+
+            User bruno = reopened.findById(ids.get(1)).orElseThrow();
+            assertEquals("Bruno Lima", bruno.getName());
+            assertEquals(1, bruno.getVersion());
+            assertFalse(reopened.existsById(ids.get(3)));
+            assertEquals(0, reopened.update(ids.get(1), "Bruno", "bruno@teste.com", 0L));
+
+            assertEquals(ids.get(1), reopened.findByEmail("bruno.lima@teste.com").orElseThrow().getId());
+            assertTrue(reopened.findByEmail("bruno@teste.com").isEmpty());
+            assertTrue(reopened.findByEmail("davi@teste.com").isEmpty());
+            assertEquals(List.of(ids.get(1)), ids(reopened.searchByNamePrefix("bruno", 0, 10)));
+            assertThrows(DataIntegrityViolationException.class,
+                    () -> reopened.save(new User("Outra Ana", "ana@teste.com")));
+
+            User created = reopened.save(new User("Fábio", "fabio@teste.com"));
+            assertTrue(created.getId() > ids.get(4));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void reopenAfterCompactionKeepsSequence() {
+        long highest;
+        MappedUserRepository repository = open();
+        try {
+            repository.save(new User("Ana", "ana@teste.com"));
+            repository.save(new User("Bruno", "bruno@teste.com"));
+            highest = repository.save(new User("Carla", "carla@teste.com")).getId();
+            repository.delete(highest, null);
+            repository.compact();
+        } finally {
+            repository.close();
+        }
+
+        MappedUserRepository reopened = open();
+        try {
+            assertEquals(2, reopened.findAll().size());
+            assertFalse(reopened.existsById(highest));
+            // O registro de remoção sumiu na compactação; o ID removido não pode ser reutilizado
+            assertTrue(reopened.save(new User("Davi", "davi@teste.com")).getId() > highest);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private MappedUserRepository open() {
+        return new MappedUserRepository(dir.resolve("usuarios.log").toString(), DataSize.ofMegabytes(1),
+                false, Duration.ofHours(1), 0.5);
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.deloittebt.crud.repository;
+
+import br.com.deloittebt.crud.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Consultas que intercalam os resultados dos shards do {@link ShardedUserRepository} (paginação por
+ * cursor e busca por prefixo, com deslocamento e limite aplicados depois da intercalação) e rollback
+ * de uma transação que escreveu em dois shards.
+ */
+class ShardedUserRepositoryTest {
+
+    private static final int SHARDS = 3;
+
+    private ShardedUserRepository repository;
+
+    @BeforeEach
+    void open() {
+        repository = new ShardedUserRepository(SHARDS,
+                "jdbc:h2:mem:repositorio-" + System.nanoTime() + "-{shard}", 2, "sa", "");
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    @Test
+    void keysetPagingMergesShardsInIdOrder() {
+        List<Long> ids = ids(saveUsers("Usuário", 20));
+        List<Long> sorted = ids.stream().sorted().toList();
+        repository.countPerShard().forEach(count -> assertTrue(count > 0, "shard sem usuários"));
+
+        List<Long> forward = new ArrayList<>();
+        Long cursor = null;
+        List<User> page;
+        do {
+            page = repository.findPage(cursor, true, 6);
+            forward.addAll(ids(page));
+            cursor = page.isEmpty() ? cursor : page.get(page.size() - 1).getId();
+        } while (page.size() == 6);
+        assertEquals(sorted, forward);
+
+        List<Long> backward = ids(repository.findPage(sorted.get(10), false, 4));
+        assertEquals(sorted.subList(6, 10).reversed(), backward);
+        assertEquals(sorted.subList(11, 20), ids(repository.findPage(sorted.get(10), true, 100)));
+    }
+
+    @Test
+    void prefixSearchAppliesOffsetAndLimitAfterMerge() {
+        List<User> matching = saveUsers("Ana", 15);
+        saveUsers("Bruno", 5);
+        List<Long> byName = matching.stream()
+                .sorted(Comparator.comparing((User user) -> user.getName().toLowerCase(Locale.ROOT))
+                        .thenComparingLong(User::getId))
+                .map(User::getId)
+                .toList();
+
+        assertEquals(byName, ids(repository.searchByNamePrefix("ana", 0, 100)));
+        assertEquals(byName.subList(4, 9), ids(repository.searchByNamePrefix("ana", 4, 5)));
+        assertEquals(byName.subList(12, 15), ids(repository.searchByNamePrefix("ana", 12, 5)));
+        assertTrue(repository.searchByNamePrefix("ana", 15, 5).isEmpty());
+    }
+
+    @Test
+    void rollbackUndoesWritesInEveryShard() {
+        User ana = new User("Ana", "ana@teste.com");
+        repository.save(ana);
+        String other = IntStream.range(0, 100).mapToObj(i -> "usuario" + i + "@teste.com")
+                .filter(email -> repository.router().shardOfEmail(email) != repository.router().shardOfId(ana.getId()))
+                .findFirst()
+                .orElseThrow();
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(
+                new DriverManagerDataSource("jdbc:h2:mem:principal-" + System.nanoTime(), "sa", "")));
+
+        List<User> created = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> transaction.executeWithoutResult(status -> {
+            assertEquals(1, repository.update(ana.getId(), "Ana Maria", "ana.maria@teste.com", 0L));
+            User bruno = new User("Bruno", other);
+            repository.save(bruno);
+            created.add(bruno);
+            assertNotEquals(repository.router().shardOfId(ana.getId()), repository.router().shardOfId(bruno.getId()));
+            throw new IllegalStateException("falha depois das escritas");
+        }));
+
+        User current = repository.findById(ana.getId()).orElseThrow();
+        assertEquals("Ana", current.getName());
+        assertEquals(0, current.getVersion());
+        assertEquals(ana.getId(), repository.findByEmail("ana@teste.com").orElseThrow().getId());
+        assertTrue(repository.findByEmail("ana.maria@teste.com").isEmpty());
+        assertFalse(repository.existsById(created.get(0).getId()));
+        assertTrue(repository.findByEmail(other).isEmpty());
+        assertEquals(1, repository.countPerShard().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private List<User> saveUsers(String name, int count) {
+        List<User> users = IntStream.rangeClosed(1, count)
+                .mapToObj(i -> new User(name + " " + i, name.toLowerCase(Locale.ROOT) + i + "@teste.com"))
+                .toList();
+        repository.saveAll(users);
+        return users;
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
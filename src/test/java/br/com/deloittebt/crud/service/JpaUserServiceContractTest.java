@@ -0,0 +1,12 @@
+package br.com.deloittebt.crud.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Contrato do serviço sobre o motor JPA (H2 em memória).
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:contrato-jpa;DB_CLOSE_DELAY=-1",
+        "crud.storage.engine=jpa"})
+class JpaUserServiceContractTest extends UserServiceContractTest {
+}
@@ -0,0 +1,21 @@
+package br.com.deloittebt.crud.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Contrato do serviço sobre o motor de log mapeado em memória, com um log novo sob {@code target/}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:contrato-mapped;DB_CLOSE_DELAY=-1",
+        "crud.storage.engine=mapped",
+        "crud.storage.mapped.region-size=1MB"})
+class MappedUserServiceContractTest extends UserServiceContractTest {
+
+    @DynamicPropertySource
+    static void storage(DynamicPropertyRegistry registry) {
+        registry.add("crud.storage.mapped.path",
+                () -> "./target/test-db/contrato-" + System.nanoTime() + "/usuarios.log");
+    }
+}
@@ -0,0 +1,14 @@
+package br.com.deloittebt.crud.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Contrato do serviço sobre o motor particionado, com três shards H2 em memória.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:contrato-sharded;DB_CLOSE_DELAY=-1",
+        "crud.storage.engine=sharded",
+        "crud.storage.sharded.count=3",
+        "crud.storage.sharded.url=jdbc:h2:mem:contrato-shard-{shard};DB_CLOSE_DELAY=-1"})
+class ShardedUserServiceContractTest extends UserServiceContractTest {
+}
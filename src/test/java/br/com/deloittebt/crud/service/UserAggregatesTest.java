@@ -0,0 +1,129 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserStats;
+import br.com.deloittebt.crud.repository.UserAggregateRepository;
+import br.com.deloittebt.crud.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Carga do checkpoint dos agregados na inicialização: só um checkpoint limpo, do mesmo motor e com o
+ * mesmo maior ID é aceito; nos demais casos os contadores vêm de uma varredura dos usuários, sem perder
+ * as escritas confirmadas durante ela.
+ */
+class UserAggregatesTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserAggregateRepository aggregateRepository = mock(UserAggregateRepository.class);
+
+    @Test
+    void loadsCleanCheckpointOfSameEngineAndMaxId() {
+        storeUsers(12);
+        when(aggregateRepository.findAll()).thenReturn(checkpoint("sharded", 17, 12));
+
+        UserAggregates aggregates = start("sharded");
+
+        assertEquals(17, aggregates.stats().total());
+        verify(userRepository, never()).streamAll(anyInt(), any());
+    }
+
+    @Test
+    void rebuildsCheckpointOfAnotherEngine() {
+        storeUsers(12);
+        when(aggregateRepository.findAll()).thenReturn(checkpoint("mapped", 17, 12));
+
+        assertEquals(12, start("sharded").stats().total());
+    }
+
+    @Test
+    void rebuildsCheckpointWithAnotherMaxId() {
+        storeUsers(12);
+        when(aggregateRepository.findAll()).thenReturn(checkpoint("jpa", 17, 17));
+
+        assertEquals(12, start("jpa").stats().total());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildKeepsChangesAppliedDuringScan() {
+        List<User> users = new ArrayList<>(LongStream.rangeClosed(1, 10).mapToObj(UserAggregatesTest::user).toList());
+        UserAggregates aggregates = new UserAggregates(userRepository, aggregateRepository, "jpa", true,
+                Duration.ZERO, 30, 20);
+        doAnswer(invocation -> {
+            Consumer<User> consumer = invocation.getArgument(1);
+            for (int i = 0; i < users.size(); i++) {
+                consumer.accept(users.get(i));
+                if (users.get(i).getId() == 5) {
+                    // Já percorridos: a varredura viu o estado anterior
+                    aggregates.deleted(users.get(1));
+                    aggregates.updated(users.get(2), "usuario3@outro.com");
+                    // Ainda não percorridos: a varredura vê o estado novo
+                    aggregates.deleted(users.remove(7));
+                    User created = user(11);
+                    users.add(created);
+                    aggregates.created(created);
+                }
+            }
+            // Criado depois da última leitura
+            aggregates.created(user(12));
+            return null;
+        }).when(userRepository).streamAll(anyInt(), any(Consumer.class));
+        when(aggregateRepository.findAll()).thenReturn(List.of());
+
+        aggregates.run(null);
+
+        UserStats stats = aggregates.stats();
+        assertEquals(10, stats.total());
+        assertEquals(Map.of("teste.com", 7L, "outro.com", 1L, "novo.com", 2L), stats.topDomains().stream()
+                .collect(Collectors.toMap(UserStats.Count::key, UserStats.Count::value)));
+    }
+
+    private static User user(long id) {
+        User user = new User("Usuário " + id, "usuario" + id + (id > 10 ? "@novo.com" : "@teste.com"));
+        user.assignId(id);
+        return user;
+    }
+
+    private UserAggregates start(String engine) {
+        UserAggregates aggregates = new UserAggregates(userRepository, aggregateRepository, engine, true,
+                Duration.ZERO, 30, 20);
+        aggregates.run(null);
+        return aggregates;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storeUsers(int count) {
+        List<User> users = LongStream.rangeClosed(1, count).mapToObj(UserAggregatesTest::user).toList();
+        when(userRepository.findPage(null, false, 1)).thenReturn(List.of(users.get(count - 1)));
+        doAnswer(invocation -> {
+            users.forEach(invocation.<Consumer<User>>getArgument(1));
+            return null;
+        }).when(userRepository).streamAll(anyInt(), any(Consumer.class));
+    }
+
+    private static List<UserAggregateRepository.Row> checkpoint(String engine, long total, long maxId) {
+        return List.of(
+                new UserAggregateRepository.Row(UserAggregates.TOTAL, "", total),
+                new UserAggregateRepository.Row(UserAggregates.DOMAIN, "teste.com", total),
+                new UserAggregateRepository.Row(UserAggregates.STATE, UserAggregates.CLEAN_KEY, 1),
+                new UserAggregateRepository.Row(UserAggregates.STATE, UserAggregates.MAX_ID_KEY, maxId),
+                new UserAggregateRepository.Row(UserAggregates.ENGINE, engine, 1));
+    }
+}
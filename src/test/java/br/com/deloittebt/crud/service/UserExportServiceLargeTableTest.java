@@ -0,0 +1,85 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.ExportFormat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Exportação de 1 milhão de usuários com heap pequeno: o surefire roda esta classe numa execução
+ * própria com {@code -Xmx128m} (ver {@code pom.xml}). As linhas passam pelo cursor
+ * {@code ScrollableResults} do motor JPA direto para a saída; carregá-las numa lista estouraria o heap.
+ * O banco é um H2 em arquivo sob {@code target/}, para que os dados não ocupem o heap.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+class UserExportServiceLargeTableTest {
+
+    private static final int ROWS = 1_000_000;
+    private static final int INSERT_CHUNK = 100_000;
+    private static final long MAX_HEAP = 256L * 1024 * 1024;
+
+    @Autowired
+    private UserExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:file:./target/test-db/exportacao-" + System.nanoTime());
+    }
+
+    /**
+     * Descarta os bytes, contando linhas e tamanho.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        long bytes;
+        long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+
+    @Test
+    void exportsOneMillionRowsUnderSmallHeap() {
+        assertTrue(Runtime.getRuntime().maxMemory() <= MAX_HEAP,
+                "O teste deve rodar com heap limitado (-Xmx128m na execução do surefire).");
+        for (int from = 1; from <= ROWS; from += INSERT_CHUNK) {
+            jdbcTemplate.update("INSERT INTO usuarios (id, nome, email) "
+                            + "SELECT X, CONCAT('Usuário ', X), CONCAT('usuario', X, '@teste.com') FROM SYSTEM_RANGE(?, ?)",
+                    from, Math.min(ROWS, from + INSERT_CHUNK - 1));
+        }
+
+        CountingOutputStream csv = new CountingOutputStream();
+        assertEquals(ROWS, exportService.export(csv, ExportFormat.CSV));
+        assertEquals(ROWS + 1, csv.lines);
+
+        CountingOutputStream ndjson = new CountingOutputStream();
+        assertEquals(ROWS, exportService.export(ndjson, ExportFormat.NDJSON));
+        assertEquals(ROWS, ndjson.lines);
+    }
+}
@@ -0,0 +1,51 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Uma falha após o commit do lote (aqui, no índice de pesquisa) não pode levar à regravação
+ * linha a linha: as linhas já gravadas seriam relatadas como emails duplicados.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties =
+        "spring.datasource.url=jdbc:h2:mem:importacao;DB_CLOSE_DELAY=-1")
+class UserImportServiceTest {
+
+    @Autowired
+    private UserImportService importService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private UserSearchIndex userSearchIndex;
+
+    @Test
+    void failureAfterCommitDoesNotReportImportedRowsAsDuplicates() {
+        doThrow(new IllegalStateException("índice indisponível")).when(userSearchIndex).indexAll(anyList());
+        String csv = """
+                nome,email
+                Ana,ana@teste.com
+                Bruno,bruno@teste.com
+                Carla,carla@teste.com
+                """;
+
+        ImportReport report = importService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(3, report.getImported());
+        assertTrue(report.getErrors().isEmpty(), report.getErrors().toString());
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Integer.class));
+    }
+}
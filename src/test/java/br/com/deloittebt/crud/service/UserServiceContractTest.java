@@ -0,0 +1,165 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.SortOrder;
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserPage;
+import br.com.deloittebt.crud.model.UserSearchPage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contrato do {@link UserService} sobre o {@link br.com.deloittebt.crud.repository.UserRepository}:
+ * os mesmos casos rodam em cada motor de armazenamento ({@code crud.storage.engine}), por uma
+ * subclasse que configura o motor e um banco próprio.
+ */
+abstract class UserServiceContractTest {
+
+    @Autowired
+    protected UserService userService;
+
+    @BeforeEach
+    void removeAllUsers() {
+        userService.findAll().forEach(user -> userService.deleteById(user.getId()));
+    }
+
+    @Test
+    void createAssignsIdAndNormalizesEmail() {
+        User created = userService.create("Ana Souza", " Ana@Teste.COM ");
+
+        assertNotNull(created.getId());
+        User found = userService.findById(created.getId());
+        assertEquals("Ana Souza", found.getName());
+        assertEquals("ana@teste.com", found.getEmail());
+        assertEquals(0, found.getVersion());
+        assertEquals(created.getId(), userService.findByEmail("ANA@teste.com").orElseThrow().getId());
+    }
+
+    @Test
+    void createRejectsDuplicateEmail() {
+        userService.create("Ana", "ana@teste.com");
+
+        DuplicateEmailException error = assertThrows(DuplicateEmailException.class,
+                () -> userService.create("Outra Ana", "ANA@teste.com"));
+        assertEquals("Email já cadastrado: ana@teste.com", error.getMessage());
+        assertEquals(1, userService.findAll().size());
+    }
+
+    @Test
+    void updateRejectsEmailOfAnotherUser() {
+        userService.create("Ana", "ana@teste.com");
+        User bruno = userService.create("Bruno", "bruno@teste.com");
+
+        assertThrows(DuplicateEmailException.class,
+                () -> userService.update(bruno.getId(), "Bruno", "ana@teste.com"));
+        assertEquals("bruno@teste.com", userService.findById(bruno.getId()).getEmail());
+    }
+
+    @Test
+    void versionedUpdateRejectsStaleVersion() {
+        User user = userService.create("Ana", "ana@teste.com");
+
+        User updated = userService.update(user.getId(), 0, "Ana Maria", "ana@teste.com");
+        assertEquals(1, updated.getVersion());
+        assertEquals(1, userService.findById(user.getId()).getVersion());
+
+        assertThrows(UserVersionConflictException.class,
+                () -> userService.update(user.getId(), 0, "Ana Paula", "ana@teste.com"));
+        User current = userService.findById(user.getId());
+        assertEquals("Ana Maria", current.getName());
+        assertEquals(1, current.getVersion());
+    }
+
+    @Test
+    void versionedDeleteRejectsStaleVersion() {
+        User user = userService.create("Ana", "ana@teste.com");
+        userService.update(user.getId(), 0, "Ana Maria", "ana@teste.com");
+
+        assertThrows(UserVersionConflictException.class, () -> userService.deleteById(user.getId(), 0));
+        assertEquals("Ana Maria", userService.findById(user.getId()).getName());
+
+        userService.deleteById(user.getId(), 1);
+        assertThrows(UserNotFoundException.class, () -> userService.findById(user.getId()));
+        assertThrows(UserNotFoundException.class, () -> userService.deleteById(user.getId(), 1));
+    }
+
+    @Test
+    void keysetPagingWalksForwardAndBackward() {
+        List<Long> ids = createUsers(5);
+
+        UserPage first = userService.findPage(null, 2, SortOrder.ASC);
+        assertEquals(ids.subList(0, 2), ids(first));
+        assertNull(first.getPreviousCursor());
+
+        UserPage second = userService.findPage(first.getNextCursor(), 2, SortOrder.ASC);
+        assertEquals(ids.subList(2, 4), ids(second));
+
+        UserPage last = userService.findPage(second.getNextCursor(), 2, SortOrder.ASC);
+        assertEquals(ids.subList(4, 5), ids(last));
+        assertFalse(last.hasNext());
+
+        UserPage back = userService.findPage(last.getPreviousCursor(), 2, SortOrder.ASC);
+        assertEquals(ids.subList(2, 4), ids(back));
+        assertTrue(back.hasNext());
+        assertTrue(back.hasPrevious());
+    }
+
+    @Test
+    void keysetPagingSkipsDeletedUsersInDescendingOrder() {
+        List<Long> ids = createUsers(5);
+        userService.deleteById(ids.get(3));
+
+        UserPage first = userService.findPage(null, 2, SortOrder.DESC);
+        assertEquals(List.of(ids.get(4), ids.get(2)), ids(first));
+
+        UserPage second = userService.findPage(first.getNextCursor(), 2, SortOrder.DESC);
+        assertEquals(List.of(ids.get(1), ids.get(0)), ids(second));
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    void searchByNamePrefixIgnoresCaseAndTreatsWildcardsAsText() {
+        userService.create("Ana Souza", "ana.souza@teste.com");
+        userService.create("anabela", "anabela@teste.com");
+        userService.create("Mariana", "mariana@teste.com");
+        userService.create("50% Desconto", "desconto@teste.com");
+
+        UserSearchPage page = userService.searchByNamePrefix("ANA", 0, 10);
+        assertEquals(List.of("Ana Souza", "anabela"), page.getUsers().stream().map(User::getName).toList());
+        assertFalse(page.hasNext());
+
+        UserSearchPage firstOnly = userService.searchByNamePrefix("ana", 0, 1);
+        assertEquals(1, firstOnly.getUsers().size());
+        assertTrue(firstOnly.hasNext());
+        assertEquals("anabela", userService.searchByNamePrefix("ana", 1, 1).getUsers().get(0).getName());
+
+        assertEquals(1, userService.searchByNamePrefix("50%", 0, 10).getUsers().size());
+        assertTrue(userService.searchByNamePrefix("5_", 0, 10).isEmpty());
+        assertTrue(userService.searchByNamePrefix("%", 0, 10).isEmpty());
+    }
+
+    /**
+     * Cria os usuários e devolve os IDs em ordem crescente, a ordem das páginas (no motor particionado
+     * a ordem dos IDs não é a de criação).
+     */
+    private List<Long> createUsers(int count) {
+        return IntStream.rangeClosed(1, count)
+                .mapToObj(i -> userService.create("Usuário " + i, "usuario" + i + "@teste.com").getId())
+                .sorted()
+                .toList();
+    }
+
+    private static List<Long> ids(UserPage page) {
+        return page.getUsers().stream().map(User::getId).toList();
+    }
+}
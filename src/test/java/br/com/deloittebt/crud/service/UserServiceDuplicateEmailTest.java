@@ -0,0 +1,35 @@
+package br.com.deloittebt.crud.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Email duplicado que só o índice único detecta: a linha é gravada direto no banco, sem passar pelo
+ * filtro de emails, como faria uma criação concorrente entre a verificação e o INSERT desta.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:email-duplicado;DB_CLOSE_DELAY=-1",
+        "crud.email-filter.enabled=true"})
+class UserServiceDuplicateEmailTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createReportsDuplicateDetectedByUniqueIndex() {
+        jdbcTemplate.update("INSERT INTO usuarios (id, nome, email) VALUES (NEXT VALUE FOR usuarios_seq, 'Outro', 'corrida@teste.com')");
+
+        DuplicateEmailException error = assertThrows(DuplicateEmailException.class,
+                () -> userService.create("Corrida", "Corrida@Teste.com"));
+        assertEquals("Email já cadastrado: corrida@teste.com", error.getMessage());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM usuarios", Integer.class));
+    }
+}
@@ -0,0 +1,46 @@
+package br.com.deloittebt.crud.service;
+
+import br.com.deloittebt.crud.model.User;
+import br.com.deloittebt.crud.model.UserStats;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Atualizações pela fila de escrita com os agregados ligados: o estado anterior é lido, travado,
+ * na transação do lote, e atualizações do mesmo usuário no mesmo lote movem o domínio em sequência.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:fila-agregados;DB_CLOSE_DELAY=-1",
+        "crud.write-behind.enabled=true",
+        "crud.write-behind.linger=50ms",
+        "crud.aggregates.enabled=true"})
+class UserWriteBehindAggregatesTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserAggregates aggregates;
+
+    @Test
+    void queuedUpdatesMoveDomainFromStateReadInBatch() {
+        User user = userService.create("Ana", "ana@um.com");
+
+        CompletableFuture.allOf(IntStream.of(2, 3, 4)
+                .mapToObj(domain -> userService.updateAsync(user.getId(), null, "Ana", "ana@" + domain + ".com"))
+                .toArray(CompletableFuture[]::new)).join();
+
+        assertEquals("ana@4.com", userService.findById(user.getId()).getEmail());
+        assertEquals(Map.of("4.com", 1L), aggregates.stats().topDomains().stream()
+                .filter(count -> count.value() != 0)
+                .collect(Collectors.toMap(UserStats.Count::key, UserStats.Count::value)));
+    }
+}